@@ -0,0 +1,174 @@
+package databaseBenchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dataGenerator.BoardGenerator;
+import database.Database;
+import database.Database.Role;
+import entityClasses.Post;
+import entityClasses.Reply;
+import entityClasses.User;
+import entityClasses.UserForList;
+
+/**
+ * <p> Title: DatabaseBenchmark Class. </p>
+ *
+ * <p> Description: JMH benchmarks for the Database methods the GUI calls most: listing, searching
+ * and opening posts, replying, marking a post read, the user list, role lookup and renaming a
+ * thread. Each runs against an H2 database held in memory and one stored in a file, filled by
+ * BoardGenerator with 1,000, 100,000 and 1,000,000 posts.
+ *
+ * The benchmarks are built and run by the jmh profile, which writes the results to
+ * target/jmh-result.json:
+ *
+ *     mvn -Pjmh verify
+ *     mvn -Pjmh verify -Djmh.args="-p rows=1000 -p mode=mem -rf json -rff target/jmh-result.json"
+ *
+ * Database is used directly, without the post cache, so the numbers are for the queries
+ * themselves. The writing benchmarks (createReply, markPostAsRead, updateThread) leave the board
+ * slightly larger or changed; at these sizes that does not move the read benchmarks. </p>
+ *
+ * <p> Copyright: Lynn Robert Carter © 2025 </p>
+ *
+ * @version 1.00
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class DatabaseBenchmark {
+
+    @Param({ "1000", "100000", "1000000" })
+    public int rows;
+
+    @Param({ "mem", "file" })
+    public String mode;
+
+    private static final int THREADS = 20;
+
+    private Database db;
+    private Path directory;
+    private int users;
+    private Random random;
+    private boolean renamed;
+
+    /**
+     * Creates and seeds the database for one rows/mode combination, then reconnects so the
+     * search index is built from the seeded board, as it would be at startup.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException, IOException {
+        String url;
+        if ("file".equals(mode)) {
+            directory = Files.createTempDirectory("benchmark");
+            url = "jdbc:h2:" + directory.resolve("board").toAbsolutePath();
+        } else {
+            url = "jdbc:h2:mem:benchmark" + System.nanoTime() + ";DB_CLOSE_DELAY=-1";
+        }
+        users = Math.max(50, rows / 100);
+        int workers = Runtime.getRuntime().availableProcessors();
+        db = new Database(url, workers + 1);
+        db.connectToDatabase();
+        new BoardGenerator(db, users, THREADS, rows, 360, workers).generate();
+        db.closeConnection();
+        db.connectToDatabase();
+
+        random = new Random(360);
+        renamed = false;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        db.closeConnection();
+        if (directory != null) {
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator)
+                    Files.delete(file);
+            }
+        }
+    }
+
+    private String anyUser() {
+        return BoardGenerator.username(random.nextInt(users));
+    }
+
+    private int anyPost() {
+        return 1 + random.nextInt(rows);
+    }
+
+    @Benchmark
+    public List<Post> getAllPosts() {
+        return db.getAllPosts(anyUser());
+    }
+
+    @Benchmark
+    public List<Post> searchPosts() {
+        return db.searchPosts(BoardGenerator.word(random.nextInt(200)), null, anyUser());
+    }
+
+    @Benchmark
+    public List<Reply> getRepliesForPost() {
+        return db.getRepliesForPost(anyPost(), anyUser());
+    }
+
+    @Benchmark
+    public boolean createReply() {
+        return db.createReply(new Reply(0, anyPost(), anyUser(), "A benchmark reply"));
+    }
+
+    @Benchmark
+    public void markPostAsRead() {
+        db.markPostAsRead(anyPost(), anyUser());
+    }
+
+    @Benchmark
+    public List<UserForList> getAllUsersForList() {
+        return db.getAllUsersForList();
+    }
+
+    @Benchmark
+    public EnumSet<Role> getRoles() {
+        User user = new User();
+        user.setUserName(anyUser());
+        user.setPassword(BoardGenerator.PASSWORD);
+        return db.getRoles(user);
+    }
+
+    /**
+     * Renames the General thread and back on alternate calls, so every call moves the posts of
+     * one thread.
+     */
+    @Benchmark
+    public void updateThread() {
+        if (renamed)
+            db.updateThread("General (renamed)", "General", true);
+        else
+            db.updateThread("General", "General (renamed)", true);
+        renamed = !renamed;
+    }
+}
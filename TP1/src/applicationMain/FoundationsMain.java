@@ -1,6 +1,7 @@
 package applicationMain;
 	
 import java.sql.SQLException;
+import database.CachedDatabase;
 import database.Database;
 import javafx.application.Application;
 import javafx.stage.Stage;
@@ -73,8 +74,9 @@ public class FoundationsMain extends Application {
 
 	// These attributes establish the database and the fixed reference to it for the rest of the
 	// application so we do not need to keep passing the reference in parameters to the rest of the
-	// system for other methods that need it can access it.
-	public static Database database = new Database();
+	// system for other methods that need it can access it. Post list reads are served from a cache
+	// in front of H2 that the writes keep up to date.
+	public static Database database = new CachedDatabase();
     private Alert databaseInUse = new Alert(AlertType.INFORMATION);
 
 	public static int activeHomePage = 0;		// Which role's home page is currently active?
@@ -95,6 +97,9 @@ public class FoundationsMain extends Application {
 			System.exit(0);
 		}
 		
+		// The Quit buttons call System.exit, so write the queued read marks on the way out
+		Runtime.getRuntime().addShutdownHook(new Thread(database::closeConnection, "database-shutdown"));
+		
 		// If the database is empty, no users have been established, so this user must be an admin
 		// user doing initial system startup activities and we need to set that admin's username
 		// and password using a special start you page.
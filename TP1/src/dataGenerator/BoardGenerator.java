@@ -0,0 +1,465 @@
+package dataGenerator;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import database.Database;
+import database.ReadSet;
+import entityClasses.User;
+
+/**
+ * <p> Title: BoardGenerator Class. </p>
+ *
+ * <p> Description: Fills an empty database with a large, realistic discussion board for
+ * benchmarks and load tests. The board is a function of its sizes and the seed: running the
+ * generator twice with the same arguments gives the same users, posts, replies, moderation log and
+ * read state, whatever the number of worker threads.
+ *
+ * Users are registered with Database.register, one in ten of them staff (every other one also a
+ * student) and user0 the admin; threads are made with createThread. Everything else is too much
+ * for one statement per row and is written with JDBC batches by several workers, each on its own
+ * pooled connection, into the same columns create(Post) and createReply fill in:
+ *
+ *   - posts, each with a number of replies drawn from a Zipf distribution, so most posts get
+ *     none or a few and a handful get hundreds (about 3.6 replies per post on average);
+ *   - one reply in ten private feedback from a staff member to the post's author;
+ *   - one post and one reply in a hundred hidden by a staff member, with its moderation_log row;
+ *   - a read_state row for every user, marking a Zipf-distributed number of posts, with all of
+ *     their replies, as read.
+ *
+ * Authors, threads and words are also Zipf-distributed, so a few users, threads and search terms
+ * are very common and most are rare. The search index is built from the new rows the next time
+ * the database is connected. </p>
+ *
+ * <p> Usage: BoardGenerator [jdbcUrl] [users] [threads] [posts] [seed] [workers] (defaults
+ * jdbc:h2:~/FoundationDatabase, 1000, 20, 10000, 360 and the number of processors). Two million
+ * posts make about ten million rows. </p>
+ *
+ * <p> Copyright: Lynn Robert Carter © 2025 </p>
+ *
+ * @version 1.00
+ */
+public class BoardGenerator {
+
+    /** The password every generated user is registered with. */
+    public static final String PASSWORD = "Generated1!";
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 6, 8, 0);
+    private static final int CHUNK = 10_000;
+    private static final int BATCH = 1_000;
+    private static final int VOCABULARY = 5_000;
+    private static final int MAX_FAN_OUT = 1_000;
+    private static final int MAX_READS = 1_000;
+
+    // Independent random streams, so adding to one part of the board does not change the others
+    private static final int FAN_OUT_STREAM = 1;
+    private static final int POST_STREAM = 2;
+    private static final int READ_STREAM = 3;
+
+    private final Database db;
+    private final int users;
+    private final int threads;
+    private final int posts;
+    private final long seed;
+    private final int workers;
+
+    private final String[] threadTitles;
+    private final String[] staff;
+    private final Zipf authors;
+    private final Zipf topics;
+    private final Zipf words = new Zipf(VOCABULARY, 1.0);
+    private final Zipf fanOut = new Zipf(MAX_FAN_OUT + 1, 2.0);
+    private final Zipf reads;
+
+    // firstReply[p - 1] is the ID of post p's first reply; its replies are numbered on from there
+    private int[] firstReply;
+
+    /**
+     * A moderation action to be logged once all posts are written, so the log is in post order.
+     */
+    private static final class Action {
+        final int postID;
+        final String moderator;
+        final String action;
+        final String reason;
+        final Timestamp timestamp;
+
+        Action(int postID, String moderator, String action, String reason, Timestamp timestamp) {
+            this.postID = postID;
+            this.moderator = moderator;
+            this.action = action;
+            this.reason = reason;
+            this.timestamp = timestamp;
+        }
+    }
+
+    /**
+     * A Zipf distribution over 0 to n - 1: value k has weight 1 / (k + 1)^exponent. Sampling is a
+     * binary search in the cumulative weights.
+     */
+    private static final class Zipf {
+        private final double[] cumulative;
+
+        Zipf(int n, double exponent) {
+            cumulative = new double[n];
+            double total = 0;
+            for (int k = 0; k < n; k++) {
+                total += 1 / Math.pow(k + 1, exponent);
+                cumulative[k] = total;
+            }
+            for (int k = 0; k < n; k++)
+                cumulative[k] /= total;
+        }
+
+        int sample(Random random) {
+            double u = random.nextDouble();
+            int low = 0;
+            int high = cumulative.length - 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (cumulative[mid] < u)
+                    low = mid + 1;
+                else
+                    high = mid;
+            }
+            return low;
+        }
+    }
+
+    /**
+     * @param db      A connected database with an empty board.
+     * @param users   The number of users; at least 2.
+     * @param threads The number of discussion threads; at least 1.
+     * @param posts   The number of posts.
+     * @param seed    The seed the whole board is derived from.
+     * @param workers The number of threads writing posts, replies and read state.
+     */
+    public BoardGenerator(Database db, int users, int threads, int posts, long seed, int workers) {
+        if (users < 2 || threads < 1 || posts < 0 || workers < 1)
+            throw new IllegalArgumentException("Need at least 2 users, 1 thread and 1 worker");
+        this.db = db;
+        this.users = users;
+        this.threads = threads;
+        this.posts = posts;
+        this.seed = seed;
+        this.workers = workers;
+
+        threadTitles = new String[threads];
+        for (int t = 0; t < threads; t++)
+            threadTitles[t] = threadTitle(t);
+        List<String> staffNames = new ArrayList<>();
+        for (int i = 0; i < users; i++)
+            if (isStaff(i))
+                staffNames.add(username(i));
+        staff = staffNames.toArray(new String[0]);
+        authors = new Zipf(users, 1.0);
+        topics = new Zipf(threads, 1.0);
+        reads = new Zipf(Math.max(1, Math.min(posts, MAX_READS)), 1.0);
+    }
+
+    public static void main(String[] args) throws Exception {
+        String url = args.length > 0 ? args[0] : "jdbc:h2:~/FoundationDatabase";
+        int users = args.length > 1 ? Integer.parseInt(args[1]) : 1_000;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        int posts = args.length > 3 ? Integer.parseInt(args[3]) : 10_000;
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : 360;
+        int workers = args.length > 5 ? Integer.parseInt(args[5]) : Runtime.getRuntime().availableProcessors();
+
+        Database db = new Database(url, workers + 1);
+        db.connectToDatabase();
+        try {
+            long start = System.nanoTime();
+            long rows = new BoardGenerator(db, users, threads, posts, seed, workers).generate();
+            System.out.printf("Generated %,d rows in %.1f s%n", rows, (System.nanoTime() - start) / 1e9);
+        } finally {
+            db.closeConnection();
+        }
+    }
+
+    // --- Naming; benchmarks use these to find their way around a generated board ---
+
+    /**
+     * @return The username of the i-th generated user.
+     */
+    public static String username(int i) {
+        return "user" + i;
+    }
+
+    /**
+     * @return The title of the t-th generated thread; the first is General.
+     */
+    public static String threadTitle(int t) {
+        return t == 0 ? "General" : "Thread " + t;
+    }
+
+    /**
+     * @return The rank-th most common word of the generated posts and replies.
+     */
+    public static String word(int rank) {
+        return "topic" + rank;
+    }
+
+    static boolean isStaff(int i) {
+        return i % 10 == 1;
+    }
+
+    // --- Generation ---
+
+    /**
+     * Writes the whole board.
+     *
+     * @return The number of rows written.
+     * @throws SQLException if a row cannot be written.
+     */
+    public long generate() throws SQLException {
+        registerUsers();
+        for (String title : threadTitles)
+            db.createThread(title);
+        long rows = (long) users + threads;
+
+        planReplies();
+        rows += posts + (long) firstReply[posts] - 1;
+
+        // Posts and replies, a chunk of posts per task
+        List<Future<List<Action>>> chunks = new ArrayList<>();
+        ExecutorService pool = Executors.newFixedThreadPool(workers, namedThreads("board-generator"));
+        try {
+            for (int from = 1; from <= posts; from += CHUNK) {
+                int first = from;
+                int last = Math.min(posts, from + CHUNK - 1);
+                chunks.add(pool.submit(() -> writePosts(first, last)));
+            }
+            List<Action> actions = new ArrayList<>();
+            for (Future<List<Action>> chunk : chunks)
+                actions.addAll(await(chunk));
+            writeModerationLog(actions);
+            rows += actions.size();
+            restartIdentity("postsDB", "postID", posts + 1);
+            restartIdentity("repliesDB", "replyID", firstReply[posts]);
+            // the replies were written around createReply, so count them in one pass
+            db.repairReplyCounters();
+
+            // Read state, a chunk of users per task
+            List<Future<Integer>> readChunks = new ArrayList<>();
+            for (int from = 0; from < users; from += CHUNK / 10) {
+                int first = from;
+                int last = Math.min(users, from + CHUNK / 10);
+                readChunks.add(pool.submit(() -> writeReadState(first, last)));
+            }
+            for (Future<Integer> chunk : readChunks)
+                rows += await(chunk);
+        } finally {
+            pool.shutdownNow();
+        }
+        return rows;
+    }
+
+    private void registerUsers() throws SQLException {
+        // every user has the same password, so it is hashed once
+        String passwordHash = db.getPasswordHasher().hash(PASSWORD);
+        for (int i = 0; i < users; i++) {
+            boolean isStaff = isStaff(i);
+            boolean isStudent = !isStaff || i % 20 == 1;
+            db.register(new User(username(i), PASSWORD, "First" + i, "", "Last" + i, "",
+                    username(i) + "@example.edu", i == 0, isStudent, isStaff), passwordHash);
+        }
+    }
+
+    /**
+     * Draws every post's reply count, in post order from one stream, and numbers the replies.
+     */
+    private void planReplies() {
+        Random random = random(FAN_OUT_STREAM, 0);
+        firstReply = new int[posts + 1];
+        int next = 1;
+        for (int p = 0; p < posts; p++) {
+            firstReply[p] = next;
+            next = Math.addExact(next, fanOut.sample(random));
+        }
+        firstReply[posts] = next;
+    }
+
+    /**
+     * Writes posts first to last and their replies in one transaction.
+     *
+     * @return The moderation actions taken on them.
+     */
+    private List<Action> writePosts(int first, int last) throws SQLException {
+        Random random = random(POST_STREAM, first);
+        List<Action> actions = new ArrayList<>();
+        try (Connection conn = db.getConnectionPool().getConnection();
+                PreparedStatement post = conn.prepareStatement("INSERT INTO postsDB (postID, authorUsername, "
+                        + "title, content, thread, visible, timestamp) VALUES (?, ?, ?, ?, ?, ?, ?)");
+                PreparedStatement reply = conn.prepareStatement("INSERT INTO repliesDB (replyID, postID, "
+                        + "authorUsername, content, visible, visibility, recipient, timestamp) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)")) {
+            conn.setAutoCommit(false);
+            int pending = 0;
+            for (int postID = first; postID <= last; postID++) {
+                String author = username(authors.sample(random));
+                LocalDateTime posted = START.plusMinutes(postID);
+                boolean hidden = random.nextInt(100) == 0;
+                post.setInt(1, postID);
+                post.setString(2, author);
+                post.setString(3, "Question " + postID + " about " + word(words.sample(random)));
+                post.setString(4, text(random, 20 + random.nextInt(40)));
+                post.setString(5, threadTitles[topics.sample(random)]);
+                post.setBoolean(6, !hidden);
+                post.setTimestamp(7, Timestamp.valueOf(posted));
+                post.addBatch();
+                if (hidden)
+                    actions.add(new Action(postID, staff[random.nextInt(staff.length)], "HIDE_POST",
+                            "Off topic", Timestamp.valueOf(posted.plusHours(1))));
+
+                for (int replyID = firstReply[postID - 1]; replyID < firstReply[postID]; replyID++) {
+                    boolean feedback = random.nextInt(10) == 0;
+                    boolean replyHidden = random.nextInt(100) == 0;
+                    LocalDateTime replied = posted.plusSeconds(replyID - firstReply[postID - 1] + 1);
+                    reply.setInt(1, replyID);
+                    reply.setInt(2, postID);
+                    reply.setString(3, feedback ? staff[random.nextInt(staff.length)]
+                            : username(authors.sample(random)));
+                    reply.setString(4, text(random, 5 + random.nextInt(25)));
+                    reply.setBoolean(5, !replyHidden);
+                    reply.setString(6, feedback ? "private" : "public");
+                    reply.setString(7, feedback ? author : null);
+                    reply.setTimestamp(8, Timestamp.valueOf(replied));
+                    reply.addBatch();
+                    if (replyHidden)
+                        actions.add(new Action(postID, staff[random.nextInt(staff.length)], "HIDE_REPLY",
+                                "Inappropriate", Timestamp.valueOf(replied.plusHours(1))));
+                    if (++pending == BATCH) {
+                        reply.executeBatch();
+                        pending = 0;
+                    }
+                }
+                if ((postID - first + 1) % BATCH == 0)
+                    post.executeBatch();
+            }
+            post.executeBatch();
+            reply.executeBatch();
+            conn.commit();
+            conn.setAutoCommit(true);
+        }
+        return actions;
+    }
+
+    private void writeModerationLog(List<Action> actions) throws SQLException {
+        try (Connection conn = db.getConnectionPool().getConnection();
+                PreparedStatement pstmt = conn.prepareStatement("INSERT INTO moderation_log "
+                        + "(postID, username, action, reason, timestamp) VALUES (?, ?, ?, ?, ?)")) {
+            conn.setAutoCommit(false);
+            for (int i = 0; i < actions.size(); i++) {
+                Action a = actions.get(i);
+                pstmt.setInt(1, a.postID);
+                pstmt.setString(2, a.moderator);
+                pstmt.setString(3, a.action);
+                pstmt.setString(4, a.reason);
+                pstmt.setTimestamp(5, a.timestamp);
+                pstmt.addBatch();
+                if ((i + 1) % BATCH == 0)
+                    pstmt.executeBatch();
+            }
+            pstmt.executeBatch();
+            conn.commit();
+            conn.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Writes the read_state rows of users first to last - 1. Each user reads a Zipf-distributed
+     * number of random posts and every reply to them.
+     *
+     * @return The number of rows written.
+     */
+    private int writeReadState(int first, int last) throws SQLException {
+        if (posts == 0)
+            return 0;
+        try (Connection conn = db.getConnectionPool().getConnection();
+                PreparedStatement pstmt = conn.prepareStatement("MERGE INTO read_state "
+                        + "(username, readPosts, readReplies) KEY(username) VALUES (?, ?, ?)")) {
+            conn.setAutoCommit(false);
+            for (int i = first; i < last; i++) {
+                Random random = random(READ_STREAM, i);
+                ReadSet readPosts = new ReadSet();
+                ReadSet readReplies = new ReadSet();
+                for (int n = reads.sample(random) + 1; n > 0; n--) {
+                    int p = random.nextInt(posts);
+                    readPosts.add(p + 1);
+                    for (int replyID = firstReply[p]; replyID < firstReply[p + 1]; replyID++)
+                        readReplies.add(replyID);
+                }
+                pstmt.setString(1, username(i));
+                pstmt.setBytes(2, readPosts.toBytes());
+                pstmt.setBytes(3, readReplies.toBytes());
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+            conn.commit();
+            conn.setAutoCommit(true);
+        }
+        return last - first;
+    }
+
+    // The rows were written with explicit IDs, which H2's identity columns do not count
+    private void restartIdentity(String table, String column, int next) throws SQLException {
+        try (Connection conn = db.getConnectionPool().getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(
+                        "ALTER TABLE " + table + " ALTER COLUMN " + column + " RESTART WITH " + next)) {
+            pstmt.execute();
+        }
+    }
+
+    private String text(Random random, int length) {
+        StringBuilder text = new StringBuilder();
+        for (int w = 0; w < length; w++)
+            text.append(word(words.sample(random))).append(' ');
+        return text.toString().trim();
+    }
+
+    /**
+     * A random source for one part of the board, so each chunk draws the same values no matter
+     * which worker runs it or when.
+     */
+    private Random random(int stream, int index) {
+        // SplitMix64's finalizer, so neighbouring indexes get unrelated seeds
+        long z = seed + 0x9E3779B97F4A7C15L * (((long) stream << 32) + index + 1);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return new Random(z ^ (z >>> 31));
+    }
+
+    private static ThreadFactory namedThreads(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, name + "-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    private static <T> T await(Future<T> task) throws SQLException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while generating the board", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException)
+                throw (SQLException) e.getCause();
+            throw new SQLException("Generating the board failed", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package dataGeneratorTesting;
+
+import static org.junit.Assert.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.EnumSet;
+
+import org.junit.After;
+import org.junit.Test;
+
+import dataGenerator.BoardGenerator;
+import database.Database;
+import database.Database.Role;
+import entityClasses.Post;
+
+/**
+ * <p>
+ * Title: BoardGeneratorTest
+ * </p>
+ *
+ * <p>
+ * Description: Generates small boards and checks that they are complete and
+ * that the same seed always gives the same board.
+ * </p>
+ *
+ * <p>
+ * Requirements Checked:
+ * R-GEN-01: The same seed gives the same rows, whatever the number of workers.
+ * R-GEN-02: Users, threads, posts, replies, moderation log and read state are
+ * all written, and the board can be used through Database afterwards.
+ * </p>
+ */
+public class BoardGeneratorTest {
+
+    private static final int USERS = 30;
+    private static final int THREADS = 3;
+    private static final int POSTS = 500;
+
+    private Database first;
+    private Database second;
+
+    @After
+    public void tearDown() {
+        if (first != null)
+            first.closeConnection();
+        if (second != null)
+            second.closeConnection();
+    }
+
+    private Database generate(long seed, int workers) throws Exception {
+        Database db = new Database("jdbc:h2:mem:boardGeneratorTest" + System.nanoTime() + ";DB_CLOSE_DELAY=-1",
+                workers + 1);
+        db.connectToDatabase();
+        new BoardGenerator(db, USERS, THREADS, POSTS, seed, workers).generate();
+        return db;
+    }
+
+    // Every selected column of every row, in key order
+    private static String dump(Database db, String query) throws Exception {
+        StringBuilder rows = new StringBuilder();
+        try (Connection conn = db.getConnectionPool().getConnection();
+                PreparedStatement ps = conn.prepareStatement(query);
+                ResultSet rs = ps.executeQuery()) {
+            ResultSetMetaData meta = rs.getMetaData();
+            while (rs.next()) {
+                for (int c = 1; c <= meta.getColumnCount(); c++) {
+                    boolean blob = meta.getColumnType(c) == Types.BLOB;
+                    rows.append(blob ? Arrays.toString(rs.getBytes(c)) : rs.getObject(c)).append('|');
+                }
+                rows.append('\n');
+            }
+        }
+        return rows.toString();
+    }
+
+    private static int count(Database db, String query) throws Exception {
+        try (Connection conn = db.getConnectionPool().getConnection();
+                PreparedStatement ps = conn.prepareStatement(query);
+                ResultSet rs = ps.executeQuery()) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    // discussion_threads.created_at is stamped with the current time and each password hash has
+    // a random salt, so they are left out
+    private static final String[] TABLES = {
+            "SELECT userName, adminRole, newStudent, newStaff FROM userDB ORDER BY userName",
+            "SELECT title FROM discussion_threads ORDER BY title",
+            "SELECT * FROM postsDB ORDER BY postID",
+            "SELECT * FROM repliesDB ORDER BY replyID",
+            "SELECT * FROM moderation_log ORDER BY logID",
+            "SELECT * FROM read_state ORDER BY username" };
+
+    @Test
+    public void testSameSeedGivesSameBoard() throws Exception {
+        first = generate(42, 1);
+        second = generate(42, 4);
+        for (String table : TABLES)
+            assertEquals(table, dump(first, table), dump(second, table));
+    }
+
+    @Test
+    public void testBoardIsComplete() throws Exception {
+        first = generate(7, 2);
+
+        assertEquals(USERS, count(first, "SELECT COUNT(*) FROM userDB"));
+        assertEquals(THREADS, count(first, "SELECT COUNT(*) FROM discussion_threads"));
+        assertEquals(POSTS, count(first, "SELECT COUNT(*) FROM postsDB"));
+        assertEquals(USERS, count(first, "SELECT COUNT(*) FROM read_state"));
+        assertTrue(count(first, "SELECT COUNT(*) FROM repliesDB WHERE visibility = 'private'") > 0);
+        assertEquals(count(first, "SELECT COUNT(*) FROM postsDB WHERE visible = FALSE")
+                + count(first, "SELECT COUNT(*) FROM repliesDB WHERE visible = FALSE"),
+                count(first, "SELECT COUNT(*) FROM moderation_log"));
+
+        // Zipf fan-out: the busiest post has far more replies than the average one
+        int replies = count(first, "SELECT COUNT(*) FROM repliesDB");
+        int busiest = count(first, "SELECT MAX(n) FROM (SELECT COUNT(*) n FROM repliesDB GROUP BY postID)");
+        assertTrue(busiest > 5 * replies / POSTS);
+
+        EnumSet<Role> roles = first.getRoles(BoardGenerator.username(1));
+        assertTrue(roles.contains(Role.STAFF));
+        assertTrue(first.getRoles(BoardGenerator.username(0)).contains(Role.ADMIN));
+        assertTrue(first.checkPassword(BoardGenerator.username(3), BoardGenerator.PASSWORD));
+
+        // New rows carry on after the generated IDs
+        int postID = first.create(new Post(0, BoardGenerator.username(2), "After", "Generated board",
+                BoardGenerator.threadTitle(0), false, false, 0, 0));
+        assertEquals(POSTS + 1, postID);
+    }
+}
@@ -0,0 +1,417 @@
+package database;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * <p> Title: ArchiveExporter Class </p>
+ *
+ * <p> Description: Writes the discussion tables to NDJSON or CSV files for a semester archive.
+ * Each table is read with one forward-only, read-only cursor and every row is written as soon
+ * as it is read, through a fixed-size buffer onto a file channel, optionally gzipped. No list of
+ * posts or replies is ever built, so the memory an export needs does not depend on how many
+ * rows the table holds.
+ *
+ * NDJSON files hold one object per row, keyed by column name; numbers and booleans are written
+ * as such, timestamps as ISO-8601 local date-times and SQL NULL as null. CSV files start with a
+ * header row and quote a field, as RFC 4180 describes, only when it holds a comma, a quote or a
+ * line break; SQL NULL is an empty field. </p>
+ *
+ * <p> Copyright: Lynn Robert Carter © 2025 </p>
+ *
+ * @version 1.00
+ */
+public class ArchiveExporter {
+
+    /**
+     * The tables that can be exported, each read in primary key order.
+     */
+    public enum Table {
+        POSTS("posts", "SELECT postID, authorUsername, title, content, thread, visible, deleted, timestamp "
+                + "FROM postsDB ORDER BY postID"),
+        REPLIES("replies", "SELECT replyID, postID, authorUsername, content, visible, visibility, recipient, "
+                + "timestamp FROM repliesDB ORDER BY replyID"),
+        MODERATION_LOG("moderation_log", "SELECT logID, postID, username, action, reason, timestamp "
+                + "FROM moderation_log ORDER BY logID"),
+        ADMIN_REQUESTS("admin_requests", "SELECT requestID, requester, description, status, adminComments, "
+                + "created_at, updated_at FROM admin_requests ORDER BY requestID"),
+        GRADING_PARAMETERS("grading_parameters", "SELECT id, name, description "
+                + "FROM grading_parameters ORDER BY id");
+
+        private final String fileName;
+        private final String query;
+
+        Table(String fileName, String query) {
+            this.fileName = fileName;
+            this.query = query;
+        }
+
+        /**
+         * @return The name of the table's file in an archive, without its extension.
+         */
+        public String getFileName() {
+            return fileName;
+        }
+    }
+
+    /**
+     * The file formats an export can be written in.
+     */
+    public enum Format {
+        NDJSON(".ndjson"), CSV(".csv");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        /**
+         * @return The file name extension, with its leading period.
+         */
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    /** How many rows the driver is asked to fetch from the cursor at a time. */
+    static final int FETCH_SIZE = 1000;
+
+    /** The size of the character and byte buffers between the rows and the channel. */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Database database;
+
+    /**
+     * @param database The connected database to export from.
+     */
+    public ArchiveExporter(Database database) {
+        this.database = database;
+    }
+
+    /**
+     * Exports every table into a directory, one file per table named for the table and the
+     * format, such as posts.ndjson or posts.ndjson.gz.
+     *
+     * @param directory Where to write the files; it is created if it does not exist.
+     * @param format    The format of the files.
+     * @param gzip      Whether to gzip the files.
+     * @return The number of rows written for each table.
+     * @throws IOException  if a file cannot be written.
+     * @throws SQLException if a table cannot be read.
+     */
+    public Map<Table, Long> exportAll(Path directory, Format format, boolean gzip) throws IOException, SQLException {
+        Files.createDirectories(directory);
+        Map<Table, Long> counts = new EnumMap<>(Table.class);
+        for (Table table : Table.values()) {
+            String name = table.getFileName() + format.getExtension() + (gzip ? ".gz" : "");
+            counts.put(table, export(table, format, directory.resolve(name)));
+        }
+        return counts;
+    }
+
+    /**
+     * Exports one table to a file, gzipped if the file name ends in ".gz". The rows are written
+     * to a temporary file next to it, which replaces the file only once the export succeeds.
+     *
+     * @param table  The table to export.
+     * @param format The format of the file.
+     * @param file   The file to write.
+     * @return The number of rows written.
+     * @throws IOException  if the file cannot be written.
+     * @throws SQLException if the table cannot be read.
+     */
+    public long export(Table table, Format format, Path file) throws IOException, SQLException {
+        Path partial = file.resolveSibling(file.getFileName() + ".part");
+        long rows;
+        try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            if (file.getFileName().toString().endsWith(".gz")) {
+                GZIPOutputStream gzip = new GZIPOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+                rows = export(table, format, Channels.newChannel(gzip));
+                gzip.finish();
+                gzip.flush();
+            } else {
+                rows = export(table, format, channel);
+            }
+            channel.force(false);
+        } catch (IOException | SQLException | RuntimeException e) {
+            Files.deleteIfExists(partial);
+            throw e;
+        }
+        Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return rows;
+    }
+
+    /**
+     * Exports one table to a channel. Everything is written to the channel before this returns,
+     * and the channel is left open.
+     *
+     * @param table  The table to export.
+     * @param format The format to write.
+     * @param out    Where to write the rows.
+     * @return The number of rows written.
+     * @throws IOException  if the channel cannot be written.
+     * @throws SQLException if the table cannot be read.
+     */
+    public long export(Table table, Format format, WritableByteChannel out) throws IOException, SQLException {
+        ChannelWriter writer = new ChannelWriter(out);
+        long rows = 0;
+        try (Connection conn = database.getConnection()) {
+            // Some drivers only stream a result set in fetch-size pieces inside a transaction
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try (Statement stmt = conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                stmt.setFetchSize(FETCH_SIZE);
+                try (ResultSet rs = stmt.executeQuery(table.query)) {
+                    ResultSetMetaData meta = rs.getMetaData();
+                    int columns = meta.getColumnCount();
+                    String[] names = new String[columns];
+                    int[] types = new int[columns];
+                    for (int c = 0; c < columns; c++) {
+                        names[c] = meta.getColumnLabel(c + 1);
+                        types[c] = meta.getColumnType(c + 1);
+                    }
+                    if (format == Format.CSV)
+                        writeCsvHeader(writer, names);
+                    while (rs.next()) {
+                        if (format == Format.CSV)
+                            writeCsvRow(writer, rs, types);
+                        else
+                            writeJsonRow(writer, rs, names, types);
+                        rows++;
+                    }
+                }
+                conn.commit();
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+        writer.close();
+        return rows;
+    }
+
+    private static void writeCsvHeader(Writer out, String[] names) throws IOException {
+        for (int c = 0; c < names.length; c++) {
+            if (c > 0)
+                out.write(',');
+            writeCsvField(out, names[c]);
+        }
+        out.write('\n');
+    }
+
+    private static void writeCsvRow(Writer out, ResultSet rs, int[] types) throws SQLException, IOException {
+        for (int c = 0; c < types.length; c++) {
+            if (c > 0)
+                out.write(',');
+            switch (types[c]) {
+            case Types.INTEGER, Types.BIGINT, Types.SMALLINT, Types.TINYINT -> {
+                long value = rs.getLong(c + 1);
+                if (!rs.wasNull())
+                    out.write(Long.toString(value));
+            }
+            case Types.BOOLEAN, Types.BIT -> {
+                boolean value = rs.getBoolean(c + 1);
+                if (!rs.wasNull())
+                    out.write(value ? "true" : "false");
+            }
+            case Types.TIMESTAMP -> {
+                Timestamp value = rs.getTimestamp(c + 1);
+                if (value != null)
+                    out.write(value.toLocalDateTime().toString());
+            }
+            default -> {
+                String value = rs.getString(c + 1);
+                if (value != null)
+                    writeCsvField(out, value);
+            }
+            }
+        }
+        out.write('\n');
+    }
+
+    private static void writeCsvField(Writer out, String value) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char ch = value.charAt(i);
+            quote = ch == ',' || ch == '"' || ch == '\n' || ch == '\r';
+        }
+        if (!quote) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            if (ch == '"')
+                out.write('"');
+            out.write(ch);
+        }
+        out.write('"');
+    }
+
+    private static void writeJsonRow(Writer out, ResultSet rs, String[] names, int[] types)
+            throws SQLException, IOException {
+        out.write('{');
+        for (int c = 0; c < types.length; c++) {
+            if (c > 0)
+                out.write(',');
+            writeJsonString(out, names[c]);
+            out.write(':');
+            switch (types[c]) {
+            case Types.INTEGER, Types.BIGINT, Types.SMALLINT, Types.TINYINT -> {
+                long value = rs.getLong(c + 1);
+                out.write(rs.wasNull() ? "null" : Long.toString(value));
+            }
+            case Types.BOOLEAN, Types.BIT -> {
+                boolean value = rs.getBoolean(c + 1);
+                out.write(rs.wasNull() ? "null" : value ? "true" : "false");
+            }
+            case Types.TIMESTAMP -> {
+                Timestamp value = rs.getTimestamp(c + 1);
+                if (value == null)
+                    out.write("null");
+                else
+                    writeJsonString(out, value.toLocalDateTime().toString());
+            }
+            default -> {
+                String value = rs.getString(c + 1);
+                if (value == null)
+                    out.write("null");
+                else
+                    writeJsonString(out, value);
+            }
+            }
+        }
+        out.write("}\n");
+    }
+
+    private static void writeJsonString(Writer out, String value) throws IOException {
+        out.write('"');
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            if (ch >= 0x20 && ch != '"' && ch != '\\')
+                continue;
+            out.write(value, start, i - start);
+            start = i + 1;
+            switch (ch) {
+            case '"' -> out.write("\\\"");
+            case '\\' -> out.write("\\\\");
+            case '\n' -> out.write("\\n");
+            case '\r' -> out.write("\\r");
+            case '\t' -> out.write("\\t");
+            default -> out.write(String.format("\\u%04x", (int) ch));
+            }
+        }
+        out.write(value, start, value.length() - start);
+        out.write('"');
+    }
+
+    /**
+     * <p> Title: ChannelWriter Class </p>
+     *
+     * <p> Description: A Writer that encodes its characters as UTF-8 into one direct buffer and
+     * writes the buffer to a channel whenever it fills. Closing it does not close the channel.
+     * </p>
+     */
+    static final class ChannelWriter extends Writer {
+        private final WritableByteChannel channel;
+        private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private final CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+        private final ByteBuffer bytes = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        ChannelWriter(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            chars.put((char) c);
+            if (!chars.hasRemaining())
+                encode(false);
+        }
+
+        @Override
+        public void write(String s, int off, int len) throws IOException {
+            while (len > 0) {
+                int n = Math.min(len, chars.remaining());
+                chars.put(s, off, off + n);
+                off += n;
+                len -= n;
+                if (!chars.hasRemaining())
+                    encode(false);
+            }
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            while (len > 0) {
+                int n = Math.min(len, chars.remaining());
+                chars.put(cbuf, off, n);
+                off += n;
+                len -= n;
+                if (!chars.hasRemaining())
+                    encode(false);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            encode(false);
+            drain();
+        }
+
+        @Override
+        public void close() throws IOException {
+            encode(true);
+            while (encoder.flush(bytes).isOverflow())
+                drain();
+            drain();
+        }
+
+        // Moves the buffered characters into the byte buffer, draining it when it fills; an
+        // unfinished surrogate pair stays in the character buffer until its second half comes
+        private void encode(boolean endOfInput) throws IOException {
+            chars.flip();
+            CoderResult result;
+            while ((result = encoder.encode(chars, bytes, endOfInput)).isOverflow())
+                drain();
+            if (result.isError())
+                result.throwException();
+            chars.compact();
+        }
+
+        private void drain() throws IOException {
+            bytes.flip();
+            while (bytes.hasRemaining())
+                channel.write(bytes);
+            bytes.clear();
+        }
+    }
+}
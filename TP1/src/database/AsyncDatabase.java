@@ -0,0 +1,177 @@
+package database;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import entityClasses.Post;
+import entityClasses.Reply;
+
+/**
+ * <p> Title: AsyncDatabase Class </p>
+ *
+ * <p> Description: Runs Database calls off the caller's thread. Every call is executed on its
+ * own virtual thread and returns a CompletableFuture, so a GUI can start a load and keep
+ * handling events while the query runs. Results are handed back on the result executor given
+ * to the constructor; the discussion GUI passes Platform::runLater so callbacks run on the
+ * JavaFX Application Thread.
+ *
+ * A Latest channel keeps only the newest request of one kind (e.g. "the replies of the
+ * selected post"). Starting a new request on a channel cancels the previous one, and the
+ * result of a request that is no longer the newest is dropped instead of being shown. </p>
+ *
+ * <p> Copyright: Lynn Robert Carter © 2025 </p>
+ *
+ * @version 1.00
+ */
+public class AsyncDatabase {
+
+    private final Database database;
+    private final Executor resultExecutor;
+    private final ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Creates the facade.
+     *
+     * @param database       The database whose calls should run in the background.
+     * @param resultExecutor Where result callbacks run, e.g. Platform::runLater.
+     */
+    public AsyncDatabase(Database database, Executor resultExecutor) {
+        this.database = database;
+        this.resultExecutor = resultExecutor;
+    }
+
+    /**
+     * Runs a call against the database on a virtual thread.
+     *
+     * @param call The work to run, given the wrapped Database.
+     * @return A future completed with the call's result.
+     */
+    public <T> CompletableFuture<T> submit(Function<Database, T> call) {
+        return CompletableFuture.supplyAsync(() -> call.apply(database), workers);
+    }
+
+    /**
+     * Runs a call that has no result, such as an insert or update, on a virtual thread.
+     *
+     * @param call The work to run, given the wrapped Database.
+     * @return A future completed when the call has finished.
+     */
+    public CompletableFuture<Void> execute(Consumer<Database> call) {
+        return CompletableFuture.runAsync(() -> call.accept(database), workers);
+    }
+
+    public CompletableFuture<List<Post>> getAllPosts(String username, Database.Role sessionRole) {
+        return submit(db -> db.getAllPosts(username, sessionRole));
+    }
+
+    public CompletableFuture<List<Post>> searchPosts(String keyword, String thread, String username,
+            Database.Role sessionRole) {
+        return submit(db -> db.searchPosts(keyword, thread, username, sessionRole));
+    }
+
+    public CompletableFuture<List<Reply>> getRepliesForPost(int postID, String username) {
+        return submit(db -> db.getRepliesForPost(postID, username));
+    }
+
+    /**
+     * Hands the result of a future to a callback on the result executor. Failures are printed
+     * rather than passed on, as the synchronous Database methods do.
+     *
+     * @param future   The pending call.
+     * @param onResult What to do with the result.
+     * @return A future completed once the callback has run.
+     */
+    public <T> CompletableFuture<Void> deliver(CompletableFuture<T> future, Consumer<T> onResult) {
+        return future.handleAsync((value, error) -> {
+            if (error != null)
+                unwrap(error).printStackTrace();
+            else
+                onResult.accept(value);
+            return null;
+        }, resultExecutor);
+    }
+
+    /**
+     * Creates a channel that only delivers the result of its newest request.
+     *
+     * @return A new, idle channel.
+     */
+    public Latest newLatest() {
+        return new Latest();
+    }
+
+    /**
+     * Stops accepting new work. Calls that are already running are allowed to finish.
+     */
+    public void shutdown() {
+        workers.shutdown();
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    /**
+     * <p> Title: Latest Class </p>
+     *
+     * <p> Description: A slot that holds at most one pending request. The running JDBC
+     * statement is not interrupted when a request is replaced, because interrupting H2 while
+     * it writes to its file can close the database; the stale result is discarded instead.
+     * </p>
+     */
+    public class Latest {
+
+        private CompletableFuture<?> current;
+
+        /**
+         * Makes the future the newest request on this channel, cancelling the one before it.
+         * The callback runs on the result executor only if no newer request has started by
+         * the time the result arrives.
+         *
+         * @param future   The new request.
+         * @param onResult What to do with its result.
+         * @return A future completed once the result has been delivered or dropped.
+         */
+        public synchronized <T> CompletableFuture<Void> replace(CompletableFuture<T> future, Consumer<T> onResult) {
+            if (current != null)
+                current.cancel(false);
+            current = future;
+            return future.handleAsync((value, error) -> {
+                synchronized (this) {
+                    if (current != future)
+                        return null;
+                    current = null;
+                }
+                if (error == null)
+                    onResult.accept(value);
+                else if (!(unwrap(error) instanceof CancellationException))
+                    unwrap(error).printStackTrace();
+                return null;
+            }, resultExecutor);
+        }
+
+        /**
+         * Cancels the pending request, if any, so its result is never delivered.
+         */
+        public synchronized void cancel() {
+            if (current != null) {
+                current.cancel(false);
+                current = null;
+            }
+        }
+
+        /**
+         * @return true while a request on this channel is waiting for its result.
+         */
+        public synchronized boolean isPending() {
+            return current != null;
+        }
+    }
+}
@@ -0,0 +1,488 @@
+package database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import entityClasses.Post;
+import entityClasses.Reply;
+
+/**
+ * <p> Title: CachedDatabase Class </p>
+ *
+ * <p> Description: A Database that answers the post list reads (getAllPosts, getPostsPage and
+ * getPostAuthor) from a PostCache, so moving between the discussion views does not reload every
+ * post from H2. Posts and their replies are loaded into the cache the first time they are
+ * needed, and each user's viewed flags and unread counts come from the user's ReadState; every
+ * write to posts, replies or the moderation log goes to the database first and then patches or
+ * drops exactly the cache entries it changed.
+ *
+ * Changes made by other writers are learned from the change feed: whenever the feed is polled
+ * through this object (getLatestChangeSeq or getChangesSince), the events it has not yet seen
+ * drop or add the entries they name before the answer is returned. Its own writes come back
+ * through the feed too, which costs one reload of the posts they touched. If the cache cannot
+ * be filled, the read falls back to the uncached Database query. </p>
+ *
+ * <p> Copyright: Lynn Robert Carter © 2025 </p>
+ *
+ * @version 1.00
+ */
+public class CachedDatabase extends Database {
+
+    private static final int DEFAULT_POST_CAPACITY = 50_000;
+    // Posts are loaded from the database this many at a time
+    private static final int LOAD_BATCH = 1000;
+
+    // Change feed events are read this many at a time when catching up
+    private static final int CATCH_UP_BATCH = 500;
+
+    private final PostCache cache;
+
+    // The newest change feed event the cache has applied; guarded by catchUpLock
+    private final Object catchUpLock = new Object();
+    private long appliedChangeSeq = 0;
+
+    public CachedDatabase() {
+        cache = new PostCache(DEFAULT_POST_CAPACITY);
+    }
+
+    public CachedDatabase(String dbUrl) {
+        super(dbUrl);
+        cache = new PostCache(DEFAULT_POST_CAPACITY);
+    }
+
+    /**
+     * Creates a cached database with the given pool size and cache capacities.
+     *
+     * @param dbUrl             The JDBC URL of the database.
+     * @param poolSize          The most connections that may be in use at once.
+     * @param postCapacity      The most posts to keep in the cache.
+     * @param readStateCapacity The most users whose read states are kept in memory.
+     */
+    public CachedDatabase(String dbUrl, int poolSize, int postCapacity, int readStateCapacity) {
+        super(dbUrl, poolSize, readStateCapacity);
+        cache = new PostCache(postCapacity);
+    }
+
+    /**
+     * Returns the cache counters, for tuning the capacities.
+     *
+     * @return A snapshot of the hit, miss and eviction counts.
+     */
+    public PostCache.Stats getCacheStats() {
+        return cache.getStats();
+    }
+
+    @Override
+    public void connectToDatabase() throws SQLException {
+        cache.clear();
+        super.connectToDatabase();
+        // the cache is empty, so every change so far is already reflected
+        synchronized (catchUpLock) {
+            appliedChangeSeq = super.getLatestChangeSeq();
+        }
+    }
+
+    // --- The change feed: catch up with other writers ---
+
+    @Override
+    public long getLatestChangeSeq() {
+        long latest = super.getLatestChangeSeq();
+        catchUp(latest);
+        return latest;
+    }
+
+    @Override
+    public List<ChangeEvent> getChangesSince(long seq, int limit) {
+        catchUp(Long.MAX_VALUE);
+        return super.getChangesSince(seq, limit);
+    }
+
+    /**
+     * Applies the change feed events the cache has not seen: posts they name are dropped,
+     * created posts are added to the board, and a thread rename drops every post.
+     *
+     * @param latest The newest seq known to exist, or Long.MAX_VALUE to look.
+     */
+    private void catchUp(long latest) {
+        synchronized (catchUpLock) {
+            while (appliedChangeSeq < latest) {
+                List<ChangeEvent> changes = super.getChangesSince(appliedChangeSeq, CATCH_UP_BATCH);
+                if (changes.isEmpty())
+                    return;
+                List<Integer> created = new ArrayList<>();
+                for (ChangeEvent change : changes) {
+                    if (change.kind() == ChangeEvent.Kind.THREAD_UPDATED)
+                        cache.invalidateAllPosts();
+                    else if (change.kind() == ChangeEvent.Kind.POST_CREATED)
+                        created.add(change.postID());
+                    else if (!change.kind().isThreadChange())
+                        cache.invalidatePost(change.postID());
+                }
+                try {
+                    for (PostCache.Entry entry : entries(created))
+                        cache.addPost(entry.postID, entry.timestamp);
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                    cache.clear();
+                }
+                appliedChangeSeq = changes.get(changes.size() - 1).seq();
+                if (changes.size() < CATCH_UP_BATCH)
+                    return;
+            }
+        }
+    }
+
+    // --- Reads ---
+
+    @Override
+    public List<Post> getAllPosts(String username, Role sessionRole) {
+        try {
+            ReadState readState = getReadState(username);
+            List<Post> posts = new ArrayList<>();
+            for (PostCache.Entry entry : entries(board())) {
+                posts.add(toPost(entry, readState, visibleReplies(entry, username, sessionRole)));
+            }
+            return posts;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return super.getAllPosts(username, sessionRole);
+        }
+    }
+
+    @Override
+    public List<Post> getPostsPage(String username, Role sessionRole, String thread,
+            LocalDateTime afterTimestamp, int afterPostID, int limit) {
+        boolean allThreads = thread == null || "All Threads".equals(thread);
+        try {
+            ReadState readState = getReadState(username);
+            List<Post> page = new ArrayList<>();
+
+            // a page of one thread, or without hidden posts, is cut by the database's indexes
+            // and only its own entries are loaded, instead of walking the board past the rest
+            if (!allThreads || sessionRole == Role.STUDENT) {
+                for (PostCache.Entry entry : entries(
+                        getPostsPageIDs(sessionRole, thread, afterTimestamp, afterPostID, limit))) {
+                    // a hidden post the change feed has not yet reported
+                    if (sessionRole == Role.STUDENT && !entry.visible)
+                        continue;
+                    page.add(toPost(entry, readState, visibleReplies(entry, username, sessionRole)));
+                }
+                return page;
+            }
+
+            board();
+            PostCache.BoardKey cursor = afterTimestamp == null ? null
+                    : new PostCache.BoardKey(afterTimestamp, afterPostID);
+
+            // walk the board from the cursor
+            while (page.size() < limit) {
+                List<PostCache.BoardKey> keys = cache.boardAfter(cursor, limit - page.size());
+                if (keys.isEmpty())
+                    break;
+                List<Integer> ids = new ArrayList<>(keys.size());
+                for (PostCache.BoardKey key : keys)
+                    ids.add(key.postID);
+                for (PostCache.Entry entry : entries(ids)) {
+                    // the uncached query never continues past the cursor into posts without a time
+                    if (afterTimestamp != null && entry.timestamp == null)
+                        continue;
+                    page.add(toPost(entry, readState, visibleReplies(entry, username, sessionRole)));
+                }
+                cursor = keys.get(keys.size() - 1);
+            }
+            return page;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return super.getPostsPage(username, sessionRole, thread, afterTimestamp, afterPostID, limit);
+        }
+    }
+
+    @Override
+    public List<Post> getPosts(String username, Role sessionRole, List<Integer> postIDs) {
+        try {
+            ReadState readState = getReadState(username);
+            List<Post> posts = new ArrayList<>();
+            for (PostCache.Entry entry : entries(postIDs)) {
+                if (sessionRole == Role.STUDENT && !entry.visible)
+                    continue;
+                posts.add(toPost(entry, readState, visibleReplies(entry, username, sessionRole)));
+            }
+            posts.sort(NEWEST_FIRST);
+            return posts;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return super.getPosts(username, sessionRole, postIDs);
+        }
+    }
+
+    // The board order: newest first, posts without a time last, ties broken by postID
+    private static final Comparator<Post> NEWEST_FIRST = Comparator
+            .comparing(Post::getTimestamp, Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder()))
+            .thenComparingInt(Post::getPostID)
+            .reversed();
+
+    @Override
+    public String getPostAuthor(int postID) {
+        try {
+            List<PostCache.Entry> entry = entries(List.of(postID));
+            return entry.isEmpty() ? null : entry.get(0).authorUsername;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return super.getPostAuthor(postID);
+        }
+    }
+
+    // --- Writes: the database first, then the cache ---
+
+    @Override
+    public int create(Post post) {
+        int postID = super.create(post);
+        if (postID > 0) {
+            try {
+                List<PostCache.Entry> created = entries(List.of(postID));
+                if (created.isEmpty())
+                    cache.clear();
+                else
+                    cache.addPost(postID, created.get(0).timestamp);
+            } catch (SQLException e) {
+                e.printStackTrace();
+                cache.clear();
+            }
+        }
+        return postID;
+    }
+
+    @Override
+    public void create(Reply reply) {
+        super.create(reply);
+        cache.invalidatePost(reply.getPostID());
+    }
+
+    @Override
+    public boolean createReply(Reply reply) {
+        boolean created = super.createReply(reply);
+        cache.invalidatePost(reply.getPostID());
+        return created;
+    }
+
+    @Override
+    public void update(Post post) {
+        super.update(post);
+        cache.invalidatePost(post.getPostID());
+    }
+
+    @Override
+    public void deletePost(int postID) {
+        super.deletePost(postID);
+        cache.invalidatePost(postID);
+    }
+
+    @Override
+    public void hidePost(int postID, String username, String reason) {
+        super.hidePost(postID, username, reason);
+        cache.invalidatePost(postID);
+    }
+
+    @Override
+    public void unhidePost(int postID, String username, String reason) {
+        super.unhidePost(postID, username, reason);
+        cache.invalidatePost(postID);
+    }
+
+    @Override
+    public void flagPost(int postID, String username, String reason) {
+        super.flagPost(postID, username, reason);
+        cache.invalidatePost(postID);
+    }
+
+    @Override
+    public void deleteReply(int replyID) {
+        super.deleteReply(replyID);
+        cache.invalidateReply(replyID);
+    }
+
+    @Override
+    public void hideReply(int replyID, int postID, String username, String reason) {
+        super.hideReply(replyID, postID, username, reason);
+        cache.invalidatePost(postID);
+    }
+
+    @Override
+    public void unhideReply(int replyID, int postID, String username, String reason) {
+        super.unhideReply(replyID, postID, username, reason);
+        cache.invalidatePost(postID);
+    }
+
+    @Override
+    public void flagReply(int replyID, int postID, String username, String reason) {
+        super.flagReply(replyID, postID, username, reason);
+        cache.invalidatePost(postID);
+    }
+
+    @Override
+    public void logPostVisibilityAction(int postID, String username, String action, String reason) {
+        super.logPostVisibilityAction(postID, username, action, reason);
+        cache.invalidatePost(postID);
+    }
+
+    @Override
+    public void updateThread(String oldTitle, String newTitle, boolean visible) {
+        super.updateThread(oldTitle, newTitle, visible);
+        if (!oldTitle.equals(newTitle))
+            cache.invalidateAllPosts();
+    }
+
+    // --- Read-through loading ---
+
+    /**
+     * The replies of a post that a session may see and count, by the same rule as the uncached
+     * queries (Database.isReplyVisible).
+     */
+    private static Predicate<PostCache.ReplyFacts> visibleReplies(PostCache.Entry entry, String username,
+            Role sessionRole) {
+        return reply -> isReplyVisible(isPrivateFeedback(reply.visibility), reply.visible, entry.authorUsername,
+                reply.authorUsername, username, sessionRole);
+    }
+
+    /**
+     * Builds the Post one user sees from a cached entry.
+     */
+    private static Post toPost(PostCache.Entry entry, ReadState readState,
+            Predicate<PostCache.ReplyFacts> replyVisible) {
+        int replyCount = 0;
+        int unreadReplyCount = 0;
+        for (PostCache.ReplyFacts reply : entry.replies) {
+            if (replyVisible.test(reply)) {
+                replyCount++;
+                if (!readState.isReplyRead(reply.replyID))
+                    unreadReplyCount++;
+            }
+        }
+        return entry.toPost(readState.isPostRead(entry.postID), replyCount, unreadReplyCount);
+    }
+
+    /**
+     * Returns the postIDs of the board, loading the board first if it is not cached.
+     */
+    private List<Integer> board() throws SQLException {
+        if (!cache.hasBoard()) {
+            long load = cache.startLoad();
+            List<PostCache.BoardKey> keys = new ArrayList<>();
+            String sql = "SELECT postID, timestamp FROM postsDB ORDER BY timestamp DESC, postID DESC";
+            try (Connection conn = getConnection();
+                    PreparedStatement pstmt = conn.prepareStatement(sql);
+                    ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    Timestamp t = rs.getTimestamp("timestamp");
+                    keys.add(new PostCache.BoardKey(t == null ? null : t.toLocalDateTime(), rs.getInt("postID")));
+                }
+            } catch (SQLException e) {
+                cache.endLoad(load);
+                throw e;
+            }
+            cache.putBoard(keys, load);
+            List<Integer> ids = new ArrayList<>(keys.size());
+            for (PostCache.BoardKey key : keys)
+                ids.add(key.postID);
+            return ids;
+        }
+        return cache.boardPostIDs();
+    }
+
+    /**
+     * Returns the entries of the given posts in the given order, loading the ones that are not
+     * cached. Posts that no longer exist are left out.
+     */
+    private List<PostCache.Entry> entries(List<Integer> postIDs) throws SQLException {
+        List<Integer> missing = new ArrayList<>();
+        Map<Integer, PostCache.Entry> found = cache.getAll(postIDs, missing);
+        for (int from = 0; from < missing.size(); from += LOAD_BATCH) {
+            List<Integer> batch = missing.subList(from, Math.min(from + LOAD_BATCH, missing.size()));
+            long load = cache.startLoad();
+            List<PostCache.Entry> loaded;
+            try {
+                loaded = loadEntries(batch);
+            } catch (SQLException e) {
+                cache.endLoad(load);
+                throw e;
+            }
+            cache.putAll(loaded, load);
+            for (PostCache.Entry entry : loaded)
+                found.put(entry.postID, entry);
+        }
+
+        List<PostCache.Entry> entries = new ArrayList<>(postIDs.size());
+        for (Integer postID : postIDs) {
+            PostCache.Entry entry = found.get(postID);
+            if (entry != null)
+                entries.add(entry);
+        }
+        return entries;
+    }
+
+    /**
+     * Reads the given posts, their latest moderation action and their replies.
+     */
+    private List<PostCache.Entry> loadEntries(List<Integer> postIDs) throws SQLException {
+        Integer[] ids = postIDs.toArray(new Integer[0]);
+        String postsSql = "SELECT p.*, m.username AS actionUser, m.reason AS actionReason, "
+                + "m.timestamp AS actionTimestamp FROM postsDB p "
+                + "LEFT JOIN moderation_log m ON m.logID = (SELECT ml.logID FROM moderation_log ml "
+                + "WHERE ml.postID = p.postID ORDER BY ml.timestamp DESC, ml.logID DESC LIMIT 1) "
+                + "WHERE p.postID = ANY(?)";
+        String repliesSql = "SELECT replyID, postID, authorUsername, visibility, visible FROM repliesDB "
+                + "WHERE postID = ANY(?) ORDER BY replyID";
+
+        Map<Integer, List<PostCache.ReplyFacts>> replies = new HashMap<>();
+        List<PostCache.Entry> entries = new ArrayList<>(ids.length);
+        try (Connection conn = getConnection();
+                PreparedStatement replyStmt = conn.prepareStatement(repliesSql);
+                PreparedStatement postStmt = conn.prepareStatement(postsSql)) {
+            replyStmt.setObject(1, ids);
+            try (ResultSet rs = replyStmt.executeQuery()) {
+                while (rs.next()) {
+                    replies.computeIfAbsent(rs.getInt("postID"), id -> new ArrayList<>())
+                            .add(new PostCache.ReplyFacts(rs.getInt("replyID"), rs.getString("authorUsername"),
+                                    rs.getString("visibility"),
+                                    !Boolean.FALSE.equals(rs.getObject("visible", Boolean.class))));
+                }
+            }
+
+            postStmt.setObject(1, ids);
+            try (ResultSet rs = postStmt.executeQuery()) {
+                while (rs.next()) {
+                    int postID = rs.getInt("postID");
+                    Timestamp posted = rs.getTimestamp("timestamp");
+                    Timestamp acted = rs.getTimestamp("actionTimestamp");
+                    Timestamp lastReply = rs.getTimestamp("last_reply_at");
+                    entries.add(new PostCache.Entry(
+                            postID,
+                            rs.getString("authorUsername"),
+                            rs.getString("title"),
+                            rs.getString("content"),
+                            rs.getString("thread"),
+                            rs.getBoolean("deleted"),
+                            rs.getBoolean("visible"),
+                            posted == null ? null : posted.toLocalDateTime(),
+                            rs.getString("actionUser"),
+                            rs.getString("actionReason"),
+                            acted == null ? null : acted.toLocalDateTime(),
+                            lastReply == null ? null : lastReply.toLocalDateTime(),
+                            rs.getInt("hidden_reply_count"),
+                            List.copyOf(replies.getOrDefault(postID, List.of()))));
+                }
+            }
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,45 @@
+package database;
+
+import java.time.LocalDateTime;
+
+/**
+ * <p> Title: ChangeEvent Record </p>
+ *
+ * <p> Description: One entry of the change feed: something that happened to a post, a reply or
+ * a thread. The Database writes one with every change it makes to them, and a view that has
+ * shown the board as of some seq can ask getChangesSince(seq) for what to patch instead of
+ * reloading everything. An event says only what changed, not how; the view reads the current
+ * state of the post it names. </p>
+ *
+ * <p> Copyright: Lynn Robert Carter © 2025 </p>
+ *
+ * @param seq       The event's place in the feed; later events have larger numbers.
+ * @param kind      What happened.
+ * @param postID    The post changed, or the post of the reply changed; 0 for thread events.
+ * @param replyID   The reply changed; 0 for post and thread events.
+ * @param thread    The thread's title for thread events, its new title after a rename;
+ *                  otherwise null.
+ * @param username  Who made the change, when it is known.
+ * @param timestamp When the change was made.
+ *
+ * @version 1.00
+ */
+public record ChangeEvent(long seq, Kind kind, int postID, int replyID, String thread, String username,
+        LocalDateTime timestamp) {
+
+    /**
+     * What a change event records.
+     */
+    public enum Kind {
+        POST_CREATED, POST_UPDATED, POST_DELETED, POST_HIDDEN, POST_UNHIDDEN, POST_FLAGGED,
+        REPLY_CREATED, REPLY_UPDATED, REPLY_DELETED, REPLY_HIDDEN, REPLY_UNHIDDEN, REPLY_FLAGGED,
+        THREAD_CREATED, THREAD_UPDATED, THREAD_DELETED;
+
+        /**
+         * @return Whether the event is about a thread rather than a post or a reply.
+         */
+        public boolean isThreadChange() {
+            return this == THREAD_CREATED || this == THREAD_UPDATED || this == THREAD_DELETED;
+        }
+    }
+}
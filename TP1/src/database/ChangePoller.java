@@ -0,0 +1,140 @@
+package database;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+/**
+ * <p> Title: ChangePoller Class </p>
+ *
+ * <p> Description: Keeps a view live by polling the change feed. Every few seconds it asks the
+ * database for the newest change seq, one indexed MAX lookup, and compares it with the seq the
+ * view says it reflects. Only when the feed has moved on does it call the view back, on the
+ * view's executor, so the view can fetch and merge just the changes. An idle board therefore
+ * costs one tiny query per interval per client, whatever its size.
+ *
+ * A callback is not started again until the previous one has run, and the first poll of each
+ * poller is delayed by a random part of the interval so that many clients opened together do
+ * not poll in step. Several pollers may share one scheduler. </p>
+ *
+ * <p> Copyright: Lynn Robert Carter © 2025 </p>
+ *
+ * @version 1.00
+ */
+public class ChangePoller implements AutoCloseable {
+
+    private final Database database;
+    private final ScheduledExecutorService scheduler;
+    private final boolean ownsScheduler;
+    private final long intervalMillis;
+    private final LongSupplier knownSeq;
+    private final Executor callbackExecutor;
+    private final Runnable onChange;
+
+    // True from the moment a callback is handed to the executor until it has run
+    private final AtomicBoolean callbackPending = new AtomicBoolean();
+    private ScheduledFuture<?> task;
+
+    /**
+     * Creates a poller with its own daemon thread.
+     *
+     * @param database         The database to poll.
+     * @param intervalMillis   How often to poll.
+     * @param knownSeq         The newest seq the view reflects; read on the polling thread.
+     * @param callbackExecutor Where to run onChange, e.g. Platform::runLater.
+     * @param onChange         Called when the feed has changes the view has not applied.
+     */
+    public ChangePoller(Database database, long intervalMillis, LongSupplier knownSeq, Executor callbackExecutor,
+            Runnable onChange) {
+        this(database, Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "change-poller");
+            t.setDaemon(true);
+            return t;
+        }), true, intervalMillis, knownSeq, callbackExecutor, onChange);
+    }
+
+    /**
+     * Creates a poller that polls on a shared scheduler, which it does not shut down.
+     *
+     * @param database         The database to poll.
+     * @param scheduler        The scheduler to poll on.
+     * @param intervalMillis   How often to poll.
+     * @param knownSeq         The newest seq the view reflects; read on the polling thread.
+     * @param callbackExecutor Where to run onChange.
+     * @param onChange         Called when the feed has changes the view has not applied.
+     */
+    public ChangePoller(Database database, ScheduledExecutorService scheduler, long intervalMillis,
+            LongSupplier knownSeq, Executor callbackExecutor, Runnable onChange) {
+        this(database, scheduler, false, intervalMillis, knownSeq, callbackExecutor, onChange);
+    }
+
+    private ChangePoller(Database database, ScheduledExecutorService scheduler, boolean ownsScheduler,
+            long intervalMillis, LongSupplier knownSeq, Executor callbackExecutor, Runnable onChange) {
+        this.database = database;
+        this.scheduler = scheduler;
+        this.ownsScheduler = ownsScheduler;
+        this.intervalMillis = intervalMillis;
+        this.knownSeq = knownSeq;
+        this.callbackExecutor = callbackExecutor;
+        this.onChange = onChange;
+    }
+
+    /**
+     * Starts polling; does nothing if it already is.
+     */
+    public synchronized void start() {
+        if (task != null)
+            return;
+        long firstDelay = ThreadLocalRandom.current().nextLong(intervalMillis) + 1;
+        task = scheduler.scheduleWithFixedDelay(this::poll, firstDelay, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops polling. A callback already handed to the executor still runs.
+     */
+    public synchronized void stop() {
+        if (task != null) {
+            task.cancel(false);
+            task = null;
+        }
+    }
+
+    /**
+     * Stops polling and, if the poller made its own thread, ends it.
+     */
+    @Override
+    public synchronized void close() {
+        stop();
+        if (ownsScheduler)
+            scheduler.shutdown();
+    }
+
+    /**
+     * Polls once: calls the view back if the feed is ahead of it and no callback is waiting.
+     * Run on the scheduler; public so a caller may also poll on demand.
+     */
+    public void poll() {
+        try {
+            if (callbackPending.get() || database.getLatestChangeSeq() <= knownSeq.getAsLong())
+                return;
+            if (!callbackPending.compareAndSet(false, true))
+                return;
+            callbackExecutor.execute(() -> {
+                try {
+                    onChange.run();
+                } finally {
+                    callbackPending.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            // an exception would cancel the schedule; the next poll tries again
+            callbackPending.set(false);
+            e.printStackTrace();
+        }
+    }
+}
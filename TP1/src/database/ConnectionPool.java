@@ -0,0 +1,335 @@
+package database;
+
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import javax.sql.DataSource;
+
+/**
+ * <p> Title: ConnectionPool Class </p>
+ *
+ * <p> Description: A small fixed-size pool of JDBC connections to one H2 database. Callers borrow
+ * a connection with getConnection() and give it back by closing it, normally with
+ * try-with-resources, so each Database method works on its own connection and several threads
+ * can use the database at the same time.
+ *
+ * Idle connections are checked with isValid() before they are handed out and replaced when they
+ * have gone bad. When leak detection is on, a connection that has been out for longer than the
+ * threshold is reported once, together with the stack trace of the code that borrowed it. </p>
+ *
+ * <p> Copyright: Lynn Robert Carter © 2025 </p>
+ *
+ * @version 1.00
+ */
+public class ConnectionPool implements DataSource {
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int maxSize;
+
+    private final Semaphore permits;
+    private final ArrayDeque<Connection> idle = new ArrayDeque<>();
+    private final Map<Connection, Lease> leases = new ConcurrentHashMap<>();
+
+    private long borrowTimeoutMillis = 30_000;
+    private int validationTimeoutSeconds = 2;
+    private long leakThresholdMillis = 0;
+    private ScheduledExecutorService leakDetector;
+    private volatile boolean closed = false;
+    private PrintWriter logWriter;
+
+    /**
+     * Records who borrowed a connection and when, so leaks can be reported.
+     */
+    private static class Lease {
+        final Connection physical;
+        final long borrowedAt = System.currentTimeMillis();
+        final Throwable borrowedBy = new Throwable("Connection borrowed by " + Thread.currentThread().getName());
+        volatile boolean reported = false;
+
+        Lease(Connection physical) {
+            this.physical = physical;
+        }
+    }
+
+    /**
+     * Creates a pool. No connections are opened until they are first needed.
+     *
+     * @param url      The JDBC URL of the database.
+     * @param user     The database user.
+     * @param password The database password.
+     * @param maxSize  The most connections that may be borrowed at once.
+     */
+    public ConnectionPool(String url, String user, String password, int maxSize) {
+        if (maxSize < 1)
+            throw new IllegalArgumentException("Pool size must be at least 1");
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.maxSize = maxSize;
+        this.permits = new Semaphore(maxSize, true);
+    }
+
+    /**
+     * Sets how long getConnection() waits for a free connection before giving up.
+     *
+     * @param millis The wait in milliseconds.
+     */
+    public void setBorrowTimeout(long millis) {
+        this.borrowTimeoutMillis = millis;
+    }
+
+    /**
+     * Sets how long the validation check on borrow may take.
+     *
+     * @param seconds The timeout passed to Connection.isValid().
+     */
+    public void setValidationTimeout(int seconds) {
+        this.validationTimeoutSeconds = seconds;
+    }
+
+    /**
+     * Turns leak detection on or off. Connections held longer than the threshold are reported
+     * once on the error stream with the stack trace of the borrower.
+     *
+     * @param millis The threshold in milliseconds, or 0 to turn leak detection off.
+     */
+    public synchronized void setLeakDetectionThreshold(long millis) {
+        this.leakThresholdMillis = millis;
+        if (leakDetector != null) {
+            leakDetector.shutdownNow();
+            leakDetector = null;
+        }
+        if (millis > 0) {
+            leakDetector = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "connection-leak-detector");
+                t.setDaemon(true);
+                return t;
+            });
+            long period = Math.max(100, millis / 2);
+            leakDetector.scheduleAtFixedRate(this::reportLeaks, period, period, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public int getMaxSize() { return maxSize; }
+
+    // Number of connections currently borrowed
+    public int getActiveCount() { return leases.size(); }
+
+    // Number of open connections waiting to be borrowed
+    public synchronized int getIdleCount() { return idle.size(); }
+
+    /**
+     * Borrows a connection, waiting for one to be returned if all are in use. The connection
+     * goes back to the pool when it is closed.
+     *
+     * @return A connection in auto-commit mode.
+     * @throws SQLException if the pool is closed, no connection frees up in time, or a new
+     *                      connection cannot be opened.
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (closed)
+            throw new SQLException("Connection pool is closed");
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS))
+                throw new SQLException("Timed out after " + borrowTimeoutMillis
+                        + " ms waiting for one of " + maxSize + " pooled connections");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a pooled connection", e);
+        }
+
+        try {
+            Connection physical = takeValidIdle();
+            if (physical == null)
+                physical = DriverManager.getConnection(url, user, password);
+            Connection handle = (Connection) Proxy.newProxyInstance(
+                    ConnectionPool.class.getClassLoader(),
+                    new Class<?>[] { Connection.class },
+                    new PooledConnectionHandler(physical));
+            leases.put(handle, new Lease(physical));
+            return handle;
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Pops idle connections until one passes validation, closing any that fail.
+     */
+    private Connection takeValidIdle() {
+        while (true) {
+            Connection candidate;
+            synchronized (this) {
+                candidate = idle.pollFirst();
+            }
+            if (candidate == null)
+                return null;
+            try {
+                if (candidate.isValid(validationTimeoutSeconds))
+                    return candidate;
+            } catch (SQLException ignore) {
+                // treat as invalid
+            }
+            closeQuietly(candidate);
+        }
+    }
+
+    /**
+     * Takes a connection back from a borrower. Any open transaction is rolled back so the next
+     * borrower starts clean.
+     */
+    private void release(Connection handle) {
+        Lease lease = leases.remove(handle);
+        if (lease == null)
+            return;
+        Connection physical = lease.physical;
+        boolean reusable = !closed;
+        try {
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            reusable = false;
+        }
+        if (reusable) {
+            synchronized (this) {
+                idle.addFirst(physical);
+            }
+        } else {
+            closeQuietly(physical);
+        }
+        permits.release();
+    }
+
+    private void reportLeaks() {
+        long now = System.currentTimeMillis();
+        for (Lease lease : leases.values()) {
+            if (!lease.reported && now - lease.borrowedAt > leakThresholdMillis) {
+                lease.reported = true;
+                System.err.println("[POOL] Possible connection leak: held for "
+                        + (now - lease.borrowedAt) + " ms");
+                lease.borrowedBy.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Closes every idle connection and stops handing out new ones. Connections still borrowed
+     * are closed when they are returned.
+     */
+    public void close() {
+        closed = true;
+        synchronized (this) {
+            if (leakDetector != null) {
+                leakDetector.shutdownNow();
+                leakDetector = null;
+            }
+            for (Connection c : idle)
+                closeQuietly(c);
+            idle.clear();
+        }
+    }
+
+    private static void closeQuietly(Connection c) {
+        try {
+            c.close();
+        } catch (SQLException ignore) {
+        }
+    }
+
+    /**
+     * Forwards calls to the physical connection, except close(), which returns it to the pool.
+     */
+    private class PooledConnectionHandler implements InvocationHandler {
+        private final Connection physical;
+        private volatile boolean returned = false;
+
+        PooledConnectionHandler(Connection physical) {
+            this.physical = physical;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!returned) {
+                        returned = true;
+                        release((Connection) proxy);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled" + physical;
+                default:
+                    if (returned)
+                        throw new SQLException("Connection has already been returned to the pool");
+                    try {
+                        return method.invoke(physical, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+    }
+
+    // --- Remaining DataSource methods ---
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("The pool only hands out connections for its configured user");
+    }
+
+    @Override
+    public PrintWriter getLogWriter() { return logWriter; }
+
+    @Override
+    public void setLogWriter(PrintWriter out) { this.logWriter = out; }
+
+    @Override
+    public void setLoginTimeout(int seconds) { DriverManager.setLoginTimeout(seconds); }
+
+    @Override
+    public int getLoginTimeout() { return DriverManager.getLoginTimeout(); }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this))
+            return iface.cast(this);
+        throw new SQLException("Not a wrapper for " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+}
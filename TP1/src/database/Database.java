@@ -3,12 +3,28 @@ package database;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.h2.api.ErrorCode;
+import database.migrations.SchemaMigrator;
+import database.migrations.V8PostReplyCounters;
+import entityClasses.AuthenticatedUser;
 import entityClasses.Post; // Import Post
 import entityClasses.Reply; // Import Reply
 import entityClasses.UserForList;
 import entityClasses.User;
+import entityClasses.UserProfile;
 import java.time.Instant;
 import java.time.LocalDateTime;
 
@@ -20,19 +36,72 @@ public class Database {
     static final String USER = "sa";
     static final String PASS = "";
 
-    private Connection connection = null;
-    private Statement statement = null;
+    // Connections are borrowed per call, so the database can be used from several threads
+    private static final int DEFAULT_POOL_SIZE = 8;
+    private int poolSize = DEFAULT_POOL_SIZE;
+    private ConnectionPool pool = null;
+
+    // Inverted index over post and reply text used by searchPosts; rebuilt on connect
+    private final SearchIndex searchIndex = new SearchIndex();
+    // The most posts a keyword search returns, best matches first
+    private static final int SEARCH_RESULT_LIMIT = 500;
+
+    // Each user's roles, loaded with one query on first use or at login and kept until a
+    // role of that user changes, so visibility checks do not query userDB every time
+    private final Map<String, EnumSet<Role>> roleCache = new ConcurrentHashMap<>();
+
+    // The profiles of the most recently used accounts. Guarded by profileLock, which is also
+    // held while a profile is read from userDB, so a profile read before an update cannot be
+    // stored after the update has patched the cache. The updates patch cached profiles in place
+    // with the values they wrote.
+    private static final int PROFILE_CAPACITY = 1024;
+    private final Object profileLock = new Object();
+    private final LinkedHashMap<String, UserProfile> profiles = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, UserProfile> eldest) {
+            return size() > PROFILE_CAPACITY;
+        }
+    };
+
+    // Passwords are stored as salted PBKDF2 hashes and checked on the hasher's worker pool
+    private final PasswordHasher passwords = new PasswordHasher();
+
+    // What each user has read, as bitmaps; the most recently used are kept in memory. Guarded
+    // by readStateLock, which is also held while read_state rows are loaded. Every write of a
+    // read_state row holds readMarkFlushLock, taken before readStateLock, from the moment the
+    // row is copied until it is stored, so rows are stored in the order they were copied and a
+    // row is never overwritten by an older copy
+    private static final int DEFAULT_READ_STATE_CAPACITY = 256;
+    private int readStateCapacity = DEFAULT_READ_STATE_CAPACITY;
+    private final Object readStateLock = new Object();
+    private final Object readMarkFlushLock = new Object();
+    // The rows flushReadMarks has copied and not yet stored; a state loaded meanwhile starts
+    // from them instead of the older stored row. Guarded by readStateLock
+    private Map<String, ReadStateRow> unstoredReadStates = Map.of();
+    private final LinkedHashMap<String, ReadState> readStates = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ReadState> eldest) {
+            return size() > readStateCapacity;
+        }
+    };
+
+    // Read marks are queued and written in batches; see ReadMarkBuffer
+    private static final int READ_MARK_FLUSH_THRESHOLD = 500;
+    private static final long READ_MARK_FLUSH_INTERVAL_MILLIS = 2_000;
+    private final ReadMarkBuffer readMarks = new ReadMarkBuffer(READ_MARK_FLUSH_THRESHOLD);
+    private ScheduledExecutorService readMarkFlusher;
 
-    private String currentUsername;
-    private String currentPassword;
-    private String currentFirstName;
-    private String currentMiddleName;
-    private String currentLastName;
-    private String currentPreferredFirstName;
-    private String currentEmailAddress;
-    private boolean currentAdminRole;
-    private boolean currentNewStudent;
-    private boolean currentNewStaff;
+    // Held while change_log rows are inserted and committed, so the rows commit in seq order
+    // and a reader that has seen seq N never later finds a smaller seq appear. Shared by every
+    // Database in the JVM, as several may write to the same database.
+    private static final Object changeLock = new Object();
+
+    // The transaction the current thread is running on this database, if any; see inTransaction
+    private final ThreadLocal<Transaction> currentTransaction = new ThreadLocal<>();
+    // A transaction that failed on a lock is run again this many times in all, after a short,
+    // growing and randomized wait
+    private static final int TRANSACTION_ATTEMPTS = 4;
+    private static final long TRANSACTION_RETRY_MILLIS = 10;
 
     public Database() {
     }
@@ -42,60 +111,121 @@ public class Database {
     }
 
     /**
-     * Establishes a connection to the H2 database and initializes tables if they
-     * don't exist.
+     * Creates a database whose connection pool holds up to poolSize connections.
+     * 
+     * @param dbUrl    The JDBC URL of the database.
+     * @param poolSize The most connections that may be in use at once.
+     */
+    public Database(String dbUrl, int poolSize) {
+        this.dbUrl = dbUrl;
+        this.poolSize = poolSize;
+    }
+
+    /**
+     * Creates a database that also bounds how many users' read states it keeps
+     * in memory.
+     * 
+     * @param dbUrl             The JDBC URL of the database.
+     * @param poolSize          The most connections that may be in use at once.
+     * @param readStateCapacity The most users whose read states are kept.
+     */
+    public Database(String dbUrl, int poolSize, int readStateCapacity) {
+        this.dbUrl = dbUrl;
+        this.poolSize = poolSize;
+        this.readStateCapacity = readStateCapacity;
+    }
+
+    /**
+     * Establishes a connection to the H2 database and migrates its schema to the
+     * current version.
      * 
      * @throws SQLException if a database access error occurs.
      */
     public void connectToDatabase() throws SQLException {
         try {
             Class.forName(JDBC_DRIVER);
-            connection = DriverManager.getConnection(dbUrl, USER, PASS);
-            statement = connection.createStatement();
+            pool = new ConnectionPool(dbUrl, USER, PASS, poolSize);
+            synchronized (readStateLock) {
+                readStates.clear();
+            }
 
-            createTables();
+            // The first connection also fails if another instance is using the database
+            try (Connection connection = pool.getConnection()) {
+                createTables(connection);
+                hashPlaintextPasswords(connection);
+                rebuildSearchIndex(connection);
+            } catch (SQLException e) {
+                pool.close();
+                throw e;
+            }
+            startReadMarkFlusher();
         } catch (ClassNotFoundException e) {
             System.err.println("JDBC Driver not found: " + e.getMessage());
         }
     }
 
     /**
-     * Creates the necessary tables if they are not already present.
+     * Borrows a connection from the pool. Closing it returns it to the pool, so
+     * callers should open it in a try-with-resources block.
      * 
-     * @throws SQLException if a database access error occurs.
+     * @return A pooled connection in auto-commit mode.
+     * @throws SQLException if no connection is available.
      */
-    private void createTables() throws SQLException {
-        String userTable = "CREATE TABLE IF NOT EXISTS userDB ("
-                + "id INT AUTO_INCREMENT PRIMARY KEY, "
-                + "userName VARCHAR(255) UNIQUE, "
-                + "password VARCHAR(255), "
-                + "firstName VARCHAR(255), "
-                + "middleName VARCHAR(255), "
-                + "lastName VARCHAR (255), "
-                + "preferredFirstName VARCHAR(255), "
-                + "emailAddress VARCHAR(255), "
-                + "adminRole BOOL DEFAULT FALSE, "
-                + "newStudent BOOL DEFAULT FALSE, "
-                + "newStaff BOOL DEFAULT FALSE)";
-        statement.execute(userTable);
-
-        // This SQL statement defines the structure of the table that stores invitation
-        // codes.
-        String invitationCodesTable = "CREATE TABLE IF NOT EXISTS InvitationCodes ("
-                + "code VARCHAR(10) PRIMARY KEY, "
-                + "emailAddress VARCHAR(255), "
-                + "role VARCHAR(255))";
-        statement.execute(invitationCodesTable);
-
-        // Add expiry and uses columns if they don't exist
-        try {
-            statement.execute("ALTER TABLE InvitationCodes ADD COLUMN expiresAt TIMESTAMP");
-        } catch (SQLException ignore) {
-        }
-        try {
-            statement.execute("ALTER TABLE InvitationCodes ADD COLUMN usesRemaining INT DEFAULT 0");
-        } catch (SQLException ignore) {
+    protected Connection getConnection() throws SQLException {
+        if (pool == null)
+            throw new SQLException("Not connected to the database");
+        return pool.getConnection();
+    }
+
+    /**
+     * Loads every post and reply into the search index, replacing what it held.
+     * 
+     * @param connection The connection to read them with.
+     * @throws SQLException if the tables cannot be read.
+     */
+    private void rebuildSearchIndex(Connection connection) throws SQLException {
+        searchIndex.clear();
+        try (Statement stmt = connection.createStatement()) {
+            try (ResultSet rs = stmt.executeQuery(
+                    "SELECT postID, authorUsername, title, content, thread, deleted FROM postsDB")) {
+                while (rs.next()) {
+                    int postID = rs.getInt("postID");
+                    searchIndex.indexPost(postID, rs.getString("authorUsername"), rs.getString("title"),
+                            rs.getString("content"), rs.getString("thread"));
+                    if (rs.getBoolean("deleted"))
+                        searchIndex.removePost(postID);
+                }
+            }
+            try (ResultSet rs = stmt.executeQuery(
+                    "SELECT replyID, postID, authorUsername, content, visibility, visible FROM repliesDB")) {
+                while (rs.next()) {
+                    searchIndex.indexReply(rs.getInt("replyID"), rs.getInt("postID"),
+                            rs.getString("authorUsername"), rs.getString("content"),
+                            rs.getString("visibility"), rs.getBoolean("visible"));
+                }
+            }
         }
+    }
+
+    /**
+     * Gives access to the connection pool, e.g. to tune leak detection or check
+     * how many connections are in use.
+     * 
+     * @return The pool, or null before connectToDatabase() has been called.
+     */
+    public ConnectionPool getConnectionPool() {
+        return pool;
+    }
+
+    /**
+     * Brings the schema up to date by applying the pending migrations (see SchemaMigrator), then
+     * refreshes the seeded invitation code.
+     * 
+     * @param connection The connection to migrate the database on.
+     * @throws SQLException if a migration fails or the database does not match this build.
+     */
+    private void createTables(Connection connection) throws SQLException {
+        new SchemaMigrator().migrate(connection);
 
         // seed a one-time code that expires in 1 minute
         try (PreparedStatement ps = connection.prepareStatement(
@@ -107,101 +237,39 @@ public class Database {
             ps.setInt(5, 1); // one-time use
             ps.executeUpdate();
         }
+    }
 
-        String otpsTable = "CREATE TABLE IF NOT EXISTS otpsTable ("
-                + "username VARCHAR(255) PRIMARY KEY, "
-                + "otp VARCHAR(10))";
-        statement.execute(otpsTable);
-
-        // --- NEW TABLES FOR HW2 ---
-        String postsTable = "CREATE TABLE IF NOT EXISTS postsDB ("
-                + "postID INT AUTO_INCREMENT PRIMARY KEY, "
-                + "authorUsername VARCHAR(255), "
-                + "title VARCHAR(255), "
-                + "content VARCHAR(4096), "
-                + "thread VARCHAR(255) DEFAULT 'General', "
-                + "visible BOOLEAN DEFAULT TRUE, " // added visibility feature
-                + "deleted BOOLEAN DEFAULT FALSE, "
-                + "timestamp TIMESTAMP)";
-        statement.execute(postsTable);
-
-        try {
-            statement.execute("ALTER TABLE postsDB ADD COLUMN visible BOOLEAN DEFAULT TRUE");
-        } catch (SQLException ignore) {
-        }
-
-        String repliesTable = "CREATE TABLE IF NOT EXISTS repliesDB ("
-                + "replyID INT AUTO_INCREMENT PRIMARY KEY, "
-                + "postID INT, "
-                + "authorUsername VARCHAR(255), "
-                + "content VARCHAR(2048), "
-                + "visible BOOLEAN DEFAULT TRUE, " // added visibility feature
-                + "visibility VARCHAR(20) DEFAULT 'public', "
-                + "recipient VARCHAR(255), "
-                + "timestamp TIMESTAMP)";
-        statement.execute(repliesTable);
-
-        try {
-            statement.execute("ALTER TABLE repliesDB ADD COLUMN visible BOOLEAN DEFAULT TRUE");
-        } catch (SQLException ignore) {
-        }
-
-        try {
-            statement.execute("ALTER TABLE repliesDB ADD COLUMN visibility VARCHAR(20) DEFAULT 'public'");
-        } catch (SQLException ignore) {
+    /**
+     * Replaces every password still stored in plaintext, from before passwords were hashed, with
+     * a hash of it. This runs at start-up so that no plaintext value stays in userDB waiting for
+     * its user to log in again; after the first start of a hashing build there is nothing left
+     * to do. A value changed meanwhile is left as the change made it.
+     * 
+     * @param connection The connection to read and update userDB with.
+     * @throws SQLException if userDB cannot be read or updated.
+     */
+    private void hashPlaintextPasswords(Connection connection) throws SQLException {
+        Map<String, String> plaintext = new HashMap<>();
+        try (PreparedStatement ps = connection.prepareStatement(
+                "SELECT userName, password FROM userDB WHERE password IS NOT NULL AND password NOT LIKE ?")) {
+            ps.setString(1, PasswordHasher.HASH_PATTERN);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next())
+                    plaintext.put(rs.getString(1), rs.getString(2));
+            }
         }
-
-        try {
-            statement.execute("ALTER TABLE repliesDB ADD COLUMN recipient VARCHAR(255)");
-        } catch (SQLException ignore) {
+        if (plaintext.isEmpty())
+            return;
+        try (PreparedStatement ps = connection.prepareStatement(
+                "UPDATE userDB SET password = ? WHERE userName = ? AND password = ?")) {
+            for (Map.Entry<String, String> entry : plaintext.entrySet()) {
+                ps.setString(1, passwords.hash(entry.getValue()));
+                ps.setString(2, entry.getKey());
+                ps.setString(3, entry.getValue());
+                ps.executeUpdate();
+            }
         }
-
-        String viewedPostsTable = "CREATE TABLE IF NOT EXISTS viewed_posts ("
-                + "postID INT, "
-                + "username VARCHAR(255), "
-                + "PRIMARY KEY (postID, username))";
-        statement.execute(viewedPostsTable);
-
-        String viewedRepliesTable = "CREATE TABLE IF NOT EXISTS viewed_replies ("
-                + "replyID INT, "
-                + "username VARCHAR(255), "
-                + "PRIMARY KEY (replyID, username))";
-        statement.execute(viewedRepliesTable);
-
-        String moderationLogTable = "CREATE TABLE IF NOT EXISTS moderation_log ("
-                + "logID INT AUTO_INCREMENT PRIMARY KEY, "
-                + "postID INT, "
-                + "username VARCHAR(255), "
-                + "action VARCHAR(20), "
-                + "reason VARCHAR(1024), "
-                + "timestamp TIMESTAMP"
-                + ")";
-        statement.execute(moderationLogTable);
-
-        // Add this inside the createTables() method in Database.java
-        String gradingParamsTable = "CREATE TABLE IF NOT EXISTS grading_parameters ("
-                + "id INT AUTO_INCREMENT PRIMARY KEY, "
-                + "name VARCHAR(255), "
-                + "description VARCHAR(1024))";
-        statement.execute(gradingParamsTable);
-
-        // --- NEW TABLES FOR ADMIN REQUESTS & THREADS ---
-        String adminRequestsTable = "CREATE TABLE IF NOT EXISTS admin_requests ("
-                + "requestID INT AUTO_INCREMENT PRIMARY KEY, "
-                + "requester VARCHAR(255), "
-                + "description VARCHAR(1024), "
-                + "status VARCHAR(50), "
-                + "adminComments VARCHAR(1024), "
-                + "created_at TIMESTAMP, "
-                + "updated_at TIMESTAMP)";
-        statement.execute(adminRequestsTable);
-
-        String threadsTable = "CREATE TABLE IF NOT EXISTS discussion_threads ("
-                + "title VARCHAR(255) PRIMARY KEY, "
-                + "visible BOOLEAN DEFAULT TRUE, "
-                + "created_at TIMESTAMP)";
-        statement.execute(threadsTable);
-
+        System.out.println("*** Hashed " + plaintext.size() + " plaintext password(s)");
     }
 
     /**
@@ -211,7 +279,8 @@ public class Database {
      */
     public boolean isDatabaseEmpty() {
         String query = "SELECT COUNT(*) AS count FROM userDB";
-        try {
+        try (Connection conn = getConnection();
+                Statement statement = conn.createStatement()) {
             ResultSet resultSet = statement.executeQuery(query);
             if (resultSet.next()) {
                 return resultSet.getInt("count") == 0;
@@ -229,7 +298,8 @@ public class Database {
      */
     public int getNumberOfUsers() {
         String query = "SELECT COUNT(*) AS count FROM userDB";
-        try {
+        try (Connection conn = getConnection();
+                Statement statement = conn.createStatement()) {
             ResultSet resultSet = statement.executeQuery(query);
             if (resultSet.next()) {
                 return resultSet.getInt("count");
@@ -240,6 +310,11 @@ public class Database {
         return 0;
     }
 
+    // The columns of a new user, in the order bindUser sets them
+    static final String INSERT_USER = "INSERT INTO userDB (userName, password, firstName, middleName, "
+            + "lastName, preferredFirstName, emailAddress, adminRole, newStudent, newStaff) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
     /**
      * Registers a new user by inserting their details into the database.
      * 
@@ -247,44 +322,81 @@ public class Database {
      * @throws SQLException if a database access error occurs.
      */
     public void register(User user) throws SQLException {
-        String insertUser = "INSERT INTO userDB (userName, password, firstName, middleName, "
-                + "lastName, preferredFirstName, emailAddress, adminRole, newStudent, newStaff) "
-                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-        try (PreparedStatement pstmt = connection.prepareStatement(insertUser)) {
-            currentUsername = user.getUserName();
-            pstmt.setString(1, currentUsername);
-
-            currentPassword = user.getPassword();
-            pstmt.setString(2, currentPassword);
-
-            currentFirstName = user.getFirstName();
-            pstmt.setString(3, currentFirstName);
-
-            currentMiddleName = user.getMiddleName();
-            pstmt.setString(4, currentMiddleName);
-
-            currentLastName = user.getLastName();
-            pstmt.setString(5, currentLastName);
-
-            currentPreferredFirstName = user.getPreferredFirstName();
-            pstmt.setString(6, currentPreferredFirstName);
-
-            currentEmailAddress = user.getEmailAddress();
-            pstmt.setString(7, currentEmailAddress);
-
-            currentAdminRole = user.getAdminRole();
-            pstmt.setBoolean(8, currentAdminRole);
-
-            currentNewStudent = user.getNewStudent();
-            pstmt.setBoolean(9, currentNewStudent);
-
-            currentNewStaff = user.getNewStaff();
-            pstmt.setBoolean(10, currentNewStaff);
+        try (Connection conn = getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(INSERT_USER)) {
+            bindUser(pstmt, user, passwords.hash(user.getPassword()));
+            pstmt.executeUpdate();
+        }
+    }
 
+    /**
+     * Registers a new user whose password has already been hashed, for accounts created in bulk
+     * with the same password, which then need hashing only once.
+     * 
+     * @param user         The User object containing all the details for the new user.
+     * @param passwordHash The user's password as returned by getPasswordHasher().hash.
+     * @throws SQLException if a database access error occurs.
+     */
+    public void register(User user, String passwordHash) throws SQLException {
+        try (Connection conn = getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(INSERT_USER)) {
+            bindUser(pstmt, user, passwordHash);
             pstmt.executeUpdate();
         }
     }
 
+    /**
+     * Registers a new user with an invitation code, using up one use of the code
+     * in the same transaction: two people cannot both register with a one-time
+     * code, and a failed registration leaves the code as it was.
+     * 
+     * @param user The User object containing all the details for the new user.
+     * @param code The invitation code the user was given.
+     * @return true if the user was registered; false if the code has expired or
+     *         has no uses left.
+     * @throws SQLException if a database access error occurs.
+     */
+    public boolean registerWithInvitation(User user, String code) throws SQLException {
+        String useCode = "UPDATE InvitationCodes SET usesRemaining = usesRemaining - 1 "
+                + "WHERE code = ? AND expiresAt > CURRENT_TIMESTAMP AND usesRemaining > 0";
+        String removeUsedUp = "DELETE FROM InvitationCodes WHERE code = ? AND usesRemaining <= 0";
+        // hashed before the transaction, which then holds its locks only for the statements
+        String passwordHash = passwords.hash(user.getPassword());
+        return inTransaction(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(useCode)) {
+                pstmt.setString(1, code);
+                if (pstmt.executeUpdate() == 0)
+                    return false;
+            }
+            try (PreparedStatement pstmt = conn.prepareStatement(removeUsedUp)) {
+                pstmt.setString(1, code);
+                pstmt.executeUpdate();
+            }
+            try (PreparedStatement pstmt = conn.prepareStatement(INSERT_USER)) {
+                bindUser(pstmt, user, passwordHash);
+                pstmt.executeUpdate();
+            }
+            return true;
+        });
+    }
+
+    /**
+     * Sets the parameters of INSERT_USER from a user and the hash of their
+     * password, for register and the bulk user import.
+     */
+    static void bindUser(PreparedStatement pstmt, User user, String passwordHash) throws SQLException {
+        pstmt.setString(1, user.getUserName());
+        pstmt.setString(2, passwordHash);
+        pstmt.setString(3, user.getFirstName());
+        pstmt.setString(4, user.getMiddleName());
+        pstmt.setString(5, user.getLastName());
+        pstmt.setString(6, user.getPreferredFirstName());
+        pstmt.setString(7, user.getEmailAddress());
+        pstmt.setBoolean(8, user.getAdminRole());
+        pstmt.setBoolean(9, user.getNewStudent());
+        pstmt.setBoolean(10, user.getNewStaff());
+    }
+
     /**
      * Retrieves a list of all usernames from the database.
      * 
@@ -294,7 +406,8 @@ public class Database {
         List<String> userList = new ArrayList<String>();
         userList.add("<Select a User>");
         String query = "SELECT userName FROM userDB";
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+        try (Connection conn = getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(query)) {
             ResultSet rs = pstmt.executeQuery();
             while (rs.next()) {
                 userList.add(rs.getString("userName"));
@@ -313,17 +426,7 @@ public class Database {
      *         otherwise.
      */
     public boolean loginAdmin(User user) {
-        String query = "SELECT * FROM userDB WHERE userName = ? AND password = ? AND "
-                + "adminRole = TRUE";
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-            pstmt.setString(1, user.getUserName());
-            pstmt.setString(2, user.getPassword());
-            ResultSet rs = pstmt.executeQuery();
-            return rs.next();
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return false;
+        return getRoles(user).contains(Role.ADMIN);
     }
 
     /**
@@ -334,17 +437,7 @@ public class Database {
      *         otherwise.
      */
     public boolean loginStudent(User user) {
-        String query = "SELECT * FROM userDB WHERE userName = ? AND password = ? AND "
-                + "newStudent = TRUE";
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-            pstmt.setString(1, user.getUserName());
-            pstmt.setString(2, user.getPassword());
-            ResultSet rs = pstmt.executeQuery();
-            return rs.next();
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return false;
+        return getRoles(user).contains(Role.STUDENT);
     }
 
     /**
@@ -355,17 +448,7 @@ public class Database {
      *         otherwise.
      */
     public boolean loginStaff(User user) {
-        String query = "SELECT * FROM userDB WHERE userName = ? AND password = ? AND "
-                + "newStaff = TRUE";
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-            pstmt.setString(1, user.getUserName());
-            pstmt.setString(2, user.getPassword());
-            ResultSet rs = pstmt.executeQuery();
-            return rs.next();
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return false;
+        return getRoles(user).contains(Role.STAFF);
     }
 
     /**
@@ -376,7 +459,8 @@ public class Database {
      */
     public boolean doesUserExist(String userName) {
         String query = "SELECT COUNT(*) FROM userDB WHERE userName = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+        try (Connection conn = getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(query)) {
 
             pstmt.setString(1, userName);
             ResultSet rs = pstmt.executeQuery();
@@ -423,7 +507,8 @@ public class Database {
 
         String sql = "INSERT INTO InvitationCodes (code, emailAddress, role, expiresAt, usesRemaining) " +
                 "VALUES (?, ?, ?, ?, ?)";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection conn = getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, code);
             pstmt.setString(2, emailAddress);
             pstmt.setString(3, role);
@@ -444,7 +529,8 @@ public class Database {
      */
     public int getNumberOfInvitations() {
         String query = "SELECT COUNT(*) AS count FROM InvitationCodes";
-        try {
+        try (Connection conn = getConnection();
+                Statement statement = conn.createStatement()) {
             ResultSet resultSet = statement.executeQuery(query);
             if (resultSet.next()) {
                 return resultSet.getInt("count");
@@ -463,7 +549,8 @@ public class Database {
      */
     public boolean emailaddressHasBeenUsed(String emailAddress) {
         String query = "SELECT COUNT(*) AS count FROM InvitationCodes WHERE emailAddress = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+        try (Connection conn = getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(query)) {
             pstmt.setString(1, emailAddress);
             ResultSet rs = pstmt.executeQuery();
             System.out.println(rs);
@@ -486,7 +573,8 @@ public class Database {
     public String getRoleGivenAnInvitationCode(String code) {
         String sql = "SELECT role FROM InvitationCodes " +
                 "WHERE code = ? AND expiresAt > CURRENT_TIMESTAMP AND usesRemaining > 0";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection conn = getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, code == null ? "" : code.trim());
             try (ResultSet rs = pstmt.executeQuery()) {
                 if (rs.next())
@@ -509,7 +597,8 @@ public class Database {
     public String getEmailAddressUsingCode(String code) {
         String sql = "SELECT emailAddress FROM InvitationCodes " +
                 "WHERE code = ? AND expiresAt > CURRENT_TIMESTAMP AND usesRemaining > 0";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection conn = getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, code == null ? "" : code.trim());
             try (ResultSet rs = pstmt.executeQuery()) {
                 if (rs.next())
@@ -528,14 +617,15 @@ public class Database {
      */
     public void removeInvitationAfterUse(String code) {
         String query = "SELECT COUNT(*) AS count FROM InvitationCodes WHERE code = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+        try (Connection conn = getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(query)) {
             pstmt.setString(1, code);
             ResultSet rs = pstmt.executeQuery();
             if (rs.next()) {
                 int counter = rs.getInt(1);
                 if (counter > 0) {
                     query = "DELETE FROM InvitationCodes WHERE code = ?";
-                    try (PreparedStatement pstmt2 = connection.prepareStatement(query)) {
+                    try (PreparedStatement pstmt2 = conn.prepareStatement(query)) {
                         pstmt2.setString(1, code);
                         pstmt2.executeUpdate();
                     } catch (SQLException e) {
@@ -557,11 +647,12 @@ public class Database {
      */
     public void updatePassword(String username, String newPassword) {
         String query = "UPDATE userDB SET password = ? WHERE userName = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-            pstmt.setString(1, newPassword);
+        String passwordHash = passwords.hash(newPassword);
+        try (Connection conn = getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setString(1, passwordHash);
             pstmt.setString(2, username);
             pstmt.executeUpdate();
-            currentPassword = newPassword;
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -577,7 +668,8 @@ public class Database {
         String otp = UUID.randomUUID().toString().substring(0, 6); // Generate a random 6-character code
         String query = "INSERT INTO otpsTable (username, otp) VALUES (?, ?)";
 
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+        try (Connection conn = getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(query)) {
             pstmt.setString(1, username);
             pstmt.setString(2, otp);
             pstmt.executeUpdate();
@@ -599,14 +691,15 @@ public class Database {
     public boolean otpHasBeenUsed(String username, String otp) {
         String query = "SELECT otp FROM otpsTable WHERE username = ?";
         String remove = "DELETE FROM otpsTable WHERE username = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+        try (Connection conn = getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(query)) {
             pstmt.setString(1, username);
             ResultSet rs = pstmt.executeQuery();
             System.out.println(rs);
             if (rs.next()) {
                 String storedOtp = rs.getString("otp");
                 if (storedOtp != null && storedOtp.equals(otp)) {
-                    try (PreparedStatement del = connection.prepareStatement(remove)) {
+                    try (PreparedStatement del = conn.prepareStatement(remove)) {
                         del.setString(1, username);
                         del.executeUpdate();
                     }
@@ -622,23 +715,12 @@ public class Database {
     /**
      * Retrieves a user's first name.
      * 
-     * @param username The user's username.
-     * @return The user's first name.
+     * @param username The username of the user.
+     * @return The first name, or null if not found.
      */
     public String getFirstName(String username) {
-        String query = "SELECT firstName FROM userDB WHERE userName = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-            pstmt.setString(1, username);
-            ResultSet rs = pstmt.executeQuery();
-
-            if (rs.next()) {
-                return rs.getString("firstName");
-            }
-
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return null;
+        UserProfile profile = getUserProfile(username);
+        return profile == null ? null : profile.firstName();
     }
 
     /**
@@ -648,36 +730,18 @@ public class Database {
      * @param firstName The new first name to set.
      */
     public void updateFirstName(String username, String firstName) {
-        String query = "UPDATE userDB SET firstName = ? WHERE username = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-            pstmt.setString(1, firstName);
-            pstmt.setString(2, username);
-            pstmt.executeUpdate();
-            currentFirstName = firstName;
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+        updateProfile(username, new UserProfile.Changes().firstName(firstName));
     }
 
     /**
-     * Retrieves a user's middle name from the database.
+     * Retrieves a user's middle name.
      * 
      * @param username The username of the user.
      * @return The middle name, or null if not found.
      */
     public String getMiddleName(String username) {
-        String query = "SELECT MiddleName FROM userDB WHERE userName = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-            pstmt.setString(1, username);
-            ResultSet rs = pstmt.executeQuery();
-
-            if (rs.next()) {
-                return rs.getString("middleName");
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return null;
+        UserProfile profile = getUserProfile(username);
+        return profile == null ? null : profile.middleName();
     }
 
     /**
@@ -687,36 +751,18 @@ public class Database {
      * @param middleName The new middle name to set.
      */
     public void updateMiddleName(String username, String middleName) {
-        String query = "UPDATE userDB SET middleName = ? WHERE username = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-            pstmt.setString(1, middleName);
-            pstmt.setString(2, username);
-            pstmt.executeUpdate();
-            currentMiddleName = middleName;
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+        updateProfile(username, new UserProfile.Changes().middleName(middleName));
     }
 
     /**
-     * Retrieves a user's last name from the database.
+     * Retrieves a user's last name.
      * 
      * @param username The username of the user.
      * @return The last name, or null if not found.
      */
     public String getLastName(String username) {
-        String query = "SELECT LastName FROM userDB WHERE userName = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-            pstmt.setString(1, username);
-            ResultSet rs = pstmt.executeQuery();
-
-            if (rs.next()) {
-                return rs.getString("lastName");
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return null;
+        UserProfile profile = getUserProfile(username);
+        return profile == null ? null : profile.lastName();
     }
 
     /**
@@ -726,37 +772,18 @@ public class Database {
      * @param lastName The new last name to set.
      */
     public void updateLastName(String username, String lastName) {
-        String query = "UPDATE userDB SET lastName = ? WHERE username = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-            pstmt.setString(1, lastName);
-            pstmt.setString(2, username);
-            pstmt.executeUpdate();
-            currentLastName = lastName;
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+        updateProfile(username, new UserProfile.Changes().lastName(lastName));
     }
 
     /**
-     * Retrieves a user's preferred first name from the database.
+     * Retrieves a user's preferred first name.
      * 
      * @param username The username of the user.
      * @return The preferred first name, or null if not found.
      */
     public String getPreferredFirstName(String username) {
-        String query = "SELECT preferredFirstName FROM userDB WHERE userName = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-            pstmt.setString(1, username);
-            ResultSet rs = pstmt.executeQuery();
-
-            if (rs.next()) {
-                return rs.getString("firstName");
-            }
-
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return null;
+        UserProfile profile = getUserProfile(username);
+        return profile == null ? null : profile.preferredFirstName();
     }
 
     /**
@@ -766,37 +793,18 @@ public class Database {
      * @param preferredFirstName The new preferred first name to set.
      */
     public void updatePreferredFirstName(String username, String preferredFirstName) {
-        String query = "UPDATE userDB SET preferredFirstName = ? WHERE username = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-            pstmt.setString(1, preferredFirstName);
-            pstmt.setString(2, username);
-            pstmt.executeUpdate();
-            currentPreferredFirstName = preferredFirstName;
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+        updateProfile(username, new UserProfile.Changes().preferredFirstName(preferredFirstName));
     }
 
     /**
-     * Retrieves a user's email address from the database.
+     * Retrieves a user's email address.
      * 
      * @param username The username of the user.
      * @return The email address, or null if not found.
      */
     public String getEmailAddress(String username) {
-        String query = "SELECT emailAddress FROM userDB WHERE userName = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-            pstmt.setString(1, username);
-            ResultSet rs = pstmt.executeQuery();
-
-            if (rs.next()) {
-                return rs.getString("emailAddress");
-            }
-
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return null;
+        UserProfile profile = getUserProfile(username);
+        return profile == null ? null : profile.emailAddress();
     }
 
     /**
@@ -806,43 +814,94 @@ public class Database {
      * @param emailAddress The new email address to set.
      */
     public void updateEmailAddress(String username, String emailAddress) {
-        String query = "UPDATE userDB SET emailAddress = ? WHERE username = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-            pstmt.setString(1, emailAddress);
-            pstmt.setString(2, username);
-            pstmt.executeUpdate();
-            currentEmailAddress = emailAddress;
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+        updateProfile(username, new UserProfile.Changes().emailAddress(emailAddress));
     }
 
     /**
-     * Fetches all account details for a given user and caches them in the class
-     * fields.
+     * Returns a user's account details. They are read from userDB with one query the first time
+     * and then served from the profile cache, which the update methods keep up to date.
      * 
      * @param username The username to look up.
-     * @return true if the user was found and details were loaded, false otherwise.
+     * @return The user's profile, or null for an unknown user.
      */
-    public boolean getUserAccountDetails(String username) {
-        String query = "SELECT * FROM userDB WHERE username = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+    public UserProfile getUserProfile(String username) {
+        if (username == null)
+            return null;
+        synchronized (profileLock) {
+            UserProfile profile = profiles.get(username);
+            if (profile == null) {
+                profile = loadProfile(username);
+                if (profile != null)
+                    profiles.put(username, profile);
+            }
+            return profile;
+        }
+    }
+
+    // Reads a user's profile; null for an unknown user
+    private UserProfile loadProfile(String username) {
+        String sql = "SELECT firstName, middleName, lastName, preferredFirstName, emailAddress, "
+                + "adminRole, newStudent, newStaff FROM userDB WHERE userName = ?";
+        try (Connection conn = getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, username);
-            ResultSet rs = pstmt.executeQuery();
-            rs.next();
-            currentUsername = rs.getString(2);
-            currentPassword = rs.getString(3);
-            currentFirstName = rs.getString(4);
-            currentMiddleName = rs.getString(5);
-            currentLastName = rs.getString(6);
-            currentPreferredFirstName = rs.getString(7);
-            currentEmailAddress = rs.getString(8);
-            currentAdminRole = rs.getBoolean(9);
-            currentNewStudent = rs.getBoolean(10);
-            currentNewStaff = rs.getBoolean(11);
-            return true;
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next())
+                    return new UserProfile(username, rs.getString(1), rs.getString(2), rs.getString(3),
+                            rs.getString(4), rs.getString(5),
+                            toRoles(rs.getBoolean(6), rs.getBoolean(7), rs.getBoolean(8)));
+            }
         } catch (SQLException e) {
-            return false;
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /**
+     * Changes any of a user's name fields and email address with one statement that writes only
+     * the fields that are set, and patches the cached profile with them.
+     * 
+     * @param username The username of the account to update.
+     * @param changes  The fields to change.
+     * @return The updated profile, or null if there is no such user or the update failed.
+     */
+    public UserProfile updateProfile(String username, UserProfile.Changes changes) {
+        if (changes.isEmpty())
+            return getUserProfile(username);
+        List<String> columns = new ArrayList<>();
+        List<String> values = new ArrayList<>();
+        addChange(columns, values, "firstName", changes.getFirstName());
+        addChange(columns, values, "middleName", changes.getMiddleName());
+        addChange(columns, values, "lastName", changes.getLastName());
+        addChange(columns, values, "preferredFirstName", changes.getPreferredFirstName());
+        addChange(columns, values, "emailAddress", changes.getEmailAddress());
+        String sql = "UPDATE userDB SET " + String.join(" = ?, ", columns) + " = ? WHERE userName = ?";
+        try (Connection conn = getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < values.size(); i++)
+                pstmt.setString(i + 1, values.get(i));
+            pstmt.setString(values.size() + 1, username);
+            if (pstmt.executeUpdate() == 0)
+                return null;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return null;
+        }
+        synchronized (profileLock) {
+            UserProfile cached = profiles.get(username);
+            if (cached != null) {
+                UserProfile updated = cached.with(changes);
+                profiles.put(username, updated);
+                return updated;
+            }
+        }
+        return getUserProfile(username);
+    }
+
+    private static void addChange(List<String> columns, List<String> values, String column, String value) {
+        if (value != null) {
+            columns.add(column);
+            values.add(value);
         }
     }
 
@@ -857,14 +916,13 @@ public class Database {
     public boolean updateUserRole(String username, String role, String value) {
         if (role.compareTo("Admin") == 0) {
             String query = "UPDATE userDB SET adminRole = ? WHERE username = ?";
-            try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+            try (Connection conn = getConnection();
+                    PreparedStatement pstmt = conn.prepareStatement(query)) {
                 pstmt.setString(1, value);
                 pstmt.setString(2, username);
                 pstmt.executeUpdate();
-                if (value.compareTo("true") == 0)
-                    currentAdminRole = true;
-                else
-                    currentAdminRole = false;
+                roleCache.remove(username);
+                patchRole(username, Role.ADMIN, value.compareTo("true") == 0);
                 return true;
             } catch (SQLException e) {
                 return false;
@@ -872,14 +930,13 @@ public class Database {
         }
         if (role.compareTo("Student") == 0) {
             String query = "UPDATE userDB SET newStudent = ? WHERE username = ?";
-            try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+            try (Connection conn = getConnection();
+                    PreparedStatement pstmt = conn.prepareStatement(query)) {
                 pstmt.setString(1, value);
                 pstmt.setString(2, username);
                 pstmt.executeUpdate();
-                if (value.compareTo("true") == 0)
-                    currentNewStudent = true;
-                else
-                    currentNewStudent = false;
+                roleCache.remove(username);
+                patchRole(username, Role.STUDENT, value.compareTo("true") == 0);
                 return true;
             } catch (SQLException e) {
                 return false;
@@ -887,14 +944,13 @@ public class Database {
         }
         if (role.compareTo("Staff") == 0) {
             String query = "UPDATE userDB SET newStaff = ? WHERE username = ?";
-            try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+            try (Connection conn = getConnection();
+                    PreparedStatement pstmt = conn.prepareStatement(query)) {
                 pstmt.setString(1, value);
                 pstmt.setString(2, username);
                 pstmt.executeUpdate();
-                if (value.compareTo("true") == 0)
-                    currentNewStaff = true;
-                else
-                    currentNewStaff = false;
+                roleCache.remove(username);
+                patchRole(username, Role.STAFF, value.compareTo("true") == 0);
                 return true;
             } catch (SQLException e) {
                 return false;
@@ -903,45 +959,14 @@ public class Database {
         return false;
     }
 
-    public String getCurrentUsername() {
-        return currentUsername;
-    };
-
-    public String getCurrentPassword() {
-        return currentPassword;
-    };
-
-    public String getCurrentFirstName() {
-        return currentFirstName;
-    };
-
-    public String getCurrentMiddleName() {
-        return currentMiddleName;
-    };
-
-    public String getCurrentLastName() {
-        return currentLastName;
-    };
-
-    public String getCurrentPreferredFirstName() {
-        return currentPreferredFirstName;
-    };
-
-    public String getCurrentEmailAddress() {
-        return currentEmailAddress;
-    };
-
-    public boolean getCurrentAdminRole() {
-        return currentAdminRole;
-    };
-
-    public boolean getCurrentNewStudent() {
-        return currentNewStudent;
-    };
-
-    public boolean getCurrentNewStaff() {
-        return currentNewStaff;
-    };
+    // Gives or takes away a role in the user's cached profile, if it is cached
+    private void patchRole(String username, Role role, boolean has) {
+        synchronized (profileLock) {
+            UserProfile cached = profiles.get(username);
+            if (cached != null)
+                profiles.put(username, cached.withRole(role, has));
+        }
+    }
 
     /**
      * Deletes a user from the database.
@@ -950,9 +975,14 @@ public class Database {
      */
     public void deleteUser(String username) {
         String query = "DELETE FROM userDB WHERE userName = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+        try (Connection conn = getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(query)) {
             pstmt.setString(1, username);
             pstmt.executeUpdate();
+            roleCache.remove(username);
+            synchronized (profileLock) {
+                profiles.remove(username);
+            }
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -966,34 +996,223 @@ public class Database {
      */
     public void dump() throws SQLException {
         String query = "SELECT * FROM userDB";
-        ResultSet resultSet = statement.executeQuery(query);
-        ResultSetMetaData meta = resultSet.getMetaData();
-        while (resultSet.next()) {
-            for (int i = 0; i < meta.getColumnCount(); i++) {
-                System.out.println(
-                        meta.getColumnLabel(i + 1) + ": " +
-                                resultSet.getString(i + 1));
+        try (Connection conn = getConnection();
+                Statement statement = conn.createStatement();
+                ResultSet resultSet = statement.executeQuery(query)) {
+            ResultSetMetaData meta = resultSet.getMetaData();
+            while (resultSet.next()) {
+                for (int i = 0; i < meta.getColumnCount(); i++) {
+                    System.out.println(
+                            meta.getColumnLabel(i + 1) + ": " +
+                                    resultSet.getString(i + 1));
+                }
+                System.out.println();
             }
-            System.out.println();
         }
-        resultSet.close();
     }
 
     /**
-     * Closes the database statement and connection resources.
+     * Closes the pooled database connections.
      */
     public void closeConnection() {
-        try {
-            if (statement != null)
-                statement.close();
-        } catch (SQLException se2) {
-            se2.printStackTrace();
+        stopReadMarkFlusher();
+        if (pool != null) {
+            flushReadMarks();
+            pool.close();
         }
-        try {
-            if (connection != null)
-                connection.close();
-        } catch (SQLException se) {
-            se.printStackTrace();
+    }
+
+    private synchronized void startReadMarkFlusher() {
+        stopReadMarkFlusher();
+        readMarkFlusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "read-mark-flusher");
+            t.setDaemon(true);
+            return t;
+        });
+        readMarkFlusher.scheduleWithFixedDelay(this::flushReadMarks, READ_MARK_FLUSH_INTERVAL_MILLIS,
+                READ_MARK_FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void stopReadMarkFlusher() {
+        if (readMarkFlusher != null) {
+            readMarkFlusher.shutdown();
+            readMarkFlusher = null;
+        }
+    }
+
+    /**
+     * Writes the read state of every user with queued read marks to the
+     * database, in one batch and one transaction. Called on a timer, when the
+     * queue is full, on logout and by closeConnection. If the write fails the
+     * marks are queued again.
+     *
+     * The states are copied holding readStateLock and written after it is
+     * released, so reads and new marks do not wait for the write or its retries.
+     */
+    public void flushReadMarks() {
+        synchronized (readMarkFlushLock) {
+            ReadMarkBuffer.Pending pending;
+            Map<String, ReadStateRow> rows = new HashMap<>();
+            synchronized (readStateLock) {
+                pending = readMarks.drain();
+                if (pending.isEmpty())
+                    return;
+                Set<String> users = new HashSet<>(pending.posts.keySet());
+                users.addAll(pending.replies.keySet());
+                try (Connection conn = getConnection()) {
+                    for (String username : users) {
+                        // the marks are in the state unless it was dropped and reloaded since
+                        ReadState state = readState(conn, username);
+                        pending.posts.getOrDefault(username, Set.of()).forEach(state.posts::add);
+                        pending.replies.getOrDefault(username, Set.of()).forEach(state.replies::add);
+                        rows.put(username, new ReadStateRow(state.posts.toBytes(), state.replies.toBytes()));
+                    }
+                } catch (SQLException e) {
+                    readMarks.requeue(pending);
+                    e.printStackTrace();
+                    return;
+                }
+                unstoredReadStates = rows;
+            }
+            try {
+                inTransaction(conn -> {
+                    try (PreparedStatement pstmt = conn.prepareStatement(SAVE_READ_STATE)) {
+                        for (Map.Entry<String, ReadStateRow> row : rows.entrySet()) {
+                            pstmt.setString(1, row.getKey());
+                            pstmt.setBytes(2, row.getValue().posts());
+                            pstmt.setBytes(3, row.getValue().replies());
+                            pstmt.addBatch();
+                        }
+                        pstmt.executeBatch();
+                    }
+                    return null;
+                });
+            } catch (SQLException e) {
+                readMarks.requeue(pending);
+                e.printStackTrace();
+            } finally {
+                synchronized (readStateLock) {
+                    unstoredReadStates = Map.of();
+                }
+            }
+        }
+    }
+
+    // A copy of one user's read state, as flushReadMarks writes it
+    private record ReadStateRow(byte[] posts, byte[] replies) {
+    }
+
+    private static final String SAVE_READ_STATE = "MERGE INTO read_state (username, readPosts, readReplies) "
+            + "KEY(username) VALUES (?, ?, ?)";
+
+    /**
+     * Returns what a user has read, loading it from the read_state table the
+     * first time it is needed. The result reflects every read mark made so far,
+     * written or still queued.
+     * 
+     * @param username The user.
+     * @return The user's read state.
+     * @throws SQLException if the read state cannot be loaded.
+     */
+    public ReadState getReadState(String username) throws SQLException {
+        synchronized (readStateLock) {
+            ReadState state = readStates.get(username);
+            if (state != null)
+                return state;
+            try (Connection conn = getConnection()) {
+                return readState(conn, username);
+            }
+        }
+    }
+
+    /**
+     * Returns the cached read state of a user or loads it with the given
+     * connection. Must be called holding readStateLock. A state that
+     * flushReadMarks is still storing is taken from its copy, and marks still
+     * queued for the user are added to a loaded state.
+     *
+     * A user without a read_state row may still have rows in the viewed_posts
+     * and viewed_replies tables of older versions; those are moved into a new
+     * read_state row.
+     */
+    private ReadState readState(Connection conn, String username) throws SQLException {
+        ReadState state = readStates.get(username);
+        if (state != null)
+            return state;
+        ReadStateRow unstored = unstoredReadStates.get(username);
+        if (unstored != null) {
+            state = new ReadState(ReadSet.fromBytes(unstored.posts()), ReadSet.fromBytes(unstored.replies()));
+            return cacheReadState(username, state);
+        }
+
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "SELECT readPosts, readReplies FROM read_state WHERE username = ?")) {
+            pstmt.setString(1, username);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next())
+                    state = new ReadState(ReadSet.fromBytes(rs.getBytes(1)), ReadSet.fromBytes(rs.getBytes(2)));
+            }
+        }
+        if (state == null) {
+            state = new ReadState(new ReadSet(), new ReadSet());
+            boolean legacyRows = addLegacyReadMarks(conn, "SELECT postID FROM viewed_posts WHERE username = ?",
+                    username, state.posts);
+            legacyRows |= addLegacyReadMarks(conn, "SELECT replyID FROM viewed_replies WHERE username = ?",
+                    username, state.replies);
+            if (legacyRows) {
+                try (PreparedStatement save = conn.prepareStatement(SAVE_READ_STATE);
+                        PreparedStatement posts = conn.prepareStatement("DELETE FROM viewed_posts WHERE username = ?");
+                        PreparedStatement replies = conn.prepareStatement(
+                                "DELETE FROM viewed_replies WHERE username = ?")) {
+                    save.setString(1, username);
+                    save.setBytes(2, state.posts.toBytes());
+                    save.setBytes(3, state.replies.toBytes());
+                    save.executeUpdate();
+                    posts.setString(1, username);
+                    posts.executeUpdate();
+                    replies.setString(1, username);
+                    replies.executeUpdate();
+                }
+            }
+        }
+        return cacheReadState(username, state);
+    }
+
+    // Keeps a loaded state in memory with the user's queued marks added, as the state the marks
+    // were made on may have been dropped before they were written
+    private ReadState cacheReadState(String username, ReadState state) {
+        ReadMarkBuffer.Pending queued = readMarks.peek(username);
+        queued.posts.getOrDefault(username, Set.of()).forEach(state.posts::add);
+        queued.replies.getOrDefault(username, Set.of()).forEach(state.replies::add);
+        readStates.put(username, state);
+        return state;
+    }
+
+    private static boolean addLegacyReadMarks(Connection conn, String sql, String username, ReadSet set)
+            throws SQLException {
+        boolean found = false;
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, username);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    set.add(rs.getInt(1));
+                    found = true;
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Writes the read state of one user at once, for the bulk read marks. Must be
+     * called holding readMarkFlushLock and readStateLock.
+     */
+    private void saveReadState(Connection conn, String username, ReadState state) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(SAVE_READ_STATE)) {
+            pstmt.setString(1, username);
+            pstmt.setBytes(2, state.posts.toBytes());
+            pstmt.setBytes(3, state.replies.toBytes());
+            pstmt.executeUpdate();
         }
     }
 
@@ -1006,7 +1225,8 @@ public class Database {
     public List<UserForList> getAllUsersForList() {
         List<UserForList> userList = new ArrayList<>();
         String query = "SELECT userName, firstName, middleName, lastName, emailAddress, adminRole, newStudent, newStaff FROM userDB";
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+        try (Connection conn = getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(query)) {
             ResultSet rs = pstmt.executeQuery();
             while (rs.next()) {
                 String username = rs.getString("userName");
@@ -1037,19 +1257,35 @@ public class Database {
      * Creates a new post in the database.
      * 
      * @param post The Post object to be created.
+     * @return The postID of the new post, or -1 if it could not be created.
      */
-    public void create(Post post) {
+    public int create(Post post) {
         String sql = "INSERT INTO postsDB (authorUsername, title, content, thread, timestamp) VALUES (?, ?, ?, ?, ?)";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setString(1, post.getAuthorUsername());
-            pstmt.setString(2, post.getTitle());
-            pstmt.setString(3, post.getContent());
-            pstmt.setString(4, post.getThread());
-            pstmt.setTimestamp(5, Timestamp.from(Instant.now()));
-            pstmt.executeUpdate();
+        try {
+            return inTransaction(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                    pstmt.setString(1, post.getAuthorUsername());
+                    pstmt.setString(2, post.getTitle());
+                    pstmt.setString(3, post.getContent());
+                    pstmt.setString(4, post.getThread());
+                    pstmt.setTimestamp(5, Timestamp.from(Instant.now()));
+                    pstmt.executeUpdate();
+                    try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                        if (!keys.next())
+                            return -1;
+                        int postID = keys.getInt(1);
+                        afterCommit(() -> searchIndex.indexPost(postID, post.getAuthorUsername(), post.getTitle(),
+                                post.getContent(), post.getThread()));
+                        publishChange(conn, ChangeEvent.Kind.POST_CREATED, postID, 0, null,
+                                post.getAuthorUsername());
+                        return postID;
+                    }
+                }
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
+        return -1;
     }
 
     /**
@@ -1059,135 +1295,330 @@ public class Database {
      */
     public void create(Reply reply) { // overload
         String sql = "INSERT INTO repliesDB (postID, authorUsername, content, timestamp) VALUES (?, ?, ?, ?)";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setInt(1, reply.getPostID());
-            pstmt.setString(2, reply.getAuthorUsername());
-            pstmt.setString(3, reply.getContent());
-            pstmt.setTimestamp(4, Timestamp.from(Instant.now()));
-            pstmt.executeUpdate();
+        try {
+            inTransaction(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                    pstmt.setInt(1, reply.getPostID());
+                    pstmt.setString(2, reply.getAuthorUsername());
+                    pstmt.setString(3, reply.getContent());
+                    pstmt.setTimestamp(4, Timestamp.from(Instant.now()));
+                    pstmt.executeUpdate();
+                    adjustReplyCounters(conn, reply.getPostID(), 1, 1, 0);
+                    try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                        if (keys.next()) {
+                            int replyID = keys.getInt(1);
+                            afterCommit(() -> searchIndex.indexReply(replyID, reply.getPostID(),
+                                    reply.getAuthorUsername(), reply.getContent(), "public", true));
+                            publishChange(conn, ChangeEvent.Kind.REPLY_CREATED, reply.getPostID(), replyID, null,
+                                    reply.getAuthorUsername());
+                        }
+                    }
+                }
+                return null;
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
     }
 
     /**
-     * Retrieves all posts from the database that have not been "soft deleted".
+     * Retrieves all posts from the database that have not been "soft deleted", with the reply
+     * counts of the role the user's account acts as by default: staff if the user has the staff
+     * role, otherwise student if the user has the student role.
      * 
      * @param username The username of the current user, to determine read status.
      * @return A List of Post objects.
      */
     public List<Post> getAllPosts(String username) {
+        return getAllPosts(username, defaultSessionRole(username));
+    }
+
+    /**
+     * Retrieves all posts from the database that have not been "soft deleted". Reply counts
+     * follow the same rule as getPostsPage, REPLY_VISIBLE_TO_SESSION.
+     * 
+     * @param username    The username of the current user, to determine read status.
+     * @param sessionRole The role the user is currently acting as.
+     * @return A List of Post objects.
+     */
+    public List<Post> getAllPosts(String username, Role sessionRole) {
         List<Post> posts = new ArrayList<>();
-        boolean viewerIsStaff = false;
+        String sql = "SELECT p.*, " +
+                LATEST_ACTION_COLUMNS +
+                "FROM postsDB p " +
+                LATEST_ACTION_JOIN +
+                "ORDER BY p.timestamp DESC";
+
         try {
-            viewerIsStaff = isUserStaff(username);
-        } catch (Exception ignored) {
+            ReadState readState = getReadState(username);
+            try (Connection conn = getConnection();
+                    PreparedStatement pstmt = conn.prepareStatement(sql);
+                    PreparedStatement replies = conn.prepareStatement(VISIBLE_REPLIES)) {
+                ResultSet rs = pstmt.executeQuery();
+                while (rs.next()) {
+                    posts.add(readPostRow(rs));
+                }
+
+                setVisibleReplyRule(replies, 1, username, sessionRole);
+                applyReadState(posts, readState, groupReplyIDs(replies));
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
         }
+        return posts;
+    }
 
-        // If viewer is staff, counts include all replies. Otherwise restrict to
-        // replies.
-        String replyCountSubquery;
-        String unreadCountSubquery;
+    // The replies a session may see and count, over repliesDB r joined to its post p: public
+    // ones, every one in a staff session, and private feedback on the user's post or by the
+    // user; and not hidden, in a student session. Every post list uses this rule, and
+    // isReplyVisible is the same rule for replies already in memory. Parameters, set by
+    // setVisibleReplyRule: staff session, post author, reply author, student session.
+    private static final String REPLY_VISIBLE_TO_SESSION = "(LOWER(COALESCE(r.visibility, 'public')) <> 'private' "
+            + "OR ? OR p.authorUsername = ? OR r.authorUsername = ?) "
+            + "AND (COALESCE(r.visible, TRUE) OR NOT ?)";
+    private static final String VISIBLE_REPLIES = "SELECT r.postID, r.replyID FROM repliesDB r "
+            + "JOIN postsDB p ON p.postID = r.postID WHERE " + REPLY_VISIBLE_TO_SESSION;
 
-        if (viewerIsStaff) {
-            replyCountSubquery = "(SELECT COUNT(*) FROM repliesDB r WHERE r.postID = p.postID)";
-            unreadCountSubquery = "(SELECT COUNT(*) FROM repliesDB r LEFT JOIN viewed_replies vr ON r.replyID = vr.replyID AND vr.username = ? WHERE r.postID = p.postID AND vr.replyID IS NULL)";
-        } else {
-            replyCountSubquery = "(SELECT COUNT(*) FROM repliesDB r WHERE r.postID = p.postID AND " +
-                    " (r.visibility = 'public' OR (r.visibility = 'private' AND r.recipient = ?) OR r.authorUsername = ?) )";
+    /**
+     * REPLY_VISIBLE_TO_SESSION for a reply already read: whether a session may see and count
+     * it.
+     *
+     * @param privateFeedback Whether the reply is private feedback; see isPrivateFeedback.
+     * @param visible         false when staff has hidden the reply.
+     * @param postAuthor      The author of the post the reply answers.
+     * @param replyAuthor     The author of the reply.
+     * @param username        The user of the session.
+     * @param sessionRole     The role the user is acting as.
+     * @return true if the session may see the reply.
+     */
+    static boolean isReplyVisible(boolean privateFeedback, boolean visible, String postAuthor, String replyAuthor,
+            String username, Role sessionRole) {
+        if (!visible && sessionRole == Role.STUDENT)
+            return false;
+        return !privateFeedback || sessionRole == Role.STAFF
+                || (username != null && (username.equals(postAuthor) || username.equals(replyAuthor)));
+    }
 
-            unreadCountSubquery = "(SELECT COUNT(*) FROM repliesDB r LEFT JOIN viewed_replies vr ON r.replyID = vr.replyID AND vr.username = ? "
-                    +
-                    " WHERE r.postID = p.postID AND vr.replyID IS NULL AND " +
-                    " (r.visibility = 'public' OR (r.visibility = 'private' AND r.recipient = ?) OR r.authorUsername = ?) )";
-        }
+    /**
+     * @return Whether a reply's visibility column makes it private feedback, as
+     *         REPLY_VISIBLE_TO_SESSION reads it.
+     */
+    static boolean isPrivateFeedback(String visibility) {
+        return "private".equalsIgnoreCase(visibility);
+    }
 
-        String sql = "SELECT p.*, (v.postID IS NOT NULL) AS viewed, " +
-                replyCountSubquery + " AS replyCount, " +
-                unreadCountSubquery + " AS unreadReplyCount " +
-                "FROM postsDB p " +
-                "LEFT JOIN viewed_posts v ON p.postID = v.postID AND v.username = ? " +
-                "ORDER BY p.timestamp DESC";
+    /**
+     * Sets the parameters of REPLY_VISIBLE_TO_SESSION for one session.
+     *
+     * @return The index of the next parameter.
+     */
+    private static int setVisibleReplyRule(PreparedStatement replies, int idx, String username,
+            Role sessionRole) throws SQLException {
+        replies.setBoolean(idx++, sessionRole == Role.STAFF);
+        replies.setString(idx++, username);
+        replies.setString(idx++, username);
+        replies.setBoolean(idx++, sessionRole == Role.STUDENT);
+        return idx;
+    }
 
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            int idx = 1;
-            if (viewerIsStaff) {
-                // unreadCount vr.username
-                pstmt.setString(idx++, username);
-                // join v.username
-                pstmt.setString(idx++, username);
-            } else {
-                // replyCount: recipient, author
-                pstmt.setString(idx++, username); // for (r.recipient = ?)
-                pstmt.setString(idx++, username); // for r.authorUsername = ?
-                // unreadCount: vr.username, recipient, author
-                pstmt.setString(idx++, username); // vr.username
-                pstmt.setString(idx++, username); // recipient
-                pstmt.setString(idx++, username); // author
-                // join v.username
-                pstmt.setString(idx++, username);
-            }
+    /**
+     * The role a user is taken to act as when a caller does not say: staff if the account has
+     * the staff role, admin if its only role is admin, and otherwise student, which sees the
+     * least.
+     *
+     * @param username The user.
+     * @return The role.
+     */
+    public Role defaultSessionRole(String username) {
+        EnumSet<Role> roles = getRoles(username);
+        if (roles.contains(Role.STAFF))
+            return Role.STAFF;
+        return roles.equals(EnumSet.of(Role.ADMIN)) ? Role.ADMIN : Role.STUDENT;
+    }
 
-            ResultSet rs = pstmt.executeQuery();
-            while (rs.next()) {
-                int postID = rs.getInt("postID");
-                String author = rs.getString("authorUsername");
-                String title = rs.getString("title");
-                String content = rs.getString("content");
-                String thread = rs.getString("thread");
-                boolean deleted = rs.getBoolean("deleted");
-                boolean viewed = rs.getBoolean("viewed");
-                int replyCount = rs.getInt("replyCount");
-                int unreadReplyCount = rs.getInt("unreadReplyCount");
-
-                // read legacy 'visible' flag if present; default true when missing
-                boolean visible = true;
-                try {
-                    visible = rs.getBoolean("visible");
-                } catch (SQLException ignore) {
-                    // column missing in older DB schema -> assume visible
-                }
+    /**
+     * Loads one page of the post list, newest first, for keyset pagination. The first page is
+     * requested with a null afterTimestamp; each later page continues after the last post of
+     * the page before it, so a page costs the same however far down the list it is and however
+     * many posts the board has.
+     * 
+     * Reply counts are only computed for the posts on the page: public replies, every reply in
+     * a staff session, and private ones on the user's post or by the user; a student session
+     * leaves hidden replies out. Students do not get hidden posts at all, so their pages are
+     * never short.
+     * 
+     * @param username       The username of the current user, to determine read status.
+     * @param sessionRole    The role the user is currently acting as.
+     * @param thread         The thread to list, or "All Threads" (or null) for every thread.
+     * @param afterTimestamp The timestamp of the last post already shown, or null for the first
+     *                       page.
+     * @param afterPostID    The postID of the last post already shown; ignored for the first
+     *                       page.
+     * @param limit          The most posts to return.
+     * @return The posts of the page; fewer than limit means the end of the list was reached.
+     */
+    public List<Post> getPostsPage(String username, Role sessionRole, String thread,
+            LocalDateTime afterTimestamp, int afterPostID, int limit) {
+        return postsPage("timestamp", username, sessionRole, thread, afterTimestamp, afterPostID, limit);
+    }
 
-                // fetch most recent moderation action for this post (if any)
-                String actionUser = null;
-                String actionReason = null;
-                LocalDateTime actionTimestamp = null;
-                try {
-                    String modSql = "SELECT username, action, reason, timestamp FROM moderation_log WHERE postID = ? ORDER BY timestamp DESC LIMIT 1";
-                    try (PreparedStatement modStmt = connection.prepareStatement(modSql)) {
-                        modStmt.setInt(1, postID);
-                        try (ResultSet mrs = modStmt.executeQuery()) {
-                            if (mrs.next()) {
-                                actionUser = mrs.getString("username");
-                                actionReason = mrs.getString("reason");
-                                Timestamp t = mrs.getTimestamp("timestamp");
-                                if (t != null)
-                                    actionTimestamp = t.toLocalDateTime();
-                            }
-                        }
+    /**
+     * Loads one page of the post list in the given order. NEWEST is getPostsPage; LAST_ACTIVITY
+     * puts the posts with the most recent post or reply first and continues after the last
+     * activity of the last post shown, read from the reply counters instead of the replies.
+     *
+     * @param username      The username of the current user, to determine read status.
+     * @param sessionRole   The role the user is currently acting as.
+     * @param thread        The thread to list, or "All Threads" (or null) for every thread.
+     * @param order         The order to list the posts in.
+     * @param afterSortTime The sort time (timestamp or last activity) of the last post already
+     *                      shown, or null for the first page.
+     * @param afterPostID   The postID of the last post already shown; ignored for the first
+     *                      page.
+     * @param limit         The most posts to return.
+     * @return The posts of the page; fewer than limit means the end of the list was reached.
+     */
+    public List<Post> getPostsPage(String username, Role sessionRole, String thread, PostOrder order,
+            LocalDateTime afterSortTime, int afterPostID, int limit) {
+        if (order == PostOrder.LAST_ACTIVITY)
+            return postsPage("last_activity", username, sessionRole, thread, afterSortTime, afterPostID, limit);
+        return getPostsPage(username, sessionRole, thread, afterSortTime, afterPostID, limit);
+    }
+
+    // One page of posts ordered by sortColumn, a timestamp column of postsDB with an index in
+    // (sortColumn DESC, postID DESC) order and one in (thread, sortColumn DESC, postID DESC) order
+    private List<Post> postsPage(String sortColumn, String username, Role sessionRole, String thread,
+            LocalDateTime afterTimestamp, int afterPostID, int limit) {
+        List<Post> posts = new ArrayList<>();
+
+        // The reply counts and the latest action are looked up per listed post, after the page
+        // has been cut, so their cost does not grow with the board.
+        String sql = "SELECT p.*, "
+                + "m.username AS actionUser, m.reason AS actionReason, m.timestamp AS actionTimestamp "
+                + "FROM (" + pageQuery("*", sortColumn, sessionRole, thread, afterTimestamp) + ") p "
+                + "LEFT JOIN moderation_log m ON m.logID = (SELECT ml.logID FROM moderation_log ml "
+                + "WHERE ml.postID = p.postID ORDER BY ml.timestamp DESC, ml.logID DESC LIMIT 1) "
+                + "ORDER BY p." + sortColumn + " DESC, p.postID DESC";
+
+        try {
+            ReadState readState = getReadState(username);
+            try (Connection conn = getConnection();
+                    PreparedStatement pstmt = conn.prepareStatement(sql);
+                    PreparedStatement replies = conn.prepareStatement(SESSION_VISIBLE_REPLIES)) {
+                setPageQuery(pstmt, thread, afterTimestamp, afterPostID, limit);
+
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        posts.add(readPostRow(rs));
                     }
-                } catch (SQLException ignore) {
-                    // moderation_log might not exist on some DBs - that's fine
                 }
+                applySessionReplies(posts, replies, username, sessionRole, readState);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return posts;
+    }
 
-                // Construct Post. Use the constructor that includes moderation metadata and
-                // visibility.
-                Post post = new Post(
-                        postID,
-                        author,
-                        title,
-                        content,
-                        thread,
-                        deleted,
-                        viewed,
-                        replyCount,
-                        unreadReplyCount,
-                        visible,
-                        actionUser,
-                        actionReason,
-                        actionTimestamp);
-
-                posts.add(post);
+    /**
+     * Returns the postIDs of one page of the post list, newest first, as getPostsPage cuts it;
+     * for a subclass that builds the listed posts itself.
+     *
+     * @param sessionRole    The role the user is currently acting as.
+     * @param thread         The thread to list, or "All Threads" (or null) for every thread.
+     * @param afterTimestamp The timestamp of the last post already shown, or null for the first
+     *                       page.
+     * @param afterPostID    The postID of the last post already shown; ignored for the first
+     *                       page.
+     * @param limit          The most posts to return.
+     * @return The postIDs of the page, in list order.
+     * @throws SQLException if the page cannot be read.
+     */
+    protected List<Integer> getPostsPageIDs(Role sessionRole, String thread, LocalDateTime afterTimestamp,
+            int afterPostID, int limit) throws SQLException {
+        List<Integer> postIDs = new ArrayList<>();
+        try (Connection conn = getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(
+                        pageQuery("pg.postID", "timestamp", sessionRole, thread, afterTimestamp))) {
+            setPageQuery(pstmt, thread, afterTimestamp, afterPostID, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next())
+                    postIDs.add(rs.getInt(1));
+            }
+        }
+        return postIDs;
+    }
+
+    // The posts of one page, cut by the index before anything else is read. Parameters, set by
+    // setPageQuery: the thread, the cursor and the limit.
+    private static String pageQuery(String columns, String sortColumn, Role sessionRole, String thread,
+            LocalDateTime afterTimestamp) {
+        boolean allThreads = thread == null || "All Threads".equals(thread);
+        String sort = "pg." + sortColumn;
+
+        String pageFilter = "WHERE TRUE";
+        if (!allThreads)
+            pageFilter += " AND pg.thread = ?";
+        if (sessionRole == Role.STUDENT)
+            pageFilter += " AND pg.visible = TRUE";
+        if (afterTimestamp != null)
+            // the first condition bounds the index range, the second breaks timestamp ties
+            pageFilter += " AND " + sort + " <= ? AND (" + sort + " < ? OR pg.postID < ?)";
+        // Within one thread the order is the same, but H2 only reads the thread index in order
+        // when the thread leads the ORDER BY
+        String pageOrder = allThreads ? sort + " DESC, pg.postID DESC"
+                : "pg.thread, " + sort + " DESC, pg.postID DESC";
+        return "SELECT " + columns + " FROM postsDB pg " + pageFilter + " ORDER BY " + pageOrder + " LIMIT ?";
+    }
+
+    private static void setPageQuery(PreparedStatement pstmt, String thread, LocalDateTime afterTimestamp,
+            int afterPostID, int limit) throws SQLException {
+        int idx = 1;
+        if (thread != null && !"All Threads".equals(thread))
+            pstmt.setString(idx++, thread);
+        if (afterTimestamp != null) {
+            Timestamp after = Timestamp.valueOf(afterTimestamp);
+            pstmt.setTimestamp(idx++, after);
+            pstmt.setTimestamp(idx++, after);
+            pstmt.setInt(idx++, afterPostID);
+        }
+        pstmt.setInt(idx, limit);
+    }
+
+    /**
+     * Retrieves the given posts as one session sees them in the post list, with the same reply
+     * counts and read flags as getPostsPage. Used to patch a list after a change instead of
+     * reloading it. Posts that do not exist, and hidden posts in a student session, are left
+     * out.
+     *
+     * @param username    The username of the current user, to determine read status.
+     * @param sessionRole The role the user is currently acting as.
+     * @param postIDs     The posts to read.
+     * @return The posts found, newest first.
+     */
+    public List<Post> getPosts(String username, Role sessionRole, List<Integer> postIDs) {
+        List<Post> posts = new ArrayList<>();
+        if (postIDs.isEmpty())
+            return posts;
+        String sql = "SELECT p.*, "
+                + "m.username AS actionUser, m.reason AS actionReason, m.timestamp AS actionTimestamp "
+                + "FROM postsDB p "
+                + "LEFT JOIN moderation_log m ON m.logID = (SELECT ml.logID FROM moderation_log ml "
+                + "WHERE ml.postID = p.postID ORDER BY ml.timestamp DESC, ml.logID DESC LIMIT 1) "
+                + "WHERE p.postID = ANY(?)" + (sessionRole == Role.STUDENT ? " AND p.visible = TRUE" : "")
+                + " ORDER BY p.timestamp DESC, p.postID DESC";
+        try {
+            ReadState readState = getReadState(username);
+            try (Connection conn = getConnection();
+                    PreparedStatement pstmt = conn.prepareStatement(sql);
+                    PreparedStatement replies = conn.prepareStatement(SESSION_VISIBLE_REPLIES)) {
+                pstmt.setObject(1, postIDs.toArray(new Integer[0]));
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        posts.add(readPostRow(rs));
+                    }
+                }
+                applySessionReplies(posts, replies, username, sessionRole, readState);
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -1195,6 +1626,131 @@ public class Database {
         return posts;
     }
 
+    // The visible replies of the listed posts. Parameters: the REPLY_VISIBLE_TO_SESSION ones,
+    // then the listed postIDs.
+    private static final String SESSION_VISIBLE_REPLIES = VISIBLE_REPLIES + " AND r.postID = ANY(?)";
+
+    /**
+     * Fills in the read flags and reply counts of listed posts for one session.
+     *
+     * @param posts       The listed posts.
+     * @param replies     SESSION_VISIBLE_REPLIES, prepared.
+     * @param username    The user of the session.
+     * @param sessionRole The role the user is acting as.
+     * @param readState   What the user has read.
+     * @throws SQLException if the replies cannot be read.
+     */
+    private static void applySessionReplies(List<Post> posts, PreparedStatement replies, String username,
+            Role sessionRole, ReadState readState) throws SQLException {
+        // the counters say which posts have replies at all; only those are looked up
+        List<Integer> postIDs = new ArrayList<>();
+        for (Post post : posts) {
+            if (post.getLastReplyTimestamp() != null)
+                postIDs.add(post.getPostID());
+        }
+        if (postIDs.isEmpty()) {
+            applyReadState(posts, readState, Map.of());
+            return;
+        }
+        int idx = setVisibleReplyRule(replies, 1, username, sessionRole);
+        replies.setObject(idx, postIDs.toArray(new Integer[0]));
+        applyReadState(posts, readState, groupReplyIDs(replies));
+    }
+
+    // The most recent moderation action for each post, ranked over the whole log in one pass
+    // instead of a separate moderation_log lookup for every post row.
+    private static final String LATEST_ACTION_COLUMNS = "m.username AS actionUser, m.reason AS actionReason, "
+            + "m.timestamp AS actionTimestamp ";
+    private static final String LATEST_ACTION_JOIN = "LEFT JOIN (SELECT postID, username, reason, timestamp, "
+            + "ROW_NUMBER() OVER (PARTITION BY postID ORDER BY timestamp DESC, logID DESC) AS actionRank "
+            + "FROM moderation_log) m ON m.postID = p.postID AND m.actionRank = 1 ";
+
+    /**
+     * Builds a Post from the current row of a post list query. The row must carry the
+     * latest moderation action columns. The viewed flag and reply counts are left unset
+     * for applyReadState to fill in.
+     *
+     * @param rs The result set positioned on the row to read.
+     * @return The Post for that row.
+     * @throws SQLException if a database access error occurs.
+     */
+    private Post readPostRow(ResultSet rs) throws SQLException {
+        // read legacy 'visible' flag if present; default true when missing
+        boolean visible = true;
+        try {
+            visible = rs.getBoolean("visible");
+        } catch (SQLException ignore) {
+            // column missing in older DB schema -> assume visible
+        }
+
+        Timestamp t = rs.getTimestamp("actionTimestamp");
+        LocalDateTime actionTimestamp = t == null ? null : t.toLocalDateTime();
+
+        // Construct Post. Use the constructor that includes moderation metadata and
+        // visibility.
+        Post post = new Post(
+                rs.getInt("postID"),
+                rs.getString("authorUsername"),
+                rs.getString("title"),
+                rs.getString("content"),
+                rs.getString("thread"),
+                rs.getBoolean("deleted"),
+                false,
+                0,
+                0,
+                visible,
+                rs.getString("actionUser"),
+                rs.getString("actionReason"),
+                actionTimestamp);
+
+        // keep the stored creation time; paging continues from the last post's timestamp
+        Timestamp posted = rs.getTimestamp("timestamp");
+        if (posted != null)
+            post.setTimestamp(posted.toLocalDateTime());
+        Timestamp lastReply = rs.getTimestamp("last_reply_at");
+        post.setLastReplyTimestamp(lastReply == null ? null : lastReply.toLocalDateTime());
+        post.setHiddenReplyCount(rs.getInt("hidden_reply_count"));
+        return post;
+    }
+
+    /**
+     * Runs a query of (postID, replyID) rows and groups the replyIDs by post.
+     *
+     * @param pstmt The prepared query, with its parameters set.
+     * @return The replyIDs of each post that has any.
+     * @throws SQLException if a database access error occurs.
+     */
+    private static Map<Integer, List<Integer>> groupReplyIDs(PreparedStatement pstmt) throws SQLException {
+        Map<Integer, List<Integer>> replyIDs = new HashMap<>();
+        try (ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next())
+                replyIDs.computeIfAbsent(rs.getInt(1), id -> new ArrayList<>()).add(rs.getInt(2));
+        }
+        return replyIDs;
+    }
+
+    /**
+     * Sets the viewed flag and the reply counts of listed posts from the user's read state.
+     *
+     * @param posts          The posts to fill in.
+     * @param readState      What the user has read.
+     * @param visibleReplies The replyIDs of each post that the user may see.
+     */
+    private static void applyReadState(List<Post> posts, ReadState readState,
+            Map<Integer, List<Integer>> visibleReplies) {
+        for (Post post : posts) {
+            List<Integer> replyIDs = visibleReplies.getOrDefault(post.getPostID(), List.of());
+            int unread = 0;
+            for (int replyID : replyIDs) {
+                if (!readState.isReplyRead(replyID))
+                    unread++;
+            }
+            post.setViewed(readState.isPostRead(post.getPostID()));
+            post.setReplyCount(replyIDs.size());
+            post.setUnreadReplyCount(unread);
+        }
+    }
+
     /*****
      * <p>
      * Method: String getPostAuthor(int postID)
@@ -1214,7 +1770,8 @@ public class Database {
      */
     public String getPostAuthor(int postID) {
         String sql = "SELECT authorUsername FROM postsDB WHERE postID = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection conn = getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, postID);
             ResultSet rs = pstmt.executeQuery();
             if (rs.next()) {
@@ -1235,7 +1792,8 @@ public class Database {
      * Description: This method checks whether a specified user has been assigned
      * the staff role.
      * This allows the system to verify a user’s authorization level
-     * when performing staff-specific actions.
+     * when performing staff-specific actions. The answer comes from the role
+     * cache, so repeated checks do not query the database.
      * </p>
      * 
      * @param username The username of the user whose staff role status is to be
@@ -1245,23 +1803,18 @@ public class Database {
      *         staff, FALSE otherwise).
      */
     public boolean isUserStaff(String username) {
-        String sql = "SELECT newStaff FROM userDB WHERE userName = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setString(1, username);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                return rs.getBoolean("newStaff");
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return false;
+        return getRoles(username).contains(Role.STAFF);
     }
 
     /**
      * Searches for posts based on a keyword and an optional thread, excluding "soft
      * deleted" posts.
      * 
+     * The words of the keyword are looked up in the search index, which matches
+     * post titles, post content and the replies the user may see, and the posts
+     * come back best match first. A keyword without any words lists every post
+     * in the thread, newest first.
+     * 
      * @param keyword  The keyword to search for in post titles and content.
      * @param thread   The thread to filter by. If "All Threads", no thread filter
      *                 is applied.
@@ -1269,125 +1822,84 @@ public class Database {
      * @return A List of matching Post objects.
      */
     public List<Post> searchPosts(String keyword, String thread, String username) {
-        List<Post> posts = new ArrayList<>();
-        boolean viewerIsStaff = false;
-        try {
-            viewerIsStaff = isUserStaff(username);
-        } catch (Exception ignored) {
-        }
-
-        String replyCountSubquery;
-        String unreadCountSubquery;
+        return searchPosts(keyword, thread, username, defaultSessionRole(username));
+    }
 
-        if (viewerIsStaff) {
-            replyCountSubquery = "(SELECT COUNT(*) FROM repliesDB r WHERE r.postID = p.postID)";
-            unreadCountSubquery = "(SELECT COUNT(*) FROM repliesDB r LEFT JOIN viewed_replies vr " +
-                    "ON r.replyID = vr.replyID AND vr.username = ? " +
-                    "WHERE r.postID = p.postID AND vr.replyID IS NULL)";
-        } else {
-            replyCountSubquery = "(SELECT COUNT(*) FROM repliesDB r WHERE r.postID = p.postID AND " +
-                    "((r.visible = TRUE) OR r.visibility = 'public' OR (r.visibility = 'private' AND r.recipient = ?) OR r.authorUsername = ?) )";
+    /**
+     * Searches for posts as searchPosts(keyword, thread, username) does, with the reply counts
+     * of the given session, as getAllPosts counts them.
+     * 
+     * @param keyword     The keyword to search for in post titles and content.
+     * @param thread      The thread to filter by. If "All Threads", no thread filter is
+     *                    applied.
+     * @param username    The username of the current user, to determine read status.
+     * @param sessionRole The role the user is currently acting as.
+     * @return A List of matching Post objects.
+     */
+    public List<Post> searchPosts(String keyword, String thread, String username, Role sessionRole) {
+        List<Post> posts = new ArrayList<>();
 
-            unreadCountSubquery = "(SELECT COUNT(*) FROM repliesDB r LEFT JOIN viewed_replies vr " +
-                    "ON r.replyID = vr.replyID AND vr.username = ? " +
-                    "WHERE r.postID = p.postID AND vr.replyID IS NULL AND " +
-                    "((r.visible = TRUE) OR r.visibility = 'public' OR (r.visibility = 'private' AND r.recipient = ?) OR r.authorUsername = ?) )";
+        // Ranked matches from the index; null means no keyword, so no filter
+        List<Integer> ranked = null;
+        if (!SearchIndex.analyze(keyword).isEmpty()) {
+            ranked = searchIndex.search(keyword, thread, username, sessionRole, SEARCH_RESULT_LIMIT);
+            if (ranked.isEmpty())
+                return posts;
         }
 
-        String sql = "SELECT p.*, (v.postID IS NOT NULL) AS viewed, " +
-                replyCountSubquery + " AS replyCount, " +
-                unreadCountSubquery + " AS unreadReplyCount " +
+        String visibleReplies = VISIBLE_REPLIES;
+
+        String sql = "SELECT p.*, " +
+                LATEST_ACTION_COLUMNS +
                 "FROM postsDB p " +
-                "LEFT JOIN viewed_posts v ON p.postID = v.postID AND v.username = ? " +
-                "WHERE (LOWER(p.title) LIKE LOWER(?) OR LOWER(p.content) LIKE LOWER(?))";
+                LATEST_ACTION_JOIN +
+                "WHERE TRUE";
 
-        if (!"All Threads".equals(thread)) {
+        if (ranked != null) {
+            sql += " AND p.postID = ANY(?)";
+            visibleReplies += " AND r.postID = ANY(?)";
+        } else if (!"All Threads".equals(thread)) {
             sql += " AND p.thread = ?";
+            visibleReplies += " AND p.thread = ?";
         }
 
         sql += " ORDER BY p.timestamp DESC";
 
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            String searchKeyword = "%" + keyword + "%";
-            int idx = 1;
-
-            if (viewerIsStaff) {
-                // unreadCount vr.username
-                pstmt.setString(idx++, username);
-                // join v.username
-                pstmt.setString(idx++, username);
-            } else {
-                // replyCount: recipient, author
-                pstmt.setString(idx++, username); // for (r.recipient = ?)
-                pstmt.setString(idx++, username); // for r.authorUsername = ?
-                // unreadCount: vr.username, recipient, author
-                pstmt.setString(idx++, username); // vr.username
-                pstmt.setString(idx++, username); // recipient
-                pstmt.setString(idx++, username); // author
-                // join v.username
-                pstmt.setString(idx++, username);
-            }
-
-            // keyword and optional thread filters
-            pstmt.setString(idx++, searchKeyword);
-            pstmt.setString(idx++, searchKeyword);
-            if (!"All Threads".equals(thread)) {
-                pstmt.setString(idx++, thread);
-            }
-
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    int postID = rs.getInt("postID");
-                    String author = rs.getString("authorUsername");
-                    String title = rs.getString("title");
-                    String content = rs.getString("content");
-                    String postThread = rs.getString("thread");
-                    boolean deleted = rs.getBoolean("deleted");
-                    boolean viewed = rs.getBoolean("viewed");
-                    int replyCount = rs.getInt("replyCount");
-                    int unreadReplyCount = rs.getInt("unreadReplyCount");
-
-                    // pull visibility like in getAllPosts (safe for older DBs)
-                    boolean visible = true;
-                    try {
-                        visible = rs.getBoolean("visible");
-                    } catch (SQLException ignore) {
-                        // Column might not exist in an older DB; default to visible
-                    }
+        try {
+            ReadState readState = getReadState(username);
+            try (Connection conn = getConnection();
+                    PreparedStatement pstmt = conn.prepareStatement(sql);
+                    PreparedStatement replies = conn.prepareStatement(visibleReplies)) {
+                int idx = setVisibleReplyRule(replies, 1, username, sessionRole);
+
+                // matched posts (already filtered by thread), or the optional thread filter
+                if (ranked != null) {
+                    Integer[] matches = ranked.toArray(new Integer[0]);
+                    pstmt.setObject(1, matches);
+                    replies.setObject(idx, matches);
+                } else if (!"All Threads".equals(thread)) {
+                    pstmt.setString(1, thread);
+                    replies.setString(idx, thread);
+                }
 
-                    // fetch most recent moderation action for this post (if any)
-                    String actionUser = null;
-                    String actionReason = null;
-                    LocalDateTime actionTimestamp = null;
-                    try {
-                        String modSql = "SELECT username, action, reason, timestamp FROM moderation_log WHERE postID = ? ORDER BY timestamp DESC LIMIT 1";
-                        try (PreparedStatement modStmt = connection.prepareStatement(modSql)) {
-                            modStmt.setInt(1, postID);
-                            try (ResultSet mrs = modStmt.executeQuery()) {
-                                if (mrs.next()) {
-                                    actionUser = mrs.getString("username");
-                                    actionReason = mrs.getString("reason");
-                                    Timestamp t = mrs.getTimestamp("timestamp");
-                                    if (t != null)
-                                        actionTimestamp = t.toLocalDateTime();
-                                }
-                            }
-                        }
-                    } catch (SQLException ignore) {
-                        // moderation_log might not exist on some DBs
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        posts.add(readPostRow(rs));
                     }
-
-                    Post post = new Post(
-                            postID, author, title, content, postThread,
-                            deleted, viewed, replyCount, unreadReplyCount,
-                            visible, actionUser, actionReason, actionTimestamp);
-                    posts.add(post);
                 }
+                applyReadState(posts, readState, groupReplyIDs(replies));
             }
         } catch (SQLException e) {
             e.printStackTrace();
         }
 
+        // Put the matches back in rank order
+        if (ranked != null) {
+            Map<Integer, Integer> rank = new HashMap<>();
+            for (int i = 0; i < ranked.size(); i++)
+                rank.put(ranked.get(i), i);
+            posts.sort((a, b) -> Integer.compare(rank.get(a.getPostID()), rank.get(b.getPostID())));
+        }
         return posts;
     }
 
@@ -1398,11 +1910,20 @@ public class Database {
      */
     public void update(Post post) {
         String sql = "UPDATE postsDB SET title = ?, content = ? WHERE postID = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setString(1, post.getTitle());
-            pstmt.setString(2, post.getContent());
-            pstmt.setInt(3, post.getPostID());
-            pstmt.executeUpdate();
+        try {
+            inTransaction(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setString(1, post.getTitle());
+                    pstmt.setString(2, post.getContent());
+                    pstmt.setInt(3, post.getPostID());
+                    pstmt.executeUpdate();
+                }
+                afterCommit(() -> searchIndex.indexPost(post.getPostID(), post.getAuthorUsername(),
+                        post.getTitle(), post.getContent(), post.getThread()));
+                publishChange(conn, ChangeEvent.Kind.POST_UPDATED, post.getPostID(), 0, null,
+                        post.getAuthorUsername());
+                return null;
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -1415,9 +1936,16 @@ public class Database {
      */
     public void deletePost(int postID) {
         String deletePostSql = "UPDATE postsDB SET title = 'deleted', content = 'deleted', deleted = TRUE WHERE postID = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(deletePostSql)) {
-            pstmt.setInt(1, postID);
-            pstmt.executeUpdate();
+        try {
+            inTransaction(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(deletePostSql)) {
+                    pstmt.setInt(1, postID);
+                    pstmt.executeUpdate();
+                }
+                afterCommit(() -> searchIndex.removePost(postID));
+                publishChange(conn, ChangeEvent.Kind.POST_DELETED, postID, 0, null, null);
+                return null;
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -1433,20 +1961,52 @@ public class Database {
     }
 
     /**
-     * Marks a post as read for a specific user.
+     * Marks a post as read for a specific user. The user's read state shows it
+     * at once; the change is queued and written with the next batch.
      * 
      * @param postID   The ID of the post.
      * @param username The username of the user.
      */
     public void markPostAsRead(int postID, String username) {
-        String sql = "MERGE INTO viewed_posts (postID, username) KEY(postID, username) VALUES (?, ?)";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setInt(1, postID);
-            pstmt.setString(2, username);
-            pstmt.executeUpdate();
+        // queued first, so a read state loaded from now on includes the mark
+        boolean flushDue = readMarks.markPost(username, postID);
+        try {
+            getReadState(username).posts.add(postID);
         } catch (SQLException e) {
+            // the queued mark is added when the read state is next loaded
             e.printStackTrace();
         }
+        if (flushDue)
+            flushReadMarks();
+    }
+
+    /**
+     * Marks every post of a thread as read for a user with one query and one
+     * write of the user's read state.
+     * 
+     * @param username The username of the user.
+     * @param thread   The thread, or null or "All Threads" for every post.
+     */
+    public void markAllPostsRead(String username, String thread) {
+        boolean filterByThread = thread != null && !thread.equals("All Threads");
+        String sql = "SELECT postID FROM postsDB" + (filterByThread ? " WHERE thread = ?" : "");
+        synchronized (readMarkFlushLock) {
+            synchronized (readStateLock) {
+                try (Connection conn = getConnection();
+                        PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    if (filterByThread)
+                        pstmt.setString(1, thread);
+                    ReadState state = readState(conn, username);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next())
+                            state.posts.add(rs.getInt(1));
+                    }
+                    saveReadState(conn, username, state);
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
     }
 
     // Moderation and Visibility Control for Posts
@@ -1460,10 +2020,17 @@ public class Database {
      */
     public void hidePost(int postID, String username, String reason) {
         String sql = "UPDATE postsDB SET visible = FALSE WHERE postID = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setInt(1, postID);
-            pstmt.executeUpdate();
-            logModerationAction(postID, username, "HIDE_POST", reason);
+        try {
+            // the change and its log entry are written together or not at all
+            inTransaction(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setInt(1, postID);
+                    pstmt.executeUpdate();
+                }
+                logModerationAction(conn, postID, username, "HIDE_POST", reason);
+                publishChange(conn, ChangeEvent.Kind.POST_HIDDEN, postID, 0, null, username);
+                return null;
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -1478,10 +2045,17 @@ public class Database {
      */
     public void unhidePost(int postID, String username, String reason) {
         String sql = "UPDATE postsDB SET visible = TRUE WHERE postID = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setInt(1, postID);
-            pstmt.executeUpdate();
-            logModerationAction(postID, username, "UNHIDE_POST", reason);
+        try {
+            // the change and its log entry are written together or not at all
+            inTransaction(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setInt(1, postID);
+                    pstmt.executeUpdate();
+                }
+                logModerationAction(conn, postID, username, "UNHIDE_POST", reason);
+                publishChange(conn, ChangeEvent.Kind.POST_UNHIDDEN, postID, 0, null, username);
+                return null;
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -1496,7 +2070,15 @@ public class Database {
      */
     public void flagPost(int postID, String username, String reason) {
         // This does not change visibility, but just records the issue
-        logModerationAction(postID, username, "FLAG_POST", reason);
+        try {
+            inTransaction(conn -> {
+                logModerationAction(conn, postID, username, "FLAG_POST", reason);
+                publishChange(conn, ChangeEvent.Kind.POST_FLAGGED, postID, 0, null, username);
+                return null;
+            });
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
     }
 
     // --- NEW DATABASE METHODS FOR REPLIES (CRUD) ---
@@ -1508,14 +2090,30 @@ public class Database {
      */
     public boolean createReply(Reply reply) {
         String sql = "INSERT INTO repliesDB (postID, authorUsername, content, visibility, recipient, timestamp) VALUES (?, ?, ?, ?, ?, ?)";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setInt(1, reply.getPostID());
-            pstmt.setString(2, reply.getAuthorUsername());
-            pstmt.setString(3, reply.getContent());
-            pstmt.setString(4, reply.getVisibility() == null ? "public" : reply.getVisibility());
-            pstmt.setString(5, reply.getPostAuthorUsername()); // recipient (may be null)
-            pstmt.setTimestamp(6, Timestamp.from(Instant.now()));
-            pstmt.executeUpdate();
+        String visibility = reply.getVisibility() == null ? "public" : reply.getVisibility();
+        try {
+            inTransaction(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                    pstmt.setInt(1, reply.getPostID());
+                    pstmt.setString(2, reply.getAuthorUsername());
+                    pstmt.setString(3, reply.getContent());
+                    pstmt.setString(4, visibility);
+                    pstmt.setString(5, reply.getPostAuthorUsername()); // recipient (may be null)
+                    pstmt.setTimestamp(6, Timestamp.from(Instant.now()));
+                    pstmt.executeUpdate();
+                    adjustReplyCounters(conn, reply.getPostID(), 1, isPublicReply(visibility) ? 1 : 0, 0);
+                    try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                        if (keys.next()) {
+                            int replyID = keys.getInt(1);
+                            afterCommit(() -> searchIndex.indexReply(replyID, reply.getPostID(),
+                                    reply.getAuthorUsername(), reply.getContent(), reply.getVisibility(), true));
+                            publishChange(conn, ChangeEvent.Kind.REPLY_CREATED, reply.getPostID(), replyID, null,
+                                    reply.getAuthorUsername());
+                        }
+                    }
+                }
+                return null;
+            });
             return true;
         } catch (SQLException e) {
             e.printStackTrace();
@@ -1531,57 +2129,58 @@ public class Database {
      */
     public List<Reply> getRepliesForPost(int postID, String username) {
         List<Reply> replies = new ArrayList<>();
-        String sql = "SELECT r.*, vr.replyID IS NOT NULL AS viewed FROM repliesDB r "
-                + "LEFT JOIN viewed_replies vr ON r.replyID = vr.replyID AND vr.username = ? "
-                + "WHERE r.postID = ? ORDER BY r.timestamp ASC";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setString(1, username);
-            pstmt.setInt(2, postID);
-            ResultSet rs = pstmt.executeQuery();
-            while (rs.next()) {
-                int replyID = rs.getInt("replyID");
-                String author = rs.getString("authorUsername");
-                String content = rs.getString("content");
-                boolean viewed = rs.getBoolean("viewed");
+        String sql = "SELECT r.* FROM repliesDB r WHERE r.postID = ? ORDER BY r.timestamp ASC";
+        try {
+            ReadState readState = getReadState(username);
+            try (Connection conn = getConnection();
+                    PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setInt(1, postID);
+                ResultSet rs = pstmt.executeQuery();
+                while (rs.next()) {
+                    int replyID = rs.getInt("replyID");
+                    String author = rs.getString("authorUsername");
+                    String content = rs.getString("content");
+                    boolean viewed = readState.isReplyRead(replyID);
 
-                // Legacy 'visible' boolean (may not exist)
-                boolean visible = true;
-                try {
-                    visible = rs.getBoolean("visible");
-                } catch (SQLException ignore) {
-                    // Older DB: assume visible
-                }
+                    // Legacy 'visible' boolean (may not exist)
+                    boolean visible = true;
+                    try {
+                        visible = rs.getBoolean("visible");
+                    } catch (SQLException ignore) {
+                        // Older DB: assume visible
+                    }
 
-                // Newer visibility/recipient model (may not exist)
-                String visibility = null;
-                String recipient = null;
-                try {
-                    visibility = rs.getString("visibility");
-                } catch (SQLException ignore) {
-                }
-                try {
-                    recipient = rs.getString("recipient");
-                } catch (SQLException ignore) {
-                }
+                    // Newer visibility/recipient model (may not exist)
+                    String visibility = null;
+                    String recipient = null;
+                    try {
+                        visibility = rs.getString("visibility");
+                    } catch (SQLException ignore) {
+                    }
+                    try {
+                        recipient = rs.getString("recipient");
+                    } catch (SQLException ignore) {
+                    }
 
-                // Keep moderation metadata null (same as original A)
-                String actionUser = null;
-                String actionReason = null;
-                LocalDateTime actionTimestamp = null;
-
-                Reply reply;
-                if ("private".equalsIgnoreCase(visibility)) {
-                    // Use the private-reply constructor from original B
-                    reply = new Reply(replyID, postID, author, content, "private", recipient);
-                } else {
-                    // Use the legacy constructor from original A (visible + null moderation
-                    // metadata)
-                    reply = new Reply(replyID, postID, author, content,
-                            visible, actionUser, actionReason, actionTimestamp);
-                }
+                    // Keep moderation metadata null (same as original A)
+                    String actionUser = null;
+                    String actionReason = null;
+                    LocalDateTime actionTimestamp = null;
 
-                reply.setViewed(viewed);
-                replies.add(reply);
+                    Reply reply;
+                    if ("private".equalsIgnoreCase(visibility)) {
+                        // Use the private-reply constructor from original B
+                        reply = new Reply(replyID, postID, author, content, "private", recipient);
+                    } else {
+                        // Use the legacy constructor from original A (visible + null moderation
+                        // metadata)
+                        reply = new Reply(replyID, postID, author, content,
+                                visible, actionUser, actionReason, actionTimestamp);
+                    }
+
+                    reply.setViewed(viewed);
+                    replies.add(reply);
+                }
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -1601,10 +2200,18 @@ public class Database {
      */
     public void update(Reply reply) { // overload
         String sql = "UPDATE repliesDB SET content = ? WHERE replyID = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setString(1, reply.getContent());
-            pstmt.setInt(2, reply.getReplyID());
-            pstmt.executeUpdate();
+        try {
+            inTransaction(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setString(1, reply.getContent());
+                    pstmt.setInt(2, reply.getReplyID());
+                    pstmt.executeUpdate();
+                }
+                afterCommit(() -> searchIndex.updateReplyContent(reply.getReplyID(), reply.getContent()));
+                publishChange(conn, ChangeEvent.Kind.REPLY_UPDATED, reply.getPostID(), reply.getReplyID(), null,
+                        reply.getAuthorUsername());
+                return null;
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -1617,9 +2224,33 @@ public class Database {
      */
     public void deleteReply(int replyID) {
         String sql = "DELETE FROM repliesDB WHERE replyID = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setInt(1, replyID);
-            pstmt.executeUpdate();
+        try {
+            inTransaction(conn -> {
+                try (PreparedStatement find = conn.prepareStatement(
+                        "SELECT postID, visibility, visible FROM repliesDB WHERE replyID = ?");
+                        PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    // the counters and the feed need the reply's post and kind, which are gone
+                    // once the row is deleted
+                    find.setInt(1, replyID);
+                    int postID = 0;
+                    boolean isPublic = false;
+                    boolean isHidden = false;
+                    try (ResultSet rs = find.executeQuery()) {
+                        if (rs.next()) {
+                            postID = rs.getInt(1);
+                            isPublic = isPublicReply(rs.getString(2));
+                            isHidden = Boolean.FALSE.equals(rs.getObject(3, Boolean.class));
+                        }
+                    }
+                    pstmt.setInt(1, replyID);
+                    if (pstmt.executeUpdate() > 0) {
+                        adjustReplyCounters(conn, postID, -1, isPublic ? -1 : 0, isHidden ? -1 : 0);
+                        publishChange(conn, ChangeEvent.Kind.REPLY_DELETED, postID, replyID, null, null);
+                    }
+                }
+                afterCommit(() -> searchIndex.removeReply(replyID));
+                return null;
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -1635,20 +2266,50 @@ public class Database {
     }
 
     /**
-     * Marks a reply as read for a specific user.
+     * Marks a reply as read for a specific user. The user's read state shows it
+     * at once; the change is queued and written with the next batch.
      * 
      * @param replyID  The ID of the reply.
      * @param username The username of the user.
      */
     public void markReplyAsRead(int replyID, String username) {
-        String sql = "MERGE INTO viewed_replies (replyID, username) KEY(replyID, username) VALUES (?, ?)";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setInt(1, replyID);
-            pstmt.setString(2, username);
-            pstmt.executeUpdate();
+        // queued first, so a read state loaded from now on includes the mark
+        boolean flushDue = readMarks.markReply(username, replyID);
+        try {
+            getReadState(username).replies.add(replyID);
         } catch (SQLException e) {
+            // the queued mark is added when the read state is next loaded
             e.printStackTrace();
         }
+        if (flushDue)
+            flushReadMarks();
+    }
+
+    /**
+     * Marks every reply of a post as read for a user with one query and one
+     * write of the user's read state.
+     * 
+     * @param username The username of the user.
+     * @param postID   The ID of the post.
+     */
+    public void markAllRepliesRead(String username, int postID) {
+        synchronized (readMarkFlushLock) {
+            synchronized (readStateLock) {
+                try (Connection conn = getConnection();
+                        PreparedStatement pstmt = conn.prepareStatement(
+                                "SELECT replyID FROM repliesDB WHERE postID = ?")) {
+                    pstmt.setInt(1, postID);
+                    ReadState state = readState(conn, username);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next())
+                            state.replies.add(rs.getInt(1));
+                    }
+                    saveReadState(conn, username, state);
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
     }
 
     // Moderation and Visibility Control for Posts
@@ -1662,11 +2323,20 @@ public class Database {
      * @param reason   The reason why the post is being hidden.
      */
     public void hideReply(int replyID, int postID, String username, String reason) {
-        String sql = "UPDATE repliesDB SET visible = FALSE WHERE replyID = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setInt(1, replyID);
-            pstmt.executeUpdate();
-            logModerationAction(postID, username, "HIDE_REPLY", reason);
+        // only a reply that was not hidden already changes the hidden count
+        String sql = "UPDATE repliesDB SET visible = FALSE WHERE replyID = ? AND COALESCE(visible, TRUE)";
+        try {
+            inTransaction(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setInt(1, replyID);
+                    if (pstmt.executeUpdate() > 0)
+                        adjustReplyCounters(conn, postID, 0, 0, 1);
+                }
+                logModerationAction(conn, postID, username, "HIDE_REPLY", reason);
+                afterCommit(() -> searchIndex.setReplyVisible(replyID, false));
+                publishChange(conn, ChangeEvent.Kind.REPLY_HIDDEN, postID, replyID, null, username);
+                return null;
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -1681,13 +2351,72 @@ public class Database {
      * @param reason   The reason why the post is being hidden.
      */
     public void unhideReply(int replyID, int postID, String username, String reason) {
-        String sql = "UPDATE repliesDB SET visible = TRUE WHERE replyID = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setInt(1, replyID);
+        String sql = "UPDATE repliesDB SET visible = TRUE WHERE replyID = ? AND visible = FALSE";
+        try {
+            inTransaction(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setInt(1, replyID);
+                    if (pstmt.executeUpdate() > 0)
+                        adjustReplyCounters(conn, postID, 0, 0, -1);
+                }
+                logModerationAction(conn, postID, username, "UNHIDE_REPLY", reason);
+                afterCommit(() -> searchIndex.setReplyVisible(replyID, true));
+                publishChange(conn, ChangeEvent.Kind.REPLY_UNHIDDEN, postID, replyID, null, username);
+                return null;
+            });
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // --- Reply counters (see V8PostReplyCounters) ---
+
+    // Adds the changes to a post's counters and finds its last reply again
+    private static final String ADJUST_REPLY_COUNTERS = "UPDATE postsDB SET reply_count = reply_count + ?, "
+            + "public_reply_count = public_reply_count + ?, hidden_reply_count = hidden_reply_count + ?, "
+            + "last_reply_at = (SELECT MAX(timestamp) FROM repliesDB WHERE postID = ?) WHERE postID = ?";
+
+    /**
+     * Keeps a post's reply counters in step with a reply write, in the write's transaction.
+     *
+     * @param conn          The connection of the write.
+     * @param postID        The post the reply belongs to.
+     * @param replies       The change in the number of replies.
+     * @param publicReplies The change in the number of replies that are not private feedback.
+     * @param hiddenReplies The change in the number of hidden replies.
+     * @throws SQLException if the post cannot be updated.
+     */
+    private static void adjustReplyCounters(Connection conn, int postID, int replies, int publicReplies,
+            int hiddenReplies) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(ADJUST_REPLY_COUNTERS)) {
+            pstmt.setInt(1, replies);
+            pstmt.setInt(2, publicReplies);
+            pstmt.setInt(3, hiddenReplies);
+            pstmt.setInt(4, postID);
+            pstmt.setInt(5, postID);
             pstmt.executeUpdate();
-            logModerationAction(postID, username, "UNHIDE_REPLY", reason);
+        }
+    }
+
+    // The same rule as the post list: anything but private feedback is public
+    private static boolean isPublicReply(String visibility) {
+        return !"private".equalsIgnoreCase(visibility);
+    }
+
+    /**
+     * Rebuilds the reply counters of every post from its replies, in one statement. Needed after
+     * replies were written other than through createReply and deleteReply, such as by a bulk
+     * load, and safe to run at any time.
+     *
+     * @return The number of posts whose counters were wrong, or -1 if the repair failed.
+     */
+    public int repairReplyCounters() {
+        try (Connection conn = getConnection();
+                Statement stmt = conn.createStatement()) {
+            return stmt.executeUpdate(V8PostReplyCounters.RECOUNT);
         } catch (SQLException e) {
             e.printStackTrace();
+            return -1;
         }
     }
 
@@ -1702,7 +2431,8 @@ public class Database {
     public void createAdminRequest(String requester, String description) {
         String sql = "INSERT INTO admin_requests (requester, description, status, adminComments, created_at, updated_at) "
                 + "VALUES (?, ?, 'Open', '', ?, ?)";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection conn = getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, requester);
             pstmt.setString(2, description);
             Timestamp now = Timestamp.from(Instant.now());
@@ -1723,7 +2453,15 @@ public class Database {
      * @param reason   The reason why the post is being hidden.
      */
     public void flagReply(int replyID, int postID, String username, String reason) {
-        logModerationAction(postID, username, "FLAG_REPLY", reason);
+        try {
+            inTransaction(conn -> {
+                logModerationAction(conn, postID, username, "FLAG_REPLY", reason);
+                publishChange(conn, ChangeEvent.Kind.REPLY_FLAGGED, postID, replyID, null, username);
+                return null;
+            });
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
     }
 
     // OLD
@@ -1758,9 +2496,23 @@ public class Database {
      * </p>
      */
     private void logModerationAction(int postID, String username, String action, String reason) {
+        try (Connection conn = getConnection()) {
+            logModerationAction(conn, postID, username, action, reason);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Writes the moderation_log row on a connection the caller already holds, in
+     * the transaction of the moderation change it records, so the change is never
+     * saved without its log entry.
+     */
+    private void logModerationAction(Connection conn, int postID, String username, String action, String reason)
+            throws SQLException {
         String sql = "INSERT INTO moderation_log (postID, username, action, reason, timestamp) "
                 + "VALUES (?, ?, ?, ?, CURRENT_TIMESTAMP)";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, postID);
             pstmt.setString(2, username);
             pstmt.setString(3, action);
@@ -1774,9 +2526,259 @@ public class Database {
                             " action=" + action +
                             " reason=" + (reason == null ? "" : reason) +
                             " rowsInserted=" + rows);
+        }
+    }
+
+    // --- TRANSACTIONS ---
+
+    /**
+     * The statements of one user action, run by inTransaction on a single connection.
+     *
+     * @param <T> What the work returns.
+     */
+    @FunctionalInterface
+    public interface TransactionWork<T> {
+        T run(Connection conn) throws SQLException;
+    }
+
+    /**
+     * The state of the transaction a thread is running: its connection, the change events
+     * to write just before it commits, and what to do once it has.
+     */
+    private static class Transaction {
+        final Connection conn;
+        final List<PendingChange> changes = new ArrayList<>();
+        final List<Runnable> afterCommit = new ArrayList<>();
+
+        Transaction(Connection conn) {
+            this.conn = conn;
+        }
+    }
+
+    private record PendingChange(ChangeEvent.Kind kind, int postID, int replyID, String thread, String username) {
+    }
+
+    /**
+     * <p>
+     * Method: T inTransaction(TransactionWork&lt;T&gt; work)
+     * </p>
+     *
+     * <p>
+     * Description: Runs several statements as one transaction on one pooled connection,
+     * at the database's default READ COMMITTED isolation: either all of them are saved,
+     * with a single commit, or none are. Change events the work publishes are written
+     * just before the commit, under the feed lock, so they appear together with the
+     * change and in seq order; work the work defers with afterCommit, such as updating
+     * the search index, runs only once the commit has succeeded.
+     *
+     * If the work fails on a lock timeout, a deadlock or a concurrent update, it is
+     * rolled back and run again, a few times, after a short random wait; the work
+     * must therefore not change anything outside the database itself. Called from
+     * inside another transaction's work on the same thread, it runs in that
+     * transaction, behind a savepoint: if the inner work fails only its statements
+     * and events are undone and the exception is passed on to the outer work.
+     * </p>
+     *
+     * @param <T>  What the work returns.
+     * @param work The statements to run, given the transaction's connection.
+     * @return What the work returned.
+     * @throws SQLException if the work failed, or kept failing on locks; nothing it did
+     *                      is saved.
+     */
+    public <T> T inTransaction(TransactionWork<T> work) throws SQLException {
+        Transaction outer = currentTransaction.get();
+        if (outer != null)
+            return inSavepoint(outer, work);
+
+        for (int attempt = 1;; attempt++) {
+            Transaction tx;
+            T result = null;
+            boolean retry = false;
+            try (Connection conn = getConnection()) {
+                tx = new Transaction(conn);
+                conn.setAutoCommit(false);
+                currentTransaction.set(tx);
+                Exception failure = null;
+                try {
+                    result = work.run(conn);
+                    synchronized (changeLock) {
+                        for (PendingChange change : tx.changes)
+                            insertChange(conn, change);
+                        conn.commit();
+                    }
+                } catch (SQLException | RuntimeException e) {
+                    failure = e;
+                    try {
+                        conn.rollback();
+                    } catch (SQLException rollbackFailure) {
+                        e.addSuppressed(rollbackFailure);
+                    }
+                    if (!(e instanceof SQLException se) || !isRetryable(se) || attempt >= TRANSACTION_ATTEMPTS)
+                        throw e;
+                    retry = true;
+                } finally {
+                    currentTransaction.remove();
+                    // a failed reset must neither hide why the work failed nor fail work that
+                    // has committed; the pool rolls back or discards the connection on return
+                    try {
+                        conn.setAutoCommit(true);
+                    } catch (SQLException resetFailure) {
+                        if (failure != null)
+                            failure.addSuppressed(resetFailure);
+                        else
+                            resetFailure.printStackTrace();
+                    }
+                }
+            }
+            if (retry) {
+                // wait with the connection back in the pool, where other work can use it
+                backOff(attempt);
+                continue;
+            }
+            for (Runnable action : tx.afterCommit)
+                action.run();
+            return result;
+        }
+    }
+
+    // Runs nested work behind a savepoint of the outer transaction
+    private <T> T inSavepoint(Transaction tx, TransactionWork<T> work) throws SQLException {
+        int changes = tx.changes.size();
+        int actions = tx.afterCommit.size();
+        Savepoint savepoint = tx.conn.setSavepoint();
+        try {
+            T result = work.run(tx.conn);
+            tx.conn.releaseSavepoint(savepoint);
+            return result;
+        } catch (SQLException | RuntimeException e) {
+            tx.conn.rollback(savepoint);
+            tx.changes.subList(changes, tx.changes.size()).clear();
+            tx.afterCommit.subList(actions, tx.afterCommit.size()).clear();
+            throw e;
+        }
+    }
+
+    // H2 reports lock conflicts with these codes; running the transaction again can succeed
+    private static boolean isRetryable(SQLException e) {
+        int code = e.getErrorCode();
+        return code == ErrorCode.LOCK_TIMEOUT_1 || code == ErrorCode.DEADLOCK_1
+                || code == ErrorCode.CONCURRENT_UPDATE_1;
+    }
+
+    private static void backOff(int attempt) throws SQLException {
+        long millis = TRANSACTION_RETRY_MILLIS << (attempt - 1);
+        try {
+            Thread.sleep(millis + ThreadLocalRandom.current().nextLong(millis));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting to retry a transaction", e);
+        }
+    }
+
+    /**
+     * Runs an action once the current transaction has committed, or now if the thread is
+     * not in one; for changes outside the database, which a rollback cannot undo.
+     */
+    private void afterCommit(Runnable action) {
+        Transaction tx = currentTransaction.get();
+        if (tx != null)
+            tx.afterCommit.add(action);
+        else
+            action.run();
+    }
+
+    // --- CHANGE FEED ---
+
+    /**
+     * Appends an event to the change feed, on the connection that made the change. Inside
+     * inTransaction the event is written as the transaction commits; otherwise the change
+     * must already be committed and the event is written at once.
+     *
+     * @param conn     The connection the change was made on.
+     * @param kind     What happened.
+     * @param postID   The post changed, or the reply's post; 0 for none.
+     * @param replyID  The reply changed; 0 for none.
+     * @param thread   The thread's title for thread events; otherwise null.
+     * @param username Who made the change, or null.
+     * @throws SQLException if the event cannot be written.
+     */
+    private void publishChange(Connection conn, ChangeEvent.Kind kind, int postID, int replyID, String thread,
+            String username) throws SQLException {
+        PendingChange change = new PendingChange(kind, postID, replyID, thread, username);
+        Transaction tx = currentTransaction.get();
+        if (tx != null && tx.conn == conn) {
+            tx.changes.add(change);
+            return;
+        }
+        synchronized (changeLock) {
+            insertChange(conn, change);
+        }
+    }
+
+    private static void insertChange(Connection conn, PendingChange change) throws SQLException {
+        String sql = "INSERT INTO change_log (kind, postID, replyID, thread, username, timestamp) "
+                + "VALUES (?, ?, ?, ?, ?, CURRENT_TIMESTAMP)";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, change.kind().name());
+            pstmt.setObject(2, change.postID() == 0 ? null : change.postID(), Types.INTEGER);
+            pstmt.setObject(3, change.replyID() == 0 ? null : change.replyID(), Types.INTEGER);
+            pstmt.setString(4, change.thread());
+            pstmt.setString(5, change.username());
+            pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Returns the seq of the newest change, so a view can remember how current it is before
+     * it loads.
+     *
+     * @return The newest seq, or 0 if nothing has changed yet.
+     */
+    public long getLatestChangeSeq() {
+        try (Connection conn = getConnection();
+                PreparedStatement pstmt = conn.prepareStatement("SELECT MAX(seq) FROM change_log");
+                ResultSet rs = pstmt.executeQuery()) {
+            if (rs.next())
+                return rs.getLong(1);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the changes made after the given one, oldest first.
+     *
+     * @param seq   The seq of the last change already applied, or 0 for all of them.
+     * @param limit The most changes to return; a caller that gets this many should fetch again,
+     *              or reload everything if it is too far behind.
+     * @return The changes with a larger seq, in seq order.
+     */
+    public List<ChangeEvent> getChangesSince(long seq, int limit) {
+        List<ChangeEvent> changes = new ArrayList<>();
+        String sql = "SELECT seq, kind, postID, replyID, thread, username, timestamp FROM change_log "
+                + "WHERE seq > ? ORDER BY seq LIMIT ?";
+        try (Connection conn = getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setLong(1, seq);
+            pstmt.setInt(2, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    Timestamp t = rs.getTimestamp("timestamp");
+                    changes.add(new ChangeEvent(
+                            rs.getLong("seq"),
+                            ChangeEvent.Kind.valueOf(rs.getString("kind")),
+                            rs.getInt("postID"),
+                            rs.getInt("replyID"),
+                            rs.getString("thread"),
+                            rs.getString("username"),
+                            t == null ? null : t.toLocalDateTime()));
+                }
+            }
         } catch (SQLException e) {
             e.printStackTrace();
         }
+        return changes;
     }
 
     /**
@@ -1793,7 +2795,8 @@ public class Database {
         String sql = "SELECT logID, postID, username, action, reason, timestamp "
                 + "FROM moderation_log ORDER BY logID";
 
-        try (PreparedStatement pstmt = connection.prepareStatement(sql);
+        try (Connection conn = getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(sql);
                 ResultSet rs = pstmt.executeQuery()) {
 
             System.out.println("========== MODERATION LOG ==========");
@@ -1827,7 +2830,8 @@ public class Database {
     public List<entityClasses.AdminRequest> getAllAdminRequests() {
         List<entityClasses.AdminRequest> list = new ArrayList<>();
         String sql = "SELECT * FROM admin_requests ORDER BY updated_at DESC";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql);
+        try (Connection conn = getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(sql);
                 ResultSet rs = pstmt.executeQuery()) {
             while (rs.next()) {
                 list.add(new entityClasses.AdminRequest(
@@ -1852,7 +2856,8 @@ public class Database {
      */
     public void updateAdminRequest(entityClasses.AdminRequest req) {
         String sql = "UPDATE admin_requests SET description = ?, status = ?, adminComments = ?, updated_at = ? WHERE requestID = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection conn = getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, req.getDescription());
             pstmt.setString(2, req.getStatus());
             pstmt.setString(3, req.getAdminComments());
@@ -1871,13 +2876,132 @@ public class Database {
         ADMIN, STUDENT, STAFF
     }
 
-    public java.util.EnumSet<Role> getRoles(entityClasses.User user) {
-        java.util.EnumSet<Role> roles = java.util.EnumSet.noneOf(Role.class);
-        if (loginAdmin(user))
+    // The orders the post list can be paged in
+    public enum PostOrder {
+        NEWEST, LAST_ACTIVITY
+    }
+
+    /**
+     * Checks a user's credentials and returns all of their roles with one query. The roles are
+     * kept in the role cache for the rest of the session.
+     * 
+     * @param user The User object with the username and password to check.
+     * @return The user's roles; empty if the username and password do not match.
+     */
+    public EnumSet<Role> getRoles(User user) {
+        AuthenticatedUser account = authenticate(user.getUserName(), user.getPassword());
+        return account == null ? EnumSet.noneOf(Role.class) : account.roles();
+    }
+
+    /**
+     * Checks a user's password.
+     * 
+     * @param username The user's username.
+     * @param password The password given.
+     * @return true if the user exists and the password is theirs, false otherwise.
+     */
+    public boolean checkPassword(String username, String password) {
+        return authenticate(username, password) != null;
+    }
+
+    /**
+     * Logs a user in: reads their account and roles with one lookup by username and checks the
+     * password against the stored hash. The connection is given back before the password is
+     * checked, as the check takes far longer than the query. The roles are returned with the
+     * account but not put in the role cache: a role change made during the check would be
+     * undone by storing roles read before it.
+     * 
+     * @param username The user's username.
+     * @param secret   The password given.
+     * @return The user's account, or null if there is no such user or the password is wrong.
+     */
+    public AuthenticatedUser authenticate(String username, String secret) {
+        String sql = "SELECT password, firstName, middleName, lastName, preferredFirstName, emailAddress, "
+                + "adminRole, newStudent, newStaff FROM userDB WHERE userName = ?";
+        String stored;
+        AuthenticatedUser account;
+        try (Connection conn = getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, username);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next())
+                    return null;
+                stored = rs.getString(1);
+                account = new AuthenticatedUser(username, rs.getString(2), rs.getString(3), rs.getString(4),
+                        rs.getString(5), rs.getString(6),
+                        toRoles(rs.getBoolean(7), rs.getBoolean(8), rs.getBoolean(9)));
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return null;
+        }
+        if (!verifyPassword(username, secret, stored))
+            return null;
+        return account;
+    }
+
+    public PasswordHasher getPasswordHasher() {
+        return passwords;
+    }
+
+    // Checks a password against the stored value on the hasher's pool, and when it matches a
+    // value hashed with another cost, replaces that value with a new hash. The replacement only happens if the value has not been changed meanwhile.
+    private boolean verifyPassword(String username, String password, String stored) {
+        PasswordHasher.Verification result = passwords.verify(password, stored);
+        if (result.matches() && result.rehashed() != null) {
+            String sql = "UPDATE userDB SET password = ? WHERE userName = ? AND password = ?";
+            try (Connection conn = getConnection();
+                    PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setString(1, result.rehashed());
+                pstmt.setString(2, username);
+                pstmt.setString(3, stored);
+                pstmt.executeUpdate();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+        return result.matches();
+    }
+
+    /**
+     * Returns the roles of a user. They are read from userDB with one query the first time and
+     * then served from the role cache until updateUserRole or deleteUser changes them.
+     * 
+     * @param username The user whose roles are wanted.
+     * @return The user's roles; empty for an unknown user.
+     */
+    public EnumSet<Role> getRoles(String username) {
+        if (username == null)
+            return EnumSet.noneOf(Role.class);
+        // a change to this user's roles removes the entry only after this load has stored it,
+        // so the cache never keeps roles read before the change
+        EnumSet<Role> roles = roleCache.computeIfAbsent(username, this::loadRoles);
+        return roles == null ? EnumSet.noneOf(Role.class) : EnumSet.copyOf(roles);
+    }
+
+    // Reads a user's roles; null for an unknown user, which is then not cached
+    private EnumSet<Role> loadRoles(String username) {
+        String sql = "SELECT adminRole, newStudent, newStaff FROM userDB WHERE userName = ?";
+        try (Connection conn = getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, username);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next())
+                    return toRoles(rs.getBoolean(1), rs.getBoolean(2), rs.getBoolean(3));
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    private static EnumSet<Role> toRoles(boolean admin, boolean student, boolean staff) {
+        EnumSet<Role> roles = EnumSet.noneOf(Role.class);
+        if (admin)
             roles.add(Role.ADMIN);
-        if (loginStudent(user))
+        if (student)
             roles.add(Role.STUDENT);
-        if (loginStaff(user))
+        if (staff)
             roles.add(Role.STAFF);
         return roles;
     } // --- THREAD MANAGEMENT OPERATIONS ---
@@ -1889,10 +3013,16 @@ public class Database {
      */
     public void createThread(String title) {
         String sql = "INSERT INTO discussion_threads (title, visible, created_at) VALUES (?, TRUE, ?)";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setString(1, title);
-            pstmt.setTimestamp(2, Timestamp.from(Instant.now()));
-            pstmt.executeUpdate();
+        try {
+            inTransaction(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setString(1, title);
+                    pstmt.setTimestamp(2, Timestamp.from(Instant.now()));
+                    pstmt.executeUpdate();
+                }
+                publishChange(conn, ChangeEvent.Kind.THREAD_CREATED, 0, 0, title, null);
+                return null;
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -1906,7 +3036,8 @@ public class Database {
     public List<entityClasses.DiscussionThread> getAllThreads() {
         List<entityClasses.DiscussionThread> list = new ArrayList<>();
         String sql = "SELECT * FROM discussion_threads ORDER BY created_at ASC";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql);
+        try (Connection conn = getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(sql);
                 ResultSet rs = pstmt.executeQuery()) {
             while (rs.next()) {
                 list.add(new entityClasses.DiscussionThread(
@@ -1930,7 +3061,8 @@ public class Database {
         List<String> list = new ArrayList<>();
         list.add("All Threads");
         String sql = "SELECT title FROM discussion_threads WHERE visible = TRUE ORDER BY created_at ASC";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql);
+        try (Connection conn = getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(sql);
                 ResultSet rs = pstmt.executeQuery()) {
             while (rs.next()) {
                 list.add(rs.getString("title"));
@@ -1951,7 +3083,8 @@ public class Database {
         List<String> list = new ArrayList<>();
         list.add("All Threads");
         String sql = "SELECT title FROM discussion_threads ORDER BY created_at ASC";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql);
+        try (Connection conn = getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(sql);
                 ResultSet rs = pstmt.executeQuery()) {
             while (rs.next()) {
                 list.add(rs.getString("title"));
@@ -1974,31 +3107,28 @@ public class Database {
         String sqlPosts = "UPDATE postsDB SET thread = ? WHERE thread = ?";
 
         try {
-            connection.setAutoCommit(false);
-
-            try (PreparedStatement pstmt = connection.prepareStatement(sqlThread)) {
-                pstmt.setString(1, newTitle);
-                pstmt.setBoolean(2, visible);
-                pstmt.setString(3, oldTitle);
-                pstmt.executeUpdate();
-            }
-
-            if (!oldTitle.equals(newTitle)) {
-                try (PreparedStatement pstmt = connection.prepareStatement(sqlPosts)) {
+            // the thread and the posts filed under it are renamed together or not at all
+            inTransaction(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sqlThread)) {
                     pstmt.setString(1, newTitle);
-                    pstmt.setString(2, oldTitle);
+                    pstmt.setBoolean(2, visible);
+                    pstmt.setString(3, oldTitle);
                     pstmt.executeUpdate();
                 }
-            }
 
-            connection.commit();
-            connection.setAutoCommit(true);
+                if (!oldTitle.equals(newTitle)) {
+                    try (PreparedStatement pstmt = conn.prepareStatement(sqlPosts)) {
+                        pstmt.setString(1, newTitle);
+                        pstmt.setString(2, oldTitle);
+                        pstmt.executeUpdate();
+                    }
+                    afterCommit(() -> searchIndex.renameThread(oldTitle, newTitle));
+                }
+                publishChange(conn, ChangeEvent.Kind.THREAD_UPDATED, 0, 0, newTitle, null);
+                return null;
+            });
         } catch (SQLException e) {
             e.printStackTrace();
-            try {
-                connection.rollback();
-            } catch (SQLException ex) {
-            }
         }
     }
 
@@ -2009,9 +3139,15 @@ public class Database {
      */
     public void deleteThread(String title) {
         String sql = "DELETE FROM discussion_threads WHERE title = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setString(1, title);
-            pstmt.executeUpdate();
+        try {
+            inTransaction(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setString(1, title);
+                    pstmt.executeUpdate();
+                }
+                publishChange(conn, ChangeEvent.Kind.THREAD_DELETED, 0, 0, title, null);
+                return null;
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -2026,7 +3162,8 @@ public class Database {
      */
     public void createGradingParameter(String name, String description) {
         String sql = "INSERT INTO grading_parameters (name, description) VALUES (?, ?)";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection conn = getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, name);
             pstmt.setString(2, description);
             pstmt.executeUpdate();
@@ -2043,7 +3180,8 @@ public class Database {
     public List<entityClasses.GradingParameter> getAllGradingParameters() {
         List<entityClasses.GradingParameter> list = new ArrayList<>();
         String sql = "SELECT * FROM grading_parameters ORDER BY id ASC";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql);
+        try (Connection conn = getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(sql);
                 ResultSet rs = pstmt.executeQuery()) {
             while (rs.next()) {
                 list.add(new entityClasses.GradingParameter(
@@ -2064,7 +3202,8 @@ public class Database {
      */
     public void updateGradingParameter(entityClasses.GradingParameter param) {
         String sql = "UPDATE grading_parameters SET name = ?, description = ? WHERE id = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection conn = getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, param.getName());
             pstmt.setString(2, param.getDescription());
             pstmt.setInt(3, param.getId());
@@ -2081,7 +3220,8 @@ public class Database {
      */
     public void deleteGradingParameter(int id) {
         String sql = "DELETE FROM grading_parameters WHERE id = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection conn = getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, id);
             pstmt.executeUpdate();
         } catch (SQLException e) {
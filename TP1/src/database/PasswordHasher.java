@@ -0,0 +1,221 @@
+package database;
+
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.security.spec.KeySpec;
+import java.util.Base64;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+/**
+ * <p> Title: PasswordHasher Class </p>
+ *
+ * <p> Description: Hashes and checks passwords with PBKDF2 (HMAC-SHA256) from the JDK. A stored
+ * password is "pbkdf2-sha256$iterations$salt$hash", with its own random salt and the iteration
+ * count it was hashed with, so the count can be raised later: a stored hash whose count differs
+ * from the current one needs a rehash, which Database does when that user next logs in with the
+ * right password. A stored value that is not in this form matches no password; Database hashes
+ * any plaintext password left from before hashing when it starts.
+ *
+ * Checking a password costs about as much CPU time as the iteration count was calibrated for
+ * (see performanceTesting.PasswordHashBenchmark), so checks run on a small pool of worker
+ * threads with a bounded queue. A burst of logins, such as the start of an exam, then waits
+ * its turn there instead of taking every core and every database connection; a check that
+ * cannot be queued, or waits too long, fails as a wrong password would. The iteration count is
+ * read from the system property passwordHash.iterations when it is set. </p>
+ *
+ * <p> Copyright: Lynn Robert Carter © 2025 </p>
+ *
+ * @version 1.00
+ */
+public class PasswordHasher {
+
+    /** The system property that sets the iteration count new hashes are made with. */
+    public static final String ITERATIONS_PROPERTY = "passwordHash.iterations";
+    /** The iteration count when the property is not set. */
+    public static final int DEFAULT_ITERATIONS = 310_000;
+
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final String PREFIX = "pbkdf2-sha256";
+    /** A SQL LIKE pattern matching the stored values made by this class. */
+    public static final String HASH_PATTERN = PREFIX + "$%";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+
+    // How many checks may wait for a worker, and how long a login waits for its check
+    private static final int QUEUE_CAPACITY = 256;
+    private static final long VERIFY_TIMEOUT_SECONDS = 30;
+
+    private static final SecureRandom random = new SecureRandom();
+
+    private final int iterations;
+    private final ThreadPoolExecutor verifiers;
+
+    /**
+     * The outcome of checking a password.
+     *
+     * @param matches  Whether the password matches the stored value.
+     * @param rehashed A new hash of the password when it matched but the stored value was made
+     *                 with another iteration count; otherwise null.
+     */
+    public record Verification(boolean matches, String rehashed) {
+        static final Verification FAILED = new Verification(false, null);
+    }
+
+    /**
+     * Creates a hasher with the configured iteration count, checking passwords on half of the
+     * processors.
+     */
+    public PasswordHasher() {
+        this(configuredIterations(), Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+    }
+
+    /**
+     * Creates a hasher.
+     *
+     * @param iterations The PBKDF2 iteration count for new hashes.
+     * @param workers    The most passwords checked at once.
+     */
+    public PasswordHasher(int iterations, int workers) {
+        if (iterations < 1 || workers < 1)
+            throw new IllegalArgumentException("iterations and workers must be positive");
+        this.iterations = iterations;
+        AtomicInteger count = new AtomicInteger();
+        verifiers = new ThreadPoolExecutor(workers, workers, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY), r -> {
+                    Thread t = new Thread(r, "password-verify-" + count.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        verifiers.allowCoreThreadTimeOut(true);
+    }
+
+    private static int configuredIterations() {
+        String value = System.getProperty(ITERATIONS_PROPERTY);
+        if (value == null || value.isBlank())
+            return DEFAULT_ITERATIONS;
+        try {
+            int configured = Integer.parseInt(value.trim());
+            return configured > 0 ? configured : DEFAULT_ITERATIONS;
+        } catch (NumberFormatException e) {
+            return DEFAULT_ITERATIONS;
+        }
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * Hashes a password with a new salt on the calling thread.
+     *
+     * @param password The password.
+     * @return The value to store.
+     */
+    public String hash(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        return format(iterations, salt, pbkdf2(password, salt, iterations));
+    }
+
+    /**
+     * Checks a password against a stored value on the calling thread.
+     *
+     * @param password The password given.
+     * @param stored   The stored hash.
+     * @return Whether it matches, and a new hash when the stored value should be replaced; a
+     *         stored value that is not a hash matches nothing.
+     */
+    public Verification check(String password, String stored) {
+        if (password == null || stored == null)
+            return Verification.FAILED;
+        String[] parts = stored.split("\\$");
+        if (parts.length != 4 || !parts[0].equals(PREFIX))
+            return Verification.FAILED;
+        int storedIterations;
+        byte[] salt;
+        byte[] expected;
+        try {
+            storedIterations = Integer.parseInt(parts[1]);
+            salt = Base64.getDecoder().decode(parts[2]);
+            expected = Base64.getDecoder().decode(parts[3]);
+        } catch (IllegalArgumentException e) {
+            return Verification.FAILED;
+        }
+        if (storedIterations < 1)
+            return Verification.FAILED;
+        if (!MessageDigest.isEqual(expected, pbkdf2(password, salt, storedIterations)))
+            return Verification.FAILED;
+        return new Verification(true, storedIterations == iterations ? null : hash(password));
+    }
+
+    /**
+     * Checks a password against a stored value on the worker pool, waiting for the result.
+     *
+     * @param password The password given.
+     * @param stored   The stored hash.
+     * @return Whether it matches, and a new hash when the stored value should be replaced; a
+     *         check that could not be run in time does not match.
+     */
+    public Verification verify(String password, String stored) {
+        Future<Verification> result;
+        try {
+            result = verifiers.submit(() -> check(password, stored));
+        } catch (RejectedExecutionException e) {
+            System.err.println("*** WARNING *** Too many logins at once; a password check was refused");
+            return Verification.FAILED;
+        }
+        try {
+            return result.get(VERIFY_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            e.getCause().printStackTrace();
+        } catch (TimeoutException e) {
+            result.cancel(true);
+            System.err.println("*** WARNING *** A password check timed out");
+        }
+        return Verification.FAILED;
+    }
+
+    /**
+     * Tells whether a stored value is a hash made by this class, as opposed to a plaintext
+     * password from before hashing that Database has not replaced yet.
+     */
+    public static boolean isHash(String stored) {
+        return stored != null && stored.startsWith(PREFIX + "$");
+    }
+
+    /**
+     * Computes PBKDF2-HMAC-SHA256 of a password. Public for the calibration benchmark.
+     *
+     * @param password   The password.
+     * @param salt       The salt.
+     * @param iterations The iteration count.
+     * @return The 256-bit derived key.
+     */
+    public static byte[] pbkdf2(String password, byte[] salt, int iterations) {
+        KeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            // every Java platform provides PBKDF2WithHmacSHA256
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        }
+    }
+
+    private static String format(int iterations, byte[] salt, byte[] hash) {
+        Base64.Encoder b64 = Base64.getEncoder().withoutPadding();
+        return PREFIX + "$" + iterations + "$" + b64.encodeToString(salt) + "$" + b64.encodeToString(hash);
+    }
+}
@@ -0,0 +1,435 @@
+package database;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import entityClasses.Post;
+
+/**
+ * <p> Title: PostCache Class </p>
+ *
+ * <p> Description: The in-memory store behind CachedDatabase. It holds two kinds of data:
+ *
+ * - post entries, keyed by postID: the post row, its latest moderation action and the fields of
+ * its replies that reply counts depend on. These are the same for every user; the user's
+ * ReadState turns an entry into a Post with viewed and unread counts.
+ * - the board: every postID in list order (newest first), so the whole list and the unfiltered
+ * pages can be walked without asking the database which posts exist. Pages of one thread, or
+ * without hidden posts, are cut by the database's indexes instead and only their entries are
+ * cached, so they never walk the board.
+ *
+ * Entries are bounded and the least recently used one is evicted when full; the board only holds
+ * keys and is not bounded. All methods are thread-safe.
+ *
+ * Loads are read-through: the caller calls startLoad before it queries the database and hands
+ * the load back with the result. An entry whose post changed in between, or a board when a post
+ * was added, is then returned to the caller but not stored; changes to other posts do not stop
+ * the rest of the result from being stored. </p>
+ *
+ * <p> Copyright: Lynn Robert Carter © 2025 </p>
+ *
+ * @version 1.00
+ */
+public class PostCache {
+
+    /**
+     * The fields of one reply that decide who may see it.
+     */
+    static final class ReplyFacts {
+        final int replyID;
+        final String authorUsername;
+        final String visibility;
+        final boolean visible;
+
+        ReplyFacts(int replyID, String authorUsername, String visibility, boolean visible) {
+            this.replyID = replyID;
+            this.authorUsername = authorUsername;
+            this.visibility = visibility;
+            this.visible = visible;
+        }
+    }
+
+    /**
+     * A cached post row with its latest moderation action and its replies. Entries are never
+     * changed once built; a change to the post replaces or drops the entry.
+     */
+    static final class Entry {
+        final int postID;
+        final String authorUsername;
+        final String title;
+        final String content;
+        final String thread;
+        final boolean deleted;
+        final boolean visible;
+        final LocalDateTime timestamp;
+        final String actionUser;
+        final String actionReason;
+        final LocalDateTime actionTimestamp;
+        final LocalDateTime lastReplyTimestamp;
+        final int hiddenReplyCount;
+        final List<ReplyFacts> replies;
+
+        Entry(int postID, String authorUsername, String title, String content, String thread, boolean deleted,
+                boolean visible, LocalDateTime timestamp, String actionUser, String actionReason,
+                LocalDateTime actionTimestamp, LocalDateTime lastReplyTimestamp, int hiddenReplyCount,
+                List<ReplyFacts> replies) {
+            this.postID = postID;
+            this.authorUsername = authorUsername;
+            this.title = title;
+            this.content = content;
+            this.thread = thread;
+            this.deleted = deleted;
+            this.visible = visible;
+            this.timestamp = timestamp;
+            this.actionUser = actionUser;
+            this.actionReason = actionReason;
+            this.actionTimestamp = actionTimestamp;
+            this.lastReplyTimestamp = lastReplyTimestamp;
+            this.hiddenReplyCount = hiddenReplyCount;
+            this.replies = replies;
+        }
+
+        /**
+         * Builds a new Post for one viewer; callers may change it freely.
+         */
+        Post toPost(boolean viewed, int replyCount, int unreadReplyCount) {
+            Post post = new Post(postID, authorUsername, title, content, thread, deleted, viewed, replyCount,
+                    unreadReplyCount, visible, actionUser, actionReason, actionTimestamp);
+            post.setTimestamp(timestamp);
+            post.setLastReplyTimestamp(lastReplyTimestamp);
+            post.setHiddenReplyCount(hiddenReplyCount);
+            return post;
+        }
+    }
+
+    /**
+     * The list position of a post: newest timestamp first, then highest postID. Posts without a
+     * timestamp come last, as in the database's ORDER BY timestamp DESC.
+     */
+    static final class BoardKey {
+        final LocalDateTime timestamp;
+        final int postID;
+
+        BoardKey(LocalDateTime timestamp, int postID) {
+            this.timestamp = timestamp;
+            this.postID = postID;
+        }
+    }
+
+    static final Comparator<BoardKey> LIST_ORDER = Comparator
+            .comparing((BoardKey k) -> k.timestamp, Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder()))
+            .thenComparingInt(k -> k.postID)
+            .reversed();
+
+    /**
+     * A snapshot of the cache counters, for tuning the capacities.
+     */
+    public static final class Stats {
+        private final long hitCount;
+        private final long missCount;
+        private final long evictionCount;
+        private final int postCount;
+
+        Stats(long hitCount, long missCount, long evictionCount, int postCount) {
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.evictionCount = evictionCount;
+            this.postCount = postCount;
+        }
+
+        /** @return Lookups answered from the cache. */
+        public long getHitCount() { return hitCount; }
+
+        /** @return Lookups that had to go to the database. */
+        public long getMissCount() { return missCount; }
+
+        /** @return Posts dropped to stay within the capacity. */
+        public long getEvictionCount() { return evictionCount; }
+
+        /** @return Post entries currently cached. */
+        public int getPostCount() { return postCount; }
+
+        /** @return The share of lookups that were hits, or 0 before any lookup. */
+        public double getHitRate() {
+            long lookups = hitCount + missCount;
+            return lookups == 0 ? 0 : (double) hitCount / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("hits=%d misses=%d hitRate=%.3f evictions=%d posts=%d",
+                    hitCount, missCount, getHitRate(), evictionCount, postCount);
+        }
+    }
+
+    private final LinkedHashMap<Integer, Entry> posts;
+    // replyID -> postID for the replies of cached entries, so a deleted reply finds its post
+    private final Map<Integer, Integer> replyPosts = new HashMap<>();
+    private ArrayList<BoardKey> board; // null until loaded
+
+    // Bumped by every change. While loads are running, each change is noted against the posts it
+    // touched, so a load stores all but the entries that changed after it started
+    private long generation;
+    private final TreeMap<Long, Integer> runningLoads = new TreeMap<>(); // start generation -> loads
+    private final Map<Integer, Long> postChangedAt = new HashMap<>();
+    private long allPostsChangedAt;
+    private long boardChangedAt;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param postCapacity The most post entries to keep.
+     */
+    public PostCache(int postCapacity) {
+        this.posts = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Entry> eldest) {
+                if (size() <= postCapacity)
+                    return false;
+                forgetReplies(eldest.getValue());
+                evictions++;
+                return true;
+            }
+        };
+    }
+
+    // --- Lookups ---
+
+    /**
+     * Looks up post entries.
+     *
+     * @param postIDs The posts wanted.
+     * @param missing Receives the postIDs that are not cached.
+     * @return The cached entries, by postID.
+     */
+    synchronized Map<Integer, Entry> getAll(Collection<Integer> postIDs, List<Integer> missing) {
+        Map<Integer, Entry> found = new HashMap<>();
+        for (Integer postID : postIDs) {
+            Entry entry = posts.get(postID);
+            if (entry == null) {
+                missing.add(postID);
+                misses++;
+            } else {
+                found.put(postID, entry);
+                hits++;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * @return The cached entry of a post, or null.
+     */
+    synchronized Entry get(int postID) {
+        Entry entry = posts.get(postID);
+        if (entry == null)
+            misses++;
+        else
+            hits++;
+        return entry;
+    }
+
+    /**
+     * @return Whether the board is loaded; counts as a board lookup.
+     */
+    synchronized boolean hasBoard() {
+        if (board == null)
+            misses++;
+        else
+            hits++;
+        return board != null;
+    }
+
+    /**
+     * @return Every postID on the board, newest first; empty if the board is not loaded.
+     */
+    synchronized List<Integer> boardPostIDs() {
+        List<Integer> ids = new ArrayList<>(board == null ? 0 : board.size());
+        if (board != null) {
+            for (BoardKey key : board)
+                ids.add(key.postID);
+        }
+        return ids;
+    }
+
+    /**
+     * Returns the board keys that come after a position in list order.
+     *
+     * @param after The position to continue after, or null to start at the newest post.
+     * @param max   The most keys to return.
+     * @return Up to max keys, newest first; empty if the board is not loaded.
+     */
+    synchronized List<BoardKey> boardAfter(BoardKey after, int max) {
+        List<BoardKey> keys = new ArrayList<>();
+        if (board == null)
+            return keys;
+        int start = 0;
+        if (after != null) {
+            int at = Collections.binarySearch(board, after, LIST_ORDER);
+            start = at >= 0 ? at + 1 : -at - 1;
+        }
+        for (int i = start; i < board.size() && keys.size() < max; i++)
+            keys.add(board.get(i));
+        return keys;
+    }
+
+    // --- Read-through stores ---
+
+    /**
+     * Starts a load. The result must be handed to putAll or putBoard, or the load ended with
+     * endLoad if it failed.
+     *
+     * @return The load, to pass back.
+     */
+    synchronized long startLoad() {
+        runningLoads.merge(generation, 1, Integer::sum);
+        return generation;
+    }
+
+    /**
+     * Stores the loaded entries of the posts that did not change since the load started, and
+     * ends the load.
+     */
+    synchronized void putAll(Collection<Entry> entries, long load) {
+        for (Entry entry : entries) {
+            if (changedSince(entry.postID, load))
+                continue;
+            Entry old = posts.put(entry.postID, entry);
+            if (old != null)
+                forgetReplies(old);
+            for (ReplyFacts reply : entry.replies)
+                replyPosts.put(reply.replyID, entry.postID);
+        }
+        endLoad(load);
+    }
+
+    /**
+     * Stores the loaded board unless a post was added since the load started, and ends the
+     * load.
+     *
+     * @param keys The board keys in list order.
+     */
+    synchronized void putBoard(List<BoardKey> keys, long load) {
+        if (boardChangedAt <= load)
+            board = new ArrayList<>(keys);
+        endLoad(load);
+    }
+
+    /**
+     * Ends a load without storing anything, e.g. when it failed.
+     */
+    synchronized void endLoad(long load) {
+        Integer running = runningLoads.get(load);
+        if (running == null)
+            return;
+        if (running == 1)
+            runningLoads.remove(load);
+        else
+            runningLoads.put(load, running - 1);
+        // changes no running load started before are not needed any more
+        if (runningLoads.isEmpty())
+            postChangedAt.clear();
+        else if (!postChangedAt.isEmpty())
+            postChangedAt.values().removeIf(changedAt -> changedAt <= runningLoads.firstKey());
+    }
+
+    private boolean changedSince(int postID, long load) {
+        if (allPostsChangedAt > load)
+            return true;
+        Long changedAt = postChangedAt.get(postID);
+        return changedAt != null && changedAt > load;
+    }
+
+    private void postChanged(int postID) {
+        generation++;
+        if (!runningLoads.isEmpty())
+            postChangedAt.put(postID, generation);
+    }
+
+    private void allPostsChanged() {
+        generation++;
+        allPostsChangedAt = generation;
+    }
+
+    // --- Changes ---
+
+    /**
+     * Adds a new post to the board. Its entry is loaded on first use.
+     */
+    synchronized void addPost(int postID, LocalDateTime timestamp) {
+        postChanged(postID);
+        boardChangedAt = generation;
+        if (board == null)
+            return;
+        BoardKey key = new BoardKey(timestamp, postID);
+        int at = Collections.binarySearch(board, key, LIST_ORDER);
+        if (at < 0)
+            board.add(-at - 1, key);
+    }
+
+    /**
+     * Drops the entry of a post after its row, replies or moderation log changed.
+     */
+    synchronized void invalidatePost(int postID) {
+        postChanged(postID);
+        Entry old = posts.remove(postID);
+        if (old != null)
+            forgetReplies(old);
+    }
+
+    /**
+     * Drops the entry of the post a deleted reply belonged to.
+     */
+    synchronized void invalidateReply(int replyID) {
+        Integer postID = replyPosts.get(replyID);
+        if (postID != null)
+            invalidatePost(postID);
+        else if (!runningLoads.isEmpty())
+            // the post is not cached, but a running load may be reading it
+            allPostsChanged();
+    }
+
+    /**
+     * Drops every post entry, e.g. after a thread rename changed many posts at once. The board
+     * stays.
+     */
+    synchronized void invalidateAllPosts() {
+        allPostsChanged();
+        posts.clear();
+        replyPosts.clear();
+    }
+
+    /**
+     * Drops everything, e.g. when the database is reopened.
+     */
+    synchronized void clear() {
+        allPostsChanged();
+        boardChangedAt = generation;
+        posts.clear();
+        replyPosts.clear();
+        board = null;
+    }
+
+    /**
+     * @return A snapshot of the counters.
+     */
+    public synchronized Stats getStats() {
+        return new Stats(hits, misses, evictions, posts.size());
+    }
+
+    private void forgetReplies(Entry entry) {
+        for (ReplyFacts reply : entry.replies)
+            replyPosts.remove(reply.replyID);
+    }
+}
@@ -0,0 +1,118 @@
+package database;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <p> Title: ReadMarkBuffer Class </p>
+ *
+ * <p> Description: The write-behind queue for read marks. Database.markPostAsRead and
+ * markReplyAsRead add the mark to the user's in-memory ReadState and record it here; Database
+ * writes the read_state rows of the users with queued marks later, in one JDBC batch, on a
+ * timer, when the queue reaches its threshold, and on logout or closeConnection. The marks
+ * themselves are kept, not only the users, so a read state that was dropped from memory before
+ * the flush gets them back when it is loaded again, and the flush still writes them.
+ *
+ * Marks are kept per user in sets, so clicking the same post twice before a flush queues one
+ * mark. All methods are thread-safe. </p>
+ *
+ * <p> Copyright: Lynn Robert Carter © 2025 </p>
+ *
+ * @version 1.00
+ */
+public class ReadMarkBuffer {
+
+    /**
+     * Marks taken out of the buffer to be written: postIDs and replyIDs by username.
+     */
+    static final class Pending {
+        final Map<String, Set<Integer>> posts;
+        final Map<String, Set<Integer>> replies;
+
+        Pending(Map<String, Set<Integer>> posts, Map<String, Set<Integer>> replies) {
+            this.posts = posts;
+            this.replies = replies;
+        }
+
+        boolean isEmpty() {
+            return posts.isEmpty() && replies.isEmpty();
+        }
+    }
+
+    private final int flushThreshold;
+    private Map<String, Set<Integer>> posts = new HashMap<>();
+    private Map<String, Set<Integer>> replies = new HashMap<>();
+    private int size = 0;
+
+    /**
+     * @param flushThreshold The number of queued marks at which a flush is due.
+     */
+    public ReadMarkBuffer(int flushThreshold) {
+        if (flushThreshold < 1)
+            throw new IllegalArgumentException("Flush threshold must be at least 1");
+        this.flushThreshold = flushThreshold;
+    }
+
+    /**
+     * Queues a post read mark.
+     *
+     * @return true if the buffer has reached its threshold and should be flushed.
+     */
+    public synchronized boolean markPost(String username, int postID) {
+        if (posts.computeIfAbsent(username, u -> new HashSet<>()).add(postID))
+            size++;
+        return size >= flushThreshold;
+    }
+
+    /**
+     * Queues a reply read mark.
+     *
+     * @return true if the buffer has reached its threshold and should be flushed.
+     */
+    public synchronized boolean markReply(String username, int replyID) {
+        if (replies.computeIfAbsent(username, u -> new HashSet<>()).add(replyID))
+            size++;
+        return size >= flushThreshold;
+    }
+
+    /**
+     * @return The number of queued marks.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Takes every queued mark out of the buffer.
+     */
+    synchronized Pending drain() {
+        Pending pending = new Pending(posts, replies);
+        posts = new HashMap<>();
+        replies = new HashMap<>();
+        size = 0;
+        return pending;
+    }
+
+    /**
+     * Returns a copy of one user's queued marks, leaving them queued.
+     */
+    synchronized Pending peek(String username) {
+        Map<String, Set<Integer>> userPosts = new HashMap<>();
+        Map<String, Set<Integer>> userReplies = new HashMap<>();
+        if (posts.containsKey(username))
+            userPosts.put(username, new HashSet<>(posts.get(username)));
+        if (replies.containsKey(username))
+            userReplies.put(username, new HashSet<>(replies.get(username)));
+        return new Pending(userPosts, userReplies);
+    }
+
+    /**
+     * Puts marks back after a failed write, so the next flush tries them again.
+     */
+    synchronized void requeue(Pending pending) {
+        pending.posts.forEach((username, ids) -> ids.forEach(id -> markPost(username, id)));
+        pending.replies.forEach((username, ids) -> ids.forEach(id -> markReply(username, id)));
+    }
+}
@@ -0,0 +1,206 @@
+package database;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+/**
+ * <p> Title: ReadSet Class </p>
+ *
+ * <p> Description: A compressed set of non-negative IDs, laid out like a roaring bitmap. An ID is
+ * split into its high and low 16 bits. The high bits pick a container, and the container holds
+ * the low bits of its IDs, either as a sorted char array while it has at most 4096 of them or as
+ * a 65536-bit bitmap (8 KB) once it has more. Sparse read marks therefore cost two bytes each,
+ * and a user who has read almost everything costs one bit per ID.
+ *
+ * contains() is a binary search over the few container keys plus a bit test or a short binary
+ * search, and the cardinality is kept as a running count. The set only grows: read marks are
+ * never taken back. toBytes() and fromBytes() give the form stored in the read_state table.
+ * All methods are thread-safe. </p>
+ *
+ * <p> Copyright: Lynn Robert Carter © 2025 </p>
+ *
+ * @version 1.00
+ */
+public final class ReadSet {
+
+    // Containers with more IDs than this are stored as bitmaps
+    private static final int ARRAY_MAX = 4096;
+    private static final int BITMAP_WORDS = 1 << 10;
+
+    // Sorted high 16 bits; containers[i] is a char[] (array) or long[] (bitmap) for keys[i]
+    private char[] keys = new char[0];
+    private Object[] containers = new Object[0];
+    private int[] counts = new int[0];
+    private int containerCount = 0;
+    private int cardinality = 0;
+
+    /**
+     * Adds an ID.
+     *
+     * @param id The ID; must not be negative.
+     * @return true if the ID was not in the set before.
+     */
+    public synchronized boolean add(int id) {
+        if (id < 0)
+            throw new IllegalArgumentException("IDs must not be negative: " + id);
+        char key = (char) (id >>> 16);
+        char low = (char) id;
+        int i = Arrays.binarySearch(keys, 0, containerCount, key);
+        if (i < 0) {
+            insertContainer(-i - 1, key, new char[] { low, 0, 0, 0 });
+            cardinality++;
+            return true;
+        }
+
+        if (containers[i] instanceof long[]) {
+            long[] bits = (long[]) containers[i];
+            long mask = 1L << low;
+            if ((bits[low >>> 6] & mask) != 0)
+                return false;
+            bits[low >>> 6] |= mask;
+        } else {
+            char[] values = (char[]) containers[i];
+            int n = counts[i];
+            int at = Arrays.binarySearch(values, 0, n, low);
+            if (at >= 0)
+                return false;
+            at = -at - 1;
+            if (n == ARRAY_MAX) {
+                long[] bits = toBitmap(values, n);
+                bits[low >>> 6] |= 1L << low;
+                containers[i] = bits;
+            } else {
+                if (n == values.length) {
+                    values = Arrays.copyOf(values, Math.min(ARRAY_MAX, Math.max(4, n * 2)));
+                    containers[i] = values;
+                }
+                System.arraycopy(values, at, values, at + 1, n - at);
+                values[at] = low;
+            }
+        }
+        counts[i]++;
+        cardinality++;
+        return true;
+    }
+
+    /**
+     * @param id The ID to look for.
+     * @return true if the ID is in the set.
+     */
+    public synchronized boolean contains(int id) {
+        if (id < 0)
+            return false;
+        int i = Arrays.binarySearch(keys, 0, containerCount, (char) (id >>> 16));
+        if (i < 0)
+            return false;
+        char low = (char) id;
+        if (containers[i] instanceof long[])
+            return (((long[]) containers[i])[low >>> 6] & (1L << low)) != 0;
+        return Arrays.binarySearch((char[]) containers[i], 0, counts[i], low) >= 0;
+    }
+
+    /**
+     * @return The number of IDs in the set.
+     */
+    public synchronized int cardinality() {
+        return cardinality;
+    }
+
+    private void insertContainer(int at, char key, char[] values) {
+        if (containerCount == keys.length) {
+            int capacity = Math.max(4, containerCount * 2);
+            keys = Arrays.copyOf(keys, capacity);
+            containers = Arrays.copyOf(containers, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+        }
+        System.arraycopy(keys, at, keys, at + 1, containerCount - at);
+        System.arraycopy(containers, at, containers, at + 1, containerCount - at);
+        System.arraycopy(counts, at, counts, at + 1, containerCount - at);
+        keys[at] = key;
+        containers[at] = values;
+        counts[at] = 1;
+        containerCount++;
+    }
+
+    private static long[] toBitmap(char[] values, int n) {
+        long[] bits = new long[BITMAP_WORDS];
+        for (int j = 0; j < n; j++)
+            bits[values[j] >>> 6] |= 1L << values[j];
+        return bits;
+    }
+
+    // --- Serialized form ---
+
+    /**
+     * Writes the set as: the number of containers, then for each its key, its number of IDs, and
+     * either that many low halves or, for a bitmap container, its 1024 words.
+     *
+     * @return The serialized set.
+     */
+    public synchronized byte[] toBytes() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(8 + cardinality * 2);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(containerCount);
+            for (int i = 0; i < containerCount; i++) {
+                out.writeChar(keys[i]);
+                out.writeInt(counts[i]);
+                if (containers[i] instanceof long[]) {
+                    for (long word : (long[]) containers[i])
+                        out.writeLong(word);
+                } else {
+                    char[] values = (char[]) containers[i];
+                    for (int j = 0; j < counts[i]; j++)
+                        out.writeChar(values[j]);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Reads a set written by toBytes().
+     *
+     * @param data The serialized set; null or empty gives an empty set.
+     * @return The set.
+     * @throws IllegalArgumentException if the data is not a serialized set.
+     */
+    public static ReadSet fromBytes(byte[] data) {
+        ReadSet set = new ReadSet();
+        if (data == null || data.length == 0)
+            return set;
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            int n = in.readInt();
+            set.keys = new char[n];
+            set.containers = new Object[n];
+            set.counts = new int[n];
+            for (int i = 0; i < n; i++) {
+                set.keys[i] = in.readChar();
+                int count = in.readInt();
+                if (count > ARRAY_MAX) {
+                    long[] bits = new long[BITMAP_WORDS];
+                    for (int w = 0; w < BITMAP_WORDS; w++)
+                        bits[w] = in.readLong();
+                    set.containers[i] = bits;
+                } else {
+                    char[] values = new char[count];
+                    for (int j = 0; j < count; j++)
+                        values[j] = in.readChar();
+                    set.containers[i] = values;
+                }
+                set.counts[i] = count;
+                set.cardinality += count;
+            }
+            set.containerCount = n;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Not a serialized ReadSet", e);
+        }
+        return set;
+    }
+}
@@ -0,0 +1,600 @@
+package database;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * <p> Title: SearchIndex Class </p>
+ *
+ * <p> Description: An in-memory inverted index over the titles and content of posts and the
+ * content of replies, used by Database.searchPosts instead of LIKE '%keyword%' table scans.
+ *
+ * Text is split into lower-case words, which are reduced to a common stem ("replies" and
+ * "reply" both become "repli"), so different forms of a word match each other. Every query
+ * word must match the post, its title, its content or one of its replies the searcher may see.
+ * The last query word, if it has three or more letters, also matches longer words that start
+ * with it, so a search typed only part-way still finds the post the way the old substring
+ * search did. Matches are ranked with BM25; title words
+ * count twice and reply matches count half as much as matches in the post itself.
+ *
+ * The index is built once when the database is opened and kept up to date by the Database
+ * methods that change posts and replies. Searches share a read lock; changes take the write
+ * lock. </p>
+ *
+ * <p> Copyright: Lynn Robert Carter © 2025 </p>
+ *
+ * @version 1.00
+ */
+public class SearchIndex {
+
+    // BM25 parameters
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private static final int TITLE_WEIGHT = 2;
+    private static final double REPLY_WEIGHT = 0.5;
+    private static final double PREFIX_WEIGHT = 0.5;
+    private static final int MIN_PREFIX_LENGTH = 3;
+    private static final int MAX_PREFIX_EXPANSIONS = 50;
+    // Every query word needs its own bit in the match mask
+    private static final int MAX_QUERY_TERMS = 31;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Term -> postings, plus the same terms sorted so that prefix matches are a range lookup
+    private final HashMap<String, Postings> termPostings = new HashMap<>();
+    private final TreeSet<String> vocabulary = new TreeSet<>();
+    // Internal document number -> document; removed documents leave a null. The post ID,
+    // length and kind are also kept in flat arrays for the scoring loop.
+    private final ArrayList<Document> documents = new ArrayList<>();
+    private int[] docPostIDs = new int[64];
+    private int[] docLengths = new int[64];
+    private boolean[] docIsReply = new boolean[64];
+    private final Map<Integer, PostInfo> posts = new HashMap<>();
+    private final Map<Integer, Integer> postDocuments = new HashMap<>();
+    private final Map<Integer, Integer> replyDocuments = new HashMap<>();
+    private int liveDocuments = 0;
+    private long totalLength = 0;
+    private int maxPostID = 0;
+
+    /**
+     * What every document of one post needs to know about the post for filtering.
+     */
+    private static class PostInfo {
+        String thread;
+        String author;
+
+        PostInfo(String thread, String author) {
+            this.thread = thread;
+            this.author = author;
+        }
+    }
+
+    /**
+     * One indexed post or reply.
+     */
+    private static class Document {
+        final PostInfo post;
+        final int postID;
+        final boolean isReply;
+        final String author;
+        final boolean privateFeedback;
+        boolean visible;
+        final int length;
+        final String[] terms;
+
+        Document(PostInfo post, int postID, boolean isReply, String author, boolean privateFeedback,
+                boolean visible, int length, String[] terms) {
+            this.post = post;
+            this.postID = postID;
+            this.isReply = isReply;
+            this.author = author;
+            this.privateFeedback = privateFeedback;
+            this.visible = visible;
+            this.length = length;
+            this.terms = terms;
+        }
+    }
+
+    /**
+     * The documents containing one term, in increasing document number, with the number of
+     * times the term occurs in each.
+     */
+    private static class Postings {
+        int[] docs = new int[4];
+        int[] freqs = new int[4];
+        int size = 0;
+
+        void add(int doc, int freq) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            docs[size] = doc;
+            freqs[size] = freq;
+            size++;
+        }
+
+        void remove(int doc) {
+            int i = Arrays.binarySearch(docs, 0, size, doc);
+            if (i < 0)
+                return;
+            System.arraycopy(docs, i + 1, docs, i, size - i - 1);
+            System.arraycopy(freqs, i + 1, freqs, i, size - i - 1);
+            size--;
+        }
+    }
+
+    // --- Changes ---
+
+    /**
+     * Adds a post, or replaces what is indexed for it.
+     *
+     * @param postID  The post.
+     * @param author  The post's author.
+     * @param title   The title.
+     * @param content The content.
+     * @param thread  The thread the post is in.
+     */
+    public void indexPost(int postID, String author, String title, String content, String thread) {
+        lock.writeLock().lock();
+        try {
+            PostInfo info = posts.get(postID);
+            if (info == null) {
+                info = new PostInfo(thread, author);
+                posts.put(postID, info);
+            } else {
+                info.thread = thread;
+                info.author = author;
+            }
+            maxPostID = Math.max(maxPostID, postID);
+
+            Integer old = postDocuments.remove(postID);
+            if (old != null)
+                removeDocument(old);
+
+            Map<String, Integer> counts = new LinkedHashMap<>();
+            int length = 0;
+            for (String term : analyze(title)) {
+                counts.merge(term, TITLE_WEIGHT, Integer::sum);
+                length += TITLE_WEIGHT;
+            }
+            for (String term : analyze(content)) {
+                counts.merge(term, 1, Integer::sum);
+                length++;
+            }
+            postDocuments.put(postID, addDocument(info, postID, false, author, false, true, length, counts));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Stops a post itself from matching, e.g. once it has been deleted. Its replies stay
+     * searchable because they are still shown under the deleted post.
+     *
+     * @param postID The post.
+     */
+    public void removePost(int postID) {
+        lock.writeLock().lock();
+        try {
+            Integer old = postDocuments.remove(postID);
+            if (old != null)
+                removeDocument(old);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a reply, or replaces what is indexed for it. The reply's post should already be
+     * indexed; replies of unknown posts are ignored.
+     *
+     * @param replyID    The reply.
+     * @param postID     The post it answers.
+     * @param author     The reply's author.
+     * @param content    The content.
+     * @param visibility "private" for private feedback, anything else is public.
+     * @param visible    false when staff has hidden the reply.
+     */
+    public void indexReply(int replyID, int postID, String author, String content, String visibility,
+            boolean visible) {
+        lock.writeLock().lock();
+        try {
+            PostInfo info = posts.get(postID);
+            if (info == null)
+                return;
+            Integer old = replyDocuments.remove(replyID);
+            if (old != null)
+                removeDocument(old);
+
+            Map<String, Integer> counts = new LinkedHashMap<>();
+            int length = 0;
+            for (String term : analyze(content)) {
+                counts.merge(term, 1, Integer::sum);
+                length++;
+            }
+            replyDocuments.put(replyID, addDocument(info, postID, true, author,
+                    Database.isPrivateFeedback(visibility), visible, length, counts));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Re-indexes the text of an edited reply, keeping its visibility.
+     *
+     * @param replyID The reply.
+     * @param content The new content.
+     */
+    public void updateReplyContent(int replyID, String content) {
+        lock.writeLock().lock();
+        try {
+            Integer old = replyDocuments.get(replyID);
+            if (old == null)
+                return;
+            Document d = documents.get(old);
+            indexReply(replyID, d.postID, d.author, content, d.privateFeedback ? "private" : "public", d.visible);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a reply from the index.
+     *
+     * @param replyID The reply.
+     */
+    public void removeReply(int replyID) {
+        lock.writeLock().lock();
+        try {
+            Integer old = replyDocuments.remove(replyID);
+            if (old != null)
+                removeDocument(old);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Records that staff has hidden or unhidden a reply.
+     *
+     * @param replyID The reply.
+     * @param visible Whether students may see it.
+     */
+    public void setReplyVisible(int replyID, boolean visible) {
+        lock.writeLock().lock();
+        try {
+            Integer doc = replyDocuments.get(replyID);
+            if (doc != null)
+                documents.get(doc).visible = visible;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Moves every post of a renamed thread to its new title.
+     *
+     * @param oldTitle The thread's old title.
+     * @param newTitle The thread's new title.
+     */
+    public void renameThread(String oldTitle, String newTitle) {
+        lock.writeLock().lock();
+        try {
+            for (PostInfo info : posts.values()) {
+                if (oldTitle.equals(info.thread))
+                    info.thread = newTitle;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Empties the index, e.g. before it is rebuilt.
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            termPostings.clear();
+            vocabulary.clear();
+            documents.clear();
+            posts.clear();
+            postDocuments.clear();
+            replyDocuments.clear();
+            liveDocuments = 0;
+            totalLength = 0;
+            maxPostID = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private int addDocument(PostInfo info, int postID, boolean isReply, String author, boolean privateFeedback,
+            boolean visible, int length, Map<String, Integer> counts) {
+        int doc = documents.size();
+        String[] terms = counts.keySet().toArray(new String[0]);
+        documents.add(new Document(info, postID, isReply, author, privateFeedback, visible, length, terms));
+        if (doc == docPostIDs.length) {
+            docPostIDs = Arrays.copyOf(docPostIDs, doc * 2);
+            docLengths = Arrays.copyOf(docLengths, doc * 2);
+            docIsReply = Arrays.copyOf(docIsReply, doc * 2);
+        }
+        docPostIDs[doc] = postID;
+        docLengths[doc] = length;
+        docIsReply[doc] = isReply;
+        for (Map.Entry<String, Integer> e : counts.entrySet()) {
+            Postings p = termPostings.get(e.getKey());
+            if (p == null) {
+                p = new Postings();
+                termPostings.put(e.getKey(), p);
+                vocabulary.add(e.getKey());
+            }
+            p.add(doc, e.getValue());
+        }
+        liveDocuments++;
+        totalLength += length;
+        return doc;
+    }
+
+    private void removeDocument(int doc) {
+        Document d = documents.get(doc);
+        for (String term : d.terms) {
+            Postings p = termPostings.get(term);
+            p.remove(doc);
+            if (p.size == 0) {
+                termPostings.remove(term);
+                vocabulary.remove(term);
+            }
+        }
+        documents.set(doc, null);
+        liveDocuments--;
+        totalLength -= d.length;
+    }
+
+    // --- Searching ---
+
+    /**
+     * Finds the posts matching every word of the query, best match first.
+     *
+     * @param query        The words to look for.
+     * @param thread       Only posts in this thread match; null or "All Threads" for any.
+     * @param username     The searcher, who may see their own private feedback.
+     * @param sessionRole  The role the searcher is acting as; only the replies it may see, by
+     *                     Database.isReplyVisible, match.
+     * @param limit        The most post IDs to return.
+     * @return The matching post IDs, highest score first.
+     */
+    public List<Integer> search(String query, String thread, String username, Database.Role sessionRole,
+            int limit) {
+        // the same word twice would claim two bits of the mask but match only one
+        List<String> words = new ArrayList<>(new LinkedHashSet<>(analyze(query)));
+        if (words.isEmpty() || limit <= 0)
+            return new ArrayList<>();
+        if (words.size() > MAX_QUERY_TERMS)
+            words = words.subList(0, MAX_QUERY_TERMS);
+        String threadFilter = thread == null || "All Threads".equals(thread) ? null : thread;
+
+        lock.readLock().lock();
+        try {
+            if (liveDocuments == 0)
+                return new ArrayList<>();
+            double averageLength = (double) totalLength / liveDocuments;
+            float[] scores = new float[maxPostID + 1];
+            int[] masks = new int[maxPostID + 1];
+            int[] touched = new int[16];
+            int touchedCount = 0;
+
+            for (int bit = 0; bit < words.size(); bit++) {
+                // only the last word is treated as possibly unfinished
+                boolean last = bit == words.size() - 1;
+                for (Map.Entry<String, Double> term : expand(words.get(bit), last).entrySet()) {
+                    Postings postings = termPostings.get(term.getKey());
+                    double idf = Math.log(1 + (liveDocuments - postings.size + 0.5) / (postings.size + 0.5));
+                    double weight = term.getValue() * idf;
+                    for (int i = 0; i < postings.size; i++) {
+                        int doc = postings.docs[i];
+                        boolean isReply = docIsReply[doc];
+                        if (threadFilter != null || isReply) {
+                            Document d = documents.get(doc);
+                            if (threadFilter != null && !threadFilter.equals(d.post.thread))
+                                continue;
+                            if (isReply && !Database.isReplyVisible(d.privateFeedback, d.visible, d.post.author,
+                                    d.author, username, sessionRole))
+                                continue;
+                        }
+                        int tf = postings.freqs[i];
+                        double score = weight * tf * (K1 + 1)
+                                / (tf + K1 * (1 - B + B * docLengths[doc] / averageLength));
+                        if (isReply)
+                            score *= REPLY_WEIGHT;
+                        int post = docPostIDs[doc];
+                        if (masks[post] == 0) {
+                            if (touchedCount == touched.length)
+                                touched = Arrays.copyOf(touched, touchedCount * 2);
+                            touched[touchedCount++] = post;
+                        }
+                        masks[post] |= 1 << bit;
+                        scores[post] += (float) score;
+                    }
+                }
+            }
+
+            // Keep the best matches that contain every query word; ties go to the newer post
+            int allWords = (1 << words.size()) - 1;
+            int[] heap = new int[Math.min(limit, touchedCount)];
+            int heapSize = 0;
+            for (int i = 0; i < touchedCount; i++) {
+                int post = touched[i];
+                if (masks[post] != allWords)
+                    continue;
+                if (heapSize < heap.length) {
+                    heap[heapSize++] = post;
+                    siftUp(heap, heapSize - 1, scores);
+                } else if (better(post, heap[0], scores)) {
+                    heap[0] = post;
+                    siftDown(heap, heapSize, scores);
+                }
+            }
+            List<Integer> ranked = new ArrayList<>(heapSize);
+            for (int i = 0; i < heapSize; i++)
+                ranked.add(0);
+            // The heap root is the worst of the kept matches, so fill the list from the back
+            while (heapSize > 0) {
+                ranked.set(heapSize - 1, heap[0]);
+                heap[0] = heap[--heapSize];
+                siftDown(heap, heapSize, scores);
+            }
+            return ranked;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // --- Min-heap of post IDs ordered by score, used to keep the best matches ---
+
+    private static boolean better(int a, int b, float[] scores) {
+        return scores[a] != scores[b] ? scores[a] > scores[b] : a > b;
+    }
+
+    private static void siftUp(int[] heap, int i, float[] scores) {
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (!better(heap[parent], heap[i], scores))
+                return;
+            int t = heap[parent];
+            heap[parent] = heap[i];
+            heap[i] = t;
+            i = parent;
+        }
+    }
+
+    private static void siftDown(int[] heap, int size, float[] scores) {
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size)
+                return;
+            if (child + 1 < size && better(heap[child], heap[child + 1], scores))
+                child++;
+            if (!better(heap[i], heap[child], scores))
+                return;
+            int t = heap[i];
+            heap[i] = heap[child];
+            heap[child] = t;
+            i = child;
+        }
+    }
+
+    /**
+     * The index terms one query word stands for, with the weight of each: its own stem, and
+     * if it may be unfinished and is long enough, the indexed terms that start with it.
+     */
+    private Map<String, Double> expand(String word, boolean prefix) {
+        Map<String, Double> terms = new LinkedHashMap<>();
+        if (termPostings.containsKey(word))
+            terms.put(word, 1.0);
+        if (prefix && word.length() >= MIN_PREFIX_LENGTH) {
+            for (String term : vocabulary.subSet(word, false, word + Character.MAX_VALUE, false)) {
+                if (terms.size() > MAX_PREFIX_EXPANSIONS)
+                    break;
+                terms.put(term, PREFIX_WEIGHT);
+            }
+        }
+        return terms;
+    }
+
+    // --- Text analysis ---
+
+    /**
+     * Splits text into lower-case words made of letters and digits and reduces each to its
+     * stem.
+     *
+     * @param text The text, which may be null.
+     * @return The stems in the order they appear.
+     */
+    public static List<String> analyze(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null)
+            return terms;
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                terms.add(stem(text.substring(start, i).toLowerCase()));
+                start = -1;
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * A light English stemmer: strips plural, "-ing", "-ed" and "-ly" endings so that, for
+     * example, "posts", "posting" and "posted" all become "post".
+     *
+     * @param word A lower-case word.
+     * @return Its stem.
+     */
+    public static String stem(String word) {
+        if (word.length() <= 3)
+            return word;
+        String stem;
+        if (word.endsWith("ies") && word.length() > 4)
+            stem = word.substring(0, word.length() - 3) + "i";
+        else if (word.endsWith("sses"))
+            stem = word.substring(0, word.length() - 2);
+        else if (word.endsWith("ing") && word.length() > 5 && hasVowel(word, word.length() - 3))
+            stem = undouble(word.substring(0, word.length() - 3));
+        else if (word.endsWith("ed") && word.length() > 4 && hasVowel(word, word.length() - 2))
+            stem = undouble(word.substring(0, word.length() - 2));
+        else if (word.endsWith("ly") && word.length() > 5)
+            stem = word.substring(0, word.length() - 2);
+        else if (word.endsWith("s") && !word.endsWith("ss") && !word.endsWith("us") && !word.endsWith("is"))
+            stem = word.substring(0, word.length() - 1);
+        else
+            stem = word;
+        // "reply", "replies" and "replied" all end up as "repli"
+        if (stem.length() > 2 && stem.endsWith("y") && hasVowel(stem, stem.length() - 1))
+            stem = stem.substring(0, stem.length() - 1) + "i";
+        return stem;
+    }
+
+    private static boolean hasVowel(String word, int end) {
+        for (int i = 0; i < end; i++) {
+            if ("aeiouy".indexOf(word.charAt(i)) >= 0)
+                return true;
+        }
+        return false;
+    }
+
+    // "running" -> "runn" -> "run", but "falling" -> "fall" keeps its double l
+    private static String undouble(String stem) {
+        int n = stem.length();
+        if (n >= 3 && stem.charAt(n - 1) == stem.charAt(n - 2) && "lsz".indexOf(stem.charAt(n - 1)) < 0
+                && "aeiou".indexOf(stem.charAt(n - 1)) < 0)
+            return stem.substring(0, n - 1);
+        return stem;
+    }
+
+    /**
+     * @return The number of posts and replies currently indexed.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveDocuments;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package database;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * <p> Title: UserImportReader Class </p>
+ *
+ * <p> Description: Reads the rows of a user import file one at a time, so the file never has to
+ * fit in memory. Two formats are read:
+ *
+ *   - CSV with a header row naming the columns, quoted as RFC 4180 describes: a field in double
+ *     quotes may contain commas, line breaks and doubled quotes;
+ *   - JSON, as either an array of objects or one object per line, with string, number, boolean
+ *     or null values.
+ *
+ * Column and key names are matched without regard to case, spaces or underscores, so
+ * "userName", "username" and "User Name" are the same column. A row comes back as a map from
+ * the normalized name to the value; missing and null values are left out. </p>
+ *
+ * <p> Copyright: Lynn Robert Carter © 2025 </p>
+ *
+ * @version 1.00
+ */
+abstract class UserImportReader {
+
+    /**
+     * One row of the file.
+     *
+     * @param number The row's number for the error report: its line in a CSV file, counting the
+     *               header, or its position in a JSON file, counting from 1.
+     * @param fields The values by normalized column name.
+     */
+    record Row(int number, Map<String, String> fields) {
+    }
+
+    protected final Reader in;
+    private int pushedBack = -2;
+
+    UserImportReader(Reader in) {
+        this.in = in;
+    }
+
+    /**
+     * @return The next row, or null at the end of the file.
+     * @throws IOException if the file cannot be read or is not well formed.
+     */
+    abstract Row next() throws IOException;
+
+    static UserImportReader csv(Reader in) {
+        return new Csv(in);
+    }
+
+    static UserImportReader json(Reader in) {
+        return new Json(in);
+    }
+
+    /**
+     * @return The name lower-cased, with everything but letters and digits removed.
+     */
+    static String normalize(String name) {
+        StringBuilder key = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isLetterOrDigit(c))
+                key.append(c);
+        }
+        return key.toString().toLowerCase(Locale.ROOT);
+    }
+
+    protected int read() throws IOException {
+        if (pushedBack != -2) {
+            int c = pushedBack;
+            pushedBack = -2;
+            return c;
+        }
+        return in.read();
+    }
+
+    protected void unread(int c) {
+        pushedBack = c;
+    }
+
+    private static final class Csv extends UserImportReader {
+        private List<String> header;
+        private int line = 0;
+
+        Csv(Reader in) {
+            super(in);
+        }
+
+        @Override
+        Row next() throws IOException {
+            if (header == null) {
+                List<String> names = record();
+                if (names == null)
+                    return null;
+                header = new ArrayList<>();
+                for (String name : names)
+                    header.add(normalize(name));
+            }
+            List<String> values;
+            do {
+                values = record();
+                if (values == null)
+                    return null;
+            } while (values.size() == 1 && values.get(0).isEmpty());    // blank line
+
+            Map<String, String> fields = new HashMap<>();
+            for (int i = 0; i < values.size() && i < header.size(); i++)
+                fields.put(header.get(i), values.get(i));
+            return new Row(line, fields);
+        }
+
+        // The fields of the next record, or null at the end of the file; counts its lines
+        private List<String> record() throws IOException {
+            int c = read();
+            if (c < 0)
+                return null;
+            unread(c);
+            line++;
+
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            while (true) {
+                c = read();
+                if (quoted) {
+                    if (c < 0)
+                        throw new IOException("Line " + line + ": a quoted field is not closed");
+                    if (c == '"') {
+                        int after = read();
+                        if (after == '"')
+                            field.append('"');
+                        else {
+                            quoted = false;
+                            unread(after);
+                        }
+                    } else {
+                        if (c == '\n')
+                            line++;
+                        field.append((char) c);
+                    }
+                } else if (c == '"' && field.length() == 0) {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\r') {
+                    int after = read();
+                    if (after != '\n')
+                        unread(after);
+                    break;
+                } else if (c == '\n' || c < 0) {
+                    break;
+                } else {
+                    field.append((char) c);
+                }
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+
+    private static final class Json extends UserImportReader {
+        private int count = 0;
+
+        Json(Reader in) {
+            super(in);
+        }
+
+        @Override
+        Row next() throws IOException {
+            // Skip what may sit between objects: the array's brackets, commas and white space
+            int c;
+            do {
+                c = read();
+            } while (c == '[' || c == ']' || c == ',' || Character.isWhitespace(c));
+            if (c < 0)
+                return null;
+            count++;
+            if (c != '{')
+                throw error("expected an object");
+
+            Map<String, String> fields = new HashMap<>();
+            c = skipSpace();
+            if (c == '}')
+                return new Row(count, fields);
+            while (true) {
+                if (c != '"')
+                    throw error("expected a key");
+                String key = string();
+                if (skipSpace() != ':')
+                    throw error("expected a colon after \"" + key + "\"");
+                String value = value(skipSpace());
+                if (value != null)
+                    fields.put(normalize(key), value);
+                c = skipSpace();
+                if (c == '}')
+                    return new Row(count, fields);
+                if (c != ',')
+                    throw error("expected a comma or a closing brace");
+                c = skipSpace();
+            }
+        }
+
+        private int skipSpace() throws IOException {
+            int c;
+            do {
+                c = read();
+            } while (Character.isWhitespace(c));
+            return c;
+        }
+
+        // A scalar value starting with c, as text; null for JSON null
+        private String value(int c) throws IOException {
+            if (c == '"')
+                return string();
+            StringBuilder word = new StringBuilder();
+            while (c == '-' || c == '+' || c == '.' || Character.isLetterOrDigit(c)) {
+                word.append((char) c);
+                c = read();
+            }
+            unread(c);
+            String text = word.toString();
+            if (text.equals("null"))
+                return null;
+            if (text.isEmpty())
+                throw error("expected a string, number, boolean or null");
+            return text;
+        }
+
+        // The rest of a string whose opening quote has been read
+        private String string() throws IOException {
+            StringBuilder text = new StringBuilder();
+            while (true) {
+                int c = read();
+                if (c < 0)
+                    throw error("a string is not closed");
+                if (c == '"')
+                    return text.toString();
+                if (c != '\\') {
+                    text.append((char) c);
+                    continue;
+                }
+                c = read();
+                switch (c) {
+                case 'n' -> text.append('\n');
+                case 't' -> text.append('\t');
+                case 'r' -> text.append('\r');
+                case 'b' -> text.append('\b');
+                case 'f' -> text.append('\f');
+                case 'u' -> {
+                    char[] hex = new char[4];
+                    for (int i = 0; i < 4; i++)
+                        hex[i] = (char) read();
+                    try {
+                        text.append((char) Integer.parseInt(new String(hex), 16));
+                    } catch (NumberFormatException e) {
+                        throw error("bad \\u escape");
+                    }
+                }
+                case -1 -> throw error("a string is not closed");
+                default -> text.append((char) c);
+                }
+            }
+        }
+
+        private IOException error(String problem) {
+            return new IOException("Object " + count + ": " + problem);
+        }
+    }
+}
@@ -0,0 +1,400 @@
+package database;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import database.Database.Role;
+import emailAddressValidator.EmailAddressRecognizer;
+import entityClasses.User;
+import fsmRecognizer.RecognizerResult;
+import nameValidation.NameValidation;
+import userNameRecognizer.UserNameRecognizer;
+
+/**
+ * <p> Title: UserImporter Class </p>
+ *
+ * <p> Description: Creates user accounts in bulk from a CSV or JSON file, for courses too large
+ * to invite one student at a time. The file is read one row at a time and handed out in chunks
+ * to a pool of workers. Each worker checks its rows with the same recognizers the account pages
+ * use, then inserts the valid ones with one JDBC batch in one transaction on its own pooled
+ * connection. Only a few chunks are in flight at once, so memory does not grow with the file.
+ *
+ * The columns are userName, password, firstName, middleName, lastName, preferredFirstName,
+ * emailAddress and roles; middleName and preferredFirstName may be empty. roles lists Admin,
+ * Student and Staff separated by commas, semicolons or spaces, and is Student when empty. A row
+ * is rejected, and listed in the report with the reason, if a field is invalid, if its userName
+ * is already taken or if an earlier row of the file has the same userName. </p>
+ *
+ * <p> Copyright: Lynn Robert Carter © 2025 </p>
+ *
+ * @version 1.00
+ */
+public class UserImporter {
+
+    /**
+     * A rejected row.
+     *
+     * @param row      The row's number: its line in a CSV file or position in a JSON file.
+     * @param userName The userName the row gives, or an empty string.
+     * @param message  Why the row was rejected.
+     */
+    public record RowError(int row, String userName, String message) {
+    }
+
+    /**
+     * <p> Title: Report Class </p>
+     *
+     * <p> Description: The outcome of an import: how many rows were imported and the rejected
+     * rows in file order. </p>
+     */
+    public static final class Report {
+        private final int imported;
+        private final List<RowError> errors;
+
+        Report(int imported, List<RowError> errors) {
+            this.imported = imported;
+            this.errors = errors;
+        }
+
+        /**
+         * @return The number of accounts created.
+         */
+        public int getImported() {
+            return imported;
+        }
+
+        /**
+         * @return The number of rows rejected.
+         */
+        public int getRejected() {
+            return errors.size();
+        }
+
+        /**
+         * @return The rejected rows, in file order.
+         */
+        public List<RowError> getErrors() {
+            return errors;
+        }
+
+        /**
+         * Writes the rejected rows as CSV with the columns row, userName and error.
+         *
+         * @param out Where to write the report.
+         * @throws IOException if the report cannot be written.
+         */
+        public void writeTo(Writer out) throws IOException {
+            out.write("row,userName,error\n");
+            for (RowError e : errors)
+                out.write(e.row() + "," + quote(e.userName()) + "," + quote(e.message()) + "\n");
+            out.flush();
+        }
+
+        private static String quote(String field) {
+            return "\"" + field.replace("\"", "\"\"") + "\"";
+        }
+    }
+
+    private static final int DEFAULT_CHUNK_SIZE = 1_000;
+
+    private final Database db;
+    private final int workers;
+    private final int chunkSize;
+
+    /**
+     * Creates an importer with a worker for each processor. Each worker holds one of the
+     * database's pooled connections while it inserts.
+     *
+     * @param db The connected database.
+     */
+    public UserImporter(Database db) {
+        this(db, Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param db        The connected database.
+     * @param workers   The number of chunks checked and inserted at once.
+     * @param chunkSize The number of rows inserted in each transaction.
+     */
+    public UserImporter(Database db, int workers, int chunkSize) {
+        if (workers < 1 || chunkSize < 1)
+            throw new IllegalArgumentException("Need at least one worker and one row per chunk");
+        this.db = db;
+        this.workers = workers;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Imports a file, reading it as JSON if its name ends in .json or .ndjson and as CSV
+     * otherwise.
+     *
+     * @param file The file to import.
+     * @return What was imported and what was rejected.
+     * @throws IOException if the file cannot be read or is not well formed; the rows before the
+     *                     problem have been imported.
+     */
+    public Report importFile(Path file) throws IOException {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return name.endsWith(".json") || name.endsWith(".ndjson") ? importJson(in) : importCsv(in);
+        }
+    }
+
+    /**
+     * Imports users from CSV with a header row.
+     */
+    public Report importCsv(Reader in) throws IOException {
+        return importRows(UserImportReader.csv(in));
+    }
+
+    /**
+     * Imports users from a JSON array of objects or from one JSON object per line.
+     */
+    public Report importJson(Reader in) throws IOException {
+        return importRows(UserImportReader.json(in));
+    }
+
+    private Report importRows(UserImportReader reader) throws IOException {
+        ConcurrentLinkedQueue<RowError> errors = new ConcurrentLinkedQueue<>();
+        AtomicInteger imported = new AtomicInteger();
+        // Room for every worker to be busy and one chunk each waiting
+        Semaphore inFlight = new Semaphore(2 * workers);
+        List<Future<?>> chunks = new ArrayList<>();
+        // The first row of the file to give each userName
+        Map<String, Integer> firstRow = new HashMap<>();
+
+        AtomicInteger count = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(workers, r -> {
+            Thread t = new Thread(r, "user-import-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<UserImportReader.Row> chunk = new ArrayList<>(chunkSize);
+            UserImportReader.Row row;
+            while ((row = reader.next()) != null) {
+                String userName = row.fields().getOrDefault("username", "");
+                Integer first = firstRow.putIfAbsent(userName, row.number());
+                if (first != null && !userName.isEmpty()) {
+                    errors.add(new RowError(row.number(), userName, "userName: already used by row " + first));
+                    continue;
+                }
+                chunk.add(row);
+                if (chunk.size() == chunkSize) {
+                    chunks.add(submit(pool, inFlight, chunk, errors, imported));
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!chunk.isEmpty())
+                chunks.add(submit(pool, inFlight, chunk, errors, imported));
+        } finally {
+            // Whatever was handed out is finished before returning or failing
+            for (Future<?> done : chunks) {
+                try {
+                    done.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                } catch (ExecutionException e) {
+                    e.getCause().printStackTrace();
+                }
+            }
+            pool.shutdownNow();
+        }
+
+        List<RowError> report = new ArrayList<>(errors);
+        report.sort(Comparator.comparingInt(RowError::row));
+        return new Report(imported.get(), Collections.unmodifiableList(report));
+    }
+
+    private Future<?> submit(ExecutorService pool, Semaphore inFlight, List<UserImportReader.Row> chunk,
+            ConcurrentLinkedQueue<RowError> errors, AtomicInteger imported) throws IOException {
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while importing users", e);
+        }
+        return pool.submit(() -> {
+            try {
+                importChunk(chunk, errors, imported);
+            } finally {
+                inFlight.release();
+            }
+        });
+    }
+
+    // --- One chunk ---
+
+    private void importChunk(List<UserImportReader.Row> rows, ConcurrentLinkedQueue<RowError> errors,
+            AtomicInteger imported) {
+        List<User> users = new ArrayList<>(rows.size());
+        List<String> hashes = new ArrayList<>(rows.size());
+        List<Integer> rowNumbers = new ArrayList<>(rows.size());
+        for (UserImportReader.Row row : rows) {
+            Map<String, String> f = row.fields();
+            String userName = f.getOrDefault("username", "");
+            String problem = check(f);
+            if (problem != null) {
+                errors.add(new RowError(row.number(), userName, problem));
+                continue;
+            }
+            EnumSet<Role> roles = roles(f.getOrDefault("roles", ""));
+            users.add(new User(userName, f.get("password"), f.get("firstname"), f.getOrDefault("middlename", ""),
+                    f.get("lastname"), f.getOrDefault("preferredfirstname", ""), email(f),
+                    roles.contains(Role.ADMIN), roles.contains(Role.STUDENT), roles.contains(Role.STAFF)));
+            // hashed here, so the workers share the hashing as they share the inserts
+            hashes.add(db.getPasswordHasher().hash(f.get("password")));
+            rowNumbers.add(row.number());
+        }
+        if (users.isEmpty())
+            return;
+
+        try (Connection conn = db.getConnectionPool().getConnection()) {
+            Set<String> taken = existing(conn, users);
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = conn.prepareStatement(Database.INSERT_USER)) {
+                List<User> inserted = new ArrayList<>(users.size());
+                for (int i = 0; i < users.size(); i++) {
+                    User user = users.get(i);
+                    if (taken.contains(user.getUserName())) {
+                        errors.add(new RowError(rowNumbers.get(i), user.getUserName(), "userName: already exists"));
+                        continue;
+                    }
+                    Database.bindUser(pstmt, user, hashes.get(i));
+                    pstmt.addBatch();
+                    inserted.add(user);
+                }
+                try {
+                    pstmt.executeBatch();
+                    conn.commit();
+                    imported.addAndGet(inserted.size());
+                } catch (BatchUpdateException e) {
+                    // Someone registered one of the names meanwhile; insert the rows one at a time
+                    conn.rollback();
+                    pstmt.clearBatch();
+                    insertOneByOne(conn, pstmt, users, hashes, rowNumbers, taken, errors, imported);
+                }
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            for (int i = 0; i < users.size(); i++)
+                errors.add(new RowError(rowNumbers.get(i), users.get(i).getUserName(),
+                        "not imported: " + e.getMessage()));
+        }
+    }
+
+    private static void insertOneByOne(Connection conn, PreparedStatement pstmt, List<User> users,
+            List<String> hashes, List<Integer> rowNumbers, Set<String> taken,
+            ConcurrentLinkedQueue<RowError> errors, AtomicInteger imported) throws SQLException {
+        for (int i = 0; i < users.size(); i++) {
+            User user = users.get(i);
+            if (taken.contains(user.getUserName()))
+                continue;
+            try {
+                Database.bindUser(pstmt, user, hashes.get(i));
+                pstmt.executeUpdate();
+                conn.commit();
+                imported.incrementAndGet();
+            } catch (SQLException e) {
+                conn.rollback();
+                errors.add(new RowError(rowNumbers.get(i), user.getUserName(), "userName: already exists"));
+            }
+        }
+    }
+
+    // The userNames of the chunk that are already in userDB
+    private static Set<String> existing(Connection conn, List<User> users) throws SQLException {
+        String[] names = new String[users.size()];
+        for (int i = 0; i < names.length; i++)
+            names[i] = users.get(i).getUserName();
+        Set<String> taken = new HashSet<>();
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT userName FROM userDB WHERE userName = ANY(?)")) {
+            pstmt.setObject(1, names);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next())
+                    taken.add(rs.getString(1));
+            }
+        }
+        return taken;
+    }
+
+    // --- Checking a row ---
+
+    /**
+     * @return Why the row cannot be imported, or null if it can.
+     */
+    private static String check(Map<String, String> f) {
+        String problem = problem("userName", UserNameRecognizer.validate(f.getOrDefault("username", "")));
+        if (problem == null)
+            problem = problem("password", passwordPopUpWindow.Model.validate(f.getOrDefault("password", "")));
+        if (problem == null)
+            problem = problem("firstName", NameValidation.validate(f.getOrDefault("firstname", "")));
+        if (problem == null && !f.getOrDefault("middlename", "").isEmpty())
+            problem = problem("middleName", NameValidation.validate(f.get("middlename")));
+        if (problem == null)
+            problem = problem("lastName", NameValidation.validate(f.getOrDefault("lastname", "")));
+        if (problem == null && !f.getOrDefault("preferredfirstname", "").isEmpty())
+            problem = problem("preferredFirstName", NameValidation.validate(f.get("preferredfirstname")));
+        if (problem == null)
+            problem = problem("emailAddress", EmailAddressRecognizer.validate(email(f)));
+        if (problem == null && roles(f.getOrDefault("roles", "")) == null)
+            problem = "roles: must be Admin, Student or Staff";
+        return problem;
+    }
+
+    private static String problem(String field, RecognizerResult result) {
+        if (result.isValid())
+            return null;
+        return field + ": " + result.message().replace("*** ERROR ***", "").replace("*** Error ***", "").strip();
+    }
+
+    private static String email(Map<String, String> f) {
+        return f.getOrDefault("emailaddress", f.getOrDefault("email", ""));
+    }
+
+    // The roles a row asks for: null if one is not known, Student if there are none
+    private static EnumSet<Role> roles(String text) {
+        EnumSet<Role> roles = EnumSet.noneOf(Role.class);
+        for (String role : text.split("[,;\\s]+")) {
+            if (role.isEmpty())
+                continue;
+            try {
+                roles.add(Role.valueOf(role.toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+        if (roles.isEmpty())
+            roles.add(Role.STUDENT);
+        return roles;
+    }
+}
@@ -0,0 +1,71 @@
+package database.migrations;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * <p> Title: Migration Class </p>
+ *
+ * <p> Description: One versioned step of the database schema. A migration is a fixed list of SQL
+ * statements that SchemaMigrator runs once per database, in version order, and records in the
+ * schema_version table together with a checksum of the statements.
+ *
+ * A migration must never be edited once it has shipped: the checksum of an applied migration is
+ * compared with the stored one on every start, and a mismatch stops the start-up. Change the
+ * schema by adding a migration with the next version number instead.
+ *
+ * The statements should be safe to run again (CREATE ... IF NOT EXISTS, ADD COLUMN IF NOT
+ * EXISTS), because H2 commits each DDL statement on its own and a migration interrupted half way
+ * is run again from its first statement. </p>
+ *
+ * <p> Copyright: Lynn Robert Carter © 2025 </p>
+ *
+ * @version 1.00
+ */
+public abstract class Migration {
+
+    /**
+     * @return The schema version this migration brings the database to; versions start at 1 and
+     *         have no gaps.
+     */
+    public abstract int getVersion();
+
+    /**
+     * @return A short description, stored in schema_version.
+     */
+    public abstract String getDescription();
+
+    /**
+     * @return The SQL statements of the migration, in the order they run.
+     */
+    protected abstract List<String> getStatements();
+
+    /**
+     * Computes the checksum of the statements, which is stored when the migration is applied.
+     * 
+     * @return A CRC-32 of the statements.
+     */
+    public final int getChecksum() {
+        CRC32 crc = new CRC32();
+        for (String sql : getStatements()) {
+            crc.update(sql.getBytes(StandardCharsets.UTF_8));
+            crc.update('\n');
+        }
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Runs the statements of the migration.
+     * 
+     * @param statement The statement to execute them with.
+     * @throws SQLException if a statement fails.
+     */
+    void apply(Statement statement) throws SQLException {
+        for (String sql : getStatements()) {
+            statement.execute(sql);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package database.migrations;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p> Title: SchemaMigrator Class </p>
+ *
+ * <p> Description: Brings a database up to the current schema by applying, in version order,
+ * every migration it has not had yet. Applied migrations are recorded in the schema_version
+ * table with their checksum; before anything is applied the recorded checksums are compared with
+ * the migrations of this build, so an edited migration or a database written by a newer build is
+ * reported instead of being silently half-upgraded.
+ *
+ * Databases created before schema_version existed have no recorded versions, so every migration
+ * runs; the early migrations only create what is missing, which upgrades such a database in
+ * place. </p>
+ *
+ * <p> Copyright: Lynn Robert Carter © 2025 </p>
+ *
+ * @version 1.00
+ */
+public class SchemaMigrator {
+
+    /**
+     * The migrations of this build, in version order. Append new migrations at the end.
+     */
+    public static final List<Migration> MIGRATIONS = List.of(
+            new V1CreateTables(),
+            new V2AddLateColumns(),
+            new V3PostListIndexes(),
+            new V4LookupIndexes(),
+            new V5ViewedPostsIndex(),
+            new V6ReadStateTable(),
+            new V7ChangeLogTable(),
+            new V8PostReplyCounters());
+
+    private static final String VERSION_TABLE = "CREATE TABLE IF NOT EXISTS schema_version ("
+            + "version INT PRIMARY KEY, "
+            + "description VARCHAR(255), "
+            + "checksum INT, "
+            + "installed_on TIMESTAMP)";
+
+    private final List<Migration> migrations;
+
+    /**
+     * Creates a migrator for the migrations of this build.
+     */
+    public SchemaMigrator() {
+        this(MIGRATIONS);
+    }
+
+    /**
+     * Creates a migrator for the given migrations.
+     * 
+     * @param migrations The migrations, whose versions must be 1, 2, 3, ... in this order.
+     * @throws IllegalArgumentException if the versions are out of order or have gaps.
+     */
+    public SchemaMigrator(List<Migration> migrations) {
+        for (int i = 0; i < migrations.size(); i++) {
+            if (migrations.get(i).getVersion() != i + 1)
+                throw new IllegalArgumentException("Migration " + migrations.get(i).getClass().getSimpleName()
+                        + " has version " + migrations.get(i).getVersion() + ", expected " + (i + 1));
+        }
+        this.migrations = List.copyOf(migrations);
+    }
+
+    /**
+     * @return The version the database will have after migrate().
+     */
+    public int getLatestVersion() {
+        return migrations.size();
+    }
+
+    /**
+     * Applies the migrations the database does not have yet.
+     * 
+     * @param connection A connection to the database.
+     * @return The number of migrations applied.
+     * @throws SQLException if a recorded migration does not match this build, or a migration
+     *                      fails; versions applied before the failure stay recorded.
+     */
+    public int migrate(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(VERSION_TABLE);
+        }
+
+        Map<Integer, Integer> applied = readAppliedChecksums(connection);
+        for (Map.Entry<Integer, Integer> entry : applied.entrySet()) {
+            int version = entry.getKey();
+            if (version > migrations.size())
+                throw new SQLException("Database schema version " + version
+                        + " is newer than this application supports (" + migrations.size() + ")");
+            Migration migration = migrations.get(version - 1);
+            if (migration.getChecksum() != entry.getValue())
+                throw new SQLException("Migration " + version + " (" + migration.getDescription()
+                        + ") was changed after it was applied to this database");
+        }
+
+        int count = 0;
+        for (Migration migration : migrations) {
+            if (applied.containsKey(migration.getVersion()))
+                continue;
+            try (Statement statement = connection.createStatement()) {
+                migration.apply(statement);
+            }
+            record(connection, migration);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Reads the schema version of the database.
+     * 
+     * @param connection A connection to the database.
+     * @return The highest applied version, or 0 if none has been applied.
+     * @throws SQLException if schema_version cannot be read.
+     */
+    public static int currentVersion(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(VERSION_TABLE);
+            try (ResultSet rs = statement.executeQuery("SELECT COALESCE(MAX(version), 0) FROM schema_version")) {
+                rs.next();
+                return rs.getInt(1);
+            }
+        }
+    }
+
+    private static Map<Integer, Integer> readAppliedChecksums(Connection connection) throws SQLException {
+        Map<Integer, Integer> applied = new HashMap<>();
+        try (Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery("SELECT version, checksum FROM schema_version")) {
+            while (rs.next()) {
+                applied.put(rs.getInt("version"), rs.getInt("checksum"));
+            }
+        }
+        return applied;
+    }
+
+    private static void record(Connection connection, Migration migration) throws SQLException {
+        String sql = "INSERT INTO schema_version (version, description, checksum, installed_on) VALUES (?, ?, ?, ?)";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setInt(1, migration.getVersion());
+            pstmt.setString(2, migration.getDescription());
+            pstmt.setInt(3, migration.getChecksum());
+            pstmt.setTimestamp(4, Timestamp.from(Instant.now()));
+            pstmt.executeUpdate();
+        }
+    }
+}
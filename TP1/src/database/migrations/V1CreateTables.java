@@ -0,0 +1,114 @@
+package database.migrations;
+
+import java.util.List;
+
+/**
+ * <p> Title: V1CreateTables Class </p>
+ *
+ * <p> Description: Schema version 1: the application tables as they were before versioned
+ * migrations. Every table is created only if it does not exist, so this also adopts databases
+ * created by earlier builds. </p>
+ *
+ * <p> Copyright: Lynn Robert Carter © 2025 </p>
+ *
+ * @version 1.00
+ */
+public class V1CreateTables extends Migration {
+
+    @Override
+    public int getVersion() {
+        return 1;
+    }
+
+    @Override
+    public String getDescription() {
+        return "Create application tables";
+    }
+
+    @Override
+    protected List<String> getStatements() {
+        return List.of(
+                "CREATE TABLE IF NOT EXISTS userDB ("
+                        + "id INT AUTO_INCREMENT PRIMARY KEY, "
+                        + "userName VARCHAR(255) UNIQUE, "
+                        + "password VARCHAR(255), "
+                        + "firstName VARCHAR(255), "
+                        + "middleName VARCHAR(255), "
+                        + "lastName VARCHAR (255), "
+                        + "preferredFirstName VARCHAR(255), "
+                        + "emailAddress VARCHAR(255), "
+                        + "adminRole BOOL DEFAULT FALSE, "
+                        + "newStudent BOOL DEFAULT FALSE, "
+                        + "newStaff BOOL DEFAULT FALSE)",
+
+                // invitation codes
+                "CREATE TABLE IF NOT EXISTS InvitationCodes ("
+                        + "code VARCHAR(10) PRIMARY KEY, "
+                        + "emailAddress VARCHAR(255), "
+                        + "role VARCHAR(255))",
+
+                "CREATE TABLE IF NOT EXISTS otpsTable ("
+                        + "username VARCHAR(255) PRIMARY KEY, "
+                        + "otp VARCHAR(10))",
+
+                // discussion posts and replies
+                "CREATE TABLE IF NOT EXISTS postsDB ("
+                        + "postID INT AUTO_INCREMENT PRIMARY KEY, "
+                        + "authorUsername VARCHAR(255), "
+                        + "title VARCHAR(255), "
+                        + "content VARCHAR(4096), "
+                        + "thread VARCHAR(255) DEFAULT 'General', "
+                        + "visible BOOLEAN DEFAULT TRUE, "
+                        + "deleted BOOLEAN DEFAULT FALSE, "
+                        + "timestamp TIMESTAMP)",
+
+                "CREATE TABLE IF NOT EXISTS repliesDB ("
+                        + "replyID INT AUTO_INCREMENT PRIMARY KEY, "
+                        + "postID INT, "
+                        + "authorUsername VARCHAR(255), "
+                        + "content VARCHAR(2048), "
+                        + "visible BOOLEAN DEFAULT TRUE, "
+                        + "visibility VARCHAR(20) DEFAULT 'public', "
+                        + "recipient VARCHAR(255), "
+                        + "timestamp TIMESTAMP)",
+
+                "CREATE TABLE IF NOT EXISTS viewed_posts ("
+                        + "postID INT, "
+                        + "username VARCHAR(255), "
+                        + "PRIMARY KEY (postID, username))",
+
+                "CREATE TABLE IF NOT EXISTS viewed_replies ("
+                        + "replyID INT, "
+                        + "username VARCHAR(255), "
+                        + "PRIMARY KEY (replyID, username))",
+
+                "CREATE TABLE IF NOT EXISTS moderation_log ("
+                        + "logID INT AUTO_INCREMENT PRIMARY KEY, "
+                        + "postID INT, "
+                        + "username VARCHAR(255), "
+                        + "action VARCHAR(20), "
+                        + "reason VARCHAR(1024), "
+                        + "timestamp TIMESTAMP"
+                        + ")",
+
+                "CREATE TABLE IF NOT EXISTS grading_parameters ("
+                        + "id INT AUTO_INCREMENT PRIMARY KEY, "
+                        + "name VARCHAR(255), "
+                        + "description VARCHAR(1024))",
+
+                // admin requests and threads
+                "CREATE TABLE IF NOT EXISTS admin_requests ("
+                        + "requestID INT AUTO_INCREMENT PRIMARY KEY, "
+                        + "requester VARCHAR(255), "
+                        + "description VARCHAR(1024), "
+                        + "status VARCHAR(50), "
+                        + "adminComments VARCHAR(1024), "
+                        + "created_at TIMESTAMP, "
+                        + "updated_at TIMESTAMP)",
+
+                "CREATE TABLE IF NOT EXISTS discussion_threads ("
+                        + "title VARCHAR(255) PRIMARY KEY, "
+                        + "visible BOOLEAN DEFAULT TRUE, "
+                        + "created_at TIMESTAMP)");
+    }
+}
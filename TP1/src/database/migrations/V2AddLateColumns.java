@@ -0,0 +1,38 @@
+package database.migrations;
+
+import java.util.List;
+
+/**
+ * <p> Title: V2AddLateColumns Class </p>
+ *
+ * <p> Description: Schema version 2: the columns that were added to existing tables after they
+ * were first released (invitation code expiry and uses, post and reply visibility, private reply
+ * recipients). Databases created by V1 already have them; older ones get them here. </p>
+ *
+ * <p> Copyright: Lynn Robert Carter © 2025 </p>
+ *
+ * @version 1.00
+ */
+public class V2AddLateColumns extends Migration {
+
+    @Override
+    public int getVersion() {
+        return 2;
+    }
+
+    @Override
+    public String getDescription() {
+        return "Add invitation expiry and visibility columns";
+    }
+
+    @Override
+    protected List<String> getStatements() {
+        return List.of(
+                "ALTER TABLE InvitationCodes ADD COLUMN IF NOT EXISTS expiresAt TIMESTAMP",
+                "ALTER TABLE InvitationCodes ADD COLUMN IF NOT EXISTS usesRemaining INT DEFAULT 0",
+                "ALTER TABLE postsDB ADD COLUMN IF NOT EXISTS visible BOOLEAN DEFAULT TRUE",
+                "ALTER TABLE repliesDB ADD COLUMN IF NOT EXISTS visible BOOLEAN DEFAULT TRUE",
+                "ALTER TABLE repliesDB ADD COLUMN IF NOT EXISTS visibility VARCHAR(20) DEFAULT 'public'",
+                "ALTER TABLE repliesDB ADD COLUMN IF NOT EXISTS recipient VARCHAR(255)");
+    }
+}
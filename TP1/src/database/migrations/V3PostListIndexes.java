@@ -0,0 +1,34 @@
+package database.migrations;
+
+import java.util.List;
+
+/**
+ * <p> Title: V3PostListIndexes Class </p>
+ *
+ * <p> Description: Schema version 3: indexes for listing posts newest first. The post list pages
+ * are read in (timestamp, postID) order straight off the first index; the second does the same
+ * within one thread, for the thread filter. </p>
+ *
+ * <p> Copyright: Lynn Robert Carter © 2025 </p>
+ *
+ * @version 1.00
+ */
+public class V3PostListIndexes extends Migration {
+
+    @Override
+    public int getVersion() {
+        return 3;
+    }
+
+    @Override
+    public String getDescription() {
+        return "Index posts by time and by thread";
+    }
+
+    @Override
+    protected List<String> getStatements() {
+        return List.of(
+                "CREATE INDEX IF NOT EXISTS idx_posts_timestamp_id ON postsDB(timestamp DESC, postID DESC)",
+                "CREATE INDEX IF NOT EXISTS idx_posts_thread_timestamp ON postsDB(thread, timestamp DESC, postID DESC)");
+    }
+}
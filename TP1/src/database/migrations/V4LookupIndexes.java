@@ -0,0 +1,36 @@
+package database.migrations;
+
+import java.util.List;
+
+/**
+ * <p> Title: V4LookupIndexes Class </p>
+ *
+ * <p> Description: Schema version 4: indexes on the columns the per-post lookups filter on, so
+ * reply lists, reply counts and the latest moderation action of a post no longer scan their whole
+ * table, plus a user's read marks and the admin request list order. </p>
+ *
+ * <p> Copyright: Lynn Robert Carter © 2025 </p>
+ *
+ * @version 1.00
+ */
+public class V4LookupIndexes extends Migration {
+
+    @Override
+    public int getVersion() {
+        return 4;
+    }
+
+    @Override
+    public String getDescription() {
+        return "Index replies, moderation log, read marks and admin requests";
+    }
+
+    @Override
+    protected List<String> getStatements() {
+        return List.of(
+                "CREATE INDEX IF NOT EXISTS idx_replies_post_timestamp ON repliesDB(postID, timestamp)",
+                "CREATE INDEX IF NOT EXISTS idx_moderation_post_timestamp ON moderation_log(postID, timestamp DESC, logID DESC)",
+                "CREATE INDEX IF NOT EXISTS idx_viewed_replies_user ON viewed_replies(username, replyID)",
+                "CREATE INDEX IF NOT EXISTS idx_admin_requests_updated ON admin_requests(updated_at DESC)");
+    }
+}
@@ -0,0 +1,33 @@
+package database.migrations;
+
+import java.util.List;
+
+/**
+ * <p> Title: V5ViewedPostsIndex Class </p>
+ *
+ * <p> Description: Schema version 5: an index on the readers of posts, so the read marks of one
+ * user can be loaded without scanning viewed_posts; its key (postID, username) only helps
+ * lookups by post. </p>
+ *
+ * <p> Copyright: Lynn Robert Carter © 2025 </p>
+ *
+ * @version 1.00
+ */
+public class V5ViewedPostsIndex extends Migration {
+
+    @Override
+    public int getVersion() {
+        return 5;
+    }
+
+    @Override
+    public String getDescription() {
+        return "Index post read marks by user";
+    }
+
+    @Override
+    protected List<String> getStatements() {
+        return List.of(
+                "CREATE INDEX IF NOT EXISTS idx_viewed_posts_user ON viewed_posts(username, postID)");
+    }
+}
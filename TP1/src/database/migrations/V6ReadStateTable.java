@@ -0,0 +1,37 @@
+package database.migrations;
+
+import java.util.List;
+
+/**
+ * <p> Title: V6ReadStateTable Class </p>
+ *
+ * <p> Description: Schema version 6: the read_state table, one row per user holding the posts and
+ * replies the user has read as serialized ReadSets. It replaces the row-per-mark viewed_posts and
+ * viewed_replies tables; a user's old rows are moved into it the first time the user's read
+ * state is loaded. </p>
+ *
+ * <p> Copyright: Lynn Robert Carter © 2025 </p>
+ *
+ * @version 1.00
+ */
+public class V6ReadStateTable extends Migration {
+
+    @Override
+    public int getVersion() {
+        return 6;
+    }
+
+    @Override
+    public String getDescription() {
+        return "Store read marks as a bitmap per user";
+    }
+
+    @Override
+    protected List<String> getStatements() {
+        return List.of(
+                "CREATE TABLE IF NOT EXISTS read_state ("
+                        + "username VARCHAR(255) PRIMARY KEY, "
+                        + "readPosts BLOB, "
+                        + "readReplies BLOB)");
+    }
+}
@@ -0,0 +1,40 @@
+package database.migrations;
+
+import java.util.List;
+
+/**
+ * <p> Title: V7ChangeLogTable Class </p>
+ *
+ * <p> Description: Schema version 7: the change_log table, an append-only feed of the changes
+ * made to posts, replies and threads. Each row's seq is larger than every earlier row's, so a
+ * view that remembers the last seq it applied can ask for just the changes made since. </p>
+ *
+ * <p> Copyright: Lynn Robert Carter © 2025 </p>
+ *
+ * @version 1.00
+ */
+public class V7ChangeLogTable extends Migration {
+
+    @Override
+    public int getVersion() {
+        return 7;
+    }
+
+    @Override
+    public String getDescription() {
+        return "Record changes to posts, replies and threads in a change feed";
+    }
+
+    @Override
+    protected List<String> getStatements() {
+        return List.of(
+                "CREATE TABLE IF NOT EXISTS change_log ("
+                        + "seq BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                        + "kind VARCHAR(20) NOT NULL, "
+                        + "postID INT, "
+                        + "replyID INT, "
+                        + "thread VARCHAR(255), "
+                        + "username VARCHAR(255), "
+                        + "timestamp TIMESTAMP)");
+    }
+}
@@ -0,0 +1,63 @@
+package database.migrations;
+
+import java.util.List;
+
+/**
+ * <p> Title: V8PostReplyCounters Class </p>
+ *
+ * <p> Description: Schema version 8: reply counters on postsDB. Each post carries how many replies
+ * it has, how many of them are not private feedback, how many are hidden, and when the last one
+ * was written, so the post list reads them with the post instead of going through its replies.
+ * The reply writes keep them up to date; RECOUNT rebuilds them from repliesDB, here for the
+ * existing posts and later as the repair job.
+ *
+ * last_activity is the later of the post and its last reply, indexed like the timestamp in
+ * V3PostListIndexes so the list can also be paged by last activity. </p>
+ *
+ * <p> Copyright: Lynn Robert Carter © 2025 </p>
+ *
+ * @version 1.00
+ */
+public class V8PostReplyCounters extends Migration {
+
+    /**
+     * Sets the counters of every post whose counters disagree with its replies; the update count
+     * is the number of posts corrected.
+     */
+    public static final String RECOUNT = "MERGE INTO postsDB p USING ("
+            + "SELECT q.postID, COUNT(r.replyID) AS replies, "
+            + "COUNT(CASE WHEN r.replyID IS NOT NULL "
+            + "AND LOWER(COALESCE(r.visibility, 'public')) <> 'private' THEN 1 END) AS publicReplies, "
+            + "COUNT(CASE WHEN r.visible = FALSE THEN 1 END) AS hiddenReplies, "
+            + "MAX(r.timestamp) AS lastReply "
+            + "FROM postsDB q LEFT JOIN repliesDB r ON r.postID = q.postID GROUP BY q.postID) c "
+            + "ON p.postID = c.postID "
+            + "WHEN MATCHED AND (p.reply_count <> c.replies OR p.public_reply_count <> c.publicReplies "
+            + "OR p.hidden_reply_count <> c.hiddenReplies OR p.last_reply_at IS DISTINCT FROM c.lastReply) "
+            + "THEN UPDATE SET reply_count = c.replies, public_reply_count = c.publicReplies, "
+            + "hidden_reply_count = c.hiddenReplies, last_reply_at = c.lastReply";
+
+    @Override
+    public int getVersion() {
+        return 8;
+    }
+
+    @Override
+    public String getDescription() {
+        return "Keep reply counters and last activity on posts";
+    }
+
+    @Override
+    protected List<String> getStatements() {
+        return List.of(
+                "ALTER TABLE postsDB ADD COLUMN IF NOT EXISTS reply_count INT DEFAULT 0 NOT NULL",
+                "ALTER TABLE postsDB ADD COLUMN IF NOT EXISTS public_reply_count INT DEFAULT 0 NOT NULL",
+                "ALTER TABLE postsDB ADD COLUMN IF NOT EXISTS hidden_reply_count INT DEFAULT 0 NOT NULL",
+                "ALTER TABLE postsDB ADD COLUMN IF NOT EXISTS last_reply_at TIMESTAMP",
+                "ALTER TABLE postsDB ADD COLUMN IF NOT EXISTS last_activity TIMESTAMP "
+                        + "GENERATED ALWAYS AS (COALESCE(last_reply_at, timestamp))",
+                RECOUNT,
+                "CREATE INDEX IF NOT EXISTS idx_posts_activity_id ON postsDB(last_activity DESC, postID DESC)",
+                "CREATE INDEX IF NOT EXISTS idx_posts_thread_activity ON postsDB(thread, last_activity DESC, postID DESC)");
+    }
+}
@@ -0,0 +1,196 @@
+package databaseTesting;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import database.ArchiveExporter;
+import database.ArchiveExporter.Format;
+import database.ArchiveExporter.Table;
+import database.Database;
+
+/**
+ * <p>
+ * Title: ArchiveExportTest
+ * </p>
+ *
+ * <p>
+ * Description: Checks the NDJSON and CSV export of the discussion tables.
+ * </p>
+ *
+ * <p>
+ * Requirements Checked:
+ * R-EXPORT-01: Every row of a table is written, in primary key order.
+ * R-EXPORT-02: Quotes, commas, line breaks and non-ASCII text survive both formats,
+ * and NULL is null in NDJSON and an empty field in CSV.
+ * R-EXPORT-03: Files whose names end in .gz are gzipped, and no partial file is left behind.
+ * R-EXPORT-04: Tables larger than the write buffer are streamed in full.
+ * </p>
+ */
+public class ArchiveExportTest {
+
+    private static final Timestamp WHEN = Timestamp.valueOf(LocalDateTime.of(2025, 4, 1, 9, 30));
+
+    private Database db;
+    private Path directory;
+
+    @Before
+    public void setUp() throws Exception {
+        db = new Database("jdbc:h2:mem:archiveExportTest" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        db.connectToDatabase();
+        directory = Files.createTempDirectory("archiveExportTest");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        db.closeConnection();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path p : files.sorted(Comparator.reverseOrder()).toList())
+                Files.delete(p);
+        }
+    }
+
+    private void insertPost(int id, String title, String content) throws Exception {
+        try (Connection conn = db.getConnectionPool().getConnection();
+                PreparedStatement ps = conn.prepareStatement("INSERT INTO postsDB (postID, authorUsername, "
+                        + "title, content, thread, timestamp) VALUES (?, 'alice1', ?, ?, 'General', ?)")) {
+            ps.setInt(1, id);
+            ps.setString(2, title);
+            ps.setString(3, content);
+            ps.setTimestamp(4, WHEN);
+            ps.executeUpdate();
+        }
+    }
+
+    @Test
+    public void testNdjsonEscapesAndNulls() throws Exception {
+        insertPost(2, "Second", "plain");
+        insertPost(1, "Say \"hi\"", "line one\nline two\\ \t café");
+        try (Connection conn = db.getConnectionPool().getConnection(); Statement st = conn.createStatement()) {
+            st.execute("INSERT INTO repliesDB (replyID, postID, authorUsername, content, timestamp) "
+                    + "VALUES (1, 1, 'bob2', 'ok', NULL)");
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ArchiveExporter exporter = new ArchiveExporter(db);
+        assertEquals(2, exporter.export(Table.POSTS, Format.NDJSON, Channels.newChannel(out)));
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("{\"POSTID\":1,\"AUTHORUSERNAME\":\"alice1\",\"TITLE\":\"Say \\\"hi\\\"\","
+                + "\"CONTENT\":\"line one\\nline two\\\\ \\t café\",\"THREAD\":\"General\",\"VISIBLE\":true,"
+                + "\"DELETED\":false,\"TIMESTAMP\":\"2025-04-01T09:30\"}", lines[0]);
+        assertTrue(lines[1].startsWith("{\"POSTID\":2,"));
+
+        out.reset();
+        assertEquals(1, exporter.export(Table.REPLIES, Format.NDJSON, Channels.newChannel(out)));
+        String reply = out.toString(StandardCharsets.UTF_8);
+        assertTrue(reply, reply.contains("\"RECIPIENT\":null,\"TIMESTAMP\":null}"));
+    }
+
+    @Test
+    public void testCsvQuoting() throws Exception {
+        insertPost(1, "Commas, and \"quotes\"", "two\nlines");
+        insertPost(2, "Plain", "text");
+        db.createGradingParameter("Participation", null);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ArchiveExporter exporter = new ArchiveExporter(db);
+        exporter.export(Table.POSTS, Format.CSV, Channels.newChannel(out));
+        assertEquals("POSTID,AUTHORUSERNAME,TITLE,CONTENT,THREAD,VISIBLE,DELETED,TIMESTAMP\n"
+                + "1,alice1,\"Commas, and \"\"quotes\"\"\",\"two\nlines\",General,true,false,2025-04-01T09:30\n"
+                + "2,alice1,Plain,text,General,true,false,2025-04-01T09:30\n",
+                out.toString(StandardCharsets.UTF_8));
+
+        out.reset();
+        exporter.export(Table.GRADING_PARAMETERS, Format.CSV, Channels.newChannel(out));
+        assertEquals("ID,NAME,DESCRIPTION\n1,Participation,\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testExportAllGzipped() throws Exception {
+        insertPost(1, "Title", "content");
+        db.hidePost(1, "staff1", "off topic");
+        db.createAdminRequest("staff1", "Please reset the board");
+
+        Map<Table, Long> counts = new ArchiveExporter(db).exportAll(directory, Format.NDJSON, true);
+        assertEquals(Long.valueOf(1), counts.get(Table.POSTS));
+        assertEquals(Long.valueOf(0), counts.get(Table.REPLIES));
+        assertEquals(Long.valueOf(1), counts.get(Table.ADMIN_REQUESTS));
+        assertTrue(counts.get(Table.MODERATION_LOG) >= 1);
+
+        try (Stream<Path> files = Files.list(directory)) {
+            List<String> names = files.map(p -> p.getFileName().toString()).sorted().toList();
+            assertEquals(List.of("admin_requests.ndjson.gz", "grading_parameters.ndjson.gz",
+                    "moderation_log.ndjson.gz", "posts.ndjson.gz", "replies.ndjson.gz"), names);
+        }
+        List<String> log = readGzipLines(directory.resolve("moderation_log.ndjson.gz"));
+        assertTrue(log.get(0), log.get(0).contains("\"REASON\":\"off topic\""));
+        assertTrue(readGzipLines(directory.resolve("replies.ndjson.gz")).isEmpty());
+    }
+
+    @Test
+    public void testLargeTableIsStreamed() throws Exception {
+        String content = "x".repeat(500);
+        try (Connection conn = db.getConnectionPool().getConnection();
+                PreparedStatement ps = conn.prepareStatement("INSERT INTO repliesDB (replyID, postID, "
+                        + "authorUsername, content, timestamp) VALUES (?, ?, 'bob2', ?, ?)")) {
+            conn.setAutoCommit(false);
+            for (int i = 1; i <= 20_000; i++) {
+                ps.setInt(1, i);
+                ps.setInt(2, i % 100);
+                ps.setString(3, content);
+                ps.setTimestamp(4, WHEN);
+                ps.addBatch();
+                if (i % 1000 == 0)
+                    ps.executeBatch();
+            }
+            conn.commit();
+            conn.setAutoCommit(true);
+        }
+
+        Path file = directory.resolve("replies.csv");
+        assertEquals(20_000, new ArchiveExporter(db).export(Table.REPLIES, Format.CSV, file));
+        assertFalse(Files.exists(directory.resolve("replies.csv.part")));
+        try (BufferedReader in = Files.newBufferedReader(file)) {
+            assertTrue(in.readLine().startsWith("REPLYID,"));
+            int rows = 0;
+            String line;
+            String last = null;
+            while ((line = in.readLine()) != null) {
+                rows++;
+                last = line;
+            }
+            assertEquals(20_000, rows);
+            assertTrue(last.startsWith("20000,0,bob2," + content + ","));
+        }
+    }
+
+    private static List<String> readGzipLines(Path file) throws IOException {
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file));
+                BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            return reader.lines().toList();
+        }
+    }
+}
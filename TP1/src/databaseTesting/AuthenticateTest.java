@@ -0,0 +1,101 @@
+package databaseTesting;
+
+import static org.junit.Assert.*;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.EnumSet;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import database.Database;
+import database.Database.Role;
+import entityClasses.AuthenticatedUser;
+import entityClasses.User;
+
+/**
+ * <p>
+ * Title: AuthenticateTest
+ * </p>
+ *
+ * <p>
+ * Description: Checks Database.authenticate, the single lookup a login now
+ * makes.
+ * </p>
+ *
+ * <p>
+ * Requirements Checked:
+ * R-AUTH-01: The right password returns every profile field and every role;
+ * a wrong password or an unknown user returns nothing.
+ * R-AUTH-02: A login runs one statement against the database.
+ * R-AUTH-03: The returned account cannot be changed through its roles.
+ * </p>
+ */
+public class AuthenticateTest {
+
+    private String url;
+    private Database db;
+
+    @Before
+    public void setUp() throws Exception {
+        url = "jdbc:h2:mem:authenticateTest" + System.nanoTime() + ";DB_CLOSE_DELAY=-1";
+        db = new Database(url);
+        db.connectToDatabase();
+        db.register(new User("sam", "Secret1!", "Samuel", "J", "Lee", "Sam", "sam@asu.edu", false, true, true));
+        db.register(new User("ana", "Secret2!", "Ana", "", "Ruiz", "", "ana@asu.edu", true, false, false));
+    }
+
+    @After
+    public void tearDown() {
+        db.closeConnection();
+    }
+
+    @Test
+    public void testReturnsWholeAccount() {
+        AuthenticatedUser sam = db.authenticate("sam", "Secret1!");
+        assertNotNull(sam);
+        assertEquals("sam", sam.userName());
+        assertEquals("Samuel", sam.firstName());
+        assertEquals("J", sam.middleName());
+        assertEquals("Lee", sam.lastName());
+        assertEquals("Sam", sam.preferredFirstName());
+        assertEquals("sam@asu.edu", sam.emailAddress());
+        assertEquals(EnumSet.of(Role.STUDENT, Role.STAFF), sam.roles());
+        assertEquals(2, sam.numberOfRoles());
+
+        User user = sam.toUser();
+        assertTrue(user.getNewStudent() && user.getNewStaff() && !user.getAdminRole());
+        assertNull(user.getPassword());
+
+        assertNull(db.authenticate("sam", "Secret2!"));
+        assertNull(db.authenticate("nobody", "Secret1!"));
+        assertTrue(db.authenticate("ana", "Secret2!").hasRole(Role.ADMIN));
+    }
+
+    @Test
+    public void testOneStatementPerLogin() throws Exception {
+        try (Connection stats = db.getConnectionPool().getConnection(); Statement s = stats.createStatement()) {
+            // a first login opens the pool's second connection, which runs the URL's settings
+            assertNotNull(db.authenticate("sam", "Secret1!"));
+            s.execute("SET QUERY_STATISTICS TRUE");
+            assertNotNull(db.authenticate("sam", "Secret1!"));
+            try (ResultSet rs = s.executeQuery("SELECT COALESCE(SUM(EXECUTION_COUNT), 0) "
+                    + "FROM INFORMATION_SCHEMA.QUERY_STATISTICS WHERE SQL_STATEMENT NOT LIKE '%QUERY_STATISTICS%'")) {
+                rs.next();
+                assertEquals(1, rs.getLong(1));
+            }
+            s.execute("SET QUERY_STATISTICS FALSE");
+        }
+    }
+
+    @Test
+    public void testAccountIsImmutable() {
+        AuthenticatedUser sam = db.authenticate("sam", "Secret1!");
+        sam.roles().add(Role.ADMIN);
+        assertFalse(sam.hasRole(Role.ADMIN));
+        assertEquals(EnumSet.of(Role.STUDENT, Role.STAFF), db.getRoles("sam"));
+    }
+}
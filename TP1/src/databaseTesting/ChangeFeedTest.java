@@ -0,0 +1,143 @@
+package databaseTesting;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import database.ChangeEvent;
+import database.ChangeEvent.Kind;
+import database.Database;
+import database.Database.Role;
+import entityClasses.Post;
+import entityClasses.Reply;
+
+/**
+ * <p>
+ * Title: ChangeFeedTest
+ * </p>
+ *
+ * <p>
+ * Description: Checks the change feed the discussion writes append to, and the
+ * post reads a view patches itself with.
+ * </p>
+ *
+ * <p>
+ * Requirements Checked:
+ * R-FEED-01: Every write to posts, replies and threads appends one event naming
+ * what it changed, with a larger seq than the events before it.
+ * R-FEED-02: getChangesSince returns only the later events, oldest first, at most
+ * the limit.
+ * R-FEED-03: getPosts reads the named posts as the session sees them in the list.
+ * </p>
+ */
+public class ChangeFeedTest {
+
+    private Database db;
+
+    @Before
+    public void setUp() throws Exception {
+        db = new Database("jdbc:h2:mem:changeFeedTest" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        db.connectToDatabase();
+    }
+
+    @After
+    public void tearDown() {
+        db.closeConnection();
+    }
+
+    private static List<Kind> kinds(List<ChangeEvent> changes) {
+        List<Kind> kinds = new ArrayList<>();
+        for (ChangeEvent change : changes)
+            kinds.add(change.kind());
+        return kinds;
+    }
+
+    @Test
+    public void testWritesAppendEvents() {
+        assertEquals(0, db.getLatestChangeSeq());
+        db.createThread("Homework");
+        int postID = db.create(new Post(0, "alice", "Title", "Body", "Homework", false, false, 0, 0));
+        db.update(new Post(postID, "alice", "Title 2", "Body 2", "Homework", false, false, 0, 0));
+        db.createReply(new Reply(0, postID, "bob", "A reply"));
+        List<Reply> replies = db.getRepliesForPost(postID, "bob");
+        int replyID = replies.get(0).getReplyID();
+        db.update(replies.get(0));
+        db.hideReply(replyID, postID, "staff1", "rude");
+        db.unhideReply(replyID, postID, "staff1", "fine");
+        db.flagReply(replyID, postID, "staff1", "check");
+        db.deleteReply(replyID);
+        db.hidePost(postID, "staff1", "off topic");
+        db.unhidePost(postID, "staff1", "on topic");
+        db.flagPost(postID, "staff1", "check");
+        db.deletePost(postID);
+        db.updateThread("Homework", "Assignments", true);
+        db.deleteThread("Assignments");
+
+        List<ChangeEvent> changes = db.getChangesSince(0, 100);
+        assertEquals(List.of(Kind.THREAD_CREATED, Kind.POST_CREATED, Kind.POST_UPDATED, Kind.REPLY_CREATED,
+                Kind.REPLY_UPDATED, Kind.REPLY_HIDDEN, Kind.REPLY_UNHIDDEN, Kind.REPLY_FLAGGED, Kind.REPLY_DELETED,
+                Kind.POST_HIDDEN, Kind.POST_UNHIDDEN, Kind.POST_FLAGGED, Kind.POST_DELETED, Kind.THREAD_UPDATED,
+                Kind.THREAD_DELETED), kinds(changes));
+
+        for (int i = 1; i < changes.size(); i++)
+            assertTrue(changes.get(i).seq() > changes.get(i - 1).seq());
+        assertEquals(changes.get(changes.size() - 1).seq(), db.getLatestChangeSeq());
+
+        ChangeEvent deleted = changes.get(8);
+        assertEquals(postID, deleted.postID());
+        assertEquals(replyID, deleted.replyID());
+        assertEquals("staff1", changes.get(9).username());
+        assertEquals(0, changes.get(9).replyID());
+        assertEquals("Assignments", changes.get(13).thread());
+        assertNotNull(changes.get(0).timestamp());
+
+        // deleting a reply that is not there changes nothing
+        db.deleteReply(replyID);
+        assertEquals(changes.get(changes.size() - 1).seq(), db.getLatestChangeSeq());
+    }
+
+    @Test
+    public void testChangesSince() {
+        for (int i = 0; i < 5; i++)
+            db.create(new Post(0, "alice", "Post " + i, "Body", "General", false, false, 0, 0));
+        List<ChangeEvent> all = db.getChangesSince(0, 100);
+        assertEquals(5, all.size());
+
+        List<ChangeEvent> later = db.getChangesSince(all.get(1).seq(), 2);
+        assertEquals(2, later.size());
+        assertEquals(all.get(2), later.get(0));
+        assertEquals(all.get(3), later.get(1));
+        assertTrue(db.getChangesSince(all.get(4).seq(), 100).isEmpty());
+    }
+
+    @Test
+    public void testGetPostsAsSessionSees() throws Exception {
+        int first = db.create(new Post(0, "alice", "First", "Body", "General", false, false, 0, 0));
+        Thread.sleep(5);
+        int second = db.create(new Post(0, "bob", "Second", "Body", "General", false, false, 0, 0));
+        db.createReply(new Reply(0, first, "bob", "public reply"));
+        db.createReply(new Reply(0, first, "staff1", "private feedback", "private", "alice"));
+        db.hidePost(second, "staff1", "off topic");
+        db.markPostAsRead(first, "carol");
+
+        List<Post> posts = db.getPosts("carol", Role.STAFF, List.of(first, second, 999));
+        assertEquals(2, posts.size());
+        assertEquals(second, posts.get(0).getPostID());
+        assertFalse(posts.get(0).isVisible());
+        assertEquals("staff1", posts.get(0).getActionUser());
+        assertEquals(first, posts.get(1).getPostID());
+        assertEquals(2, posts.get(1).getReplyCount());
+        assertTrue(posts.get(1).isViewed());
+
+        posts = db.getPosts("carol", Role.STUDENT, List.of(first, second));
+        assertEquals(1, posts.size());
+        assertEquals(1, posts.get(0).getReplyCount());
+        assertEquals(2, db.getPosts("alice", Role.STUDENT, List.of(first)).get(0).getReplyCount());
+        assertTrue(db.getPosts("carol", Role.STUDENT, List.of()).isEmpty());
+    }
+}
@@ -0,0 +1,107 @@
+package databaseTesting;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import database.CachedDatabase;
+import database.ChangePoller;
+import database.Database;
+import database.Database.Role;
+import entityClasses.Post;
+import entityClasses.Reply;
+
+/**
+ * <p>
+ * Title: ChangePollerTest
+ * </p>
+ *
+ * <p>
+ * Description: Checks the polling that keeps the discussion view live, and that
+ * the post cache catches up with changes other writers make.
+ * </p>
+ *
+ * <p>
+ * Requirements Checked:
+ * R-POLL-01: A poll calls the view back only when the change feed is ahead of
+ * what the view reflects, and never while a callback is still waiting.
+ * R-POLL-02: After polling, a cached database shows posts and replies another
+ * writer added to the same database.
+ * </p>
+ */
+public class ChangePollerTest {
+
+    private String url;
+    private Database db;
+
+    @Before
+    public void setUp() throws Exception {
+        url = "jdbc:h2:mem:changePollerTest" + System.nanoTime() + ";DB_CLOSE_DELAY=-1";
+        db = new Database(url);
+        db.connectToDatabase();
+    }
+
+    @After
+    public void tearDown() {
+        db.closeConnection();
+    }
+
+    @Test
+    public void testPollCallsBackOnlyOnChange() {
+        AtomicLong knownSeq = new AtomicLong(db.getLatestChangeSeq());
+        AtomicInteger callbacks = new AtomicInteger();
+        Runnable[] waiting = new Runnable[1];
+        try (ChangePoller poller = new ChangePoller(db, 60_000, knownSeq::get, r -> waiting[0] = r,
+                callbacks::incrementAndGet)) {
+            poller.poll();
+            assertNull(waiting[0]);
+
+            db.create(new Post(0, "alice", "Title", "Body", "General", false, false, 0, 0));
+            poller.poll();
+            assertNotNull(waiting[0]);
+
+            // the first callback has not run yet, so a second poll hands over nothing
+            Runnable first = waiting[0];
+            waiting[0] = null;
+            poller.poll();
+            assertNull(waiting[0]);
+
+            first.run();
+            assertEquals(1, callbacks.get());
+            knownSeq.set(db.getLatestChangeSeq());
+            poller.poll();
+            assertNull(waiting[0]);
+        }
+    }
+
+    @Test
+    public void testCacheCatchesUpWithOtherWriters() throws Exception {
+        CachedDatabase cached = new CachedDatabase(url);
+        cached.connectToDatabase();
+        try {
+            int first = db.create(new Post(0, "alice", "First", "Body", "General", false, false, 0, 0));
+            assertEquals(1, cached.getAllPosts("bob").size());
+
+            Thread.sleep(5);
+            int second = db.create(new Post(0, "carol", "Second", "Body", "General", false, false, 0, 0));
+            db.createReply(new Reply(0, first, "carol", "A reply"));
+            db.hidePost(first, "staff1", "off topic");
+
+            cached.getLatestChangeSeq();
+            assertEquals(2, cached.getAllPosts("bob").size());
+            assertEquals(second, cached.getAllPosts("bob").get(0).getPostID());
+            Post hidden = cached.getPosts("bob", Role.STAFF, List.of(first)).get(0);
+            assertFalse(hidden.isVisible());
+            assertEquals(1, hidden.getReplyCount());
+            assertTrue(cached.getPosts("bob", Role.STUDENT, List.of(first)).isEmpty());
+        } finally {
+            cached.closeConnection();
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package databaseTesting;
+
+import static org.junit.Assert.*;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import database.ConnectionPool;
+import database.Database;
+import entityClasses.Post;
+import entityClasses.Reply;
+
+/**
+ * <p>
+ * Title: ConnectionPoolStressTest
+ * </p>
+ *
+ * <p>
+ * Description: Hammers one Database instance from several threads at once to
+ * check that pooled connections keep concurrent reads and writes independent.
+ * </p>
+ *
+ * <p>
+ * Requirements Checked:
+ * R-DB-01: getAllPosts, createReply and markPostAsRead can run in parallel
+ * without errors or lost writes.
+ * R-DB-02: Every borrowed connection is returned to the pool.
+ * R-DB-03: Borrowing from an exhausted pool times out instead of hanging, and
+ * a returned connection can be borrowed again.
+ * </p>
+ */
+public class ConnectionPoolStressTest {
+
+    private static final int THREADS = 8;
+    private static final int OPERATIONS_PER_THREAD = 150;
+    private static final int POSTS = 20;
+
+    private Database db;
+    private final List<Integer> postIDs = new ArrayList<>();
+
+    @Before
+    public void setUp() throws Exception {
+        db = new Database("jdbc:h2:mem:connectionPoolStressTest" + System.nanoTime() + ";DB_CLOSE_DELAY=-1", 4);
+        db.connectToDatabase();
+        for (int i = 0; i < POSTS; i++) {
+            db.create(new Post(0, "author" + i, "Post " + i, "content " + i, "General", false, false, 0, 0));
+        }
+        for (Post p : db.getAllPosts("setup"))
+            postIDs.add(p.getPostID());
+    }
+
+    @After
+    public void tearDown() {
+        db.closeConnection();
+    }
+
+    /**
+     * Test Case: Parallel list loads, reply inserts and read marks all succeed
+     * and every write is visible afterwards.
+     */
+    @Test
+    public void testParallelReadsAndWrites() throws Exception {
+        ExecutorService workers = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        ConcurrentLinkedQueue<String> failures = new ConcurrentLinkedQueue<>();
+        AtomicInteger repliesCreated = new AtomicInteger();
+        ConcurrentLinkedQueue<int[]> readMarks = new ConcurrentLinkedQueue<>();
+
+        for (int t = 0; t < THREADS; t++) {
+            final int worker = t;
+            workers.submit(() -> {
+                Random random = new Random(worker);
+                String user = "user" + worker;
+                try {
+                    start.await();
+                    for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                        int postID = postIDs.get(random.nextInt(postIDs.size()));
+                        switch (random.nextInt(3)) {
+                            case 0:
+                                if (db.getAllPosts(user).size() != POSTS)
+                                    failures.add("getAllPosts returned a partial list");
+                                break;
+                            case 1:
+                                if (db.createReply(new Reply(0, postID, user, "reply " + i)))
+                                    repliesCreated.incrementAndGet();
+                                else
+                                    failures.add("createReply failed");
+                                break;
+                            default:
+                                db.markPostAsRead(postID, user);
+                                readMarks.add(new int[] { worker, postID });
+                        }
+                    }
+                } catch (Throwable e) {
+                    failures.add(e.toString());
+                }
+            });
+        }
+        start.countDown();
+        workers.shutdown();
+        assertTrue("Workers did not finish in time", workers.awaitTermination(60, TimeUnit.SECONDS));
+
+        assertTrue("Failures: " + failures, failures.isEmpty());
+
+        int storedReplies = 0;
+        for (Post p : db.getAllPosts("checker", Database.Role.STAFF))
+            storedReplies += p.getReplyCount();
+        assertEquals(repliesCreated.get(), storedReplies);
+
+        for (int[] mark : readMarks) {
+            boolean viewed = false;
+            for (Post p : db.getAllPosts("user" + mark[0])) {
+                if (p.getPostID() == mark[1])
+                    viewed = p.isViewed();
+            }
+            assertTrue("Read mark was lost", viewed);
+        }
+
+        assertEquals("Connections were not returned", 0, db.getConnectionPool().getActiveCount());
+        System.out.println("PASS: " + THREADS + " threads x " + OPERATIONS_PER_THREAD + " operations");
+    }
+
+    /**
+     * Test Case: An exhausted pool times out, then recovers once a connection is
+     * returned.
+     */
+    @Test
+    public void testExhaustedPoolTimesOut() throws Exception {
+        ConnectionPool pool = db.getConnectionPool();
+        pool.setBorrowTimeout(200);
+
+        List<Connection> held = new ArrayList<>();
+        for (int i = 0; i < pool.getMaxSize(); i++)
+            held.add(pool.getConnection());
+
+        try {
+            pool.getConnection();
+            fail("Borrowing from an exhausted pool should time out");
+        } catch (SQLException expected) {
+            // expected
+        }
+
+        held.remove(0).close();
+        try (Connection again = pool.getConnection()) {
+            assertFalse(again.isClosed());
+        }
+        for (Connection c : held)
+            c.close();
+
+        assertEquals(0, pool.getActiveCount());
+        List<Post> posts = db.getAllPosts("checker", Database.Role.STAFF);
+        assertNotNull("Database still usable after the pool was drained", posts);
+        System.out.println("PASS: exhausted pool times out and recovers");
+    }
+}
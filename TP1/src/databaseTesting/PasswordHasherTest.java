@@ -0,0 +1,172 @@
+package databaseTesting;
+
+import static org.junit.Assert.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import database.Database;
+import database.Database.Role;
+import database.PasswordHasher;
+import database.PasswordHasher.Verification;
+import entityClasses.User;
+
+/**
+ * <p>
+ * Title: PasswordHasherTest
+ * </p>
+ *
+ * <p>
+ * Description: Checks the hashed password storage and the login checks that
+ * use it.
+ * </p>
+ *
+ * <p>
+ * Requirements Checked:
+ * R-PW-01: Passwords are stored as salted hashes, never as given, and two users
+ * with the same password get different hashes.
+ * R-PW-02: A password hashed with another cost still logs in, and is rehashed
+ * with the current cost when it does.
+ * R-PW-03: A plaintext password from before hashing is replaced by a hash of
+ * it when the database starts, and a plaintext value never matches a login.
+ * R-PW-04: A burst of logins larger than the worker pool is checked in turn,
+ * and every one gets its answer.
+ * </p>
+ */
+public class PasswordHasherTest {
+
+    private String url;
+    private Database db;
+
+    @Before
+    public void setUp() throws Exception {
+        url = "jdbc:h2:mem:passwordHasherTest" + System.nanoTime() + ";DB_CLOSE_DELAY=-1";
+        db = new Database(url);
+        db.connectToDatabase();
+    }
+
+    @After
+    public void tearDown() {
+        db.closeConnection();
+    }
+
+    private static User user(String name, String password) {
+        return new User(name, password, "First", "", "Last", "", name + "@asu.edu", false, true, false);
+    }
+
+    private String stored(String username) throws Exception {
+        try (Connection conn = db.getConnectionPool().getConnection();
+                PreparedStatement ps = conn.prepareStatement("SELECT password FROM userDB WHERE userName = ?")) {
+            ps.setString(1, username);
+            try (ResultSet rs = ps.executeQuery()) {
+                assertTrue(rs.next());
+                return rs.getString(1);
+            }
+        }
+    }
+
+    private void store(String username, String value) throws Exception {
+        try (Connection conn = db.getConnectionPool().getConnection();
+                PreparedStatement ps = conn.prepareStatement("UPDATE userDB SET password = ? WHERE userName = ?")) {
+            ps.setString(1, value);
+            ps.setString(2, username);
+            assertEquals(1, ps.executeUpdate());
+        }
+    }
+
+    @Test
+    public void testPasswordsStoredAsSaltedHashes() throws Exception {
+        db.register(user("sam", "Secret1!"));
+        db.register(user("ana", "Secret1!"));
+        String sam = stored("sam");
+        assertTrue(PasswordHasher.isHash(sam));
+        assertFalse(sam.contains("Secret1!"));
+        assertNotEquals(sam, stored("ana"));
+
+        assertTrue(db.checkPassword("sam", "Secret1!"));
+        assertFalse(db.checkPassword("sam", "Secret2!"));
+        assertFalse(db.checkPassword("nobody", "Secret1!"));
+        assertEquals(EnumSet.of(Role.STUDENT), db.getRoles(user("sam", "Secret1!")));
+        assertTrue(db.loginStudent(user("ana", "Secret1!")));
+        assertFalse(db.loginStudent(user("ana", "wrong")));
+
+        db.updatePassword("sam", "Changed2@");
+        assertTrue(PasswordHasher.isHash(stored("sam")));
+        assertTrue(db.checkPassword("sam", "Changed2@"));
+        assertFalse(db.checkPassword("sam", "Secret1!"));
+    }
+
+    @Test
+    public void testOtherCostRehashedOnLogin() throws Exception {
+        db.register(user("sam", "Secret1!"));
+        PasswordHasher older = new PasswordHasher(db.getPasswordHasher().getIterations() + 500, 1);
+        String oldHash = older.hash("Secret1!");
+        store("sam", oldHash);
+
+        Verification check = db.getPasswordHasher().check("Secret1!", oldHash);
+        assertTrue(check.matches());
+        assertNotNull(check.rehashed());
+        assertNull(db.getPasswordHasher().check("Secret1!", check.rehashed()).rehashed());
+
+        // a wrong password leaves the stored hash alone
+        assertFalse(db.checkPassword("sam", "wrong"));
+        assertEquals(oldHash, stored("sam"));
+
+        assertTrue(db.checkPassword("sam", "Secret1!"));
+        String rehashed = stored("sam");
+        assertNotEquals(oldHash, rehashed);
+        assertTrue(rehashed.startsWith("pbkdf2-sha256$" + db.getPasswordHasher().getIterations() + "$"));
+        assertTrue(db.checkPassword("sam", "Secret1!"));
+        assertEquals(rehashed, stored("sam"));
+    }
+
+    @Test
+    public void testPlaintextHashedAtStartup() throws Exception {
+        db.register(user("sam", "Secret1!"));
+        db.register(user("ana", "Other2@"));
+        String ana = stored("ana");
+        store("sam", "Secret1!");
+
+        assertFalse(db.getPasswordHasher().check("Secret1!", "Secret1!").matches());
+        assertFalse(db.checkPassword("sam", "Secret1!"));
+
+        // the next start hashes the plaintext value and leaves the hashes alone
+        db.closeConnection();
+        db = new Database(url);
+        db.connectToDatabase();
+        assertTrue(PasswordHasher.isHash(stored("sam")));
+        assertEquals(ana, stored("ana"));
+        assertTrue(db.loginStudent(user("sam", "Secret1!")));
+        assertFalse(db.checkPassword("sam", "Secret1"));
+        assertTrue(db.checkPassword("ana", "Other2@"));
+    }
+
+    @Test
+    public void testLoginBurstAnswered() throws Exception {
+        PasswordHasher hasher = new PasswordHasher(db.getPasswordHasher().getIterations(), 2);
+        String stored = hasher.hash("Secret1!");
+        ExecutorService clients = Executors.newFixedThreadPool(32);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                String password = i % 2 == 0 ? "Secret1!" : "wrong" + i;
+                results.add(clients.submit(() -> hasher.verify(password, stored).matches()));
+            }
+            for (int i = 0; i < results.size(); i++)
+                assertEquals(i % 2 == 0, results.get(i).get());
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package databaseTesting;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import database.CachedDatabase;
+import database.Database;
+import database.PostCache;
+import entityClasses.Post;
+import entityClasses.Reply;
+
+/**
+ * <p>
+ * Title: PostCacheTest
+ * </p>
+ *
+ * <p>
+ * Description: Checks the post cache in front of the database: cached reads
+ * must always match the uncached queries, repeat reads must not go back to the
+ * database, and writes must patch or drop only what they changed.
+ * </p>
+ *
+ * <p>
+ * Requirements Checked:
+ * R-CACHE-01: After any mix of writes, cached post lists, pages and patches equal
+ * the uncached ones for every user and role.
+ * R-CACHE-02: Repeating a read is answered from the cache.
+ * R-CACHE-03: Read marks patch the cache; a post edit reloads only that post.
+ * R-CACHE-04: The cache stays within its capacity and counts evictions.
+ * R-CACHE-05: A page of one thread, or a student's page, loads only the posts
+ * it lists.
+ * </p>
+ */
+public class PostCacheTest {
+
+    private static final String[] USERS = { "alice", "bob", "carol", "staff1" };
+
+    private String url;
+    private CachedDatabase cached;
+    private Database direct;
+
+    @Before
+    public void setUp() throws Exception {
+        url = "jdbc:h2:mem:postCacheTest" + System.nanoTime() + ";DB_CLOSE_DELAY=-1";
+        cached = new CachedDatabase(url, 4, 5, 2);
+        cached.connectToDatabase();
+        // a second, uncached view of the same database to compare against; it keeps no read
+        // states in memory, so it always reads the stored ones
+        direct = new Database(url, 4, 0);
+        direct.connectToDatabase();
+    }
+
+    @After
+    public void tearDown() {
+        cached.closeConnection();
+        direct.closeConnection();
+    }
+
+    // Everything a post list row shows, for comparing cached and uncached posts
+    private static List<String> describe(List<Post> posts) {
+        List<String> rows = new ArrayList<>();
+        for (Post p : posts) {
+            rows.add(p.getPostID() + "|" + p.getTitle() + "|" + p.getContent() + "|" + p.getThread() + "|"
+                    + p.isDeleted() + "|" + p.isVisible() + "|" + p.isViewed() + "|" + p.getReplyCount() + "|"
+                    + p.getUnreadReplyCount() + "|" + p.getActionUser() + "|" + p.getActionReason() + "|"
+                    + p.getTimestamp() + "|" + p.getLastReplyTimestamp() + "|" + p.getHiddenReplyCount());
+        }
+        return rows;
+    }
+
+    private void assertSameAsDatabase() {
+        // read marks are queued per Database instance, so write them before the uncached reads
+        cached.flushReadMarks();
+        for (String user : USERS) {
+            assertEquals(describe(direct.getAllPosts(user)), describe(cached.getAllPosts(user)));
+            for (Database.Role role : new Database.Role[] { Database.Role.STUDENT, Database.Role.STAFF }) {
+                for (String thread : new String[] { null, "General", "Homework" }) {
+                    assertEquals(describe(direct.getPostsPage(user, role, thread, null, 0, 4)),
+                            describe(cached.getPostsPage(user, role, thread, null, 0, 4)));
+                    List<Post> first = direct.getPostsPage(user, role, thread, null, 0, 3);
+                    if (!first.isEmpty()) {
+                        Post last = first.get(first.size() - 1);
+                        assertEquals(
+                                describe(direct.getPostsPage(user, role, thread, last.getTimestamp(), last.getPostID(), 3)),
+                                describe(cached.getPostsPage(user, role, thread, last.getTimestamp(), last.getPostID(), 3)));
+                    }
+                }
+                List<Integer> some = List.of(1, 3, 4, 7, 999);
+                assertEquals(describe(direct.getPosts(user, role, some)), describe(cached.getPosts(user, role, some)));
+            }
+        }
+    }
+
+    /**
+     * Test Case: Random writes through the cache never make a cached read differ
+     * from the uncached one, even while entries are being evicted.
+     */
+    @Test
+    public void testMatchesDatabaseAfterWrites() {
+        Random random = new Random(7);
+        List<Integer> postIDs = new ArrayList<>();
+        List<Integer> replyIDs = new ArrayList<>();
+        for (int step = 0; step < 120; step++) {
+            String user = USERS[random.nextInt(USERS.length)];
+            int action = postIDs.isEmpty() ? 0 : random.nextInt(9);
+            int postID = postIDs.isEmpty() ? 0 : postIDs.get(random.nextInt(postIDs.size()));
+            switch (action) {
+                case 0:
+                    postIDs.add(cached.create(new Post(0, user, "Post " + step, "text " + step,
+                            random.nextBoolean() ? "General" : "Homework", false, false, 0, 0)));
+                    break;
+                case 1:
+                    Reply reply = random.nextBoolean() ? new Reply(0, postID, user, "reply " + step)
+                            : new Reply(0, postID, user, "feedback " + step, "private", "bob");
+                    reply.setPostAuthorUsername(cached.getPostAuthor(postID));
+                    cached.createReply(reply);
+                    replyIDs.clear();
+                    for (Reply r : direct.getRepliesForPost(postID, user))
+                        replyIDs.add(r.getReplyID());
+                    break;
+                case 2:
+                    cached.markPostAsRead(postID, user);
+                    break;
+                case 3:
+                    if (!replyIDs.isEmpty())
+                        cached.markReplyAsRead(replyIDs.get(random.nextInt(replyIDs.size())), user);
+                    break;
+                case 4:
+                    if (random.nextBoolean())
+                        cached.hidePost(postID, "staff1", "step " + step);
+                    else
+                        cached.unhidePost(postID, "staff1", "step " + step);
+                    break;
+                case 5:
+                    Post edited = new Post(postID, user, "Edited " + step, "new text", "General", false, false, 0, 0);
+                    cached.update(edited);
+                    break;
+                case 6:
+                    if (!replyIDs.isEmpty())
+                        cached.deleteReply(replyIDs.remove(random.nextInt(replyIDs.size())));
+                    break;
+                case 7:
+                    cached.flagPost(postID, "staff1", "check " + step);
+                    break;
+                default:
+                    if (random.nextInt(10) == 0)
+                        cached.deletePost(postID);
+                    break;
+            }
+            if (step % 10 == 9)
+                assertSameAsDatabase();
+        }
+        assertSameAsDatabase();
+        assertTrue(cached.getCacheStats().getEvictionCount() > 0);
+        assertTrue(cached.getCacheStats().getPostCount() <= 5);
+        System.out.println("PASS: cached reads match the database; " + cached.getCacheStats());
+    }
+
+    /**
+     * Test Case: A repeated read is all hits, a read mark is patched in without
+     * a reload, and an edit reloads only the edited post.
+     */
+    @Test
+    public void testHitsAndPreciseInvalidation() throws Exception {
+        CachedDatabase db = new CachedDatabase(url, 4, 100, 10);
+        db.connectToDatabase();
+        try {
+            for (int i = 0; i < 10; i++)
+                db.create(new Post(0, "alice", "Post " + i, "text", "General", false, false, 0, 0));
+            List<Post> posts = db.getAllPosts("bob");
+            assertEquals(10, posts.size());
+
+            PostCache.Stats before = db.getCacheStats();
+            db.getAllPosts("bob");
+            db.getPostsPage("bob", Database.Role.STUDENT, null, null, 0, 5);
+            assertEquals(before.getMissCount(), db.getCacheStats().getMissCount());
+
+            int postID = posts.get(3).getPostID();
+            db.markPostAsRead(postID, "bob");
+            before = db.getCacheStats();
+            assertTrue(db.getAllPosts("bob").get(3).isViewed());
+            assertEquals(before.getMissCount(), db.getCacheStats().getMissCount());
+
+            Post edited = posts.get(3);
+            edited.setTitle("Edited");
+            db.update(edited);
+            before = db.getCacheStats();
+            assertEquals("Edited", db.getAllPosts("bob").get(3).getTitle());
+            assertEquals(before.getMissCount() + 1, db.getCacheStats().getMissCount());
+        } finally {
+            db.closeConnection();
+        }
+        System.out.println("PASS: repeat reads hit, writes invalidate precisely");
+    }
+
+    /**
+     * Test Case: A thread's page and a student's page are cut by the database and
+     * cache only the posts they list, however many other posts come first.
+     */
+    @Test
+    public void testFilteredPagesLoadOnlyTheirPosts() throws Exception {
+        for (int i = 0; i < 5; i++)
+            direct.create(new Post(0, "alice", "Homework " + i, "text", "Homework", false, false, 0, 0));
+        for (int i = 0; i < 40; i++) {
+            int postID = direct.create(new Post(0, "alice", "General " + i, "text", "General", false, false, 0, 0));
+            if (i >= 30)
+                direct.hidePost(postID, "staff1", "hidden " + i);
+        }
+        CachedDatabase db = new CachedDatabase(url, 4, 100, 10);
+        db.connectToDatabase();
+        try {
+            List<Post> homework = db.getPostsPage("bob", Database.Role.STAFF, "Homework", null, 0, 3);
+            assertEquals(describe(direct.getPostsPage("bob", Database.Role.STAFF, "Homework", null, 0, 3)),
+                    describe(homework));
+            assertEquals(3, db.getCacheStats().getPostCount());
+
+            Post last = homework.get(2);
+            assertEquals(2, db.getPostsPage("bob", Database.Role.STAFF, "Homework", last.getTimestamp(),
+                    last.getPostID(), 3).size());
+            assertEquals(5, db.getCacheStats().getPostCount());
+
+            // the ten newest posts are hidden; a student's page skips them in the database
+            List<Post> student = db.getPostsPage("bob", Database.Role.STUDENT, null, null, 0, 4);
+            assertEquals(describe(direct.getPostsPage("bob", Database.Role.STUDENT, null, null, 0, 4)),
+                    describe(student));
+            assertEquals(9, db.getCacheStats().getPostCount());
+        } finally {
+            db.closeConnection();
+        }
+        System.out.println("PASS: filtered pages load only their posts");
+    }
+}
@@ -0,0 +1,186 @@
+package databaseTesting;
+
+import static org.junit.Assert.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import database.Database;
+
+/**
+ * <p>
+ * Title: QueryPlanTest
+ * </p>
+ *
+ * <p>
+ * Description: Runs EXPLAIN on the hot discussion queries against a seeded
+ * database and checks that H2 answers them through the indexes created by
+ * the schema migrations instead of scanning the table.
+ * </p>
+ *
+ * <p>
+ * Requirements Checked:
+ * R-IDX-01: Replies and reply counts of a post are looked up by postID.
+ * R-IDX-02: Post list pages, with or without the thread filter, are read in
+ * order from an index, without a sort.
+ * R-IDX-03: The latest moderation action of a post, a user's read marks and
+ * the admin request list use their indexes.
+ * </p>
+ */
+public class QueryPlanTest {
+
+    private static final int POSTS = 300;
+
+    private Database db;
+    private Connection conn;
+
+    @Before
+    public void setUp() throws Exception {
+        db = new Database("jdbc:h2:mem:queryPlanTest" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        db.connectToDatabase();
+        conn = db.getConnectionPool().getConnection();
+
+        // enough rows that a scan is never the cheapest plan
+        LocalDateTime start = LocalDateTime.of(2025, 9, 1, 8, 0);
+        try (PreparedStatement post = conn.prepareStatement(
+                "INSERT INTO postsDB (authorUsername, title, content, thread, timestamp) VALUES (?, ?, ?, ?, ?)");
+                PreparedStatement reply = conn.prepareStatement(
+                        "INSERT INTO repliesDB (postID, authorUsername, content, timestamp) VALUES (?, ?, ?, ?)");
+                PreparedStatement log = conn.prepareStatement(
+                        "INSERT INTO moderation_log (postID, username, action, reason, timestamp) VALUES (?, 'staff1', 'hide', 'test', ?)");
+                PreparedStatement read = conn.prepareStatement(
+                        "INSERT INTO viewed_replies (replyID, username) VALUES (?, ?)")) {
+            for (int i = 1; i <= POSTS; i++) {
+                Timestamp time = Timestamp.valueOf(start.plusMinutes(i));
+                post.setString(1, "student" + (i % 20));
+                post.setString(2, "Post " + i);
+                post.setString(3, "content");
+                post.setString(4, i % 3 == 0 ? "Homework" : "General");
+                post.setTimestamp(5, time);
+                post.addBatch();
+                for (int r = 0; r < 3; r++) {
+                    reply.setInt(1, i);
+                    reply.setString(2, "student" + r);
+                    reply.setString(3, "reply");
+                    reply.setTimestamp(4, time);
+                    reply.addBatch();
+                }
+                log.setInt(1, i);
+                log.setTimestamp(2, time);
+                log.addBatch();
+            }
+            post.executeBatch();
+            reply.executeBatch();
+            log.executeBatch();
+            for (int replyID = 1; replyID <= POSTS * 3; replyID += 2) {
+                read.setInt(1, replyID);
+                read.setString(2, "student" + (replyID % 20));
+                read.addBatch();
+            }
+            read.executeBatch();
+        }
+        db.repairReplyCounters();
+        try (PreparedStatement analyze = conn.prepareStatement("ANALYZE")) {
+            analyze.execute();
+        }
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        conn.close();
+        db.closeConnection();
+    }
+
+    private String plan(String sql) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("EXPLAIN " + sql);
+                ResultSet rs = ps.executeQuery()) {
+            rs.next();
+            return rs.getString(1);
+        }
+    }
+
+    // Asserts the plan reads the table through the index, not with a table scan
+    private void assertUsesIndex(String sql, String table, String index) throws SQLException {
+        String plan = plan(sql);
+        assertTrue("Expected " + index + " in:\n" + plan, plan.contains("PUBLIC." + index));
+        assertFalse("Unexpected scan of " + table + " in:\n" + plan,
+                plan.contains("PUBLIC." + table + ".tableScan"));
+    }
+
+    /**
+     * Test Case: Replies and reply counts of a post use the postID index.
+     */
+    @Test
+    public void testReplyLookupsUseIndex() throws SQLException {
+        assertUsesIndex("SELECT r.* FROM repliesDB r WHERE r.postID = 42 ORDER BY r.timestamp ASC",
+                "REPLIESDB", "IDX_REPLIES_POST_TIMESTAMP");
+        // the replies of the posts on a page
+        assertUsesIndex("SELECT r.postID, r.replyID FROM repliesDB r "
+                + "JOIN postsDB p ON p.postID = r.postID WHERE r.postID = ANY(ARRAY[40, 41, 42]) "
+                + "AND (LOWER(COALESCE(r.visibility, 'public')) <> 'private' "
+                + "OR FALSE OR p.authorUsername = 'student1' OR r.authorUsername = 'student1')",
+                "REPLIESDB", "IDX_REPLIES_POST_TIMESTAMP");
+        System.out.println("PASS: reply lookups use the postID index");
+    }
+
+    /**
+     * Test Case: Post pages are read in order from the time indexes.
+     */
+    @Test
+    public void testPostPagesUseIndex() throws SQLException {
+        String page = "SELECT * FROM postsDB pg WHERE pg.timestamp <= TIMESTAMP '2025-09-01 10:00:00' "
+                + "AND (pg.timestamp < TIMESTAMP '2025-09-01 10:00:00' OR pg.postID < 120) "
+                + "ORDER BY pg.timestamp DESC, pg.postID DESC LIMIT 50";
+        assertUsesIndex(page, "POSTSDB", "IDX_POSTS_TIMESTAMP_ID");
+        assertTrue(plan(page).contains("index sorted"));
+
+        // the thread is constant, but H2 only reads the index in order when it leads the ORDER BY
+        String threadPage = "SELECT * FROM postsDB pg WHERE pg.thread = 'Homework' "
+                + "ORDER BY pg.thread, pg.timestamp DESC, pg.postID DESC LIMIT 50";
+        assertUsesIndex(threadPage, "POSTSDB", "IDX_POSTS_THREAD_TIMESTAMP");
+        assertTrue(plan(threadPage).contains("index sorted"));
+        System.out.println("PASS: post pages use the time indexes");
+    }
+
+    /**
+     * Test Case: Pages by last activity are read in order from the activity indexes.
+     */
+    @Test
+    public void testActivityPagesUseIndex() throws SQLException {
+        String page = "SELECT * FROM postsDB pg WHERE pg.last_activity <= TIMESTAMP '2025-09-01 10:00:00' "
+                + "AND (pg.last_activity < TIMESTAMP '2025-09-01 10:00:00' OR pg.postID < 120) "
+                + "ORDER BY pg.last_activity DESC, pg.postID DESC LIMIT 50";
+        assertUsesIndex(page, "POSTSDB", "IDX_POSTS_ACTIVITY_ID");
+        assertTrue(plan(page).contains("index sorted"));
+
+        String threadPage = "SELECT * FROM postsDB pg WHERE pg.thread = 'Homework' "
+                + "ORDER BY pg.thread, pg.last_activity DESC, pg.postID DESC LIMIT 50";
+        assertUsesIndex(threadPage, "POSTSDB", "IDX_POSTS_THREAD_ACTIVITY");
+        assertTrue(plan(threadPage).contains("index sorted"));
+        System.out.println("PASS: activity pages use the activity indexes");
+    }
+
+    /**
+     * Test Case: Moderation, read-mark and admin request lookups use their
+     * indexes.
+     */
+    @Test
+    public void testOtherLookupsUseIndex() throws SQLException {
+        assertUsesIndex("SELECT ml.logID FROM moderation_log ml WHERE ml.postID = 42 "
+                + "ORDER BY ml.timestamp DESC, ml.logID DESC LIMIT 1",
+                "MODERATION_LOG", "IDX_MODERATION_POST_TIMESTAMP");
+        assertUsesIndex("SELECT replyID FROM viewed_replies WHERE username = 'student3'",
+                "VIEWED_REPLIES", "IDX_VIEWED_REPLIES_USER");
+        assertUsesIndex("SELECT * FROM admin_requests ORDER BY updated_at DESC LIMIT 20",
+                "ADMIN_REQUESTS", "IDX_ADMIN_REQUESTS_UPDATED");
+        System.out.println("PASS: moderation, read-mark and admin request lookups use indexes");
+    }
+}
@@ -0,0 +1,282 @@
+package databaseTesting;
+
+import static org.junit.Assert.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import database.CachedDatabase;
+import database.Database;
+import entityClasses.Post;
+import entityClasses.Reply;
+
+/**
+ * <p>
+ * Title: ReadMarkTest
+ * </p>
+ *
+ * <p>
+ * Description: Checks the per-user read state: the write-behind queue for
+ * read marks, the bulk mark-as-read calls and the move of old row-per-mark
+ * read marks into the read_state table.
+ * </p>
+ *
+ * <p>
+ * Requirements Checked:
+ * R-READ-01: A read mark is queued, yet the user's next read shows it.
+ * R-READ-02: Queued marks are written once the queue is full and on close.
+ * R-READ-03: A thread's posts or a post's replies can be marked read at once,
+ * and the cached post list shows it straight away.
+ * R-READ-04: Read marks stored as viewed_posts and viewed_replies rows are
+ * kept when the user's read state is first loaded.
+ * R-READ-05: Reads of the read state do not wait while queued marks are being
+ * written, and a state loaded meanwhile keeps the marks being written.
+ * R-READ-06: A read state dropped from memory and loaded again shows the marks
+ * still queued for the user.
+ * </p>
+ */
+public class ReadMarkTest {
+
+    private String url;
+    private Database db;
+
+    @Before
+    public void setUp() throws Exception {
+        url = "jdbc:h2:mem:readMarkTest" + System.nanoTime() + ";DB_CLOSE_DELAY=-1";
+        db = new CachedDatabase(url);
+        db.connectToDatabase();
+    }
+
+    @After
+    public void tearDown() {
+        db.closeConnection();
+    }
+
+    private int countRows(String table) throws SQLException {
+        try (Connection conn = db.getConnectionPool().getConnection();
+                PreparedStatement ps = conn.prepareStatement("SELECT COUNT(*) FROM " + table);
+                ResultSet rs = ps.executeQuery()) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private int createPost(String title, String thread) {
+        return db.create(new Post(0, "alice", title, "content of " + title, thread, false, false, 0, 0));
+    }
+
+    /**
+     * Test Case: Marks wait in the queue, but reads of the user's read state see
+     * them.
+     */
+    @Test
+    public void testQueuedMarksAreVisible() throws SQLException {
+        int postID = createPost("Question", "General");
+        db.createReply(new Reply(0, postID, "bob", "answer"));
+        int replyID = db.getRepliesForPost(postID, "carol").get(0).getReplyID();
+
+        db.markPostAsRead(postID, "carol");
+        db.markPostAsRead(postID, "carol");
+        db.markReplyAsRead(replyID, "carol");
+        assertEquals(0, countRows("read_state"));
+
+        Post post = db.getAllPosts("carol").get(0);
+        assertTrue(post.isViewed());
+        assertEquals(0, post.getUnreadReplyCount());
+        assertTrue(db.getRepliesForPost(postID, "carol").get(0).isViewed());
+        assertFalse(db.getAllPosts("dave").get(0).isViewed());
+
+        db.flushReadMarks();
+        assertEquals(1, countRows("read_state"));
+        // the duplicate click was coalesced
+        assertEquals(1, db.getReadState("carol").getReadPostCount());
+        System.out.println("PASS: queued read marks are visible");
+    }
+
+    /**
+     * Test Case: A full queue is written without a read, and closing writes the
+     * rest.
+     */
+    @Test
+    public void testFlushOnThresholdAndClose() throws Exception {
+        int postID = createPost("Question", "General");
+        for (int i = 0; i < 500; i++)
+            db.markPostAsRead(postID, "user" + i);
+        assertEquals(500, countRows("read_state"));
+
+        db.markPostAsRead(postID, "late");
+        db.closeConnection();
+        db = new Database(url);
+        db.connectToDatabase();
+        assertEquals(501, countRows("read_state"));
+        assertTrue(db.getAllPosts("late").get(0).isViewed());
+        System.out.println("PASS: read marks flushed on threshold and close");
+    }
+
+    /**
+     * Test Case: Marking a thread or a post's replies read touches exactly those
+     * rows.
+     */
+    @Test
+    public void testBulkMarks() throws SQLException {
+        for (int i = 0; i < 3; i++)
+            createPost("General " + i, "General");
+        int homework = createPost("Homework", "Homework");
+        for (int i = 0; i < 4; i++)
+            db.createReply(new Reply(0, homework, "bob", "answer " + i));
+
+        // load the cached read marks, so the bulk marks must update them
+        assertEquals(0, db.getAllPosts("carol").stream().filter(Post::isViewed).count());
+
+        db.markAllPostsRead("carol", "General");
+        List<Post> posts = db.getAllPosts("carol");
+        for (Post p : posts)
+            assertEquals(!p.getTitle().equals("Homework"), p.isViewed());
+        assertEquals(4, posts.stream().filter(p -> p.getTitle().equals("Homework")).findFirst().get()
+                .getUnreadReplyCount());
+
+        db.markAllRepliesRead("carol", homework);
+        assertEquals(0, db.getPostsPage("carol", Database.Role.STUDENT, "Homework", null, 0, 10).get(0)
+                .getUnreadReplyCount());
+        assertEquals(0, db.getAllPosts("carol").stream().mapToInt(Post::getUnreadReplyCount).sum());
+
+        db.markAllPostsRead("dave", "All Threads");
+        assertEquals(4, db.getReadState("dave").getReadPostCount());
+        System.out.println("PASS: bulk read marks");
+    }
+
+    /**
+     * Test Case: Old viewed_posts and viewed_replies rows are moved into the
+     * user's read state.
+     */
+    @Test
+    public void testLegacyRowsAreMoved() throws SQLException {
+        int first = createPost("First", "General");
+        int second = createPost("Second", "General");
+        db.createReply(new Reply(0, second, "bob", "answer"));
+        int replyID = db.getRepliesForPost(second, "bob").get(0).getReplyID();
+        try (Connection conn = db.getConnectionPool().getConnection();
+                PreparedStatement posts = conn.prepareStatement(
+                        "INSERT INTO viewed_posts (postID, username) VALUES (?, 'erin')");
+                PreparedStatement replies = conn.prepareStatement(
+                        "INSERT INTO viewed_replies (replyID, username) VALUES (?, 'erin')")) {
+            posts.setInt(1, first);
+            posts.executeUpdate();
+            replies.setInt(1, replyID);
+            replies.executeUpdate();
+        }
+
+        for (Post p : db.getAllPosts("erin")) {
+            assertEquals(p.getPostID() == first, p.isViewed());
+            assertEquals(0, p.getUnreadReplyCount());
+        }
+        assertEquals(0, countRows("viewed_posts"));
+        assertEquals(0, countRows("viewed_replies"));
+        assertEquals(1, countRows("read_state"));
+
+        // a fresh instance reads the moved marks back from read_state
+        db.closeConnection();
+        db = new Database(url);
+        db.connectToDatabase();
+        assertTrue(db.getReadState("erin").isPostRead(first));
+        assertTrue(db.getReadState("erin").isReplyRead(replyID));
+        System.out.println("PASS: legacy read marks moved into the read state");
+    }
+
+    /**
+     * Test Case: While a flush waits on a locked read_state row, read states can
+     * still be read, and one dropped from memory and loaded again keeps the marks
+     * being written.
+     */
+    @Test
+    public void testReadsDoNotWaitForFlush() throws Exception {
+        int first = createPost("First", "General");
+        int second = createPost("Second", "General");
+        Database small = new Database(url, 4, 1);
+        small.connectToDatabase();
+        ExecutorService flusher = Executors.newSingleThreadExecutor();
+        try (Connection blocker = small.getConnectionPool().getConnection()) {
+            small.markPostAsRead(first, "carol");
+            small.flushReadMarks();
+
+            // hold carol's row, so the next flush waits for it
+            blocker.setAutoCommit(false);
+            try (PreparedStatement lock = blocker.prepareStatement(
+                    "UPDATE read_state SET readPosts = readPosts WHERE username = 'carol'")) {
+                assertEquals(1, lock.executeUpdate());
+            }
+            small.markPostAsRead(second, "carol");
+            Future<?> flush = flusher.submit(small::flushReadMarks);
+            Thread.sleep(200);
+
+            // a state of capacity one: loading dave drops carol, who is then loaded again
+            assertFalse(small.getReadState("dave").isPostRead(first));
+            small.markPostAsRead(first, "dave");
+            assertTrue(small.getReadState("carol").isPostRead(second));
+            assertFalse(flush.isDone());
+
+            blocker.rollback();
+            flush.get(10, TimeUnit.SECONDS);
+        } finally {
+            flusher.shutdownNow();
+            small.closeConnection();
+        }
+
+        Database reopened = new Database(url);
+        reopened.connectToDatabase();
+        try {
+            assertTrue(reopened.getReadState("carol").isPostRead(first));
+            assertTrue(reopened.getReadState("carol").isPostRead(second));
+            assertTrue(reopened.getReadState("dave").isPostRead(first));
+        } finally {
+            reopened.closeConnection();
+        }
+        System.out.println("PASS: reads do not wait for a read mark flush");
+    }
+
+    /**
+     * Test Case: Queued marks are shown by a read state that was dropped from
+     * memory before they were written.
+     */
+    @Test
+    public void testQueuedMarksSurviveEviction() throws Exception {
+        int postID = createPost("Question", "General");
+        db.createReply(new Reply(0, postID, "alice", "answer"));
+        int replyID = db.getRepliesForPost(postID, "bob").get(0).getReplyID();
+        Database small = new Database(url, 4, 1);
+        small.connectToDatabase();
+        try {
+            small.markPostAsRead(postID, "bob");
+            small.markReplyAsRead(replyID, "bob");
+            assertTrue(small.getReadState("bob").isPostRead(postID));
+
+            // a state of capacity one: loading carol drops bob, whose marks are still queued
+            small.getReadState("carol");
+            assertTrue(small.getReadState("bob").isPostRead(postID));
+            assertTrue(small.getReadState("bob").isReplyRead(replyID));
+            small.getReadState("carol");
+            Post listed = small.getAllPosts("bob").get(0);
+            assertTrue(listed.isViewed());
+            assertEquals(0, listed.getUnreadReplyCount());
+            assertFalse(small.getReadState("carol").isPostRead(postID));
+
+            small.flushReadMarks();
+            small.getReadState("carol");
+            assertTrue(small.getReadState("bob").isPostRead(postID));
+        } finally {
+            small.closeConnection();
+        }
+        System.out.println("PASS: queued read marks survive eviction");
+    }
+}
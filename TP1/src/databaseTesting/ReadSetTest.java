@@ -0,0 +1,89 @@
+package databaseTesting;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import database.ReadSet;
+
+/**
+ * <p>
+ * Title: ReadSetTest
+ * </p>
+ *
+ * <p>
+ * Description: Checks the compressed ID set that holds a user's read marks
+ * against a plain TreeSet.
+ * </p>
+ *
+ * <p>
+ * Requirements Checked:
+ * R-BITMAP-01: Membership and cardinality match a plain set, for sparse and
+ * dense IDs and across the switch from array to bitmap containers.
+ * R-BITMAP-02: The serialized form reads back to the same set and stays small
+ * for sparse sets.
+ * </p>
+ */
+public class ReadSetTest {
+
+    private static void assertSame(TreeSet<Integer> expected, ReadSet actual, int maxID) {
+        assertEquals(expected.size(), actual.cardinality());
+        for (int id = 0; id <= maxID; id++)
+            assertEquals("id " + id, expected.contains(id), actual.contains(id));
+    }
+
+    /**
+     * Test Case: Sparse and dense IDs match a TreeSet.
+     */
+    @Test
+    public void testMatchesTreeSet() {
+        Random random = new Random(7);
+        TreeSet<Integer> expected = new TreeSet<>();
+        ReadSet set = new ReadSet();
+        // sparse over three containers, then one container filled past the array limit
+        for (int i = 0; i < 2000; i++) {
+            int id = random.nextInt(200_000);
+            assertEquals(expected.add(id), set.add(id));
+        }
+        for (int id = 70_000; id < 130_000; id += 3) {
+            assertEquals(expected.add(id), set.add(id));
+        }
+        assertFalse(set.add(expected.first()));
+        assertSame(expected, set, 200_000);
+        assertFalse(set.contains(-1));
+        System.out.println("PASS: ReadSet matches a TreeSet");
+    }
+
+    /**
+     * Test Case: toBytes and fromBytes round-trip, and sparse sets stay small.
+     */
+    @Test
+    public void testSerializedForm() {
+        Random random = new Random(11);
+        TreeSet<Integer> expected = new TreeSet<>();
+        ReadSet set = new ReadSet();
+        for (int i = 0; i < 6000; i++) {
+            int id = random.nextInt(100_000);
+            expected.add(id);
+            set.add(id);
+        }
+        ReadSet copy = ReadSet.fromBytes(set.toBytes());
+        assertSame(expected, copy, 100_000);
+        // the copy keeps growing like the original
+        assertTrue(copy.add(100_001));
+        assertTrue(copy.contains(100_001));
+
+        ReadSet sparse = new ReadSet();
+        for (int id = 0; id < 1000; id++)
+            sparse.add(id * 50);
+        // two bytes per ID plus small headers, against eight for an int pair per row
+        assertTrue(sparse.toBytes().length < 2100);
+
+        assertEquals(0, ReadSet.fromBytes(null).cardinality());
+        assertEquals(0, ReadSet.fromBytes(new ReadSet().toBytes()).cardinality());
+        System.out.println("PASS: ReadSet serialized form");
+    }
+}
@@ -0,0 +1,259 @@
+package databaseTesting;
+
+import static org.junit.Assert.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import database.CachedDatabase;
+import database.Database;
+import database.Database.PostOrder;
+import database.Database.Role;
+import entityClasses.Post;
+import entityClasses.Reply;
+
+/**
+ * <p>
+ * Title: ReplyCounterTest
+ * </p>
+ *
+ * <p>
+ * Description: Checks the reply counters kept on each post and the post list
+ * ordered by last activity.
+ * </p>
+ *
+ * <p>
+ * Requirements Checked:
+ * R-COUNT-01: Creating, deleting, hiding and unhiding replies keeps a post's
+ * reply, public reply and hidden reply counts and its last reply time right.
+ * R-COUNT-02: The repair job finds and corrects counters that disagree with the
+ * replies, and leaves correct ones alone.
+ * R-COUNT-03: Pages by last activity list the posts with the most recent post or
+ * reply first, and continue after the last post of the page before.
+ * R-COUNT-04: A student session counts only the replies that are not hidden,
+ * with or without the post cache; a staff session counts them all.
+ * R-COUNT-05: The all-posts and search lists count replies the same way.
+ * R-COUNT-06: Every list, cached or not, and the search index agree on which
+ * replies a session may see, including private feedback without a recipient.
+ * </p>
+ */
+public class ReplyCounterTest {
+
+    private String url;
+    private Database db;
+
+    @Before
+    public void setUp() throws Exception {
+        url = "jdbc:h2:mem:replyCounterTest" + System.nanoTime() + ";DB_CLOSE_DELAY=-1";
+        db = new Database(url);
+        db.connectToDatabase();
+    }
+
+    @After
+    public void tearDown() {
+        db.closeConnection();
+    }
+
+    // reply_count, public_reply_count, hidden_reply_count and whether last_reply_at is set
+    private int[] counters(int postID) throws Exception {
+        try (Connection conn = db.getConnectionPool().getConnection();
+                PreparedStatement ps = conn.prepareStatement("SELECT reply_count, public_reply_count, "
+                        + "hidden_reply_count, last_reply_at FROM postsDB WHERE postID = ?")) {
+            ps.setInt(1, postID);
+            try (ResultSet rs = ps.executeQuery()) {
+                assertTrue(rs.next());
+                return new int[] { rs.getInt(1), rs.getInt(2), rs.getInt(3), rs.getTimestamp(4) == null ? 0 : 1 };
+            }
+        }
+    }
+
+    private int createPost(String title) {
+        return db.create(new Post(0, "alice", title, "Body", "General", false, false, 0, 0));
+    }
+
+    private List<Integer> ids(List<Post> posts) {
+        List<Integer> ids = new ArrayList<>();
+        for (Post p : posts)
+            ids.add(p.getPostID());
+        return ids;
+    }
+
+    @Test
+    public void testWritesKeepCountersRight() throws Exception {
+        int postID = createPost("Counted");
+        assertArrayEquals(new int[] { 0, 0, 0, 0 }, counters(postID));
+
+        db.createReply(new Reply(0, postID, "bob", "public reply"));
+        db.createReply(new Reply(0, postID, "staff1", "feedback", "private", "alice"));
+        db.create(new Reply(0, postID, "carol", "legacy reply"));
+        assertArrayEquals(new int[] { 3, 2, 0, 1 }, counters(postID));
+
+        List<Reply> replies = db.getRepliesForPost(postID, "staff1");
+        int first = replies.get(0).getReplyID();
+        db.hideReply(first, postID, "staff1", "rude");
+        db.hideReply(first, postID, "staff1", "still rude");
+        assertArrayEquals(new int[] { 3, 2, 1, 1 }, counters(postID));
+
+        Post listed = db.getPosts("staff1", Role.STAFF, List.of(postID)).get(0);
+        assertEquals(1, listed.getHiddenReplyCount());
+        assertNotNull(listed.getLastReplyTimestamp());
+        assertEquals(3, listed.getReplyCount());
+
+        db.deleteReply(first);
+        assertArrayEquals(new int[] { 2, 1, 0, 1 }, counters(postID));
+        db.unhideReply(replies.get(1).getReplyID(), postID, "staff1", "was never hidden");
+        assertArrayEquals(new int[] { 2, 1, 0, 1 }, counters(postID));
+
+        for (Reply r : db.getRepliesForPost(postID, "staff1"))
+            db.deleteReply(r.getReplyID());
+        assertArrayEquals(new int[] { 0, 0, 0, 0 }, counters(postID));
+        assertEquals(0, db.getPosts("alice", Role.STUDENT, List.of(postID)).get(0).getReplyCount());
+    }
+
+    @Test
+    public void testRepairCorrectsCounters() throws Exception {
+        int counted = createPost("Counted");
+        int broken = createPost("Broken");
+        db.createReply(new Reply(0, counted, "bob", "reply"));
+        assertEquals(0, db.repairReplyCounters());
+
+        try (Connection conn = db.getConnectionPool().getConnection(); Statement st = conn.createStatement()) {
+            st.execute("INSERT INTO repliesDB (postID, authorUsername, content, visibility, visible, timestamp) "
+                    + "VALUES (" + broken + ", 'bob', 'written around createReply', 'public', FALSE, "
+                    + "CURRENT_TIMESTAMP)");
+            st.execute("UPDATE postsDB SET reply_count = 7 WHERE postID = " + counted);
+        }
+        assertEquals(2, db.repairReplyCounters());
+        assertArrayEquals(new int[] { 1, 1, 0, 1 }, counters(counted));
+        assertArrayEquals(new int[] { 1, 1, 1, 1 }, counters(broken));
+        assertEquals(1, db.getPosts("bob", Role.STAFF, List.of(broken)).get(0).getReplyCount());
+    }
+
+    @Test
+    public void testPagesByLastActivity() throws Exception {
+        int oldest = createPost("Oldest");
+        Thread.sleep(5);
+        int middle = createPost("Middle");
+        Thread.sleep(5);
+        int newest = createPost("Newest");
+        Thread.sleep(5);
+        db.createReply(new Reply(0, oldest, "bob", "bumps the oldest post"));
+
+        assertEquals(List.of(newest, middle, oldest),
+                ids(db.getPostsPage("carol", Role.STUDENT, null, PostOrder.NEWEST, null, 0, 10)));
+        List<Post> first = db.getPostsPage("carol", Role.STUDENT, null, PostOrder.LAST_ACTIVITY, null, 0, 2);
+        assertEquals(List.of(oldest, newest), ids(first));
+        assertEquals(1, first.get(0).getReplyCount());
+
+        Post last = first.get(1);
+        List<Post> rest = db.getPostsPage("carol", Role.STUDENT, "General", PostOrder.LAST_ACTIVITY,
+                last.getLastActivity(), last.getPostID(), 2);
+        assertEquals(List.of(middle), ids(rest));
+    }
+
+    @Test
+    public void testStudentCountsSkipHiddenReplies() throws Exception {
+        int postID = createPost("Moderated");
+        db.createReply(new Reply(0, postID, "bob", "fine"));
+        db.createReply(new Reply(0, postID, "carol", "rude"));
+        int rude = db.getRepliesForPost(postID, "staff1").get(1).getReplyID();
+        db.hideReply(rude, postID, "staff1", "rude");
+
+        CachedDatabase cached = new CachedDatabase(url);
+        cached.connectToDatabase();
+        try {
+            for (Database source : List.of(db, cached)) {
+                Post student = source.getPosts("dave", Role.STUDENT, List.of(postID)).get(0);
+                assertEquals(1, student.getReplyCount());
+                assertEquals(1, student.getUnreadReplyCount());
+                Post page = source.getPostsPage("dave", Role.STUDENT, null, PostOrder.NEWEST, null, 0, 10).get(0);
+                assertEquals(1, page.getReplyCount());
+                assertEquals(2, source.getPosts("staff1", Role.STAFF, List.of(postID)).get(0).getReplyCount());
+            }
+        } finally {
+            cached.closeConnection();
+        }
+    }
+
+    @Test
+    public void testStudentListsSkipHiddenReplies() throws Exception {
+        int postID = createPost("Moderated");
+        db.createReply(new Reply(0, postID, "bob", "fine"));
+        db.createReply(new Reply(0, postID, "carol", "rude"));
+        int rude = db.getRepliesForPost(postID, "staff1").get(1).getReplyID();
+        db.hideReply(rude, postID, "staff1", "rude");
+
+        CachedDatabase cached = new CachedDatabase(url);
+        cached.connectToDatabase();
+        try {
+            for (Database source : List.of(db, cached)) {
+                Post all = source.getAllPosts("dave", Role.STUDENT).get(0);
+                assertEquals(1, all.getReplyCount());
+                assertEquals(1, all.getUnreadReplyCount());
+                assertEquals(1, source.searchPosts("Moderated", "All Threads", "dave", Role.STUDENT).get(0)
+                        .getReplyCount());
+                assertEquals(1, source.searchPosts("", "General", "dave", Role.STUDENT).get(0).getReplyCount());
+                assertEquals(2, source.getAllPosts("staff1", Role.STAFF).get(0).getReplyCount());
+                assertEquals(2, source.searchPosts("Moderated", "All Threads", "staff1", Role.STAFF).get(0)
+                        .getReplyCount());
+            }
+        } finally {
+            cached.closeConnection();
+        }
+    }
+
+    @Test
+    public void testEveryListAgreesOnVisibleReplies() throws Exception {
+        int postID = createPost("Consistent");
+        db.createReply(new Reply(0, postID, "bob", "public answer"));
+        // private feedback whose recipient could not be looked up, stored in capitals
+        db.createReply(new Reply(0, postID, "staff1", "feedback", "private", null));
+        db.createReply(new Reply(0, postID, "carol", "rudeword"));
+        int rude = db.getRepliesForPost(postID, "staff1").get(2).getReplyID();
+        db.hideReply(rude, postID, "staff1", "rude");
+        try (Connection conn = db.getConnectionPool().getConnection(); Statement st = conn.createStatement()) {
+            assertEquals(1, st.executeUpdate("UPDATE repliesDB SET visibility = 'PRIVATE' "
+                    + "WHERE visibility = 'private' AND recipient IS NULL"));
+        }
+
+        Object[][] sessions = {
+                { "alice", Role.STUDENT, 2 }, // the post's author sees the feedback, not the hidden reply
+                { "bob", Role.STUDENT, 1 },
+                { "admin", Role.ADMIN, 2 }, // hidden replies, but not other users' feedback
+                { "staff2", Role.STAFF, 3 } };
+        CachedDatabase cached = new CachedDatabase(url);
+        cached.connectToDatabase();
+        try {
+            for (Database source : List.of(db, cached)) {
+                for (Object[] session : sessions) {
+                    String user = (String) session[0];
+                    Role role = (Role) session[1];
+                    int expected = (Integer) session[2];
+                    String label = source.getClass().getSimpleName() + " " + user;
+                    assertEquals(label, expected, source.getPostsPage(user, role, null, null, 0, 10).get(0)
+                            .getReplyCount());
+                    assertEquals(label, expected, source.getPosts(user, role, List.of(postID)).get(0)
+                            .getReplyCount());
+                    assertEquals(label, expected, source.getAllPosts(user, role).get(0).getReplyCount());
+                    assertEquals(label, expected, source.searchPosts("Consistent", "All Threads", user, role)
+                            .get(0).getReplyCount());
+                    assertEquals(label, expected, source.searchPosts("", "General", user, role).get(0)
+                            .getReplyCount());
+                    // the hidden reply matches a search only where it is counted
+                    assertEquals(label, role != Role.STUDENT,
+                            !source.searchPosts("rudeword", "All Threads", user, role).isEmpty());
+                }
+            }
+        } finally {
+            cached.closeConnection();
+        }
+    }
+}
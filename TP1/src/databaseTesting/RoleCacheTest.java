@@ -0,0 +1,98 @@
+package databaseTesting;
+
+import static org.junit.Assert.*;
+
+import java.util.EnumSet;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import database.Database;
+import database.Database.Role;
+import entityClasses.User;
+
+/**
+ * <p>
+ * Title: RoleCacheTest
+ * </p>
+ *
+ * <p>
+ * Description: Checks the cached role model that the visibility checks
+ * consult instead of querying userDB on every call.
+ * </p>
+ *
+ * <p>
+ * Requirements Checked:
+ * R-ROLE-01: Login loads all roles with the credentials in one check; a wrong
+ * password gives no roles.
+ * R-ROLE-02: Once loaded, roles are answered without the database.
+ * R-ROLE-03: Changing or removing a user's role is seen by the next check.
+ * </p>
+ */
+public class RoleCacheTest {
+
+    private Database db;
+
+    @Before
+    public void setUp() throws Exception {
+        db = new Database("jdbc:h2:mem:roleCacheTest" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        db.connectToDatabase();
+        db.register(new User("sam", "Secret1!", "Sam", "", "Lee", "Sam", "sam@asu.edu", false, true, true));
+        db.register(new User("ana", "Secret2!", "Ana", "", "Ruiz", "Ana", "ana@asu.edu", true, false, false));
+    }
+
+    @After
+    public void tearDown() {
+        db.closeConnection();
+    }
+
+    /**
+     * Test Case: Login returns every role, and only with the right password.
+     */
+    @Test
+    public void testLoginLoadsAllRoles() {
+        assertEquals(EnumSet.of(Role.STUDENT, Role.STAFF),
+                db.getRoles(new User("sam", "Secret1!", "", "", "", "", "", false, false, false)));
+        assertTrue(db.getRoles(new User("sam", "wrong", "", "", "", "", "", false, false, false)).isEmpty());
+        assertEquals(EnumSet.of(Role.ADMIN), db.getRoles("ana"));
+        assertTrue(db.getRoles("nobody").isEmpty());
+        System.out.println("PASS: login loads all roles");
+    }
+
+    /**
+     * Test Case: Loaded roles are answered with the database closed.
+     */
+    @Test
+    public void testRolesServedFromCache() {
+        assertTrue(db.isUserStaff("sam"));
+        assertFalse(db.isUserStaff("ana"));
+
+        db.closeConnection();
+        assertTrue(db.isUserStaff("sam"));
+        assertEquals(EnumSet.of(Role.ADMIN), db.getRoles("ana"));
+
+        // the returned set is a copy
+        db.getRoles("sam").clear();
+        assertTrue(db.isUserStaff("sam"));
+        System.out.println("PASS: roles served from cache");
+    }
+
+    /**
+     * Test Case: Role changes and deleted users invalidate the cached roles.
+     */
+    @Test
+    public void testRoleChangesInvalidate() {
+        assertTrue(db.isUserStaff("sam"));
+        db.updateUserRole("sam", "Staff", "false");
+        assertFalse(db.isUserStaff("sam"));
+        assertEquals(EnumSet.of(Role.STUDENT), db.getRoles("sam"));
+
+        db.updateUserRole("ana", "Staff", "true");
+        assertEquals(EnumSet.of(Role.ADMIN, Role.STAFF), db.getRoles("ana"));
+
+        db.deleteUser("ana");
+        assertTrue(db.getRoles("ana").isEmpty());
+        System.out.println("PASS: role changes invalidate the cache");
+    }
+}
@@ -0,0 +1,171 @@
+package databaseTesting;
+
+import static org.junit.Assert.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import database.Database;
+import database.migrations.Migration;
+import database.migrations.SchemaMigrator;
+import entityClasses.Reply;
+
+/**
+ * <p>
+ * Title: SchemaMigrationTest
+ * </p>
+ *
+ * <p>
+ * Description: Checks the versioned schema migrations run when a database is
+ * opened.
+ * </p>
+ *
+ * <p>
+ * Requirements Checked:
+ * R-MIG-01: A new database gets every migration, recorded once in
+ * schema_version; opening it again applies nothing.
+ * R-MIG-02: A database created before schema_version existed is upgraded in
+ * place and keeps its data.
+ * R-MIG-03: A migration changed after it was applied, or a database from a
+ * newer build, stops start-up with an error.
+ * </p>
+ */
+public class SchemaMigrationTest {
+
+    private static String newUrl() {
+        return "jdbc:h2:mem:schemaMigrationTest" + System.nanoTime() + ";DB_CLOSE_DELAY=-1";
+    }
+
+    private static int count(Connection conn, String sql) throws SQLException {
+        try (Statement st = conn.createStatement(); ResultSet rs = st.executeQuery(sql)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    // A migration with the given version and statements, for tampering with the list
+    private static Migration migration(int version, String... statements) {
+        return new Migration() {
+            @Override
+            public int getVersion() {
+                return version;
+            }
+
+            @Override
+            public String getDescription() {
+                return "test migration " + version;
+            }
+
+            @Override
+            protected List<String> getStatements() {
+                return List.of(statements);
+            }
+        };
+    }
+
+    /**
+     * Test Case: A new database is migrated to the latest version once.
+     */
+    @Test
+    public void testNewDatabaseIsMigratedOnce() throws Exception {
+        String url = newUrl();
+        Database db = new Database(url);
+        db.connectToDatabase();
+        db.closeConnection();
+        db = new Database(url);
+        db.connectToDatabase();
+        db.closeConnection();
+
+        try (Connection conn = DriverManager.getConnection(url, "sa", "")) {
+            int latest = SchemaMigrator.MIGRATIONS.size();
+            assertEquals(latest, SchemaMigrator.currentVersion(conn));
+            assertEquals(latest, count(conn, "SELECT COUNT(*) FROM schema_version"));
+            assertEquals(0, new SchemaMigrator().migrate(conn));
+            assertEquals(1, count(conn, "SELECT COUNT(*) FROM INFORMATION_SCHEMA.INDEXES "
+                    + "WHERE INDEX_NAME = 'IDX_REPLIES_POST_TIMESTAMP'"));
+        }
+        System.out.println("PASS: new database migrated once");
+    }
+
+    /**
+     * Test Case: Tables from a build without schema_version or the later
+     * columns are upgraded and keep their rows.
+     */
+    @Test
+    public void testLegacyDatabaseIsUpgraded() throws Exception {
+        String url = newUrl();
+        try (Connection conn = DriverManager.getConnection(url, "sa", "");
+                Statement st = conn.createStatement()) {
+            st.execute("CREATE TABLE postsDB (postID INT AUTO_INCREMENT PRIMARY KEY, authorUsername VARCHAR(255), "
+                    + "title VARCHAR(255), content VARCHAR(4096), thread VARCHAR(255) DEFAULT 'General', "
+                    + "deleted BOOLEAN DEFAULT FALSE, timestamp TIMESTAMP)");
+            st.execute("CREATE TABLE repliesDB (replyID INT AUTO_INCREMENT PRIMARY KEY, postID INT, "
+                    + "authorUsername VARCHAR(255), content VARCHAR(2048), timestamp TIMESTAMP)");
+            st.execute("INSERT INTO postsDB (authorUsername, title, content, timestamp) "
+                    + "VALUES ('alice', 'Old post', 'from last term', CURRENT_TIMESTAMP)");
+        }
+
+        Database db = new Database(url);
+        db.connectToDatabase();
+        try {
+            assertEquals(1, db.getAllPosts("alice").size());
+            assertTrue(db.getAllPosts("alice").get(0).isVisible());
+            int postID = db.getAllPosts("alice").get(0).getPostID();
+            db.createReply(new Reply(0, postID, "bob", "still here"));
+            assertEquals("public", db.getRepliesForPost(postID, "bob").get(0).getVisibility());
+        } finally {
+            db.closeConnection();
+        }
+        try (Connection conn = DriverManager.getConnection(url, "sa", "")) {
+            assertEquals(SchemaMigrator.MIGRATIONS.size(), SchemaMigrator.currentVersion(conn));
+        }
+        System.out.println("PASS: legacy database upgraded in place");
+    }
+
+    /**
+     * Test Case: Edited migrations, out-of-order versions and newer databases are
+     * rejected.
+     */
+    @Test
+    public void testMismatchesAreRejected() throws Exception {
+        try (Connection conn = DriverManager.getConnection(newUrl(), "sa", "")) {
+            SchemaMigrator original = new SchemaMigrator(List.of(
+                    migration(1, "CREATE TABLE IF NOT EXISTS a (id INT)")));
+            assertEquals(1, original.migrate(conn));
+
+            SchemaMigrator edited = new SchemaMigrator(List.of(
+                    migration(1, "CREATE TABLE IF NOT EXISTS a (id BIGINT)")));
+            try {
+                edited.migrate(conn);
+                fail("An edited migration must be rejected");
+            } catch (SQLException expected) {
+                assertTrue(expected.getMessage().contains("changed after it was applied"));
+            }
+
+            List<Migration> two = new ArrayList<>();
+            two.add(migration(1, "CREATE TABLE IF NOT EXISTS a (id INT)"));
+            two.add(migration(2, "CREATE TABLE IF NOT EXISTS b (id INT)"));
+            assertEquals(1, new SchemaMigrator(two).migrate(conn));
+            try {
+                original.migrate(conn);
+                fail("A database from a newer build must be rejected");
+            } catch (SQLException expected) {
+                assertTrue(expected.getMessage().contains("newer"));
+            }
+        }
+
+        try {
+            new SchemaMigrator(List.of(migration(2, "SELECT 1")));
+            fail("Versions must start at 1 without gaps");
+        } catch (IllegalArgumentException expected) {
+        }
+        System.out.println("PASS: mismatched migrations rejected");
+    }
+}
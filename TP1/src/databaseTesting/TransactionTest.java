@@ -0,0 +1,179 @@
+package databaseTesting;
+
+import static org.junit.Assert.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import database.ChangeEvent;
+import database.Database;
+import entityClasses.Post;
+import entityClasses.User;
+
+/**
+ * <p>
+ * Title: TransactionTest
+ * </p>
+ *
+ * <p>
+ * Description: Checks Database.inTransaction and the user actions that run
+ * their statements through it.
+ * </p>
+ *
+ * <p>
+ * Requirements Checked:
+ * R-TX-01: Work that fails leaves nothing behind: no rows and no change events.
+ * R-TX-02: Nested work that fails is undone back to its savepoint, and the outer
+ * work still commits.
+ * R-TX-03: Change events become visible only when the transaction commits.
+ * R-TX-04: Work that fails on a row lock held by another connection is run
+ * again once the lock is released.
+ * R-TX-05: A one-time invitation code registers one user only.
+ * </p>
+ */
+public class TransactionTest {
+
+    private Database db;
+
+    @Before
+    public void setUp() throws Exception {
+        db = new Database("jdbc:h2:mem:transactionTest" + System.nanoTime() + ";DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=100");
+        db.connectToDatabase();
+    }
+
+    @After
+    public void tearDown() {
+        db.closeConnection();
+    }
+
+    private int count(String sql) throws Exception {
+        try (Connection conn = db.getConnectionPool().getConnection();
+                Statement st = conn.createStatement();
+                ResultSet rs = st.executeQuery(sql)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    @Test
+    public void testFailedWorkLeavesNothing() throws Exception {
+        long seq = db.getLatestChangeSeq();
+        try {
+            db.inTransaction(conn -> {
+                try (Statement st = conn.createStatement()) {
+                    st.executeUpdate("INSERT INTO moderation_log (postID, username, action, reason, timestamp) "
+                            + "VALUES (1, 'staff1', 'HIDE_POST', 'spam', CURRENT_TIMESTAMP)");
+                }
+                db.createThread("Half Done");
+                throw new SQLException("failed after the first statements");
+            });
+            fail("the work's exception should be passed on");
+        } catch (SQLException e) {
+            assertEquals("failed after the first statements", e.getMessage());
+        }
+        assertEquals(0, count("SELECT COUNT(*) FROM moderation_log"));
+        assertEquals(0, count("SELECT COUNT(*) FROM discussion_threads WHERE title = 'Half Done'"));
+        assertEquals(seq, db.getLatestChangeSeq());
+    }
+
+    @Test
+    public void testNestedFailureRollsBackToSavepoint() throws Exception {
+        long seq = db.getLatestChangeSeq();
+        db.inTransaction(conn -> {
+            db.createThread("Kept");
+            try {
+                db.inTransaction(inner -> {
+                    db.createThread("Undone");
+                    throw new SQLException("inner work failed");
+                });
+                fail("the inner work's exception should be passed on");
+            } catch (SQLException e) {
+                assertEquals("inner work failed", e.getMessage());
+            }
+            // not yet committed, so other readers do not see the event
+            assertEquals(seq, db.getLatestChangeSeq());
+            return null;
+        });
+
+        assertEquals(1, count("SELECT COUNT(*) FROM discussion_threads WHERE title = 'Kept'"));
+        assertEquals(0, count("SELECT COUNT(*) FROM discussion_threads WHERE title = 'Undone'"));
+        List<ChangeEvent> changes = db.getChangesSince(seq, 10);
+        assertEquals(1, changes.size());
+        assertEquals(ChangeEvent.Kind.THREAD_CREATED, changes.get(0).kind());
+        assertEquals("Kept", changes.get(0).thread());
+    }
+
+    @Test
+    public void testModerationWritesChangeAndLogTogether() throws Exception {
+        int postID = db.create(new Post(0, "alice", "Title", "Body", "General", false, false, 0, 0));
+        long seq = db.getLatestChangeSeq();
+        db.hidePost(postID, "staff1", "off topic");
+        assertEquals(1, count("SELECT COUNT(*) FROM moderation_log WHERE postID = " + postID));
+        assertEquals(1, count("SELECT COUNT(*) FROM postsDB WHERE visible = FALSE AND postID = " + postID));
+        assertEquals(ChangeEvent.Kind.POST_HIDDEN, db.getChangesSince(seq, 10).get(0).kind());
+    }
+
+    @Test
+    public void testRetriesOnLockTimeout() throws Exception {
+        int postID = db.create(new Post(0, "alice", "Title", "Body", "General", false, false, 0, 0));
+        AtomicInteger attempts = new AtomicInteger();
+        try (Connection holder = db.getConnectionPool().getConnection()) {
+            holder.setAutoCommit(false);
+            try (Statement st = holder.createStatement()) {
+                st.executeUpdate("UPDATE postsDB SET title = 'Held' WHERE postID = " + postID);
+            }
+            Thread releaser = new Thread(() -> {
+                try {
+                    Thread.sleep(150);
+                    holder.rollback();
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            });
+            releaser.start();
+            db.inTransaction(conn -> {
+                attempts.incrementAndGet();
+                try (PreparedStatement ps = conn.prepareStatement("UPDATE postsDB SET title = ? WHERE postID = ?")) {
+                    ps.setString(1, "Retried");
+                    ps.setInt(2, postID);
+                    return ps.executeUpdate();
+                }
+            });
+            releaser.join();
+        }
+        assertTrue(attempts.get() > 1);
+        assertEquals(1, count("SELECT COUNT(*) FROM postsDB WHERE title = 'Retried'"));
+    }
+
+    @Test
+    public void testInvitationRegistersOneUser() throws Exception {
+        String code = db.generateInvitationCode("new@example.com", "Student");
+        User first = new User("firstUser", "Passw0rd!", "", "", "", "", "", false, true, false);
+        User second = new User("secondUser", "Passw0rd!", "", "", "", "", "", false, true, false);
+
+        assertTrue(db.registerWithInvitation(first, code));
+        assertFalse(db.registerWithInvitation(second, code));
+        assertEquals(0, count("SELECT COUNT(*) FROM userDB WHERE userName = 'secondUser'"));
+        assertEquals(1, count("SELECT COUNT(*) FROM userDB WHERE userName = 'firstUser'"));
+        assertEquals(0, count("SELECT COUNT(*) FROM InvitationCodes WHERE code = '" + code + "'"));
+
+        // a registration that fails leaves the code usable
+        String another = db.generateInvitationCode("other@example.com", "Student");
+        try {
+            db.registerWithInvitation(first, another);
+            fail("a duplicate user name should fail");
+        } catch (SQLException e) {
+            // expected
+        }
+        assertTrue(db.registerWithInvitation(second, another));
+    }
+}
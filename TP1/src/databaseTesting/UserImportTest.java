@@ -0,0 +1,125 @@
+package databaseTesting;
+
+import static org.junit.Assert.*;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.EnumSet;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import database.Database;
+import database.Database.Role;
+import database.UserImporter;
+import entityClasses.User;
+
+/**
+ * <p>
+ * Title: UserImportTest
+ * </p>
+ *
+ * <p>
+ * Description: Checks the bulk user import from CSV and JSON files.
+ * </p>
+ *
+ * <p>
+ * Requirements Checked:
+ * R-IMPORT-01: Valid rows become accounts with the roles they ask for.
+ * R-IMPORT-02: Invalid rows, userNames already taken and repeated userNames
+ * are rejected and reported with their row number and reason.
+ * R-IMPORT-03: CSV quoting, JSON arrays and one JSON object per line are read.
+ * R-IMPORT-04: Large files are imported in chunks across several workers.
+ * </p>
+ */
+public class UserImportTest {
+
+    private static final String HEADER = "userName,password,firstName,middleName,lastName,preferredFirstName,"
+            + "emailAddress,roles\n";
+
+    private Database db;
+
+    @Before
+    public void setUp() throws Exception {
+        db = new Database("jdbc:h2:mem:userImportTest" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        db.connectToDatabase();
+    }
+
+    @After
+    public void tearDown() {
+        db.closeConnection();
+    }
+
+    @Test
+    public void testCsvImport() throws Exception {
+        db.register(new User("taken1", "Secret1!x", "Tak", "", "En", "", "taken@asu.edu", false, true, false));
+        String csv = HEADER
+                + "alice1,Secret1!a,Alice,,Smith,,alice@asu.edu,Student\n"
+                + "bob2,Secret1!b,Bob,Lee,Jones,Bobby,bob@asu.edu,\"Staff, Student\"\n"
+                + "3carl,Secret1!c,Carl,,Doe,,carl@asu.edu,Student\n"          // bad userName
+                + "dana4,weak,Dana,,Doe,,dana@asu.edu,Student\n"               // bad password
+                + "erin5,Secret1!e,Erin,,O'Neil,,erin.asu.edu,Student\n"       // bad email
+                + "alice1,Secret1!f,Alice,,Again,,alice2@asu.edu,Student\n"    // repeated in file
+                + "taken1,Secret1!g,Tom,,Taken,,tom@asu.edu,Student\n"         // already exists
+                + "fred6,Secret1!h,Fred,,Roe,,fred@asu.edu,Teacher\n"          // unknown role
+                + "\"gina7\",\"Secret1!\"\"i\",\"Gina\",,\"St John\",,gina@asu.edu,Admin\n";
+
+        UserImporter.Report report = new UserImporter(db, 2, 3).importCsv(new StringReader(csv));
+
+        assertEquals(3, report.getImported());
+        assertEquals(6, report.getRejected());
+        int[] rows = report.getErrors().stream().mapToInt(UserImporter.RowError::row).toArray();
+        assertArrayEquals(new int[] { 4, 5, 6, 7, 8, 9 }, rows);
+        assertTrue(report.getErrors().get(0).message().startsWith("userName:"));
+        assertTrue(report.getErrors().get(1).message().startsWith("password:"));
+        assertTrue(report.getErrors().get(2).message().startsWith("emailAddress:"));
+        assertEquals("userName: already used by row 2", report.getErrors().get(3).message());
+        assertEquals("userName: already exists", report.getErrors().get(4).message());
+        assertTrue(report.getErrors().get(5).message().startsWith("roles:"));
+
+        assertEquals(EnumSet.of(Role.STUDENT), db.getRoles("alice1"));
+        assertEquals(EnumSet.of(Role.STUDENT, Role.STAFF), db.getRoles("bob2"));
+        assertEquals(EnumSet.of(Role.ADMIN), db.getRoles("gina7"));
+        User gina = new User();
+        gina.setUserName("gina7");
+        gina.setPassword("Secret1!\"i");
+        assertFalse(db.getRoles(gina).isEmpty());
+
+        StringWriter out = new StringWriter();
+        report.writeTo(out);
+        assertTrue(out.toString().startsWith("row,userName,error\n4,\"3carl\","));
+    }
+
+    @Test
+    public void testJsonImport() throws Exception {
+        String array = "[ {\"userName\": \"hana8\", \"password\": \"Secret1!j\", \"firstName\": \"Hana\", "
+                + "\"middleName\": null, \"lastName\": \"Kim\", \"emailAddress\": \"hana@asu.edu\", "
+                + "\"roles\": \"Staff\"},\n {\"userName\": \"ivan9\", \"password\": \"bad\"} ]";
+        UserImporter.Report report = new UserImporter(db).importJson(new StringReader(array));
+        assertEquals(1, report.getImported());
+        assertEquals(2, report.getErrors().get(0).row());
+        assertEquals(EnumSet.of(Role.STAFF), db.getRoles("hana8"));
+
+        String lines = "{\"username\":\"jill10\",\"password\":\"Secret1!k\",\"first_name\":\"Jill\","
+                + "\"last_name\":\"Fox\",\"email\":\"jill@asu.edu\"}\n"
+                + "{\"username\":\"kurt11\",\"password\":\"Secret1!l\",\"first_name\":\"Kurt\","
+                + "\"last_name\":\"Fox\",\"email\":\"kurt@asu.edu\"}\n";
+        report = new UserImporter(db).importJson(new StringReader(lines));
+        assertEquals(2, report.getImported());
+        assertEquals(0, report.getRejected());
+        assertEquals(EnumSet.of(Role.STUDENT), db.getRoles("kurt11"));
+    }
+
+    @Test
+    public void testLargeImport() throws Exception {
+        StringBuilder csv = new StringBuilder(HEADER);
+        for (int i = 0; i < 20_000; i++)
+            csv.append("user").append(i).append(",Secret1!x,First,,Last,,user").append(i).append("@asu.edu,\n");
+        UserImporter.Report report = new UserImporter(db, 4, 500).importCsv(new StringReader(csv.toString()));
+
+        assertEquals(20_000, report.getImported());
+        assertEquals(0, report.getRejected());
+        assertEquals(20_000, db.getNumberOfUsers());
+    }
+}
@@ -0,0 +1,153 @@
+package databaseTesting;
+
+import static org.junit.Assert.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import database.Database;
+import database.Database.Role;
+import entityClasses.User;
+import entityClasses.UserProfile;
+
+/**
+ * <p>
+ * Title: UserProfileTest
+ * </p>
+ *
+ * <p>
+ * Description: Checks the profile reads and updates that replaced the
+ * current-user fields of Database.
+ * </p>
+ *
+ * <p>
+ * Requirements Checked:
+ * R-PROF-01: A profile holds the account's details and roles; an unknown user
+ * has none.
+ * R-PROF-02: A profile edit is one statement that writes only the fields it
+ * changes, and the profile read back after it needs no query.
+ * R-PROF-03: Role changes and deletions are seen by the next profile read.
+ * R-PROF-04: Edits of one account from several threads leave the cached
+ * profile equal to the database.
+ * </p>
+ */
+public class UserProfileTest {
+
+    private Database db;
+
+    @Before
+    public void setUp() throws Exception {
+        db = new Database("jdbc:h2:mem:userProfileTest" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        db.connectToDatabase();
+        db.register(new User("sam", "Secret1!", "Samuel", "J", "Lee", "Sam", "sam@asu.edu", false, true, false));
+    }
+
+    @After
+    public void tearDown() {
+        db.closeConnection();
+    }
+
+    private String column(String column) throws Exception {
+        try (Connection conn = db.getConnectionPool().getConnection();
+                PreparedStatement ps = conn.prepareStatement(
+                        "SELECT " + column + " FROM userDB WHERE userName = 'sam'");
+                ResultSet rs = ps.executeQuery()) {
+            assertTrue(rs.next());
+            return rs.getString(1);
+        }
+    }
+
+    private static long statements(Statement s) throws Exception {
+        try (ResultSet rs = s.executeQuery("SELECT COALESCE(SUM(EXECUTION_COUNT), 0) "
+                + "FROM INFORMATION_SCHEMA.QUERY_STATISTICS WHERE SQL_STATEMENT NOT LIKE '%QUERY_STATISTICS%'")) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    @Test
+    public void testProfileHoldsAccount() {
+        UserProfile sam = db.getUserProfile("sam");
+        assertEquals("Samuel", sam.firstName());
+        assertEquals("J", sam.middleName());
+        assertEquals("Lee", sam.lastName());
+        assertEquals("Sam", sam.preferredFirstName());
+        assertEquals("sam@asu.edu", sam.emailAddress());
+        assertEquals(EnumSet.of(Role.STUDENT), sam.roles());
+        assertEquals("Sam", db.getPreferredFirstName("sam"));
+        assertNull(db.getUserProfile("nobody"));
+        assertNull(db.getFirstName("nobody"));
+    }
+
+    @Test
+    public void testEditWritesOnlyChangedFields() throws Exception {
+        db.getUserProfile("sam");
+        try (Connection stats = db.getConnectionPool().getConnection(); Statement s = stats.createStatement()) {
+            // changed behind the cache, so an edit that wrote every column would undo it
+            s.execute("UPDATE userDB SET lastName = 'Changed' WHERE userName = 'sam'");
+            // a first edit opens the pool's second connection, which runs the URL's settings
+            db.updateProfile("sam", new UserProfile.Changes().middleName("K"));
+            s.execute("SET QUERY_STATISTICS TRUE");
+
+            UserProfile updated = db.updateProfile("sam",
+                    new UserProfile.Changes().firstName("Sammy").emailAddress("sammy@asu.edu"));
+            assertEquals("Sammy", updated.firstName());
+            assertEquals("sammy@asu.edu", db.getUserProfile("sam").emailAddress());
+            assertEquals("K", db.getMiddleName("sam"));
+            assertEquals(1, statements(s));
+            s.execute("SET QUERY_STATISTICS FALSE");
+        }
+        assertEquals("Sammy", column("firstName"));
+        assertEquals("sammy@asu.edu", column("emailAddress"));
+        assertEquals("Changed", column("lastName"));
+        assertNull(db.updateProfile("nobody", new UserProfile.Changes().firstName("X")));
+    }
+
+    @Test
+    public void testRoleChangesAndDeletionSeen() {
+        assertFalse(db.getUserProfile("sam").hasRole(Role.STAFF));
+        assertTrue(db.updateUserRole("sam", "Staff", "true"));
+        assertEquals(EnumSet.of(Role.STUDENT, Role.STAFF), db.getUserProfile("sam").roles());
+        assertTrue(db.updateUserRole("sam", "Student", "false"));
+        assertEquals(EnumSet.of(Role.STAFF), db.getUserProfile("sam").roles());
+
+        db.deleteUser("sam");
+        assertNull(db.getUserProfile("sam"));
+    }
+
+    @Test
+    public void testConcurrentEditsMatchDatabase() throws Exception {
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int id = t;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 50; i++) {
+                    UserProfile.Changes changes = new UserProfile.Changes();
+                    if (id % 2 == 0)
+                        changes.firstName("First" + id + "_" + i);
+                    else
+                        changes.lastName("Last" + id + "_" + i);
+                    db.updateProfile("sam", changes);
+                    db.getUserProfile("sam");
+                }
+            }));
+        }
+        for (Thread t : threads)
+            t.start();
+        for (Thread t : threads)
+            t.join();
+
+        UserProfile cached = db.getUserProfile("sam");
+        assertEquals(column("firstName"), cached.firstName());
+        assertEquals(column("lastName"), cached.lastName());
+    }
+}
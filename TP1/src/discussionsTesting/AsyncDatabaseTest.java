@@ -0,0 +1,150 @@
+package discussionsTesting;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import database.AsyncDatabase;
+import database.Database;
+import database.Database.Role;
+import entityClasses.Post;
+
+/**
+ * AsyncDatabaseTest — JUnit tests for the background database facade used by
+ * the discussion GUI.
+ *
+ * <p>
+ * Requirements covered:
+ * </p>
+ * <ul>
+ * <li>R-UI-01: Database calls run on virtual threads, not on the caller's
+ * thread.</li>
+ * <li>R-UI-02: Results are handed back on the result executor (the FX thread in
+ * the app).</li>
+ * <li>R-UI-03: When a newer request replaces an older one, or a request is
+ * cancelled, the stale result is never delivered.</li>
+ * </ul>
+ */
+public class AsyncDatabaseTest {
+
+    private static final String RESULT_THREAD = "result-thread";
+
+    private Database db;
+    private ExecutorService resultThread;
+    private AsyncDatabase async;
+
+    @Before
+    public void setUp() throws Exception {
+        db = new Database("jdbc:h2:mem:asyncDatabaseTest" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        db.connectToDatabase();
+        // stands in for the JavaFX Application Thread
+        resultThread = Executors.newSingleThreadExecutor(r -> new Thread(r, RESULT_THREAD));
+        async = new AsyncDatabase(db, resultThread);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        async.shutdown();
+        resultThread.shutdown();
+        resultThread.awaitTermination(5, TimeUnit.SECONDS);
+        db.closeConnection();
+    }
+
+    /**
+     * testCallsRunInBackground()
+     *
+     * <p>
+     * Checks: a load runs on a virtual thread and its result is delivered on the
+     * result executor.
+     * </p>
+     */
+    @Test
+    public void testCallsRunInBackground() throws Exception {
+        db.create(new Post(0, "student1", "Hello", "first post", "General", false, false, 0, 0));
+
+        boolean ranOnVirtualThread = async.submit(d -> Thread.currentThread().isVirtual()).get(5, TimeUnit.SECONDS);
+        assertTrue(ranOnVirtualThread);
+
+        List<String> deliveredOn = new CopyOnWriteArrayList<>();
+        List<Post> delivered = new CopyOnWriteArrayList<>();
+        async.deliver(async.getAllPosts("student1", Role.STUDENT), posts -> {
+            deliveredOn.add(Thread.currentThread().getName());
+            delivered.addAll(posts);
+        }).get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of(RESULT_THREAD), deliveredOn);
+        assertEquals(1, delivered.size());
+        assertEquals("Hello", delivered.get(0).getTitle());
+        System.out.println("PASS: testCallsRunInBackground -> loaded on a virtual thread, delivered on the result thread.");
+    }
+
+    /**
+     * testNewerRequestWins()
+     *
+     * <p>
+     * Checks: a request replaced by a newer one is cancelled and its result is
+     * dropped even if it finishes last.
+     * </p>
+     */
+    @Test
+    public void testNewerRequestWins() throws Exception {
+        AsyncDatabase.Latest channel = async.newLatest();
+        List<String> shown = new CopyOnWriteArrayList<>();
+
+        CompletableFuture<String> older = new CompletableFuture<>();
+        CompletableFuture<String> newer = new CompletableFuture<>();
+        CompletableFuture<Void> olderDone = channel.replace(older, shown::add);
+        CompletableFuture<Void> newerDone = channel.replace(newer, shown::add);
+
+        assertTrue("Replaced request should be cancelled", older.isCancelled());
+        assertTrue(channel.isPending());
+
+        newer.complete("post 2");
+        newerDone.get(5, TimeUnit.SECONDS);
+        older.complete("post 1"); // no effect, already cancelled
+        olderDone.get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of("post 2"), shown);
+        assertFalse(channel.isPending());
+        System.out.println("PASS: testNewerRequestWins -> only the newest result is shown.");
+    }
+
+    /**
+     * testCancelledRequestIsDropped()
+     *
+     * <p>
+     * Checks: cancelling the channel drops a result that was still running, e.g.
+     * when the selection is cleared.
+     * </p>
+     */
+    @Test
+    public void testCancelledRequestIsDropped() throws Exception {
+        AsyncDatabase.Latest channel = async.newLatest();
+        List<List<Post>> shown = new CopyOnWriteArrayList<>();
+
+        CompletableFuture<List<Post>> load = async.submit(d -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return d.getAllPosts("student1");
+        });
+        CompletableFuture<Void> done = channel.replace(load, shown::add);
+        channel.cancel();
+        done.get(5, TimeUnit.SECONDS);
+
+        assertTrue(shown.isEmpty());
+        assertFalse(channel.isPending());
+        System.out.println("PASS: testCancelledRequestIsDropped -> cancelled load is not shown.");
+    }
+}
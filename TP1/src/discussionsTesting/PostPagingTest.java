@@ -0,0 +1,151 @@
+package discussionsTesting;
+
+import static org.junit.Assert.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import database.Database;
+import entityClasses.Post;
+import entityClasses.Reply;
+
+/**
+ * <p>
+ * Title: PostPagingTest
+ * </p>
+ *
+ * <p>
+ * Description: Checks the keyset-paged post list that the discussion view
+ * loads as the user scrolls.
+ * </p>
+ *
+ * <p>
+ * Requirements Checked:
+ * R-PAGE-01: Pages list posts newest first and, walked to the end, contain
+ * every post exactly once, including posts created in the same instant.
+ * R-PAGE-02: The thread filter applies, and students never get hidden posts.
+ * R-PAGE-03: Reply counts on a page follow the session's reply visibility.
+ * </p>
+ */
+public class PostPagingTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 10, 1, 9, 0);
+
+    private Database db;
+
+    @Before
+    public void setUp() throws Exception {
+        db = new Database("jdbc:h2:mem:postPagingTest" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        db.connectToDatabase();
+    }
+
+    @After
+    public void tearDown() {
+        db.closeConnection();
+    }
+
+    // Creates a post, then moves it to BASE plus the given minutes; create() stamps the current time
+    private void createPost(String title, String thread, int minutes) throws SQLException {
+        db.create(new Post(0, "alice", title, "content of " + title, thread, false, false, 0, 0));
+        try (Connection conn = db.getConnectionPool().getConnection();
+                PreparedStatement ps = conn.prepareStatement("UPDATE postsDB SET timestamp = ? WHERE title = ?")) {
+            ps.setTimestamp(1, Timestamp.valueOf(BASE.plusMinutes(minutes)));
+            ps.setString(2, title);
+            ps.executeUpdate();
+        }
+    }
+
+    // Walks every page of the list and returns the titles in order
+    private List<String> walk(String username, Database.Role role, String thread, int pageSize) {
+        List<String> titles = new ArrayList<>();
+        List<Post> page = db.getPostsPage(username, role, thread, null, 0, pageSize);
+        while (true) {
+            for (Post p : page)
+                titles.add(p.getTitle());
+            if (page.size() < pageSize)
+                return titles;
+            Post last = page.get(page.size() - 1);
+            page = db.getPostsPage(username, role, thread, last.getTimestamp(), last.getPostID(), pageSize);
+        }
+    }
+
+    /**
+     * Test Case: Walking the pages lists every post once, newest first, even
+     * when several posts share a timestamp across a page boundary.
+     */
+    @Test
+    public void testPagesCoverEveryPostOnce() throws SQLException {
+        for (int i = 0; i < 23; i++)
+            createPost("Post " + i, "General", i / 4); // four posts per minute
+
+        List<String> titles = walk("alice", Database.Role.STUDENT, "All Threads", 5);
+        assertEquals(23, titles.size());
+        assertEquals(23, new HashSet<>(titles).size());
+        // newest minute first; posts of the same minute newest-created first
+        assertEquals("Post 22", titles.get(0));
+        assertEquals("Post 0", titles.get(22));
+
+        List<Post> firstPage = db.getPostsPage("alice", Database.Role.STUDENT, null, null, 0, 5);
+        assertEquals(BASE.plusMinutes(5), firstPage.get(0).getTimestamp());
+        // the page ends inside the run of posts created at minute 4
+        assertEquals(BASE.plusMinutes(4), firstPage.get(4).getTimestamp());
+        for (int i = 1; i < firstPage.size(); i++)
+            assertFalse(firstPage.get(i).getTimestamp().isAfter(firstPage.get(i - 1).getTimestamp()));
+        System.out.println("PASS: pages are ordered and have no gaps or duplicates");
+    }
+
+    /**
+     * Test Case: The thread filter applies, and hidden posts are left out for
+     * students only.
+     */
+    @Test
+    public void testThreadAndHiddenPosts() throws SQLException {
+        for (int i = 0; i < 6; i++)
+            createPost("General " + i, "General", i);
+        for (int i = 0; i < 4; i++)
+            createPost("Homework " + i, "Homework", 10 + i);
+
+        assertEquals(List.of("Homework 3", "Homework 2", "Homework 1", "Homework 0"),
+                walk("alice", Database.Role.STUDENT, "Homework", 3));
+
+        int hidden = db.getPostsPage("alice", Database.Role.STAFF, "General", null, 0, 1).get(0).getPostID();
+        db.hidePost(hidden, "staff1", "off topic");
+
+        Set<String> studentTitles = new HashSet<>(walk("bob", Database.Role.STUDENT, null, 4));
+        assertEquals(9, studentTitles.size());
+        assertFalse(studentTitles.contains("General 5"));
+        assertEquals(10, walk("staff1", Database.Role.STAFF, null, 4).size());
+        System.out.println("PASS: thread filter and hidden posts");
+    }
+
+    /**
+     * Test Case: Reply counts on a page match the session's reply visibility.
+     */
+    @Test
+    public void testReplyCountsOnPage() throws SQLException {
+        createPost("Question", "General", 0);
+        int postID = db.getPostsPage("alice", Database.Role.STUDENT, null, null, 0, 1).get(0).getPostID();
+        db.createReply(new Reply(0, postID, "bob", "public answer"));
+        Reply feedback = new Reply(0, postID, "staff1", "private note", "private", "alice");
+        feedback.setPostAuthorUsername("alice");
+        db.createReply(feedback);
+
+        Post forAuthor = db.getPostsPage("alice", Database.Role.STUDENT, null, null, 0, 10).get(0);
+        assertEquals(2, forAuthor.getReplyCount());
+        assertEquals(2, forAuthor.getUnreadReplyCount());
+        assertEquals(1, db.getPostsPage("carol", Database.Role.STUDENT, null, null, 0, 10).get(0).getReplyCount());
+        assertEquals(2, db.getPostsPage("staff2", Database.Role.STAFF, null, null, 0, 10).get(0).getReplyCount());
+        System.out.println("PASS: reply counts follow reply visibility");
+    }
+}
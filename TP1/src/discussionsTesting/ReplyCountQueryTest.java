@@ -0,0 +1,141 @@
+package discussionsTesting;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import database.Database;
+import entityClasses.Post;
+import entityClasses.Reply;
+
+/**
+ * <p>
+ * Title: ReplyCountQueryTest
+ * </p>
+ *
+ * <p>
+ * Description: JUnit tests for the reply and unread counts the post list
+ * shows, as Database.getPosts and getPostsPage count them for a session.
+ * </p>
+ *
+ * <p>
+ * Requirements Checked:
+ * R-COUNT-01: Public replies count for every session.
+ * R-COUNT-02: Private feedback counts only for a staff session, the author of
+ * the post it was left on, and the staff member who wrote it.
+ * R-COUNT-03: Unread counts drop as the user reads replies.
+ * </p>
+ */
+public class ReplyCountQueryTest {
+
+    private Database db;
+    private int alicePost;
+    private int carolPost;
+
+    @Before
+    public void setUp() throws Exception {
+        db = new Database("jdbc:h2:mem:replyCountQueryTest" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        db.connectToDatabase();
+
+        db.create(new Post(0, "alice", "Alice post", "question", "General", false, false, 0, 0));
+        db.create(new Post(0, "carol", "Carol post", "question", "General", false, false, 0, 0));
+        for (Post p : db.getAllPosts("alice")) {
+            if (p.getAuthorUsername().equals("alice"))
+                alicePost = p.getPostID();
+            else
+                carolPost = p.getPostID();
+        }
+
+        db.createReply(new Reply(0, alicePost, "bob", "public answer"));
+        db.createReply(privateFeedback(alicePost, "alice"));
+        db.createReply(privateFeedback(carolPost, "carol"));
+    }
+
+    @After
+    public void tearDown() {
+        db.closeConnection();
+    }
+
+    private Reply privateFeedback(int postID, String recipient) {
+        Reply r = new Reply(0, postID, "staff1", "feedback for " + recipient, "private", recipient);
+        r.setPostAuthorUsername(recipient);
+        return r;
+    }
+
+    private List<Post> listed(String username, Database.Role sessionRole) {
+        return db.getPosts(username, sessionRole, List.of(alicePost, carolPost));
+    }
+
+    private Post post(List<Post> posts, int postID) {
+        for (Post p : posts) {
+            if (p.getPostID() == postID)
+                return p;
+        }
+        throw new AssertionError("post " + postID + " not listed");
+    }
+
+    private int count(List<Post> posts, int postID) {
+        return post(posts, postID).getReplyCount();
+    }
+
+    /**
+     * Test Case: The post author sees their own private feedback, but not feedback
+     * left for another student.
+     */
+    @Test
+    public void testPostAuthorSeesOwnFeedbackOnly() {
+        List<Post> counts = listed("alice", Database.Role.STUDENT);
+        assertEquals(2, count(counts, alicePost));
+        assertEquals(0, count(counts, carolPost));
+        System.out.println("PASS: Post author sees own private feedback only");
+    }
+
+    /**
+     * Test Case: An unrelated student only sees public replies.
+     */
+    @Test
+    public void testOtherStudentSeesPublicOnly() {
+        List<Post> counts = listed("bob", Database.Role.STUDENT);
+        assertEquals(1, count(counts, alicePost));
+        assertEquals(0, count(counts, carolPost));
+        System.out.println("PASS: Unrelated student sees public replies only");
+    }
+
+    /**
+     * Test Case: A staff session sees all feedback, and the feedback author sees
+     * their own feedback even when acting in another role.
+     */
+    @Test
+    public void testStaffAndFeedbackAuthorSeeFeedback() {
+        List<Post> staff = listed("staff2", Database.Role.STAFF);
+        assertEquals(2, count(staff, alicePost));
+        assertEquals(1, count(staff, carolPost));
+
+        List<Post> author = listed("staff1", Database.Role.ADMIN);
+        assertEquals(2, count(author, alicePost));
+        assertEquals(1, count(author, carolPost));
+
+        List<Post> admin = listed("admin", Database.Role.ADMIN);
+        assertEquals(1, count(admin, alicePost));
+        System.out.println("PASS: Staff session and feedback author see private feedback");
+    }
+
+    /**
+     * Test Case: Reading a reply lowers the unread count for that user only.
+     */
+    @Test
+    public void testUnreadCountsFollowReadState() {
+        assertEquals(2, post(listed("alice", Database.Role.STUDENT), alicePost).getUnreadReplyCount());
+
+        List<Reply> replies = db.getRepliesForPost(alicePost, "alice");
+        db.markReplyAsRead(replies.get(0).getReplyID(), "alice");
+
+        assertEquals(1, post(listed("alice", Database.Role.STUDENT), alicePost).getUnreadReplyCount());
+        assertEquals(1, post(listed("bob", Database.Role.STUDENT), alicePost).getUnreadReplyCount());
+        System.out.println("PASS: Unread counts follow read state");
+    }
+}
@@ -0,0 +1,157 @@
+package discussionsTesting;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import database.Database;
+import database.SearchIndex;
+import entityClasses.Post;
+import entityClasses.Reply;
+
+/**
+ * <p>
+ * Title: SearchIndexTest
+ * </p>
+ *
+ * <p>
+ * Description: Checks keyword search through the inverted search index: word
+ * forms, ranking, thread and visibility filters, and that the index follows
+ * changes to posts and replies.
+ * </p>
+ *
+ * <p>
+ * Requirements Checked:
+ * R-SRCH-01: Different forms of a word match each other, and partial words
+ * match like the old substring search.
+ * R-SRCH-02: Title matches rank above content-only matches; every search word
+ * must match.
+ * R-SRCH-03: The thread filter applies to keyword searches.
+ * R-SRCH-04: Private feedback and hidden replies only make a post match for
+ * users allowed to see them.
+ * R-SRCH-05: Creating, editing and deleting posts and replies updates search
+ * results immediately, and the index is rebuilt when the database is reopened.
+ * </p>
+ */
+public class SearchIndexTest {
+
+    private String url;
+    private Database db;
+
+    @Before
+    public void setUp() throws Exception {
+        url = "jdbc:h2:mem:searchIndexTest" + System.nanoTime() + ";DB_CLOSE_DELAY=-1";
+        db = new Database(url);
+        db.connectToDatabase();
+        db.create(new Post(0, "alice", "Posting guidelines", "Please read before you post.", "General", false, false, 0, 0));
+        db.create(new Post(0, "bob", "Exam question", "Is the exam about posting replies?", "General", false, false, 0, 0));
+        db.create(new Post(0, "carol", "Homework 2", "Stuck on recursion", "Homework", false, false, 0, 0));
+    }
+
+    @After
+    public void tearDown() {
+        db.closeConnection();
+    }
+
+    private List<String> titles(List<Post> posts) {
+        List<String> titles = new ArrayList<>();
+        for (Post p : posts)
+            titles.add(p.getTitle());
+        return titles;
+    }
+
+    private int postID(String title) {
+        for (Post p : db.getAllPosts("alice")) {
+            if (p.getTitle().equals(title))
+                return p.getPostID();
+        }
+        throw new AssertionError("No post titled " + title);
+    }
+
+    /**
+     * Test Case: Stems and prefixes match, and a title match outranks a content
+     * match.
+     */
+    @Test
+    public void testWordFormsAndRanking() {
+        assertEquals(SearchIndex.stem("posts"), SearchIndex.stem("posted"));
+        assertEquals(SearchIndex.stem("reply"), SearchIndex.stem("replies"));
+
+        assertEquals(List.of("Posting guidelines", "Exam question"),
+                titles(db.searchPosts("posted", "All Threads", "alice")));
+        assertEquals(List.of("Posting guidelines"), titles(db.searchPosts("guide", "All Threads", "alice")));
+        assertEquals(List.of("Homework 2"), titles(db.searchPosts("RECURS", "All Threads", "alice")));
+        System.out.println("PASS: stems, prefixes and title ranking");
+    }
+
+    /**
+     * Test Case: Every word must match, and the thread filter applies.
+     */
+    @Test
+    public void testAllWordsAndThreadFilter() {
+        assertEquals(List.of("Exam question"), titles(db.searchPosts("exam posting", "All Threads", "alice")));
+        assertTrue(db.searchPosts("exam recursion", "All Threads", "alice").isEmpty());
+        assertTrue(db.searchPosts("recursion", "General", "alice").isEmpty());
+        assertEquals(List.of("Homework 2"), titles(db.searchPosts("recursion", "Homework", "alice")));
+
+        // no words at all lists the thread like before
+        assertEquals(2, db.searchPosts("", "General", "alice").size());
+        assertEquals(3, db.searchPosts("  ", "All Threads", "alice").size());
+        System.out.println("PASS: all words must match and thread filter applies");
+    }
+
+    /**
+     * Test Case: Private feedback only makes a post match for its recipient and
+     * its author, and a hidden reply stops matching for students.
+     */
+    @Test
+    public void testReplyVisibility() {
+        int homework = postID("Homework 2");
+        Reply feedback = new Reply(0, homework, "staff1", "see the tutoring schedule", "private", "carol");
+        feedback.setPostAuthorUsername("carol");
+        db.createReply(feedback);
+
+        assertEquals(List.of("Homework 2"), titles(db.searchPosts("tutoring", "All Threads", "carol")));
+        assertEquals(List.of("Homework 2"), titles(db.searchPosts("tutoring", "All Threads", "staff1")));
+        assertTrue(db.searchPosts("tutoring", "All Threads", "bob").isEmpty());
+
+        db.createReply(new Reply(0, homework, "bob", "try memoization"));
+        assertEquals(List.of("Homework 2"), titles(db.searchPosts("memoization", "All Threads", "alice")));
+        int replyID = db.getRepliesForPost(homework, "alice").stream()
+                .filter(r -> r.getContent().contains("memoization")).findFirst().get().getReplyID();
+        db.hideReply(replyID, homework, "staff1", "spoiler");
+        assertTrue(db.searchPosts("memoization", "All Threads", "alice").isEmpty());
+        db.unhideReply(replyID, homework, "staff1", "fine");
+        assertEquals(1, db.searchPosts("memoization", "All Threads", "alice").size());
+        System.out.println("PASS: reply visibility rules apply to search");
+    }
+
+    /**
+     * Test Case: Edits and deletions show up in search results at once, and a
+     * reopened database can still be searched.
+     */
+    @Test
+    public void testIndexFollowsChanges() throws Exception {
+        Post exam = db.getAllPosts("bob").stream().filter(p -> p.getTitle().equals("Exam question")).findFirst().get();
+        exam.setTitle("Midterm question");
+        exam.setContent("When is the midterm?");
+        db.update(exam);
+        assertTrue(db.searchPosts("exam", "All Threads", "bob").isEmpty());
+        assertEquals(List.of("Midterm question"), titles(db.searchPosts("midterm", "All Threads", "bob")));
+
+        db.deletePost(exam.getPostID());
+        assertTrue(db.searchPosts("midterm", "All Threads", "bob").isEmpty());
+
+        db.closeConnection();
+        db = new Database(url);
+        db.connectToDatabase();
+        assertEquals(List.of("Posting guidelines"), titles(db.searchPosts("guidelines", "All Threads", "alice")));
+        assertTrue(db.searchPosts("midterm", "All Threads", "bob").isEmpty());
+        System.out.println("PASS: index follows edits, deletions and reconnects");
+    }
+}
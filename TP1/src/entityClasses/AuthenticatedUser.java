@@ -0,0 +1,52 @@
+package entityClasses;
+
+import java.util.EnumSet;
+
+import database.Database.Role;
+
+/**
+ * <p> Title: AuthenticatedUser Record </p>
+ *
+ * <p> Description: The account of a user whose password has just been checked, as
+ * Database.authenticate reads it: the profile fields and every role, from one lookup. It never
+ * changes and holds no password, so it can be passed between threads and kept for the session
+ * without going back to the database. </p>
+ *
+ * <p> Copyright: Lynn Robert Carter © 2025 </p>
+ *
+ * @version 1.00
+ */
+public record AuthenticatedUser(String userName, String firstName, String middleName, String lastName,
+        String preferredFirstName, String emailAddress, EnumSet<Role> roles) {
+
+    public AuthenticatedUser {
+        roles = EnumSet.copyOf(roles);
+    }
+
+    /**
+     * Returns the user's roles; the set is a copy.
+     */
+    @Override
+    public EnumSet<Role> roles() {
+        return EnumSet.copyOf(roles);
+    }
+
+    public boolean hasRole(Role role) {
+        return roles.contains(role);
+    }
+
+    public int numberOfRoles() {
+        return roles.size();
+    }
+
+    /**
+     * Makes the User the home pages are shown for. It has no password, as only a hash of the
+     * password is kept.
+     *
+     * @return The user.
+     */
+    public User toUser() {
+        return new User(userName, null, firstName, middleName, lastName, preferredFirstName, emailAddress,
+                roles.contains(Role.ADMIN), roles.contains(Role.STUDENT), roles.contains(Role.STAFF));
+    }
+}
@@ -42,6 +42,10 @@ public class Post {
     private String actionReason;          // why the action occurred
     private LocalDateTime actionTimestamp; // when the action occurred
 
+    // Reply counters kept on the post row
+    private LocalDateTime lastReplyTimestamp; // when the last reply was written; null if none
+    private int hiddenReplyCount;             // how many of the post's replies staff have hidden
+
 
     /**
      * <p> Constuctor: Post(int postID, String authorUsername, String title, String content, 
@@ -276,6 +280,34 @@ public class Post {
      */
     public LocalDateTime getActionTimestamp() { return actionTimestamp; }
 
+    /*****
+     * <p> Method: LocalDateTime getLastReplyTimestamp() </p>
+     * 
+     * <p> Description: This getter returns when the last reply to the post was written. </p>
+     * 
+     * @return a LocalDateTime of the last reply, or null if the post has no replies.
+     */
+    public LocalDateTime getLastReplyTimestamp() { return lastReplyTimestamp; }
+
+    /*****
+     * <p> Method: LocalDateTime getLastActivity() </p>
+     * 
+     * <p> Description: This getter returns when the post or one of its replies was last
+     * written, which the post list can be sorted by. </p>
+     * 
+     * @return a LocalDateTime of the last reply, or of the post if it has no replies.
+     */
+    public LocalDateTime getLastActivity() { return lastReplyTimestamp != null ? lastReplyTimestamp : timestamp; }
+
+    /*****
+     * <p> Method: int getHiddenReplyCount() </p>
+     * 
+     * <p> Description: This getter returns how many of the post's replies are hidden. </p>
+     * 
+     * @return an int with the number of hidden replies.
+     */
+    public int getHiddenReplyCount() { return hiddenReplyCount; }
+
     
     // Setters
     /*****
@@ -398,6 +430,37 @@ public class Post {
      */
     public void setActionTimestamp(LocalDateTime actionTimestamp) { this.actionTimestamp = actionTimestamp; }
 
+    /*****
+     * <p> Method: void setTimestamp(LocalDateTime timestamp) </p>
+     * 
+     * <p> Description: This setter defines the timestamp attribute, e.g. with the time a post
+     * loaded from the database was created. </p>
+     * 
+     * @param timestamp is a LocalDateTime that specifies the timestamp attribute.
+     * 
+     */
+    public void setTimestamp(LocalDateTime timestamp) { this.timestamp = timestamp; }
+
+    /*****
+     * <p> Method: void setLastReplyTimestamp(LocalDateTime lastReplyTimestamp) </p>
+     * 
+     * <p> Description: This setter defines when the last reply to the post was written. </p>
+     * 
+     * @param lastReplyTimestamp is a LocalDateTime of the last reply, or null if there is none.
+     * 
+     */
+    public void setLastReplyTimestamp(LocalDateTime lastReplyTimestamp) { this.lastReplyTimestamp = lastReplyTimestamp; }
+
+    /*****
+     * <p> Method: void setHiddenReplyCount(int hiddenReplyCount) </p>
+     * 
+     * <p> Description: This setter defines how many of the post's replies are hidden. </p>
+     * 
+     * @param hiddenReplyCount is an int with the number of hidden replies.
+     * 
+     */
+    public void setHiddenReplyCount(int hiddenReplyCount) { this.hiddenReplyCount = hiddenReplyCount; }
+
 
     /**
      * <p> Method: void addReply(Reply reply) </p>
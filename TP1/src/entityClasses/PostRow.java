@@ -0,0 +1,93 @@
+package entityClasses;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * <p> Title: PostRow Record </p>
+ *
+ * <p> Description: One row of the post list: what the list draws and sorts by, and nothing
+ * else. A Post carries its content, moderation details, three date objects and a reply list;
+ * the list keeps thousands of posts loaded and only ever shows one post's content, so it holds
+ * these rows instead and the selected post is read in full when it is selected.
+ *
+ * The author and thread names are interned, as a board has few of them and every row would
+ * otherwise keep its own copy. Times are microseconds since the epoch, the precision the
+ * database stores, so a page cursor taken from a row is exact; NO_TIME stands for none. The
+ * flags are packed into one byte. Rows never change: a change to a post replaces its row. </p>
+ *
+ * <p> Copyright: Lynn Robert Carter © 2025 </p>
+ *
+ * @version 1.00
+ */
+public record PostRow(int postID, String authorUsername, String title, String thread, long postedMicros,
+        long lastActivityMicros, int replyCount, int unreadReplyCount, byte flags) {
+
+    /** The time of a post that has none; sorts before every real time. */
+    public static final long NO_TIME = Long.MIN_VALUE;
+
+    public static final byte VIEWED = 1;
+    public static final byte VISIBLE = 2;
+    public static final byte DELETED = 4;
+
+    /**
+     * Makes the list row of a post as the session sees it.
+     *
+     * @param post The post, with its reply counts and read flag filled in.
+     * @return The row.
+     */
+    public static PostRow of(Post post) {
+        int flags = (post.isViewed() ? VIEWED : 0) | (post.isVisible() ? VISIBLE : 0)
+                | (post.isDeleted() ? DELETED : 0);
+        return new PostRow(post.getPostID(), intern(post.getAuthorUsername()), post.getTitle(),
+                intern(post.getThread()), toMicros(post.getTimestamp()), toMicros(post.getLastActivity()),
+                post.getReplyCount(), post.getUnreadReplyCount(), (byte) flags);
+    }
+
+    private static String intern(String s) {
+        return s == null ? null : s.intern();
+    }
+
+    public static long toMicros(LocalDateTime time) {
+        if (time == null)
+            return NO_TIME;
+        return ChronoUnit.MICROS.between(Instant.EPOCH, time.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    public static LocalDateTime toLocalDateTime(long micros) {
+        if (micros == NO_TIME)
+            return null;
+        return LocalDateTime.ofInstant(Instant.EPOCH.plus(micros, ChronoUnit.MICROS), ZoneId.systemDefault());
+    }
+
+    public boolean isViewed() { return (flags & VIEWED) != 0; }
+    public boolean isVisible() { return (flags & VISIBLE) != 0; }
+    public boolean isDeleted() { return (flags & DELETED) != 0; }
+
+    public LocalDateTime getTimestamp() { return toLocalDateTime(postedMicros); }
+    public LocalDateTime getLastActivity() { return toLocalDateTime(lastActivityMicros); }
+
+    /**
+     * Returns this row marked read or unread.
+     */
+    public PostRow withViewed(boolean viewed) {
+        byte changed = (byte) (viewed ? flags | VIEWED : flags & ~VIEWED);
+        return changed == flags ? this : new PostRow(postID, authorUsername, title, thread, postedMicros,
+                lastActivityMicros, replyCount, unreadReplyCount, changed);
+    }
+
+    /**
+     * Returns this row with another unread reply count.
+     */
+    public PostRow withUnreadReplyCount(int unread) {
+        return unread == unreadReplyCount ? this : new PostRow(postID, authorUsername, title, thread,
+                postedMicros, lastActivityMicros, replyCount, unread, flags);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s (%s) - Replies: %d (Unread: %d)", title, thread, replyCount, unreadReplyCount);
+    }
+}
@@ -0,0 +1,110 @@
+package entityClasses;
+
+import static org.junit.Assert.*;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * PostRowTest — automated JUnit tests for the rows of the post list.
+ *
+ * <p>Requirements covered:</p>
+ * <ul>
+ *   <li>R-ROW-01: A row shows a post the way the post itself did: title, thread, counts,
+ *       read, visible and deleted flags, and its times to the microsecond.</li>
+ *   <li>R-ROW-02: Changing a row's read flag or unread count gives a new row and leaves
+ *       the old one as it was.</li>
+ *   <li>R-ROW-03: A list of rows takes far less heap than the list of posts it was made
+ *       from.</li>
+ * </ul>
+ */
+public class PostRowTest {
+
+    private static final int LISTED = 20_000;
+
+    // A post as the list loads it: its own copies of every string, content of about forty
+    // words, a post time and a last reply time
+    private static Post loadedPost(int postID) {
+        StringBuilder content = new StringBuilder();
+        for (int w = 0; w < 40; w++)
+            content.append("word").append((postID + w) % 1000).append(' ');
+        Post post = new Post(postID, new String("user" + postID % 200), "Question " + postID + " about word",
+                content.toString(), new String("Thread " + postID % 10), false, postID % 2 == 0, 3, 1,
+                true, null, null, null);
+        post.setTimestamp(LocalDateTime.of(2025, 1, 1, 0, 0).plusMinutes(postID));
+        post.setLastReplyTimestamp(LocalDateTime.of(2025, 1, 1, 0, 0).plusMinutes(postID + 5));
+        return post;
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    @Test
+    public void testRowShowsThePost() {
+        Post post = new Post(7, "alice", "Title", "Body", "General", false, true, 4, 2,
+                false, "staff1", "spam", null);
+        LocalDateTime posted = LocalDateTime.of(2025, 3, 4, 5, 6, 7, 123_456_000);
+        post.setTimestamp(posted);
+        post.setLastReplyTimestamp(null);
+
+        PostRow row = PostRow.of(post);
+        assertEquals(7, row.postID());
+        assertEquals("alice", row.authorUsername());
+        assertEquals(post.toString(), row.toString());
+        assertTrue(row.isViewed());
+        assertFalse(row.isVisible());
+        assertFalse(row.isDeleted());
+        assertEquals(posted, row.getTimestamp());
+        assertEquals(posted, row.getLastActivity());
+        assertSame("General".intern(), row.thread());
+
+        post.setTimestamp(null);
+        assertEquals(PostRow.NO_TIME, PostRow.of(post).postedMicros());
+        assertNull(PostRow.of(post).getTimestamp());
+    }
+
+    @Test
+    public void testChangesMakeNewRows() {
+        PostRow row = PostRow.of(new Post(1, "alice", "Title", "Body", "General", false, false, 4, 2));
+        PostRow read = row.withViewed(true).withUnreadReplyCount(1);
+        assertFalse(row.isViewed());
+        assertEquals(2, row.unreadReplyCount());
+        assertTrue(read.isViewed());
+        assertTrue(read.isVisible());
+        assertEquals(1, read.unreadReplyCount());
+        assertSame(read, read.withViewed(true));
+    }
+
+    @Test
+    public void testRowsTakeLessHeap() throws Exception {
+        long before = usedHeap();
+        ArrayList<Post> posts = new ArrayList<>(LISTED);
+        for (int i = 0; i < LISTED; i++)
+            posts.add(loadedPost(i));
+        long postBytes = usedHeap() - before;
+
+        List<PostRow> rows = new ArrayList<>(LISTED);
+        for (Post post : posts)
+            rows.add(PostRow.of(post));
+        posts.clear();
+        posts.trimToSize();
+        long rowBytes = usedHeap() - before;
+
+        System.out.printf("Heap per listed post: Post %d bytes, PostRow %d bytes%n",
+                postBytes / LISTED, rowBytes / LISTED);
+        assertEquals(LISTED, rows.size());
+        // the row keeps the title, which the list draws; everything else it drops or shares
+        assertTrue("rows took " + rowBytes + " bytes, posts " + postBytes, rowBytes * 5 < postBytes);
+    }
+}
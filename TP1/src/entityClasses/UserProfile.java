@@ -0,0 +1,125 @@
+package entityClasses;
+
+import java.util.EnumSet;
+
+import database.Database.Role;
+
+/**
+ * <p> Title: UserProfile Record </p>
+ *
+ * <p> Description: A user's account details as Database.getUserProfile returns them: the name
+ * fields, the email address and the roles, without the password. A profile never changes;
+ * Database keeps the profiles it has read in a cache and replaces a cached profile with an
+ * updated copy when the account is changed through it, so a page can read a profile back after
+ * an edit without another query. </p>
+ *
+ * <p> Copyright: Lynn Robert Carter © 2025 </p>
+ *
+ * @version 1.00
+ */
+public record UserProfile(String userName, String firstName, String middleName, String lastName,
+        String preferredFirstName, String emailAddress, EnumSet<Role> roles) {
+
+    public UserProfile {
+        roles = EnumSet.copyOf(roles);
+    }
+
+    /**
+     * Returns the user's roles; the set is a copy.
+     */
+    @Override
+    public EnumSet<Role> roles() {
+        return EnumSet.copyOf(roles);
+    }
+
+    public boolean hasRole(Role role) {
+        return roles.contains(role);
+    }
+
+    /**
+     * Returns this profile with the given fields changed; fields the changes leave unset keep
+     * their values.
+     */
+    public UserProfile with(Changes changes) {
+        return new UserProfile(userName,
+                changes.firstName != null ? changes.firstName : firstName,
+                changes.middleName != null ? changes.middleName : middleName,
+                changes.lastName != null ? changes.lastName : lastName,
+                changes.preferredFirstName != null ? changes.preferredFirstName : preferredFirstName,
+                changes.emailAddress != null ? changes.emailAddress : emailAddress,
+                roles);
+    }
+
+    /**
+     * Returns this profile with a role given or taken away.
+     */
+    public UserProfile withRole(Role role, boolean has) {
+        EnumSet<Role> changed = EnumSet.copyOf(roles);
+        if (has)
+            changed.add(role);
+        else
+            changed.remove(role);
+        return new UserProfile(userName, firstName, middleName, lastName, preferredFirstName, emailAddress,
+                changed);
+    }
+
+    /**
+     * Makes a User with this profile's details and no password.
+     *
+     * @return The user.
+     */
+    public User toUser() {
+        return new User(userName, null, firstName, middleName, lastName, preferredFirstName, emailAddress,
+                roles.contains(Role.ADMIN), roles.contains(Role.STUDENT), roles.contains(Role.STAFF));
+    }
+
+    /**
+     * <p> Title: Changes Class </p>
+     *
+     * <p> Description: The fields of a profile edit, for Database.updateProfile. Only the fields
+     * that are set are written; an empty string clears a field. </p>
+     */
+    public static final class Changes {
+        private String firstName;
+        private String middleName;
+        private String lastName;
+        private String preferredFirstName;
+        private String emailAddress;
+
+        public Changes firstName(String value) {
+            firstName = value;
+            return this;
+        }
+
+        public Changes middleName(String value) {
+            middleName = value;
+            return this;
+        }
+
+        public Changes lastName(String value) {
+            lastName = value;
+            return this;
+        }
+
+        public Changes preferredFirstName(String value) {
+            preferredFirstName = value;
+            return this;
+        }
+
+        public Changes emailAddress(String value) {
+            emailAddress = value;
+            return this;
+        }
+
+        public String getFirstName() { return firstName; }
+        public String getMiddleName() { return middleName; }
+        public String getLastName() { return lastName; }
+        public String getPreferredFirstName() { return preferredFirstName; }
+        public String getEmailAddress() { return emailAddress; }
+
+        public boolean isEmpty() {
+            return firstName == null && middleName == null && lastName == null && preferredFirstName == null
+                    && emailAddress == null;
+        }
+    }
+}
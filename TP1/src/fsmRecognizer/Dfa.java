@@ -0,0 +1,181 @@
+package fsmRecognizer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p> Title: Dfa Class. </p>
+ *
+ * <p> Description: A deterministic finite state machine compiled into a transition table. The
+ * recognizers describe their FSM diagrams with a Builder, one transition per arrow, and the
+ * Builder groups the characters that every state treats the same way into character classes,
+ * giving a byte[] from character to class and an int[] from (state, class) to the next state.
+ *
+ * A Dfa is immutable once built, so one instance is shared by every caller on every thread, and
+ * run() allocates nothing: it walks the input from state 0 until the input ends or a character
+ * has no transition, and returns where it stopped packed into a long. Characters outside ASCII
+ * have no transitions in any state. </p>
+ *
+ * <p> Copyright: Lynn Robert Carter © 2025 </p>
+ *
+ * @version 1.00
+ */
+public final class Dfa {
+
+    private static final int ASCII = 128;
+
+    private final byte[] charClass;
+    private final int classCount;
+    private final int[] next;
+    private final boolean[] accepting;
+
+    private Dfa(byte[] charClass, int classCount, int[] next, boolean[] accepting) {
+        this.charClass = charClass;
+        this.classCount = classCount;
+        this.next = next;
+        this.accepting = accepting;
+    }
+
+    /**
+     * Runs the machine over the input from state 0.
+     *
+     * @param input The characters to recognize.
+     * @return The state the machine stopped in and the index of the first character it did not
+     *         consume; read them with state() and index().
+     */
+    public long run(CharSequence input) {
+        int state = 0;
+        int i = 0;
+        for (int n = input.length(); i < n; i++) {
+            char c = input.charAt(i);
+            int to = next[state * classCount + (c < ASCII ? charClass[c] : 0)];
+            if (to < 0)
+                break;
+            state = to;
+        }
+        return ((long) state << 32) | i;
+    }
+
+    /**
+     * @param halt A value returned by run().
+     * @return The state the machine stopped in.
+     */
+    public static int state(long halt) {
+        return (int) (halt >>> 32);
+    }
+
+    /**
+     * @param halt A value returned by run().
+     * @return The index of the first character the machine did not consume; the input's length
+     *         if it consumed all of it.
+     */
+    public static int index(long halt) {
+        return (int) halt;
+    }
+
+    /**
+     * @param state A state of this machine.
+     * @return true if the state is a final state.
+     */
+    public boolean isAccepting(int state) {
+        return accepting[state];
+    }
+
+    /**
+     * <p> Title: Builder Class. </p>
+     *
+     * <p> Description: Collects the transitions of an FSM diagram. Characters are given as
+     * strings of single characters and ranges, such as "A-Za-z0-9" or "._-"; a hyphen that does
+     * not sit between two characters stands for itself. </p>
+     */
+    public static final class Builder {
+        private final int[][] table;
+        private final boolean[] accepting;
+
+        /**
+         * @param states The number of states; state 0 is the initial state.
+         */
+        public Builder(int states) {
+            table = new int[states][ASCII];
+            for (int[] row : table)
+                Arrays.fill(row, -1);
+            accepting = new boolean[states];
+        }
+
+        /**
+         * Adds the transitions from one state to another on each of the given characters.
+         *
+         * @throws IllegalArgumentException if a character already has a transition from that
+         *                                  state, or is not ASCII.
+         */
+        public Builder on(int from, String chars, int to) {
+            for (int i = 0; i < chars.length(); i++) {
+                char low = chars.charAt(i);
+                char high = low;
+                if (i + 2 < chars.length() && chars.charAt(i + 1) == '-') {
+                    high = chars.charAt(i + 2);
+                    i += 2;
+                }
+                for (char c = low; c <= high; c++) {
+                    if (c >= ASCII)
+                        throw new IllegalArgumentException("Only ASCII characters can have transitions: " + c);
+                    if (table[from][c] >= 0 && table[from][c] != to)
+                        throw new IllegalArgumentException("State " + from + " already has a transition on " + c);
+                    table[from][c] = to;
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Marks a state as a final state.
+         */
+        public Builder accept(int state) {
+            accepting[state] = true;
+            return this;
+        }
+
+        /**
+         * @return The compiled machine.
+         */
+        public Dfa build() {
+            int states = table.length;
+            // Class 0 is for the characters no state has a transition on
+            byte[] charClass = new byte[ASCII];
+            Map<List<Integer>, Integer> classes = new HashMap<>();
+            List<int[]> columns = new ArrayList<>();
+            List<Integer> none = new ArrayList<>();
+            for (int s = 0; s < states; s++)
+                none.add(-1);
+            classes.put(none, 0);
+            columns.add(new int[states]);
+            Arrays.fill(columns.get(0), -1);
+
+            for (char c = 0; c < ASCII; c++) {
+                List<Integer> column = new ArrayList<>();
+                for (int s = 0; s < states; s++)
+                    column.add(table[s][c]);
+                Integer id = classes.get(column);
+                if (id == null) {
+                    id = classes.size();
+                    classes.put(column, id);
+                    int[] targets = new int[states];
+                    for (int s = 0; s < states; s++)
+                        targets[s] = table[s][c];
+                    columns.add(targets);
+                }
+                charClass[c] = (byte) (int) id;
+            }
+
+            int classCount = columns.size();
+            int[] next = new int[states * classCount];
+            for (int k = 0; k < classCount; k++)
+                for (int s = 0; s < states; s++)
+                    next[s * classCount + k] = columns.get(k)[s];
+            return new Dfa(charClass, classCount, next, accepting.clone());
+        }
+    }
+}
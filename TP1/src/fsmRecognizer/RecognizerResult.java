@@ -0,0 +1,29 @@
+package fsmRecognizer;
+
+/**
+ * <p> Title: RecognizerResult Record. </p>
+ *
+ * <p> Description: What a recognizer decided about its input. Valid input always gets the shared
+ * VALID result, so accepting input allocates nothing; a result with an error index and message is
+ * only made when the input is rejected. The message of VALID is the empty string, which is what
+ * the recognizers' older String methods return for valid input. </p>
+ *
+ * <p> Copyright: Lynn Robert Carter © 2025 </p>
+ *
+ * @param errorIndex The index of the character where the error was found; -1 if valid.
+ * @param message    A helpful description of the error; empty if valid.
+ *
+ * @version 1.00
+ */
+public record RecognizerResult(int errorIndex, String message) {
+
+    /** The result for every valid input. */
+    public static final RecognizerResult VALID = new RecognizerResult(-1, "");
+
+    /**
+     * @return true if the input was accepted.
+     */
+    public boolean isValid() {
+        return errorIndex < 0;
+    }
+}
@@ -0,0 +1,155 @@
+package fsmRecognizerTesting;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import emailAddressValidator.EmailAddressRecognizer;
+import fsmRecognizer.Dfa;
+import fsmRecognizer.RecognizerResult;
+import nameValidation.NameValidation;
+import userNameRecognizer.UserNameRecognizer;
+
+/**
+ * <p>
+ * Title: RecognizerTest
+ * </p>
+ *
+ * <p>
+ * Description: Checks the table-driven UserName, name and email address
+ * recognizers against the cases of their testing automation, and that they
+ * give the same answers when called from many threads at once.
+ * </p>
+ *
+ * <p>
+ * Requirements Checked:
+ * R-FSM-01: Valid input gets the shared VALID result.
+ * R-FSM-02: Invalid input gets the index of the error and a specific message.
+ * R-FSM-03: The recognizers may be called concurrently.
+ * R-FSM-04: Passwords are checked the same way without the GUI state.
+ * </p>
+ */
+public class RecognizerTest {
+
+    private static final String[] VALID_USERNAMES = { "bern3_ice-1", "BER123nice", "bern.i-ce", "Bern_ice" };
+    private static final String[] INVALID_USERNAMES = { "3bernice", "bern3ice_", "Bernice.-", "abc", "",
+            "abcdefghijklmnopq", "bern ice" };
+    private static final String[] VALID_NAMES = { "Freddy", "F", "F'r-eddy", "Fred dy", "Fu'Reddy-John IV" };
+    private static final String[] INVALID_NAMES = { "FreddyAlexanderBartholomewJavierJacobGeorgeTheFirst",
+            "Freddy'", "Freddy-", " Freddy", "", "Fr3ddy" };
+    private static final String[] VALID_EMAILS = { "emailUser@organization.com", "john.cena@domain.com",
+            "frank@company555.org", "bob@a-company.net", "clairo@go.company.co.in" };
+    private static final String[] INVALID_EMAILS = { "emailPerson", "abc.@yahoo.com", "user@.place.com",
+            "user@google..com", "user@company-.com", "person@google.com@", "" };
+
+    @Test
+    public void testValidInputGetsSharedResult() {
+        for (String s : VALID_USERNAMES)
+            assertSame(s, RecognizerResult.VALID, UserNameRecognizer.validate(s));
+        for (String s : VALID_NAMES)
+            assertSame(s, RecognizerResult.VALID, NameValidation.validate(s));
+        for (String s : VALID_EMAILS)
+            assertSame(s, RecognizerResult.VALID, EmailAddressRecognizer.validate(s));
+        // the testing automation compares the String result with != ""
+        assertSame("", UserNameRecognizer.checkForValidUserName("Bern_ice"));
+        assertSame("", NameValidation.checkForValidName("Freddy"));
+        assertSame("", EmailAddressRecognizer.checkEmailAddress("bob@a-company.net"));
+    }
+
+    @Test
+    public void testInvalidInputIsRejected() {
+        for (String s : INVALID_USERNAMES)
+            assertFalse(s, UserNameRecognizer.validate(s).isValid());
+        for (String s : INVALID_NAMES)
+            assertFalse(s, NameValidation.validate(s).isValid());
+        for (String s : INVALID_EMAILS)
+            assertFalse(s, EmailAddressRecognizer.validate(s).isValid());
+    }
+
+    @Test
+    public void testErrorIndexAndMessage() {
+        RecognizerResult r = UserNameRecognizer.validate("3bernice");
+        assertEquals(0, r.errorIndex());
+        assertTrue(r.message().contains("must start with A-Z or a-z"));
+
+        r = UserNameRecognizer.validate("bern3ice_");
+        assertEquals(9, r.errorIndex());
+        assertTrue(r.message().contains("after a period, minus sign, or underscore"));
+
+        r = UserNameRecognizer.validate("abc");
+        assertTrue(r.message().contains("at least 4 characters"));
+
+        r = UserNameRecognizer.validate("abcdefghijklmnopq");
+        assertEquals(16, r.errorIndex());
+        assertTrue(r.message().contains("no more than 16 characters"));
+
+        r = NameValidation.validate("Fr3ddy");
+        assertEquals(2, r.errorIndex());
+        assertTrue(r.message().contains("may only contain"));
+
+        r = EmailAddressRecognizer.validate("user@company-.com");
+        assertEquals(13, r.errorIndex());
+        assertTrue(r.message().contains("Hyphen must be followed"));
+
+        r = EmailAddressRecognizer.validate("person@google.com@");
+        assertEquals(17, r.errorIndex());
+        assertTrue(r.message().endsWith("person@google.com?\n"));
+    }
+
+    @Test
+    public void testPasswordValidation() {
+        assertSame(RecognizerResult.VALID, passwordPopUpWindow.Model.validate("Secret1!"));
+        RecognizerResult r = passwordPopUpWindow.Model.validate("Secret1");
+        assertEquals(7, r.errorIndex());
+        assertTrue(r.message().startsWith("Need a special character; Need at least 8 characters;"));
+        assertEquals(3, passwordPopUpWindow.Model.validate("Sec ret1!").errorIndex());
+        assertFalse(passwordPopUpWindow.Model.validate("").isValid());
+
+        assertEquals("", passwordPopUpWindow.Model.evaluatePassword("Secret1!"));
+        assertTrue(passwordPopUpWindow.Model.foundLongEnough);
+    }
+
+    @Test
+    public void testNonAsciiHasNoTransitions() {
+        Dfa dfa = new Dfa.Builder(1).on(0, "a-z", 0).accept(0).build();
+        long halt = dfa.run("abcé");
+        assertEquals(3, Dfa.index(halt));
+        assertEquals(0, Dfa.state(halt));
+        assertTrue(dfa.isAccepting(Dfa.state(halt)));
+    }
+
+    @Test
+    public void testConcurrentCallsAgree() throws Exception {
+        List<String> inputs = new ArrayList<>();
+        for (String[] group : new String[][] { VALID_USERNAMES, INVALID_USERNAMES })
+            inputs.addAll(List.of(group));
+        List<RecognizerResult> expected = new ArrayList<>();
+        for (String s : inputs)
+            expected.add(UserNameRecognizer.validate(s));
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> workers = new ArrayList<>();
+            for (int w = 0; w < 8; w++) {
+                workers.add(pool.submit(() -> {
+                    for (int round = 0; round < 10_000; round++) {
+                        int i = round % inputs.size();
+                        if (!expected.get(i).equals(UserNameRecognizer.validate(inputs.get(i))))
+                            return false;
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> worker : workers)
+                assertTrue(worker.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package guiAddRemoveRoles;
 
 import database.Database;
+import database.Database.Role;
+import entityClasses.UserProfile;
 import javafx.collections.FXCollections;
 import javafx.geometry.Pos;
 import javafx.scene.control.ComboBox;
@@ -32,7 +34,6 @@ public class ControllerAddRemoveRoles {
 	protected static void doSelectUser() {
 		ViewAddRemoveRoles.theSelectedUser = 
 				(String) ViewAddRemoveRoles.combobox_SelectUser.getValue();
-		theDatabase.getUserAccountDetails(ViewAddRemoveRoles.theSelectedUser);
 		setupSelectedUser();
 	}
 	
@@ -97,26 +98,32 @@ public class ControllerAddRemoveRoles {
 	private static void setupSelectedUser() {
 		System.out.println("*** Entering setupSelectedUser");
 		
+		// The selected user's profile; the role updates keep the cached copy up to date
+		UserProfile profile = theDatabase.getUserProfile(ViewAddRemoveRoles.theSelectedUser);
+		boolean isAdmin = profile != null && profile.hasRole(Role.ADMIN);
+		boolean isStudent = profile != null && profile.hasRole(Role.STUDENT);
+		boolean isStaff = profile != null && profile.hasRole(Role.STAFF);
+		
 		// Create the list of roles that could be added for the currently selected user (e.g., Do
 		// not show a role to add that the user already has!)
 		ViewAddRemoveRoles.addList.clear();
 		ViewAddRemoveRoles.addList.add("<Select a role>");
-		if (!theDatabase.getCurrentAdminRole())
+		if (!isAdmin)
 			ViewAddRemoveRoles.addList.add("Admin");
-		if (!theDatabase.getCurrentNewStudent())
+		if (!isStudent)
 			ViewAddRemoveRoles.addList.add("Student");
-		if (!theDatabase.getCurrentNewStaff())
+		if (!isStaff)
 			ViewAddRemoveRoles.addList.add("Staff");
 
 		// Create the list of roles that could be removed for the currently selected user (e.g., Do
 		// not show a role to remove that the user does not have!)
 		ViewAddRemoveRoles.removeList.clear();
 		ViewAddRemoveRoles.removeList.add("<Select a role>");
-		if (theDatabase.getCurrentAdminRole())
+		if (isAdmin)
 			ViewAddRemoveRoles.removeList.add("Admin");
-		if (theDatabase.getCurrentNewStudent())
+		if (isStudent)
 			ViewAddRemoveRoles.removeList.add("Student");
-		if (theDatabase.getCurrentNewStaff())
+		if (isStaff)
 			ViewAddRemoveRoles.removeList.add("Staff");
 		
 		// Create the list or roles that the user currently has with proper use of a comma between
@@ -125,13 +132,13 @@ public class ControllerAddRemoveRoles {
 		String theCurrentRoles = "";
 		
 		// Admin role - It can only be at the head of a list
-		if (theDatabase.getCurrentAdminRole()) {
+		if (isAdmin) {
 			theCurrentRoles += "Admin";
 			notTheFirst = true;
 		}
 		
 		// Roles 1 - It could be at the head of the list or later in the list
-		if (theDatabase.getCurrentNewStudent()) {
+		if (isStudent) {
 			if (notTheFirst)
 				theCurrentRoles += ", Student"; 
 			else {
@@ -141,7 +148,7 @@ public class ControllerAddRemoveRoles {
 		}
 
 		// Roles 2 - It could be at the head of the list or later in the list
-		if (theDatabase.getCurrentNewStaff()) {
+		if (isStaff) {
 			if (notTheFirst)
 				theCurrentRoles += ", Staff"; 
 			else {
@@ -279,6 +286,7 @@ public class ControllerAddRemoveRoles {
 	 * 
 	 */
 	protected static void performLogout() {
+		theDatabase.flushReadMarks();
 		guiUserLogin.ViewUserLogin.displayUserLogin(ViewAddRemoveRoles.theStage);
 	}
 	
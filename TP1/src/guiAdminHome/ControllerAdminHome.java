@@ -1,6 +1,9 @@
 package guiAdminHome;
 
+import database.ArchiveExporter;
+import database.AsyncDatabase;
 import database.Database;
+import database.UserImporter;
 import emailAddressValidator.EmailAddressRecognizer;
 import javafx.scene.control.Label;
 import guiListUsers.ViewListUsers;
@@ -12,6 +15,17 @@ import java.util.ArrayList;
 import java.util.Optional;
 import javafx.scene.control.ButtonType;
 import javafx.scene.control.ChoiceDialog;
+import javafx.stage.DirectoryChooser;
+import javafx.stage.FileChooser;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import javafx.application.Platform;
 
 
 /*******
@@ -36,6 +50,10 @@ public class ControllerAdminHome {
     
     private static Database theDatabase = applicationMain.FoundationsMain.database;
 
+    // Runs the long admin jobs (import, export) off the JavaFX Application Thread and hands
+    // their results back to it
+    private static AsyncDatabase theAsyncDatabase = new AsyncDatabase(theDatabase, Platform::runLater);
+
     /**
      * Handles the "Send Invitation" button action. It validates the email, checks for selected roles,
      * generates an invitation code via the database, and displays a confirmation message.
@@ -236,6 +254,133 @@ public class ControllerAdminHome {
                 ViewAdminHome.theUser);
     }
     
+    /**
+     * Handles the "Import Users" button action. It asks for a CSV or JSON file of accounts,
+     * imports it in the background, and tells the admin how many accounts were created. The
+     * rejected rows are written next to the file as a CSV report, and the first few are shown.
+     */
+    protected static void importUsers() {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Import Users");
+        chooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("CSV or JSON", "*.csv", "*.json", "*.ndjson"),
+                new FileChooser.ExtensionFilter("All Files", "*.*"));
+        File file = chooser.showOpenDialog(ViewAdminHome.theStage);
+        if (file == null) {
+            return;
+        }
+
+        // every row is hashed, so a class list takes minutes; the window stays responsive
+        ViewAdminHome.button_ImportUsers.setDisable(true);
+        theAsyncDatabase.submit(db -> {
+            try {
+                return new UserImporter(db).importFile(file.toPath());
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }).whenCompleteAsync((report, error) -> {
+            ViewAdminHome.button_ImportUsers.setDisable(false);
+            if (error != null) {
+                showImportError(cause(error));
+                return;
+            }
+            showImportReport(file, report);
+        }, Platform::runLater);
+    }
+
+    private static void showImportError(Throwable e) {
+        e.printStackTrace();
+        Alert a = new Alert(AlertType.ERROR);
+        a.setTitle("*** ERROR ***");
+        a.setHeaderText("The file could not be imported");
+        a.setContentText(e.getMessage());
+        a.showAndWait();
+        ViewAdminHome.label_NumberOfUsers.setText("Number of users: " + theDatabase.getNumberOfUsers());
+    }
+
+    private static void showImportReport(File file, UserImporter.Report report) {
+        StringBuilder msg = new StringBuilder("Accounts created: " + report.getImported()
+                + "\nRows rejected: " + report.getRejected());
+        if (report.getRejected() > 0) {
+            Path reportFile = file.toPath().resolveSibling(file.getName() + ".errors.csv");
+            try (Writer out = Files.newBufferedWriter(reportFile)) {
+                report.writeTo(out);
+                msg.append("\nThe rejected rows are listed in ").append(reportFile);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            msg.append("\n");
+            for (UserImporter.RowError error : report.getErrors().subList(0, Math.min(10, report.getRejected()))) {
+                msg.append("\nRow ").append(error.row()).append(": ").append(error.message());
+            }
+        }
+        System.out.println(msg);
+
+        Label label = new Label(msg.toString());
+        label.setWrapText(true);
+        label.setMaxWidth(500);
+        Alert done = new Alert(AlertType.INFORMATION);
+        done.setTitle("Import Users");
+        done.setHeaderText("Import finished");
+        done.getDialogPane().setContent(label);
+        done.showAndWait();
+
+        ViewAdminHome.label_NumberOfUsers.setText("Number of users: " + theDatabase.getNumberOfUsers());
+    }
+
+    /**
+     * Handles the "Export Archive" button action. It asks for a folder and, in the background,
+     * writes the posts, replies, moderation log, admin requests and grading parameters into it
+     * as gzipped NDJSON files, one per table, then tells the admin how many rows each file holds.
+     */
+    protected static void exportArchive() {
+        DirectoryChooser chooser = new DirectoryChooser();
+        chooser.setTitle("Export Archive");
+        File directory = chooser.showDialog(ViewAdminHome.theStage);
+        if (directory == null) {
+            return;
+        }
+
+        ViewAdminHome.button_ExportArchive.setDisable(true);
+        theAsyncDatabase.submit(db -> {
+            try {
+                return new ArchiveExporter(db).exportAll(directory.toPath(), ArchiveExporter.Format.NDJSON, true);
+            } catch (IOException | SQLException e) {
+                throw new CompletionException(e);
+            }
+        }).whenCompleteAsync((counts, error) -> {
+            ViewAdminHome.button_ExportArchive.setDisable(false);
+            if (error != null) {
+                Throwable e = cause(error);
+                e.printStackTrace();
+                Alert a = new Alert(AlertType.ERROR);
+                a.setTitle("*** ERROR ***");
+                a.setHeaderText("The archive could not be exported");
+                a.setContentText(e.getMessage());
+                a.showAndWait();
+                return;
+            }
+
+            StringBuilder msg = new StringBuilder("The archive was written to " + directory);
+            for (Map.Entry<ArchiveExporter.Table, Long> count : counts.entrySet()) {
+                msg.append("\n").append(count.getKey().getFileName()).append(": ").append(count.getValue())
+                        .append(" rows");
+            }
+            System.out.println(msg);
+
+            Alert done = new Alert(AlertType.INFORMATION);
+            done.setTitle("Export Archive");
+            done.setHeaderText("Export finished");
+            done.setContentText(msg.toString());
+            done.showAndWait();
+        }, Platform::runLater);
+    }
+
+    // The exception a background job failed with, without the future's wrapper
+    private static Throwable cause(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
     /**
      * A helper method to check if an email address is empty and show an alert if it is.
      * @param emailAddress The email address string to check.
@@ -255,6 +400,7 @@ public class ControllerAdminHome {
      * Handles the "Logout" button action. It returns the user to the login screen.
      */
     protected static void performLogout() {
+        theDatabase.flushReadMarks();
         guiUserLogin.ViewUserLogin.displayUserLogin(ViewAdminHome.theStage);
     }
     
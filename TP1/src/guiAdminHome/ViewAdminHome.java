@@ -56,6 +56,8 @@ public class ViewAdminHome {
 	protected static Button button_ListUsers = new Button("List All Users");
 	protected static Button button_AddRemoveRoles = new Button("Add/Remove Roles");
 	protected static Button button_AdminRequests = new Button("Ticketing / Requests"); // NEW BUTTON
+	protected static Button button_ImportUsers = new Button("Import Users");
+	protected static Button button_ExportArchive = new Button("Export Archive");
 	protected static Alert alertNotImplemented = new Alert(AlertType.INFORMATION);
 
 	private static Line line_Separator4 = new Line(20, 525, width - 20, 525);
@@ -88,7 +90,6 @@ public class ViewAdminHome {
 		// has just been assigned from the 'user' parameter passed into this method.
 		label_UserDetails.setText("User: " + theUser.getUserName());
 
-		theDatabase.getUserAccountDetails(user.getUserName());
 		applicationMain.FoundationsMain.activeHomePage = theRole;
 
 		theStage.setTitle("CSE 360 Foundation Code: Admin Home Page");
@@ -167,6 +168,16 @@ public class ViewAdminHome {
 			ControllerAdminHome.addRemoveRoles();
 		});
 
+		setupButtonUI(button_ExportArchive, "Dialog", 16, 250, Pos.CENTER, 300, 370);
+		button_ExportArchive.setOnAction((event) -> {
+			ControllerAdminHome.exportArchive();
+		});
+
+		setupButtonUI(button_ImportUsers, "Dialog", 16, 250, Pos.CENTER, 300, 420);
+		button_ImportUsers.setOnAction((event) -> {
+			ControllerAdminHome.importUsers();
+		});
+
 		setupButtonUI(button_AdminRequests, "Dialog", 16, 250, Pos.CENTER, 300, 470);
 		button_AdminRequests.setOnAction((event) -> {
 			guiAdminRequests.View.display(theStage, theUser);
@@ -195,6 +206,8 @@ public class ViewAdminHome {
 				button_DeleteUser,
 				button_ListUsers,
 				button_AddRemoveRoles,
+				button_ExportArchive,
+				button_ImportUsers,
 				button_AdminRequests,
 				line_Separator4,
 				button_Logout,
@@ -1,7 +1,11 @@
 package guiDiscussions;
 
+import database.AsyncDatabase;
+import database.ChangeEvent;
+import database.ChangePoller;
 import database.Database;
 import entityClasses.Post;
+import entityClasses.PostRow;
 import entityClasses.Reply;
 import guiStudent.ViewStudentHome;
 import javafx.application.Platform;
@@ -11,12 +15,22 @@ import javafx.scene.control.Alert;
 import javafx.scene.control.ButtonType;
 import javafx.scene.control.ChoiceDialog;
 import javafx.scene.control.DialogPane;
+import javafx.scene.control.IndexedCell;
+import javafx.scene.control.ListView;
 import javafx.scene.control.TextArea;
 import javafx.scene.control.TextInputDialog;
+import javafx.scene.control.skin.VirtualFlow;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -42,6 +56,109 @@ public class ControllerDiscussions {
     // variable for database
     public static Database theDatabase = applicationMain.FoundationsMain.database;
 
+    // Runs the database calls off the JavaFX Application Thread and hands the
+    // results back to it, so the window keeps responding during a load
+    protected static AsyncDatabase theAsyncDatabase = new AsyncDatabase(theDatabase, Platform::runLater);
+
+    // The newest post-list and reply-list loads. Starting a new load drops the
+    // result of the one it replaces, e.g. when the user clicks another post.
+    private static final AsyncDatabase.Latest postsRequest = theAsyncDatabase.newLatest();
+    private static final AsyncDatabase.Latest repliesRequest = theAsyncDatabase.newLatest();
+
+    // The full post list is loaded a page at a time as the user scrolls down
+    private static final int POST_PAGE_SIZE = 50;
+
+    // True while the list shows the paged board and older posts are still unloaded;
+    // search results and the My Posts / Unread filters are not paged
+    private static boolean morePostsToLoad = false;
+
+    // True while the list shows the board rather than search results or a filter, so posts
+    // created since it loaded belong in it
+    private static boolean showingBoard = false;
+
+    // The order the board is listed in, chosen with the sort box
+    private static Database.PostOrder postOrder = Database.PostOrder.NEWEST;
+
+    // True while mergePosts moves posts around, so the selection changes it causes
+    // do not count as the user selecting a post
+    private static boolean mergingPosts = false;
+
+    // The selected post read in full, with its content; the list only holds rows. Null
+    // while it loads.
+    private static Post selectedContent = null;
+
+    // The newest change in the change feed that the post list reflects; read by the
+    // live refresh poller's thread
+    private static volatile long changeSeq = 0;
+
+    // True while the reply list shows every reply of the selected post rather than
+    // only the unread ones
+    private static boolean showingAllReplies = false;
+
+    // Polls the change feed while the view is open; see startLiveRefresh
+    private static final long LIVE_REFRESH_MILLIS = 3_000;
+    private static ChangePoller livePoller;
+
+    // Further behind the change feed than this, a full reload is cheaper than patching
+    private static final int MAX_CHANGES_APPLIED = 200;
+
+    /**
+     * The posts and thread titles loaded together for a full refresh of the view.
+     */
+    private static class BoardSnapshot {
+        final long changeSeq;
+        final List<PostRow> posts;
+        final List<String> threadTitles;
+
+        BoardSnapshot(long changeSeq, List<PostRow> posts, List<String> threadTitles) {
+            this.changeSeq = changeSeq;
+            this.posts = posts;
+            this.threadTitles = threadTitles;
+        }
+    }
+
+    /**
+     * The posts named by a run of change events, read again as the session sees them.
+     * The posts are read in full, so the selected one's content can be shown again.
+     */
+    private static class BoardDelta {
+        final long changeSeq;
+        final LinkedHashSet<Integer> changedPostIDs;
+        final List<Post> posts;
+        final List<String> threadTitles;
+        final List<Reply> selectedReplies;
+
+        BoardDelta(long changeSeq, LinkedHashSet<Integer> changedPostIDs, List<Post> posts,
+                List<String> threadTitles, List<Reply> selectedReplies) {
+            this.changeSeq = changeSeq;
+            this.changedPostIDs = changedPostIDs;
+            this.posts = posts;
+            this.threadTitles = threadTitles;
+            this.selectedReplies = selectedReplies;
+        }
+    }
+
+    /**
+     * A selected post read in full, with the replies the session may see.
+     */
+    private static class SelectedPost {
+        final Post post;
+        final List<Reply> replies;
+
+        SelectedPost(Post post, List<Reply> replies) {
+            this.post = post;
+            this.replies = replies;
+        }
+    }
+
+    // The list rows of loaded posts; the posts themselves, with their content, are dropped
+    private static List<PostRow> toRows(List<Post> posts) {
+        List<PostRow> rows = new ArrayList<>(posts.size());
+        for (Post post : posts)
+            rows.add(PostRow.of(post));
+        return rows;
+    }
+
     /*****
      * <p>
      * Method: boolean isCurrentUserStudent()
@@ -83,75 +200,538 @@ public class ControllerDiscussions {
      * 
      */
     protected static void initializeView() {
-        // loads all the posts
-        List<Post> posts = theDatabase.getAllPosts(ViewDiscussions.theUser.getUserName());
-        List<Post> adjustedPosts = new ArrayList<>();
-
-        // Students should only see visible posts
-        if (isCurrentUserStudent()) {
-            posts = posts.stream()
-                    .filter(Post::isVisible)
-                    .collect(Collectors.toList());
-        }
-
-        for (Post p : posts) {
-            // fetch all replies then filter by session visibility
-            List<Reply> allReplies = theDatabase.getRepliesForPost(p.getPostID(),
-                    ViewDiscussions.theUser.getUserName());
-            List<Reply> visibleReplies = allReplies.stream()
-                    .filter(r -> isReplyVisibleToCurrentSession(r))
-                    .collect(java.util.stream.Collectors.toList());
-
-            int visibleReplyCount = visibleReplies.size();
-            int visibleUnreadCount = (int) visibleReplies.stream().filter(r -> !r.isViewed()).count();
-
-            p.setReplyCount(visibleReplyCount);
-            p.setUnreadReplyCount(visibleUnreadCount);
-            adjustedPosts.add(p);
-        }
-
-        ObservableList<Post> observablePosts = FXCollections.observableArrayList(posts);
-        ViewDiscussions.listView_Posts.setItems(observablePosts);
-
         // Clear selection
         ViewDiscussions.listView_Posts.getSelectionModel().clearSelection();
         ViewDiscussions.textArea_PostContent.clear();
         ViewDiscussions.listView_Replies.getItems().clear();
 
-        // REFRESH THREAD LIST
+        refreshPosts(-1);
+        startLiveRefresh();
+    }
+
+    /**
+     * <p>
+     * Method: void refreshPosts(int keepPostID)
+     * </p>
+     *
+     * <p>
+     * Description: Reloads the first page of posts, with their reply counts, and
+     * the thread list in the background, then shows them. As many posts as are
+     * already listed are reloaded, so the list does not shrink under the user. If
+     * the post with the given ID is still listed it is selected again.
+     * </p>
+     *
+     * @param keepPostID The post to reselect after the reload, or -1 for none.
+     */
+    private static void refreshPosts(int keepPostID) {
+        // Read the session on the FX thread; the worker only talks to the database
+        String username = ViewDiscussions.theUser.getUserName();
+        Database.Role sessionRole = currentSessionRole();
         boolean isStaffOrAdmin = isCurrentUserStaffOrAdmin();
-        List<String> threadTitles;
-        if (isStaffOrAdmin) {
-            threadTitles = theDatabase.getAllThreadTitles();
-        } else {
-            threadTitles = theDatabase.getVisibleThreadTitles();
-        }
+        int listed = ViewDiscussions.listView_Posts.getItems() == null ? 0
+                : ViewDiscussions.listView_Posts.getItems().size();
+        int limit = Math.max(POST_PAGE_SIZE, listed);
+        Database.PostOrder order = postOrder;
+
+        loadPosts(theAsyncDatabase.submit(db -> {
+            // read the feed position first: a change made during the load is applied
+            // again later, which is harmless, rather than missed
+            long seq = db.getLatestChangeSeq();
+
+            // loads the newest posts with their visible reply counts; students never
+            // get hidden posts
+            List<PostRow> posts = toRows(db.getPostsPage(username, sessionRole, null, order, null, 0, limit));
+
+            List<String> threadTitles = isStaffOrAdmin ? db.getAllThreadTitles() : db.getVisibleThreadTitles();
+            return new BoardSnapshot(seq, posts, threadTitles);
+        }), board -> {
+            ObservableList<PostRow> observablePosts = FXCollections.observableArrayList(board.posts);
+            ViewDiscussions.listView_Posts.setItems(observablePosts);
+            morePostsToLoad = board.posts.size() == limit;
+            showingBoard = true;
+            changeSeq = board.changeSeq;
+
+            showThreadTitles(board.threadTitles);
+
+            for (PostRow p : board.posts) {
+                if (p.postID() == keepPostID) {
+                    ViewDiscussions.listView_Posts.getSelectionModel().select(p);
+                    break;
+                }
+            }
+            updatePostSummary();
+            updateReplySummary();
+        });
+    }
+
+    /**
+     * <p>
+     * Method: void showThreadTitles(List&lt;String&gt; threadTitles)
+     * </p>
+     *
+     * <p>
+     * Description: Puts the thread titles in the thread filter, keeping the
+     * selected thread if it is still there.
+     * </p>
+     *
+     * @param threadTitles The titles, starting with "All Threads".
+     */
+    private static void showThreadTitles(List<String> threadTitles) {
+        // REFRESH THREAD LIST
+        String selected = ViewDiscussions.comboBox_Threads.getValue();
         ViewDiscussions.comboBox_Threads.getItems().setAll(threadTitles);
-        // Reselect the first item if nothing is selected or if the previous selection
+        // Reselect the first item if nothing was selected or if the previous selection
         // is gone
-        if (ViewDiscussions.comboBox_Threads.getSelectionModel().isEmpty() ||
-                !threadTitles.contains(ViewDiscussions.comboBox_Threads.getValue())) {
+        if (selected == null || !threadTitles.contains(selected)) {
             ViewDiscussions.comboBox_Threads.getSelectionModel().selectFirst();
+        } else {
+            ViewDiscussions.comboBox_Threads.getSelectionModel().select(selected);
         }
-        updatePostSummary();
-        updateReplySummary();
     }
 
     /**
      * <p>
-     * Method: void postSelected(Post selectedPost)
+     * Method: void applyChanges()
+     * </p>
+     *
+     * <p>
+     * Description: Brings the view up to date with the change feed after one of
+     * the user's own changes, showing the loading state meanwhile.
+     * </p>
+     *
+     */
+    protected static void applyChanges() {
+        applyChanges(true);
+    }
+
+    /**
+     * <p>
+     * Method: void applyChanges(boolean showLoading)
+     * </p>
+     *
+     * <p>
+     * Description: Brings the view up to date with the change feed instead of
+     * reloading it. The posts named by the changes since the list was loaded are
+     * read again and updated in place, removed if the session may no longer see
+     * them, and, on the board, inserted in order if they are new. If the selected
+     * post changed, its content is shown again and its replies are merged into the
+     * reply list. Selections and scroll positions are kept. A renamed thread
+     * retags many posts at once, so it, and falling too far behind the feed, leads
+     * to a full refresh instead.
+     * </p>
+     *
+     * @param showLoading Whether to show the loading state; the live refresh does
+     *                    not.
+     */
+    private static void applyChanges(boolean showLoading) {
+        String username = ViewDiscussions.theUser.getUserName();
+        Database.Role sessionRole = currentSessionRole();
+        boolean isStaffOrAdmin = isCurrentUserStaffOrAdmin();
+        boolean isStudent = isCurrentUserStudent();
+        PostRow selected = ViewDiscussions.listView_Posts.getSelectionModel().getSelectedItem();
+        int selectedPostID = selected == null ? -1 : selected.postID();
+        long since = changeSeq;
+
+        CompletableFuture<BoardDelta> request = theAsyncDatabase.submit(db -> {
+            List<ChangeEvent> changes = db.getChangesSince(since, MAX_CHANGES_APPLIED);
+            if (changes.size() == MAX_CHANGES_APPLIED)
+                return null;
+            LinkedHashSet<Integer> postIDs = new LinkedHashSet<>();
+            boolean threadsChanged = false;
+            for (ChangeEvent change : changes) {
+                if (change.kind() == ChangeEvent.Kind.THREAD_UPDATED)
+                    return null;
+                if (change.kind().isThreadChange())
+                    threadsChanged = true;
+                else
+                    postIDs.add(change.postID());
+            }
+            List<Post> posts = db.getPosts(username, sessionRole, new ArrayList<>(postIDs));
+            List<String> threadTitles = !threadsChanged ? null
+                    : isStaffOrAdmin ? db.getAllThreadTitles() : db.getVisibleThreadTitles();
+            List<Reply> selectedReplies = !postIDs.contains(selectedPostID) ? null
+                    : visibleReplies(db.getRepliesForPost(selectedPostID, username), isStudent);
+            long seq = changes.isEmpty() ? since : changes.get(changes.size() - 1).seq();
+            return new BoardDelta(seq, postIDs, posts, threadTitles, selectedReplies);
+        });
+
+        Consumer<BoardDelta> show = delta -> {
+            if (delta == null) {
+                PostRow current = ViewDiscussions.listView_Posts.getSelectionModel().getSelectedItem();
+                refreshPosts(current == null ? -1 : current.postID());
+                return;
+            }
+            changeSeq = Math.max(changeSeq, delta.changeSeq);
+            mergePosts(delta);
+            if (delta.threadTitles != null)
+                showThreadTitles(delta.threadTitles);
+
+            PostRow current = ViewDiscussions.listView_Posts.getSelectionModel().getSelectedItem();
+            if (current != null && current.postID() == selectedPostID && delta.selectedReplies != null) {
+                for (Post p : delta.posts) {
+                    if (p.getPostID() == selectedPostID) {
+                        selectedContent = p;
+                        showPostContent(p);
+                    }
+                }
+                mergeReplies(delta.selectedReplies);
+            }
+            updatePostSummary();
+            updateReplySummary();
+        };
+
+        if (showLoading)
+            loadPosts(request, show);
+        else
+            postsRequest.replace(request, show);
+    }
+
+    /**
+     * <p>
+     * Method: void mergePosts(BoardDelta delta)
+     * </p>
+     *
+     * <p>
+     * Description: Patches the listed posts with a delta. Listed posts the delta
+     * names are updated in place, or removed when it has no copy of them. On the
+     * board, the other posts it carries are inserted in board order, unless they
+     * fall after the loaded pages; sorted by last activity, updated posts are also
+     * moved to where their new activity puts them. The selected post stays
+     * selected and the post at the top of the list stays at the top.
+     * </p>
+     *
+     * @param delta The posts to patch in.
+     */
+    private static void mergePosts(BoardDelta delta) {
+        ListView<PostRow> list = ViewDiscussions.listView_Posts;
+        ObservableList<PostRow> items = list.getItems();
+        int top = firstVisibleIndex(list);
+        int topPostID = top >= 0 && top < items.size() ? items.get(top).postID() : -1;
+        PostRow selected = list.getSelectionModel().getSelectedItem();
+        int selectedPostID = selected == null ? -1 : selected.postID();
+        boolean byActivity = showingBoard && postOrder == Database.PostOrder.LAST_ACTIVITY;
+        Comparator<PostRow> order = boardOrder();
+
+        Map<Integer, PostRow> fresh = new HashMap<>();
+        for (Post p : delta.posts)
+            fresh.put(p.getPostID(), PostRow.of(p));
+
+        mergingPosts = true;
+        try {
+            List<PostRow> toInsert = new ArrayList<>();
+            for (int i = items.size() - 1; i >= 0; i--) {
+                PostRow listed = items.get(i);
+                if (!delta.changedPostIDs.contains(listed.postID()))
+                    continue;
+                PostRow updated = fresh.remove(listed.postID());
+                if (updated == null) {
+                    items.remove(i);
+                } else if (byActivity) {
+                    items.remove(i);
+                    toInsert.add(updated);
+                } else {
+                    items.set(i, updated);
+                }
+            }
+            if (showingBoard)
+                toInsert.addAll(fresh.values());
+
+            for (PostRow p : toInsert) {
+                int at = 0;
+                while (at < items.size() && order.compare(items.get(at), p) < 0)
+                    at++;
+                if (at < items.size() || !morePostsToLoad)
+                    items.add(at, p);
+            }
+            int selectedNow = indexOfPost(items, selectedPostID);
+            if (selectedNow >= 0)
+                list.getSelectionModel().select(selectedNow);
+        } finally {
+            mergingPosts = false;
+        }
+
+        list.refresh();
+        int topNow = indexOfPost(items, topPostID);
+        if (topNow >= 0 && topNow != top)
+            list.scrollTo(topNow);
+        // the selected post is gone, so show whatever the list selected instead
+        PostRow selectedNow = list.getSelectionModel().getSelectedItem();
+        if ((selectedNow == null ? -1 : selectedNow.postID()) != selectedPostID)
+            postSelected(selectedNow);
+    }
+
+    // The index of the listed row of a post, or -1
+    private static int indexOfPost(List<PostRow> items, int postID) {
+        for (int i = 0; i < items.size(); i++) {
+            if (items.get(i).postID() == postID)
+                return i;
+        }
+        return -1;
+    }
+
+    // Puts a changed row in place of the listed row of the same post, keeping the selection
+    private static void replaceRow(PostRow row) {
+        ListView<PostRow> list = ViewDiscussions.listView_Posts;
+        int at = indexOfPost(list.getItems(), row.postID());
+        if (at < 0)
+            return;
+        boolean wasSelected = list.getSelectionModel().getSelectedIndex() == at;
+        mergingPosts = true;
+        try {
+            list.getItems().set(at, row);
+            if (wasSelected)
+                list.getSelectionModel().select(at);
+        } finally {
+            mergingPosts = false;
+        }
+    }
+
+    /**
+     * <p>
+     * Method: void mergeReplies(List&lt;Reply&gt; replies)
+     * </p>
+     *
+     * <p>
+     * Description: Patches the reply list of the selected post with its current
+     * replies: changed ones are replaced, deleted ones removed and, unless only
+     * the unread replies are shown, new ones inserted in order. The selected reply
+     * and the reply at the top of the list are kept.
+     * </p>
+     *
+     * @param replies The post's replies as the session sees them, in list order.
+     */
+    private static void mergeReplies(List<Reply> replies) {
+        ListView<Reply> list = ViewDiscussions.listView_Replies;
+        ObservableList<Reply> items = list.getItems();
+        Reply selectedReply = list.getSelectionModel().getSelectedItem();
+        int top = firstVisibleIndex(list);
+        int topReplyID = top >= 0 && top < items.size() ? items.get(top).getReplyID() : -1;
+
+        Map<Integer, Reply> fresh = new HashMap<>();
+        for (Reply r : replies)
+            fresh.put(r.getReplyID(), r);
+        for (int i = items.size() - 1; i >= 0; i--) {
+            Reply updated = fresh.get(items.get(i).getReplyID());
+            if (updated == null)
+                items.remove(i);
+            else
+                items.set(i, updated);
+        }
+        // what is left is in list order, so the new replies go where the lists first differ
+        if (showingAllReplies) {
+            for (int j = 0; j < replies.size(); j++) {
+                if (j >= items.size() || items.get(j).getReplyID() != replies.get(j).getReplyID())
+                    items.add(j, replies.get(j));
+            }
+        }
+
+        for (int i = 0; i < items.size(); i++) {
+            Reply r = items.get(i);
+            if (selectedReply != null && r.getReplyID() == selectedReply.getReplyID()
+                    && list.getSelectionModel().getSelectedItem() != r)
+                list.getSelectionModel().select(i);
+            if (r.getReplyID() == topReplyID && i != top)
+                list.scrollTo(i);
+        }
+    }
+
+    // The index of the first row a list shows, or -1 before it has been laid out
+    private static int firstVisibleIndex(ListView<?> list) {
+        if (list.lookup(".virtual-flow") instanceof VirtualFlow<?> flow) {
+            IndexedCell<?> cell = flow.getFirstVisibleCell();
+            if (cell != null)
+                return cell.getIndex();
+        }
+        return -1;
+    }
+
+    // The board orders: newest first, or most recent post or reply first, posts
+    // without a time last and ties broken by postID, as getPostsPage lists them
+    // (NO_TIME is smaller than every time)
+    private static final Comparator<PostRow> NEWEST_FIRST = Comparator
+            .comparingLong(PostRow::postedMicros)
+            .thenComparingInt(PostRow::postID)
+            .reversed();
+    private static final Comparator<PostRow> LAST_ACTIVITY_FIRST = Comparator
+            .comparingLong(PostRow::lastActivityMicros)
+            .thenComparingInt(PostRow::postID)
+            .reversed();
+
+    private static Comparator<PostRow> boardOrder() {
+        return postOrder == Database.PostOrder.LAST_ACTIVITY ? LAST_ACTIVITY_FIRST : NEWEST_FIRST;
+    }
+
+    /**
+     * <p>
+     * Method: void changeSortOrder()
+     * </p>
+     *
+     * <p>
+     * Description: Lists the board in the order chosen in the sort box: newest
+     * posts first, or the posts with the most recent activity first.
+     * </p>
+     *
+     */
+    protected static void changeSortOrder() {
+        postOrder = "Last Activity".equals(ViewDiscussions.comboBox_Sort.getValue())
+                ? Database.PostOrder.LAST_ACTIVITY
+                : Database.PostOrder.NEWEST;
+        PostRow selected = ViewDiscussions.listView_Posts.getSelectionModel().getSelectedItem();
+        refreshPosts(selected == null ? -1 : selected.postID());
+    }
+
+    /**
+     * <p>
+     * Method: void startLiveRefresh()
+     * </p>
+     *
+     * <p>
+     * Description: Starts polling the change feed, so that posts and replies
+     * other users write appear while the view is open.
+     * </p>
+     *
+     */
+    private static void startLiveRefresh() {
+        if (livePoller == null)
+            livePoller = new ChangePoller(theDatabase, LIVE_REFRESH_MILLIS, () -> changeSeq, Platform::runLater,
+                    ControllerDiscussions::liveRefresh);
+        livePoller.start();
+    }
+
+    /**
+     * <p>
+     * Method: void stopLiveRefresh()
+     * </p>
+     *
+     * <p>
+     * Description: Stops polling the change feed when the view is left.
+     * </p>
+     *
+     */
+    private static void stopLiveRefresh() {
+        if (livePoller != null)
+            livePoller.stop();
+    }
+
+    // Called by the poller on the FX thread when the feed has moved past the view. A load
+    // the user started is never replaced; the next poll tries again after it.
+    private static void liveRefresh() {
+        if (postsRequest.isPending() || ViewDiscussions.theUser == null)
+            return;
+        applyChanges(false);
+    }
+
+    /**
+     * <p>
+     * Method: void loadNextPage()
+     * </p>
+     *
+     * <p>
+     * Description: Appends the next page of older posts to the post list. Called
+     * by the post list as the user scrolls near its end; does nothing while
+     * another post-list load is running or when every post is already listed.
+     * </p>
+     *
+     */
+    protected static void loadNextPage() {
+        List<PostRow> listed = ViewDiscussions.listView_Posts.getItems();
+        if (!morePostsToLoad || postsRequest.isPending() || listed == null || listed.isEmpty())
+            return;
+
+        // continue after the oldest post shown so far
+        PostRow last = listed.get(listed.size() - 1);
+        String username = ViewDiscussions.theUser.getUserName();
+        Database.Role sessionRole = currentSessionRole();
+        Database.PostOrder order = postOrder;
+        LocalDateTime after = order == Database.PostOrder.LAST_ACTIVITY ? last.getLastActivity()
+                : last.getTimestamp();
+
+        loadPosts(theAsyncDatabase.submit(db -> toRows(db.getPostsPage(username, sessionRole, null, order,
+                after, last.postID(), POST_PAGE_SIZE))), page -> {
+                    morePostsToLoad = page.size() == POST_PAGE_SIZE;
+                    ViewDiscussions.listView_Posts.getItems().addAll(page);
+                    updatePostSummary();
+                });
+    }
+
+    /**
+     * <p>
+     * Method: void loadPosts(CompletableFuture&lt;T&gt; request, Consumer&lt;T&gt;
+     * show)
+     * </p>
+     *
+     * <p>
+     * Description: Makes the request the current post-list load and shows the
+     * loading state until its result has been shown. A result that arrives after
+     * a newer load has started is dropped.
+     * </p>
+     *
+     * @param request The pending load.
+     * @param show    Puts the result on screen; runs on the FX thread.
+     */
+    private static <T> void loadPosts(CompletableFuture<T> request, Consumer<T> show) {
+        ViewDiscussions.showLoading(true);
+        postsRequest.replace(request, result -> {
+            show.accept(result);
+            updateLoading();
+        });
+    }
+
+    /**
+     * <p>
+     * Method: void loadReplies(CompletableFuture&lt;T&gt; request,
+     * Consumer&lt;T&gt; show)
+     * </p>
+     *
+     * <p>
+     * Description: The reply-list counterpart of loadPosts.
+     * </p>
+     *
+     * @param request The pending load.
+     * @param show    Puts the result on screen; runs on the FX thread.
+     */
+    private static <T> void loadReplies(CompletableFuture<T> request, Consumer<T> show) {
+        ViewDiscussions.showLoading(true);
+        repliesRequest.replace(request, result -> {
+            show.accept(result);
+            updateLoading();
+        });
+    }
+
+    /**
+     * <p>
+     * Method: void updateLoading()
+     * </p>
+     *
+     * <p>
+     * Description: Shows the loading state while either list is still loading.
+     * </p>
+     *
+     */
+    private static void updateLoading() {
+        ViewDiscussions.showLoading(postsRequest.isPending() || repliesRequest.isPending());
+    }
+
+    /**
+     * <p>
+     * Method: void postSelected(PostRow selectedPost)
      * </p>
      * 
      * <p>
      * Description:Handles the event when a post is selected from the list. It
-     * displays the post's
-     * content, loads its replies, and marks the post as read.
+     * reads the post in full, displays its content, loads its replies, and marks
+     * the post as read.
      * </p>
      * 
      * @param selectedPost The post that was selected by the user.
      */
-    protected static void postSelected(Post selectedPost) {
+    protected static void postSelected(PostRow selectedPost) {
+        if (mergingPosts)
+            return;
+        selectedContent = null;
         if (selectedPost == null) {
+            repliesRequest.cancel();
+            updateLoading();
             ViewDiscussions.textArea_PostContent.clear();
             ViewDiscussions.listView_Replies.getItems().clear();
             return;
@@ -159,71 +739,103 @@ public class ControllerDiscussions {
 
         // Unauthorized access handling for students
         if (!selectedPost.isVisible() && isCurrentUserStudent()) {
+            repliesRequest.cancel();
+            updateLoading();
             ViewDiscussions.textArea_PostContent.setText("Content Not Available");
             ViewDiscussions.listView_Replies.getItems().clear();
             // Don't mark as read since student shouldn't have access
             return;
         }
 
-        theDatabase.markPostAsRead(selectedPost.getPostID(), ViewDiscussions.theUser.getUserName());
-        selectedPost.setViewed(true);
-        ViewDiscussions.listView_Posts.refresh();
+        String username = ViewDiscussions.theUser.getUserName();
+        Database.Role sessionRole = currentSessionRole();
+        int postID = selectedPost.postID();
+        boolean isStudent = isCurrentUserStudent();
 
-        if (selectedPost.isDeleted()) {
-            ViewDiscussions.textArea_PostContent.setText("Title: deleted\nAuthor: " +
-                    selectedPost.getAuthorUsername() + "\nThread: " + selectedPost.getThread() +
-                    "\n\ndeleted");
-            // Don't clear replies - keep them displayed
-            List<Reply> replies = theDatabase.getRepliesForPost(selectedPost.getPostID(),
-                    ViewDiscussions.theUser.getUserName());
-
-            if (isCurrentUserStudent()) {
-                replies = replies.stream()
-                        .filter(Reply::isVisible)
-                        .collect(java.util.stream.Collectors.toList());
-            }
+        // The read mark is not part of the cancellable load, so it is saved even if
+        // the user moves on before the replies arrive
+        theAsyncDatabase.execute(db -> db.markPostAsRead(postID, username));
+        replaceRow(selectedPost.withViewed(true));
 
-            String currentUser = ViewDiscussions.theUser.getUserName();
-            List<Reply> visibleReplies = replies.stream()
-                    .filter(r -> r.isVisibleTo(currentUser))
-                    .collect(Collectors.toList());
-            ObservableList<Reply> observableReplies = FXCollections.observableArrayList(replies);
+        // Don't leave the previous post on screen while this one loads
+        ViewDiscussions.textArea_PostContent.clear();
+        ViewDiscussions.listView_Replies.getItems().clear();
+
+        // Fetch and display the content and replies of a selected post
+        loadReplies(theAsyncDatabase.submit(db -> {
+            List<Post> posts = db.getPosts(username, sessionRole, List.of(postID));
+            List<Reply> replies = visibleReplies(db.getRepliesForPost(postID, username), isStudent);
+            return new SelectedPost(posts.isEmpty() ? null : posts.get(0), replies);
+        }), selected -> {
+            selectedContent = selected.post;
+            if (selected.post != null)
+                showPostContent(selected.post);
+            ObservableList<Reply> observableReplies = FXCollections.observableArrayList(selected.replies);
             ViewDiscussions.listView_Replies.setItems(observableReplies);
+            showingAllReplies = true;
+
             updateReplySummary();
             updatePostSummary();
-            return;
-        }
-
-        // Display the post content
-        String postDetails = "";
+        });
+    }
 
-        // label for staff/admin when post is hidden
-        if (!selectedPost.isVisible() && isCurrentUserStaffOrAdmin()) {
-            postDetails += "[Hidden by Staff]\n\n";
-        }
+    /**
+     * <p>
+     * Method: void showPostContent(Post selectedPost)
+     * </p>
+     *
+     * <p>
+     * Description: Shows the title, author, thread and content of the selected
+     * post, or that it was deleted.
+     * </p>
+     *
+     * @param selectedPost The post to show.
+     */
+    private static void showPostContent(Post selectedPost) {
+        if (selectedPost.isDeleted()) {
+            ViewDiscussions.textArea_PostContent.setText("Title: deleted\nAuthor: " +
+                    selectedPost.getAuthorUsername() + "\nThread: " + selectedPost.getThread() +
+                    "\n\ndeleted");
+            // Replies of a deleted post are still displayed
+        } else {
+            // Display the post content
+            String postDetails = "";
 
-        postDetails += "Title: " + selectedPost.getTitle() + "\n" +
-                "Author: " + selectedPost.getAuthorUsername() + "\n" +
-                "Thread: " + selectedPost.getThread() + "\n\n" +
-                selectedPost.getContent();
-        ViewDiscussions.textArea_PostContent.setText(postDetails);
+            // label for staff/admin when post is hidden
+            if (!selectedPost.isVisible() && isCurrentUserStaffOrAdmin()) {
+                postDetails += "[Hidden by Staff]\n\n";
+            }
 
-        // Fetch and display replies of a selected post
-        List<Reply> replies = theDatabase.getRepliesForPost(selectedPost.getPostID(),
-                ViewDiscussions.theUser.getUserName());
+            postDetails += "Title: " + selectedPost.getTitle() + "\n" +
+                    "Author: " + selectedPost.getAuthorUsername() + "\n" +
+                    "Thread: " + selectedPost.getThread() + "\n\n" +
+                    selectedPost.getContent();
+            ViewDiscussions.textArea_PostContent.setText(postDetails);
+        }
+    }
 
+    /**
+     * <p>
+     * Method: List&lt;Reply&gt; visibleReplies(List&lt;Reply&gt; replies, boolean
+     * isStudent)
+     * </p>
+     *
+     * <p>
+     * Description: Leaves out the hidden replies for students.
+     * </p>
+     *
+     * @param replies   The replies of a post.
+     * @param isStudent Whether the session is a student's.
+     * @return The replies the session may see.
+     */
+    private static List<Reply> visibleReplies(List<Reply> replies, boolean isStudent) {
         // Students cannot see hidden replies
-        if (isCurrentUserStudent()) {
+        if (isStudent) {
             replies = replies.stream()
                     .filter(Reply::isVisible)
                     .collect(Collectors.toList());
         }
-        ObservableList<Reply> observableReplies = FXCollections.observableArrayList(replies);
-        ViewDiscussions.listView_Replies.setItems(observableReplies);
-
-        updateReplySummary();
-        updatePostSummary();
-
+        return replies;
     }
 
     /**
@@ -240,7 +852,9 @@ public class ControllerDiscussions {
      */
     protected static void replySelected(Reply selectedReply) {
         if (selectedReply != null && !selectedReply.isViewed()) {
-            theDatabase.markReplyAsRead(selectedReply.getReplyID(), ViewDiscussions.theUser.getUserName());
+            String username = ViewDiscussions.theUser.getUserName();
+            int replyID = selectedReply.getReplyID();
+            CompletableFuture<Void> marked = theAsyncDatabase.execute(db -> db.markReplyAsRead(replyID, username));
             selectedReply.setViewed(true);
             ViewDiscussions.listView_Replies.refresh();// show a small info if this is private feedback and user can see
                                                        // it
@@ -250,27 +864,15 @@ public class ControllerDiscussions {
                 ViewDiscussions.textArea_PostContent.setText(existing + "\n\n[private feedback]");
             }
 
-            // By using Platform.runLater, we schedule the post list update to happen
-            // after the current UI event is finished, preventing the crash.
-            Platform.runLater(() -> {
-                int selectedIndex = ViewDiscussions.listView_Posts.getSelectionModel().getSelectedIndex();
-                initializeView();
-                List<Post> posts = theDatabase.getAllPosts(ViewDiscussions.theUser.getUserName());
-
-                // Visbility filtering
-                if (isCurrentUserStudent()) {
-                    posts = posts.stream()
-                            .filter(Post::isVisible)
-                            .collect(Collectors.toList());
-                }
-
-                ViewDiscussions.listView_Posts.setItems(FXCollections.observableArrayList(posts));
-                if (selectedIndex != -1) {
-                    ViewDiscussions.listView_Posts.getSelectionModel().select(selectedIndex);
-                }
-
-                updatePostSummary();
-                updateReplySummary();
+            // Count the reply as read in the selected post's row instead of reloading the
+            // list; the row is redrawn once the read mark is saved, through
+            // Platform.runLater, after the current UI event is finished.
+            int postID = selectedReply.getPostID();
+            theAsyncDatabase.deliver(marked, done -> {
+                List<PostRow> items = ViewDiscussions.listView_Posts.getItems();
+                int at = indexOfPost(items, postID);
+                if (at >= 0 && items.get(at).unreadReplyCount() > 0)
+                    replaceRow(items.get(at).withUnreadReplyCount(items.get(at).unreadReplyCount() - 1));
             });
         }
 
@@ -298,14 +900,9 @@ public class ControllerDiscussions {
             String title = titleResult.get();
 
             // --- DYNAMIC THREAD FETCHING START ---
-            boolean isStaffOrAdmin = isCurrentUserStaffOrAdmin();
-            java.util.List<String> threadChoices;
-
-            if (isStaffOrAdmin) {
-                threadChoices = theDatabase.getAllThreadTitles();
-            } else {
-                threadChoices = theDatabase.getVisibleThreadTitles();
-            }
+            // The thread filter already holds the titles this role may see, as loaded
+            // by the last refresh, so no query is needed here
+            java.util.List<String> threadChoices = new ArrayList<>(ViewDiscussions.comboBox_Threads.getItems());
 
             // Remove "All Threads" from the creation choices
             threadChoices.remove("All Threads");
@@ -339,8 +936,8 @@ public class ControllerDiscussions {
                 String content = textArea.getText();
                 entityClasses.Post newPost = new entityClasses.Post(0, ViewDiscussions.theUser.getUserName(), title,
                         content, thread, false, false, 0, 0);
-                theDatabase.create(newPost);
-                initializeView();
+                theAsyncDatabase.deliver(theAsyncDatabase.execute(db -> db.create(newPost)),
+                        done -> applyChanges());
             } else {
                 showError("Post content cannot be empty.");
             }
@@ -360,17 +957,23 @@ public class ControllerDiscussions {
      * 
      */
     protected static void editPost() {
-        Post selectedPost = ViewDiscussions.listView_Posts.getSelectionModel().getSelectedItem();
-        if (selectedPost == null) {
+        PostRow selectedRow = ViewDiscussions.listView_Posts.getSelectionModel().getSelectedItem();
+        if (selectedRow == null) {
             showError("Please select a post to edit.");
             return;
         }
         // Checks to see if user trying to update post is post author, otherwise throws
         // error.
-        if (!selectedPost.getAuthorUsername().equals(ViewDiscussions.theUser.getUserName())) {
+        if (!selectedRow.authorUsername().equals(ViewDiscussions.theUser.getUserName())) {
             showError("You can only edit your own posts.");
             return;
         }
+        // The content is read when the post is selected
+        Post selectedPost = selectedContent;
+        if (selectedPost == null || selectedPost.getPostID() != selectedRow.postID()) {
+            showError("The post is still loading. Please try again.");
+            return;
+        }
 
         // Dialog for editing title
         TextInputDialog titleDialog = new TextInputDialog(selectedPost.getTitle());
@@ -398,8 +1001,8 @@ public class ControllerDiscussions {
             // Conduct input validation to make sure post content is not empty
             if (contentResult.isPresent() && !textArea.getText().trim().isEmpty()) {
                 selectedPost.setContent(textArea.getText());
-                theDatabase.update(selectedPost); // change
-                initializeView(); // This already calls updatePostSummary()
+                theAsyncDatabase.deliver(theAsyncDatabase.execute(db -> db.update(selectedPost)),
+                        done -> applyChanges()); // This already calls updatePostSummary()
             } else {
                 showError("Post content cannot be empty.");
             }
@@ -417,14 +1020,14 @@ public class ControllerDiscussions {
      * 
      */
     protected static void deletePost() {
-        Post selectedPost = ViewDiscussions.listView_Posts.getSelectionModel().getSelectedItem();
+        PostRow selectedPost = ViewDiscussions.listView_Posts.getSelectionModel().getSelectedItem();
         if (selectedPost == null) {
             showError("Please select a post to delete.");
             return;
         }
         // Checks to see if user trying to delete post is post author, otherwise throws
         // error.
-        if (!selectedPost.getAuthorUsername().equals(ViewDiscussions.theUser.getUserName())) {
+        if (!selectedPost.authorUsername().equals(ViewDiscussions.theUser.getUserName())) {
             showError("You can only delete your own posts.");
             return;
         }
@@ -437,8 +1040,9 @@ public class ControllerDiscussions {
 
         Optional<ButtonType> result = confirmation.showAndWait();
         if (result.isPresent() && result.get() == ButtonType.OK) {
-            theDatabase.delete(selectedPost); // change
-            initializeView(); // Refresh the view
+            int postID = selectedPost.postID();
+            theAsyncDatabase.deliver(theAsyncDatabase.execute(db -> db.deletePost(postID)),
+                    done -> applyChanges()); // Refresh the view
         }
     }
 
@@ -453,7 +1057,7 @@ public class ControllerDiscussions {
      * 
      */
     protected static void addReply() {
-        Post selectedPost = ViewDiscussions.listView_Posts.getSelectionModel().getSelectedItem();
+        PostRow selectedPost = ViewDiscussions.listView_Posts.getSelectionModel().getSelectedItem();
         if (selectedPost == null) {
             showError("Please select a post to reply to.");
             return;
@@ -478,55 +1082,58 @@ public class ControllerDiscussions {
 
         TextInputDialog replyDialog = new TextInputDialog();
         replyDialog.setTitle("Add Reply");
-        replyDialog.setHeaderText("Enter your reply for the post: " + selectedPost.getTitle());
+        replyDialog.setHeaderText("Enter your reply for the post: " + selectedPost.title());
         replyDialog.setContentText("Reply:");
         Optional<String> result = replyDialog.showAndWait();
 
         // Conduct input validation to make sure reply content is not empty
         if (result.isPresent() && !result.get().trim().isEmpty()) {
             String content = result.get();
-            Reply newReply = new Reply(0, selectedPost.getPostID(), ViewDiscussions.theUser.getUserName(), content);
-            if ("private".equals(visibility)) {
-                newReply = new Reply(
-                        0,
-                        selectedPost.getPostID(),
-                        ViewDiscussions.theUser.getUserName(),
-                        content,
-                        "private",
-                        selectedPost.getAuthorUsername());
-            } else {
-                newReply = new Reply(
-                        0,
-                        selectedPost.getPostID(),
-                        ViewDiscussions.theUser.getUserName(),
-                        content);
-            }
-
-            boolean success = theDatabase.createReply(newReply); // see next section
-
-            if (success) {
-                postSelected(selectedPost);
-                List<Post> posts = theDatabase.getAllPosts(ViewDiscussions.theUser.getUserName());
-                ViewDiscussions.listView_Posts.setItems(FXCollections.observableArrayList(posts));
-            }
+            String username = ViewDiscussions.theUser.getUserName();
+            String replyVisibility = visibility;
+
+            // The private Reply constructor looks up the post author, so the reply is
+            // built on the worker thread too
+            CompletableFuture<Boolean> created = theAsyncDatabase.submit(db -> {
+                Reply newReply;
+                if ("private".equals(replyVisibility)) {
+                    newReply = new Reply(
+                            0,
+                            selectedPost.postID(),
+                            username,
+                            content,
+                            "private",
+                            selectedPost.authorUsername());
+                } else {
+                    newReply = new Reply(
+                            0,
+                            selectedPost.postID(),
+                            username,
+                            content);
+                }
+                return db.createReply(newReply); // see next section
+            });
 
-            if ("private".equals(visibility)) {
+            theAsyncDatabase.deliver(created, success -> {
                 if (success) {
-                    Alert ok = new Alert(Alert.AlertType.INFORMATION);
-                    ok.setTitle("Private Feedback");
-                    ok.setHeaderText(null);
-                    ok.setContentText("Private feedback posted!");
-                    ok.showAndWait();
-                } else {
-                    showError("Error posting private feedback.");
+                    // patch the post's reply counts; the selected post's replies reload
+                    applyChanges();
                 }
-            } else if (!success) {
-                showError("Error posting reply.");
-            }
 
-            if (success) {
-                postSelected(selectedPost); // refresh replies + summaries
-            }
+                if ("private".equals(replyVisibility)) {
+                    if (success) {
+                        Alert ok = new Alert(Alert.AlertType.INFORMATION);
+                        ok.setTitle("Private Feedback");
+                        ok.setHeaderText(null);
+                        ok.setContentText("Private feedback posted!");
+                        ok.showAndWait();
+                    } else {
+                        showError("Error posting private feedback.");
+                    }
+                } else if (!success) {
+                    showError("Error posting reply.");
+                }
+            });
         } else {
             showError("Reply content cannot be empty.");
         }
@@ -546,29 +1153,33 @@ public class ControllerDiscussions {
     protected static void searchPosts() {
         String keyword = ViewDiscussions.textField_Search.getText();
         String thread = ViewDiscussions.comboBox_Threads.getValue();
-
-        // Search by keyword and by keyword+thread
-        List<Post> posts = theDatabase.searchPosts(
-                keyword,
-                thread,
-                ViewDiscussions.theUser.getUserName());
+        morePostsToLoad = false;
+        showingBoard = false;
 
         // Students should not see hidden posts in search results
         boolean isStudent = ViewDiscussions.theUser != null
                 && ViewDiscussions.theUser.getNewStudent(); // or whatever your "student" flag is
 
-        if (isStudent) {
-            posts = posts.stream()
-                    .filter(Post::isVisible)
-                    .collect(java.util.stream.Collectors.toList());
-        }
-
-        ObservableList<Post> observablePosts = FXCollections.observableArrayList(posts);
-        ViewDiscussions.listView_Posts.setItems(observablePosts);
-
-        // Updates total/unread post counts after search filter
-        updatePostSummary();
-        updateReplySummary();
+        // Search by keyword and by keyword+thread
+        loadPosts(theAsyncDatabase.searchPosts(
+                keyword,
+                thread,
+                ViewDiscussions.theUser.getUserName(),
+                currentSessionRole()).thenApply(posts -> {
+                    if (isStudent) {
+                        posts = posts.stream()
+                                .filter(Post::isVisible)
+                                .collect(java.util.stream.Collectors.toList());
+                    }
+                    return toRows(posts);
+                }), posts -> {
+                    ObservableList<PostRow> observablePosts = FXCollections.observableArrayList(posts);
+                    ViewDiscussions.listView_Posts.setItems(observablePosts);
+
+                    // Updates total/unread post counts after search filter
+                    updatePostSummary();
+                    updateReplySummary();
+                });
     }
 
     /**
@@ -583,23 +1194,30 @@ public class ControllerDiscussions {
      * 
      */
     protected static void viewMyPosts() {
+        String username = ViewDiscussions.theUser.getUserName();
+        morePostsToLoad = false;
+        showingBoard = false;
+        boolean isStudent = isCurrentUserStudent();
+
         // Load all posts visible
-        List<Post> allPosts = theDatabase.getAllPosts(ViewDiscussions.theUser.getUserName());
-        List<Post> myPosts = allPosts.stream()
-                // filter based on if the post's author username is the same as the current
-                // logged in user
-                .filter(post -> post.getAuthorUsername().equals(ViewDiscussions.theUser.getUserName()))
-                .collect(Collectors.toList());
-
-        if (isCurrentUserStudent()) {
-            myPosts = myPosts.stream()
-                    .filter(Post::isVisible)
+        loadPosts(theAsyncDatabase.getAllPosts(username, currentSessionRole()).thenApply(allPosts -> {
+            List<Post> myPosts = allPosts.stream()
+                    // filter based on if the post's author username is the same as the current
+                    // logged in user
+                    .filter(post -> post.getAuthorUsername().equals(username))
                     .collect(Collectors.toList());
-        }
 
-        ObservableList<Post> observablePosts = FXCollections.observableArrayList(myPosts);
-        ViewDiscussions.listView_Posts.setItems(observablePosts);
-        updatePostSummary();
+            if (isStudent) {
+                myPosts = myPosts.stream()
+                        .filter(Post::isVisible)
+                        .collect(Collectors.toList());
+            }
+            return toRows(myPosts);
+        }), myPosts -> {
+            ObservableList<PostRow> observablePosts = FXCollections.observableArrayList(myPosts);
+            ViewDiscussions.listView_Posts.setItems(observablePosts);
+            updatePostSummary();
+        });
     }
 
     /**
@@ -613,21 +1231,29 @@ public class ControllerDiscussions {
      * 
      */
     protected static void viewUnreadPosts() {
+        boolean isStudent = isCurrentUserStudent();
+        morePostsToLoad = false;
+        showingBoard = false;
+
         // Load all posts visible
-        List<Post> allPosts = theDatabase.getAllPosts(ViewDiscussions.theUser.getUserName());
-        List<Post> unreadPosts = allPosts.stream()
-                // filter based on if the post has been read yet using the viewed attribute
-                .filter(post -> !post.isViewed())
-                .collect(Collectors.toList());
-        if (isCurrentUserStudent()) {
-            unreadPosts = unreadPosts.stream()
-                    .filter(Post::isVisible)
+        loadPosts(theAsyncDatabase.getAllPosts(ViewDiscussions.theUser.getUserName(),
+                currentSessionRole()).thenApply(allPosts -> {
+            List<Post> unreadPosts = allPosts.stream()
+                    // filter based on if the post has been read yet using the viewed attribute
+                    .filter(post -> !post.isViewed())
                     .collect(Collectors.toList());
-        }
-        ObservableList<Post> observablePosts = FXCollections.observableArrayList(unreadPosts);
-        ViewDiscussions.listView_Posts.setItems(observablePosts);
+            if (isStudent) {
+                unreadPosts = unreadPosts.stream()
+                        .filter(Post::isVisible)
+                        .collect(Collectors.toList());
+            }
+            return toRows(unreadPosts);
+        }), unreadPosts -> {
+            ObservableList<PostRow> observablePosts = FXCollections.observableArrayList(unreadPosts);
+            ViewDiscussions.listView_Posts.setItems(observablePosts);
 
-        updatePostSummary();
+            updatePostSummary();
+        });
     }
 
     /**
@@ -643,31 +1269,37 @@ public class ControllerDiscussions {
      * 
      */
     protected static void viewUnreadReplies() {
-        Post selectedPost = ViewDiscussions.listView_Posts.getSelectionModel().getSelectedItem();
+        PostRow selectedPost = ViewDiscussions.listView_Posts.getSelectionModel().getSelectedItem();
         if (selectedPost == null) {
             showError("Please select a post first to view its unread replies.");
             return;
         }
-        // Fetch all replies for the selected post
-        List<Reply> allReplies = theDatabase.getRepliesForPost(
-                selectedPost.getPostID(),
-                ViewDiscussions.theUser.getUserName());
-        // Only unread replies
-        List<Reply> unreadReplies = allReplies.stream()
-                .filter(reply -> !reply.isViewed())
-                .collect(Collectors.toList());
-        // Students must not see hidden replies
-        if (isCurrentUserStudent()) {
-            unreadReplies = unreadReplies.stream()
-                    .filter(Reply::isVisible)
-                    .collect(Collectors.toList());
-        }
-        // Update list view to only show unread
-        ObservableList<Reply> observableReplies = FXCollections.observableArrayList(unreadReplies);
-        ViewDiscussions.listView_Replies.setItems(observableReplies);
+        boolean isStudent = isCurrentUserStudent();
 
-        updatePostSummary();
-        updateReplySummary();
+        // Fetch all replies for the selected post
+        loadReplies(theAsyncDatabase.getRepliesForPost(
+                selectedPost.postID(),
+                ViewDiscussions.theUser.getUserName()).thenApply(allReplies -> {
+                    // Only unread replies
+                    List<Reply> unreadReplies = allReplies.stream()
+                            .filter(reply -> !reply.isViewed())
+                            .collect(Collectors.toList());
+                    // Students must not see hidden replies
+                    if (isStudent) {
+                        unreadReplies = unreadReplies.stream()
+                                .filter(Reply::isVisible)
+                                .collect(Collectors.toList());
+                    }
+                    return unreadReplies;
+                }), unreadReplies -> {
+                    // Update list view to only show unread
+                    ObservableList<Reply> observableReplies = FXCollections.observableArrayList(unreadReplies);
+                    ViewDiscussions.listView_Replies.setItems(observableReplies);
+                    showingAllReplies = false;
+
+                    updatePostSummary();
+                    updateReplySummary();
+                });
     }
 
     /**
@@ -702,8 +1334,8 @@ public class ControllerDiscussions {
         // Conduct input validation to make sure reply content is not empty
         if (result.isPresent() && !result.get().trim().isEmpty()) {
             selectedReply.setContent(result.get());
-            theDatabase.update(selectedReply); // change
-            postSelected(ViewDiscussions.listView_Posts.getSelectionModel().getSelectedItem()); // reload replies
+            theAsyncDatabase.deliver(theAsyncDatabase.execute(db -> db.update(selectedReply)), // change
+                    done -> applyChanges()); // patches the post, which reloads its replies
         } else {
             showError("Reply content cannot be empty.");
         }
@@ -743,8 +1375,8 @@ public class ControllerDiscussions {
 
         Optional<ButtonType> result = confirmation.showAndWait();
         if (result.isPresent() && result.get() == ButtonType.OK) {
-            theDatabase.delete(selectedReply); // change
-            postSelected(ViewDiscussions.listView_Posts.getSelectionModel().getSelectedItem()); // reload replies
+            theAsyncDatabase.deliver(theAsyncDatabase.execute(db -> db.delete(selectedReply)), // change
+                    done -> applyChanges()); // patches the post, which reloads its replies
         }
         updatePostSummary();
         updateReplySummary();
@@ -761,6 +1393,7 @@ public class ControllerDiscussions {
      * 
      */
     protected static void returnToHome() {
+        stopLiveRefresh();
         entityClasses.User u = ViewDiscussions.theUser;
         if (u.getAdminRole()) {
             guiAdminHome.ViewAdminHome.displayAdminHome(ViewDiscussions.theStage, u);
@@ -804,7 +1437,7 @@ public class ControllerDiscussions {
      */
     private static void updatePostSummary() {
         // Get currently displayed posts (can be all, filtered, or searched)
-        List<Post> currentPosts = ViewDiscussions.listView_Posts.getItems();
+        List<PostRow> currentPosts = ViewDiscussions.listView_Posts.getItems();
 
         // If the list is empty, display default text
         if (currentPosts == null || currentPosts.isEmpty()) {
@@ -835,7 +1468,7 @@ public class ControllerDiscussions {
      * 
      */
     private static void updateReplySummary() {
-        Post selectedPost = ViewDiscussions.listView_Posts.getSelectionModel().getSelectedItem();
+        PostRow selectedPost = ViewDiscussions.listView_Posts.getSelectionModel().getSelectedItem();
 
         if (selectedPost == null) {
             ViewDiscussions.label_ReplySummary.setText("");
@@ -860,44 +1493,24 @@ public class ControllerDiscussions {
 
     /*****
      * <p>
-     * Method: boolean isReplyVisibleToCurrentSession()
+     * Method: Database.Role currentSessionRole()
      * </p>
      * 
      * <p>
-     * Description: Check if reply is visible to current user based on visibility
-     * settings and role.
+     * Description: Maps the active home page to the role the user is currently
+     * acting as. Only a staff session can see all private feedback.
      * </p>
      * 
      */
-    private static boolean isReplyVisibleToCurrentSession(Reply r) {
-        int activeRole = applicationMain.FoundationsMain.activeHomePage;
-        String currentUsername = ViewDiscussions.theUser == null ? null : ViewDiscussions.theUser.getUserName();
-
-        // Public replies are always visible
-        if ("public".equals(r.getVisibility()))
-            return true;
-
-        // Private feedback: visible to staff only, and to the receiving student and the
-        // reply author
-        if ("private".equals(r.getVisibility())) {
-            // Staff acting session: can view all private feedback
-            if (activeRole == 3)
-                return true;
-
-            // If the current session is the recipient student
-            if (currentUsername != null && currentUsername.equals(r.getPostAuthorUsername()))
-                return true;
-
-            // The author of the reply (the staff user who posted it) should see their own
-            // reply
-            if (currentUsername != null && currentUsername.equals(r.getAuthorUsername()))
-                return true;
-
-            // Otherwise hidden
-            return false;
+    private static Database.Role currentSessionRole() {
+        switch (applicationMain.FoundationsMain.activeHomePage) {
+            case 1:
+                return Database.Role.ADMIN;
+            case 3:
+                return Database.Role.STAFF;
+            default:
+                return Database.Role.STUDENT;
         }
-
-        return false;
     }
 
     /**
@@ -921,7 +1534,7 @@ public class ControllerDiscussions {
         }
 
         Reply selectedReply = ViewDiscussions.listView_Replies.getSelectionModel().getSelectedItem();
-        Post selectedPost = ViewDiscussions.listView_Posts.getSelectionModel().getSelectedItem();
+        PostRow selectedPost = ViewDiscussions.listView_Posts.getSelectionModel().getSelectedItem();
 
         if (selectedReply == null && selectedPost == null) {
             Alert alert = new Alert(Alert.AlertType.WARNING);
@@ -955,29 +1568,30 @@ public class ControllerDiscussions {
             int replyID = selectedReply.getReplyID();
             int parentPostID = selectedReply.getPostID();
 
+            CompletableFuture<Void> saved;
             if (currentlyVisible) {
-                theDatabase.hideReply(replyID, parentPostID, currentUser, reason);
-                selectedReply.setVisible(false);
+                saved = theAsyncDatabase.execute(db -> db.hideReply(replyID, parentPostID, currentUser, reason));
             } else {
-                theDatabase.unhideReply(replyID, parentPostID, currentUser, reason);
-                selectedReply.setVisible(true);
+                saved = theAsyncDatabase.execute(db -> db.unhideReply(replyID, parentPostID, currentUser, reason));
             }
 
-            ViewDiscussions.listView_Replies.refresh();
+            theAsyncDatabase.deliver(saved, done -> {
+                selectedReply.setVisible(!currentlyVisible);
+                ViewDiscussions.listView_Replies.refresh();
+            });
         } else if (selectedPost != null) {
             boolean currentlyVisible = selectedPost.isVisible();
-            int postID = selectedPost.getPostID();
+            int postID = selectedPost.postID();
 
+            CompletableFuture<Void> saved;
             if (currentlyVisible) {
-                theDatabase.hidePost(postID, currentUser, reason);
-                selectedPost.setVisible(false);
+                saved = theAsyncDatabase.execute(db -> db.hidePost(postID, currentUser, reason));
             } else {
-                theDatabase.unhidePost(postID, currentUser, reason);
-                selectedPost.setVisible(true);
+                saved = theAsyncDatabase.execute(db -> db.unhidePost(postID, currentUser, reason));
             }
 
             // Re-apply filtering and refresh
-            initializeView();
+            theAsyncDatabase.deliver(saved, done -> applyChanges());
         }
     }
 
@@ -1001,7 +1615,7 @@ public class ControllerDiscussions {
         }
 
         Reply selectedReply = ViewDiscussions.listView_Replies.getSelectionModel().getSelectedItem();
-        Post selectedPost = ViewDiscussions.listView_Posts.getSelectionModel().getSelectedItem();
+        PostRow selectedPost = ViewDiscussions.listView_Posts.getSelectionModel().getSelectedItem();
 
         if (selectedReply == null && selectedPost == null) {
             Alert alert = new Alert(Alert.AlertType.WARNING);
@@ -1028,16 +1642,20 @@ public class ControllerDiscussions {
         String reason = reasonResult.get().trim();
         String currentUser = ViewDiscussions.theUser.getUserName();
 
+        CompletableFuture<Void> saved;
         if (selectedReply != null) {
-            theDatabase.flagReply(selectedReply.getReplyID(), selectedReply.getPostID(), currentUser, reason);
-        } else if (selectedPost != null) {
-            theDatabase.flagPost(selectedPost.getPostID(), currentUser, reason);
+            saved = theAsyncDatabase.execute(
+                    db -> db.flagReply(selectedReply.getReplyID(), selectedReply.getPostID(), currentUser, reason));
+        } else {
+            saved = theAsyncDatabase.execute(db -> db.flagPost(selectedPost.postID(), currentUser, reason));
         }
 
-        Alert ok = new Alert(Alert.AlertType.INFORMATION);
-        ok.setHeaderText(null);
-        ok.setContentText("Content has been flagged.");
-        ok.showAndWait();
+        theAsyncDatabase.deliver(saved, done -> {
+            Alert ok = new Alert(Alert.AlertType.INFORMATION);
+            ok.setHeaderText(null);
+            ok.setContentText("Content has been flagged.");
+            ok.showAndWait();
+        });
     }
 
 }
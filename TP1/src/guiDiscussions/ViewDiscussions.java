@@ -1,9 +1,10 @@
 // BOLD CHANGE:
 package guiDiscussions;
 
-import entityClasses.Post;
+import entityClasses.PostRow;
 import entityClasses.Reply;
 import entityClasses.User;
+import javafx.application.Platform;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
@@ -11,6 +12,7 @@ import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
 import javafx.scene.control.ListCell;
 import javafx.scene.control.ListView;
+import javafx.scene.control.ProgressIndicator;
 import javafx.scene.control.TextArea;
 import javafx.scene.control.TextField;
 import javafx.scene.layout.HBox;
@@ -20,8 +22,6 @@ import javafx.scene.shape.Circle;
 import javafx.scene.text.Font;
 import javafx.stage.Stage;
 import javafx.geometry.Pos;
-import database.Database; // <<< NEW
-import java.util.List; // <<< NEW
 
 /**
  * <p>
@@ -48,7 +48,7 @@ public class ViewDiscussions {
     private static double height = applicationMain.FoundationsMain.WINDOW_HEIGHT;
 
     protected static Label label_PageTitle = new Label("Discussion Forum");
-    protected static ListView<Post> listView_Posts = new ListView<>();
+    protected static ListView<PostRow> listView_Posts = new ListView<>();
     protected static TextArea textArea_PostContent = new TextArea();
     protected static ListView<Reply> listView_Replies = new ListView<>();
 
@@ -71,6 +71,8 @@ public class ViewDiscussions {
     protected static ComboBox<String> comboBox_Threads = new ComboBox<>();
     protected static TextField textField_Search = new TextField();
     protected static Button button_Search = new Button("Search");
+    // Lists the board newest first or by last activity
+    protected static ComboBox<String> comboBox_Sort = new ComboBox<>();
 
     protected static Stage theStage;
     protected static User theUser;
@@ -78,9 +80,10 @@ public class ViewDiscussions {
     public static Scene theDiscussionsScene = null;
     protected static Label label_PostSummary = new Label();
     protected static Label label_ReplySummary = new Label();
-
-    // <<< NEW: database reference for computing student-visible reply counts >>>
-    private static Database theDatabase = applicationMain.FoundationsMain.database;
+    // Spinner shown while posts or replies are loading in the background
+    protected static ProgressIndicator progress_Loading = new ProgressIndicator();
+    // The next page of posts is requested when a post this close to the end is shown
+    private static final int POST_PAGE_PREFETCH = 10;
 
     /**
      * <p>
@@ -145,21 +148,8 @@ public class ViewDiscussions {
         comboBox_Threads.setLayoutX(20);
         comboBox_Threads.setLayoutY(50);
         comboBox_Threads.setPrefWidth(150);
-        // Determine if user is Staff or Admin
-        boolean isStaffOrAdmin = theUser != null &&
-                (theUser.getAdminRole() || (theUser.getNewStaff() && !theUser.getNewStudent()));
-
-        java.util.List<String> threadTitles;
-        if (isStaffOrAdmin) {
-            // Staff/Admin see ALL threads (including hidden "Staff Only" threads)
-            threadTitles = ControllerDiscussions.theDatabase.getAllThreadTitles();
-        } else {
-            // Students only see threads marked as visible
-            threadTitles = ControllerDiscussions.theDatabase.getVisibleThreadTitles();
-        }
-
-        comboBox_Threads.getItems().setAll(threadTitles);
-        comboBox_Threads.getSelectionModel().selectFirst();
+        // The thread titles for the user's role (staff/admin see ALL threads, students
+        // only visible ones) are loaded in the background by initializeView
 
         textField_Search.setLayoutX(180);
         textField_Search.setLayoutY(50);
@@ -187,6 +177,18 @@ public class ViewDiscussions {
         button_UnreadReplies.setPrefWidth(110);
         button_UnreadReplies.setOnAction(event -> ControllerDiscussions.viewUnreadReplies());
 
+        comboBox_Sort.setLayoutX(630);
+        comboBox_Sort.setLayoutY(12);
+        comboBox_Sort.setPrefWidth(150);
+        comboBox_Sort.getItems().setAll("Newest First", "Last Activity");
+        comboBox_Sort.getSelectionModel().selectFirst();
+        comboBox_Sort.setOnAction(event -> ControllerDiscussions.changeSortOrder());
+
+        progress_Loading.setLayoutX(760);
+        progress_Loading.setLayoutY(50);
+        progress_Loading.setPrefSize(25, 25);
+        progress_Loading.setVisible(false);
+
         // Posts List
         listView_Posts.setLayoutX(20);
         listView_Posts.setLayoutY(90);
@@ -208,14 +210,23 @@ public class ViewDiscussions {
         });
 
         // Custom ListCell for showing a blue dot for unread posts
-        listView_Posts.setCellFactory(param -> new ListCell<Post>() {
+        listView_Posts.setCellFactory(param -> new ListCell<PostRow>() {
+            // The nodes of the cell, built once and reused for every post it shows
+            private final Circle dot = new Circle(5, Color.BLUE);
+            private final Label label = new Label();
+            private final HBox hbox = new HBox(5, dot, label);
+
             /**
              * <p>
-             * Method: void updateItem(Post post, boolean empty)
+             * Method: void updateItem(PostRow post, boolean empty)
              * </p>
              * 
              * <p>
-             * Description: Adds a blue dot next to unread posts in the list view.
+             * Description: Adds a blue dot next to unread posts in the list view, and
+             * loads more posts when one of the last loaded posts comes into view.
+             * The reply counts were worked out for the session's role when the post
+             * was loaded, so a student sees only the replies that are not hidden and
+             * drawing a cell never reads the database.
              * </p>
              * 
              * @param post  is the post object
@@ -224,47 +235,22 @@ public class ViewDiscussions {
              *              cell should be cleared
              */
             @Override
-            protected void updateItem(Post post, boolean empty) {
+            protected void updateItem(PostRow post, boolean empty) {
                 super.updateItem(post, empty);
                 if (empty || post == null) {
                     setText(null);
                     setGraphic(null);
                 } else {
-                    HBox hbox = new HBox(5);
-                    Circle dot = new Circle(5, Color.BLUE);
-                    if (post.isViewed()) {
-                        dot.setVisible(false);
-                    }
-
-                    // <<< NEW: for students, recompute reply counts using only visible replies >>>
-                    int activeRole = applicationMain.FoundationsMain.activeHomePage;
-                    boolean isStudentRole = (activeRole == 2);
-
-                    String labelText;
-                    if (isStudentRole && theUser != null) {
-                        List<Reply> allReplies = theDatabase.getRepliesForPost(post.getPostID(), theUser.getUserName());
-
-                        long visibleCount = allReplies.stream()
-                                .filter(Reply::isVisible)
-                                .count();
-
-                        long unreadVisible = allReplies.stream()
-                                .filter(r -> r.isVisible() && !r.isViewed())
-                                .count();
+                    dot.setVisible(!post.isViewed());
+                    label.setText(post.toString());
+                    setGraphic(hbox);
 
-                        labelText = String.format(
-                                "%s (%s) - Replies: %d (Unread: %d)",
-                                post.getTitle(),
-                                post.getThread(),
-                                visibleCount,
-                                unreadVisible);
-                    } else {
-                        // Admin/staff (or no user) see the original DB-counted values
-                        labelText = post.toString();
+                    // The list only creates cells for the rows on screen, so a cell near the
+                    // end of the loaded posts means the user has scrolled down to it. Fetch
+                    // the next page after this layout pass.
+                    if (getIndex() >= getListView().getItems().size() - POST_PAGE_PREFETCH) {
+                        Platform.runLater(ControllerDiscussions::loadNextPage);
                     }
-
-                    hbox.getChildren().addAll(dot, new Label(labelText));
-                    setGraphic(hbox);
                 }
             }
         });
@@ -371,7 +357,7 @@ public class ViewDiscussions {
         // Normal buttons (everyone sees these)
         theRootPane.getChildren().addAll(
                 label_PageTitle, comboBox_Threads, textField_Search, button_Search,
-                button_MyPosts, button_Unread, button_UnreadReplies,
+                button_MyPosts, button_Unread, button_UnreadReplies, comboBox_Sort, progress_Loading,
                 listView_Posts, label_PostSummary, textArea_PostContent,
                 listView_Replies, label_ReplySummary,
                 button_CreatePost, button_EditPost, button_DeletePost,
@@ -388,6 +374,23 @@ public class ViewDiscussions {
         theRootPane.getChildren().addAll(button_ToggleVisibility, button_FlagContent);
     }
 
+    /**
+     * <p>
+     * Method: void showLoading(boolean loading)
+     * </p>
+     * 
+     * <p>
+     * Description: Shows or hides the loading state. While posts are loading the
+     * post list says so instead of showing its usual empty message.
+     * </p>
+     * 
+     * @param loading is true while a load is in progress
+     */
+    protected static void showLoading(boolean loading) {
+        progress_Loading.setVisible(loading);
+        listView_Posts.setPlaceholder(new Label(loading ? "Loading posts..." : "No content in table"));
+    }
+
     /**
      * <p>
      * Method: void setupLabelUI(Label l, String ff, double f, double w, Pos p,
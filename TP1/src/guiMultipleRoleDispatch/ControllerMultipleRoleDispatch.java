@@ -67,6 +67,7 @@ public class ControllerMultipleRoleDispatch {
 	 * 
 	 */
 	static protected void performLogout() {
+		applicationMain.FoundationsMain.database.flushReadMarks();
 		guiUserLogin.ViewUserLogin.displayUserLogin(
 				guiMultipleRoleDispatch.ViewMultipleRoleDispatch.theStage);
 	}
@@ -13,7 +13,9 @@ import javafx.scene.shape.Line;
 import javafx.scene.text.Font;
 import javafx.stage.Stage;
 import database.Database;
+import database.Database.Role;
 import entityClasses.User;
+import entityClasses.UserProfile;
 
 /*******
  * <p> Title: GUIMultipleRoleDispatchPage Class. </p>
@@ -142,14 +144,14 @@ public class ViewMultipleRoleDispatch {
 		setupComboBoxUI(combobox_SelectRole, "Dialog", 16, 100, 305, 105);
 
 		List<String> list = new ArrayList<String>();	// Create a new list empty list
-		theDatabase.getUserAccountDetails(theUser.getUserName());
+		UserProfile profile = theDatabase.getUserProfile(theUser.getUserName());
 
 		System.out.println("*** Getting multiple role details for user: " + theUser.getUserName());
 		list = new ArrayList<String>();
 		list.add("<Select a role>");
-		if (theDatabase.getCurrentAdminRole()) list.add("Admin");
-		if (theDatabase.getCurrentNewStudent()) list.add("Student");
-		if (theDatabase.getCurrentNewStaff()) list.add("Staff");
+		if (profile != null && profile.hasRole(Role.ADMIN)) list.add("Admin");
+		if (profile != null && profile.hasRole(Role.STUDENT)) list.add("Student");
+		if (profile != null && profile.hasRole(Role.STAFF)) list.add("Staff");
 		combobox_SelectRole.setItems(FXCollections.observableArrayList(list));
 
 		setupButtonUI(button_PerformRole, "Dialog", 16, 100, Pos.CENTER, 495, 105);
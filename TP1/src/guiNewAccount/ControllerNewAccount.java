@@ -84,15 +84,22 @@ public class ControllerNewAccount {
 			applicationMain.FoundationsMain.activeHomePage = roleCode;
 			
             try {
-            	theDatabase.register(user);
+            	// the account is created and the invitation used up in one transaction
+            	if (!theDatabase.registerWithInvitation(user, ViewNewAccount.text_Invitation.getText().trim())) {
+            		Alert usedAlert = new Alert(AlertType.ERROR);
+            		usedAlert.setTitle("Invitation Not Valid");
+            		usedAlert.setHeaderText("This invitation code can no longer be used.");
+            		usedAlert.setContentText("It has expired or has already been used. Please ask for a new one.");
+            		usedAlert.showAndWait();
+            		guiUserLogin.ViewUserLogin.displayUserLogin(ViewNewAccount.theStage);
+            		return;
+            	}
             } catch (SQLException e) {
                 System.err.println("*** ERROR *** Database error: " + e.getMessage());
                 e.printStackTrace();
                 System.exit(0);
             }
             
-            theDatabase.removeInvitationAfterUse(ViewNewAccount.text_Invitation.getText());
-            
             // *** CHANGE ***: This section implements the redirect after account creation.
             // An Alert box is created to inform the user that their account was created successfully.
             Alert successAlert = new Alert(AlertType.INFORMATION);
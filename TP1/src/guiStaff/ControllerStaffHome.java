@@ -13,6 +13,7 @@ public class ControllerStaffHome {
 	}
 
 	protected static void performLogout() {
+		applicationMain.FoundationsMain.database.flushReadMarks();
 		guiUserLogin.ViewUserLogin.displayUserLogin(ViewStaffHome.theStage);
 	}
 
@@ -8,7 +8,6 @@ import javafx.scene.layout.Pane;
 import javafx.scene.shape.Line;
 import javafx.scene.text.Font;
 import javafx.stage.Stage;
-import database.Database;
 import entityClasses.User;
 import guiDiscussions.ViewDiscussions; // (Optional but mirrors ViewStudentHome)
 import guiUserUpdate.ViewUserUpdate; // To mirror student home "Account Update" behavior, if desired
@@ -58,7 +57,6 @@ public class ViewStaffHome {
 	protected static Button button_GradingParameters = new Button("Grading Parameters");
 
 	private static ViewStaffHome theView;
-	private static Database theDatabase = applicationMain.FoundationsMain.database;
 
 	protected static Stage theStage;
 	protected static Pane theRootPane;
@@ -74,7 +72,6 @@ public class ViewStaffHome {
 		if (theView == null)
 			theView = new ViewStaffHome();
 
-		theDatabase.getUserAccountDetails(user.getUserName());
 		applicationMain.FoundationsMain.activeHomePage = theRole;
 		label_UserDetails.setText("User: " + theUser.getUserName()); // Set the username
 
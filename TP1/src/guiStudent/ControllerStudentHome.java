@@ -32,6 +32,7 @@ public class ControllerStudentHome {
 	 *
 	 */
 	protected static void performLogout() {
+		applicationMain.FoundationsMain.database.flushReadMarks();
 		guiUserLogin.ViewUserLogin.displayUserLogin(ViewStudentHome.theStage);
 	}
 
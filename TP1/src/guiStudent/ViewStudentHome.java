@@ -8,7 +8,6 @@ import javafx.scene.layout.Pane;
 import javafx.scene.shape.Line;
 import javafx.scene.text.Font;
 import javafx.stage.Stage;
-import database.Database;
 import entityClasses.User;
 import guiDiscussions.ViewDiscussions; // Import the new Discussions view
 import guiUserUpdate.ViewUserUpdate;
@@ -72,9 +71,6 @@ public class ViewStudentHome {
 	private static ViewStudentHome theView;		// Used to determine if instantiation of the class
 												// is needed
 
-	// Reference for the in-memory database so this package has access
-	private static Database theDatabase = applicationMain.FoundationsMain.database;
-
 	protected static Stage theStage;			// The Stage that JavaFX has established for us
 	protected static Pane theRootPane;			// The Pane that holds all the GUI widgets
 	protected static User theUser;				// The current logged in User
@@ -122,7 +118,6 @@ public class ViewStudentHome {
 
 		// Populate the dynamic aspects of the GUI with the data from the user and the current
 		// state of the system.
-		theDatabase.getUserAccountDetails(user.getUserName());
 		applicationMain.FoundationsMain.activeHomePage = theRole;
 
 		label_UserDetails.setText("User: " + theUser.getUserName());
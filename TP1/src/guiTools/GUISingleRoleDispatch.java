@@ -2,6 +2,8 @@ package guiTools;
 
 import javafx.scene.Scene;
 import javafx.stage.Stage;
+import database.Database.Role;
+import entityClasses.AuthenticatedUser;
 import entityClasses.User;
 
 
@@ -59,28 +61,26 @@ public class GUISingleRoleDispatch {
 
 	
 	/**********
-	 * <p> Method: doSingleRoleDispatch(Stage ps, Pane theRoot, Database database, User user) </p>
+	 * <p> Method: doSingleRoleDispatch(Stage ps, AuthenticatedUser account) </p>
 	 * 
-	 * <p> Description: This method is called after a GUI page has already been established and
-	 * it is being display with potentially new contents for the various GUI elements. </p>
+	 * <p> Description: This method shows the home page of the one role of a user who has just
+	 * logged in.  The roles come from the account Database.authenticate returned, so no further
+	 * query is needed. </p>
 	 * 
 	 * @param ps specifies the JavaFX Stage to be used for this GUI and it's methods
 	 * 
-	 * @param theRoot specifies the JavaFX Pane to be used for this GUI and it's methods
-	 * 
-	 * @param database specifies the Database to be used by this GUI and it's methods
-	 * 
-	 * @param user specifies the User for this GUI and it's methods
+	 * @param account specifies the account of the user who logged in
 	 * 
 	 */
-	public static void doSingleRoleDispatch(Stage ps, User user) {
+	public static void doSingleRoleDispatch(Stage ps, AuthenticatedUser account) {
 		System.out.println("************** Just entered single role dispatch page");
+		User user = account.toUser();
 
-		if (user.getAdminRole()) {
+		if (account.hasRole(Role.ADMIN)) {
 			guiAdminHome.ViewAdminHome.displayAdminHome(ps, user);
-		} else if (user.getNewStudent()) {
+		} else if (account.hasRole(Role.STUDENT)) {
 			guiStudent.ViewStudentHome.displayStudentHome(ps, user);
-		} else if (user.getNewStaff()) {
+		} else if (account.hasRole(Role.STAFF)) {
 			guiStaff.ViewStaffHome.displayStaffHome(ps, user);
 		} else {
 			// Invalid role
@@ -1,7 +1,10 @@
 package guiUserLogin;
 
+import database.AsyncDatabase;
 import database.Database;
-import entityClasses.User;
+import entityClasses.AuthenticatedUser;
+import entityClasses.UserProfile;
+import javafx.application.Platform;
 import javafx.stage.Stage;
 
 public class ControllerUserLogin {
@@ -20,14 +23,23 @@ public class ControllerUserLogin {
 	// Reference for the in-memory database so this package has access
 	private static Database theDatabase = applicationMain.FoundationsMain.database;
 
+	// Checks the login off the JavaFX Application Thread, as the discussion page loads its
+	// lists, and hands the outcome back to it
+	private static AsyncDatabase theAsyncDatabase = new AsyncDatabase(theDatabase, Platform::runLater);
+
 	private static Stage theStage;	
+
+	// The outcome of a login attempt: the account when the password matched, otherwise the
+	// profile to reset when a one-time password was given, otherwise neither
+	private record Attempt(AuthenticatedUser account, UserProfile otpProfile) {}
 	
 	/**********
 	 * <p> Method: public doLogin() </p>
 	 * 
 	 * <p> Description: This method is called when the user has clicked on the Login button. This
 	 * method checks the username and password to see if they are valid.  If so, it then logs that
-	 * user in my determining which role to use.
+	 * user in my determining which role to use.  The check runs in the background and the page
+	 * moves on when it is done.
 	 * 
 	 * The method reaches batch to the view page and to fetch the information needed rather than
 	 * passing that information as parameters.
@@ -37,72 +49,58 @@ public class ControllerUserLogin {
 		theStage = ts;
 		String username = ViewUserLogin.text_Username.getText();
 		String password = ViewUserLogin.text_Password.getText();
-    	boolean loginResult = false;
-    	
-		// Fetch the user and verify the username
-     	if (theDatabase.getUserAccountDetails(username) == false) {
-     		// Don't provide too much information.  Don't say the username is invalid or the
-     		// password is invalid.  Just say the pair is invalid.
-    		ViewUserLogin.alertUsernamePasswordError.setContentText(
-    				"Incorrect username/password. Try again!");
-    		ViewUserLogin.alertUsernamePasswordError.showAndWait();
-    		return;
-    	}
-		System.out.println("*** Username is valid");
-		
-		// Check to see that the login password matches the account password
-    	String actualPassword = theDatabase.getCurrentPassword();
     	
-    	if (password.compareTo(actualPassword) != 0) {
-    		if(theDatabase.otpHasBeenUsed(username, password)) {
-    			guiUserUpdate.ControllerUserUpdate.otpPasswordReset(theStage);
+		// One lookup fetches the account and its roles; the password is checked against the
+		// stored hash on the database's password worker pool, which can take a while when many
+		// users log in at once, so the page waits for the answer without blocking
+		ViewUserLogin.button_Login.setDisable(true);
+		theAsyncDatabase.submit(db -> {
+			AuthenticatedUser account = db.authenticate(username, password);
+			if (account != null)
+				return new Attempt(account, null);
+			// A one-time password from a reset logs in to set a new password
+			UserProfile profile = db.otpHasBeenUsed(username, password) ? db.getUserProfile(username) : null;
+			return new Attempt(null, profile);
+		}).whenCompleteAsync((attempt, error) -> {
+			ViewUserLogin.button_Login.setDisable(false);
+			if (error != null) {
+				error.printStackTrace();
+				attempt = new Attempt(null, null);
+			}
+			finishLogin(attempt);
+		}, Platform::runLater);
+	}
+
+	// Goes on from a login attempt on the JavaFX Application Thread
+	private static void finishLogin(Attempt attempt) {
+		AuthenticatedUser account = attempt.account();
+     	if (account == null) {
+    		if (attempt.otpProfile() != null) {
+    			guiUserUpdate.ControllerUserUpdate.otpPasswordReset(theStage, attempt.otpProfile());
     	        return;
     		}
+     		// Don't provide too much information.  Don't say the username is invalid or the
+     		// password is invalid.  Just say the pair is invalid.
     		ViewUserLogin.alertUsernamePasswordError.setContentText(
     				"Incorrect username/password. Try again!");
     		ViewUserLogin.alertUsernamePasswordError.showAndWait();
     		return;
     	}
-		System.out.println("*** Password is valid for this user");
+		System.out.println("*** Username and password are valid");
 		
-		// Establish this user's details
-    	User user = new User(username, password, theDatabase.getCurrentFirstName(), 
-    			theDatabase.getCurrentMiddleName(), theDatabase.getCurrentLastName(), 
-    			theDatabase.getCurrentPreferredFirstName(), theDatabase.getCurrentEmailAddress(), 
-    			theDatabase.getCurrentAdminRole(), 
-    			theDatabase.getCurrentNewStudent(), theDatabase.getCurrentNewStaff());
-    	
     	// See which home page dispatch to use
-		int numberOfRoles = theDatabase.getNumberOfRoles(user);		
+		int numberOfRoles = account.numberOfRoles();
 		System.out.println("*** The number of roles: "+ numberOfRoles);
 		if (numberOfRoles == 1) {
 			// Single Account Home Page - The user has no choice here
-			
-			// Admin role
-			if (user.getAdminRole()) {
-				loginResult = theDatabase.loginAdmin(user);
-				if (loginResult) {
-					guiAdminHome.ViewAdminHome.displayAdminHome(theStage, user);
-				}
-			} else if (user.getNewStudent()) {
-				loginResult = theDatabase.loginStudent(user);
-				if (loginResult) {
-					guiStudent.ViewStudentHome.displayStudentHome(theStage, user);
-				}
-			} else if (user.getNewStaff()) {
-				loginResult = theDatabase.loginStaff(user);
-				if (loginResult) {
-					guiStaff.ViewStaffHome.displayStaffHome(theStage, user);
-				}
-				// Other roles
-			} else {
-				System.out.println("***** UserLogin goToUserHome request has an invalid role");
-			}
+			guiTools.GUISingleRoleDispatch.doSingleRoleDispatch(theStage, account);
 		} else if (numberOfRoles > 1) {
 			// Multiple Account Home Page - The user chooses which role to play
 			System.out.println("*** Going to displayMultipleRoleDispatch");
 			guiMultipleRoleDispatch.ViewMultipleRoleDispatch.
-				displayMultipleRoleDispatch(theStage, user);
+				displayMultipleRoleDispatch(theStage, account.toUser());
+		} else {
+			System.out.println("***** UserLogin goToUserHome request has an invalid role");
 		}
 	}
 	
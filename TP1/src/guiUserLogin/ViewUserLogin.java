@@ -51,7 +51,7 @@ public class ViewUserLogin {
 	//	private User user;
 	protected static TextField text_Username = new TextField();
 	protected static PasswordField text_Password = new PasswordField();
-	private static Button button_Login = new Button("Log In");	
+	protected static Button button_Login = new Button("Log In");	
 
 	private static Label label_AccountSetupInsrtuctions = new Label("No account? "+	
 			"Enter your invitation code and click on the Account Setup button");
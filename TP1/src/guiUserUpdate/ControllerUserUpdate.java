@@ -1,7 +1,7 @@
 package guiUserUpdate;
 
-import database.Database;
 import entityClasses.User;
+import entityClasses.UserProfile;
 import javafx.stage.Stage;
 
 public class ControllerUserUpdate {
@@ -11,10 +11,6 @@ public class ControllerUserUpdate {
 	
 	**********************************************************************************************/
 	
-	// Reference for the in-memory database so this package has access
-	private static Database theDatabase = applicationMain.FoundationsMain.database;
-	
-	
 	/**********
 	 * <p> Title: ControllerUserUpdate Class</p>
 	 * 
@@ -63,19 +59,8 @@ public class ControllerUserUpdate {
 		}
  	}
 	
-	public static void otpPasswordReset(Stage theStage) {
-		User theUser = new User(
-				theDatabase.getCurrentUsername(),
-	            theDatabase.getCurrentPassword(),
-	            theDatabase.getCurrentFirstName(),
-	            theDatabase.getCurrentMiddleName(),
-	            theDatabase.getCurrentLastName(),
-	            theDatabase.getCurrentPreferredFirstName(),
-	            theDatabase.getCurrentEmailAddress(),
-	            theDatabase.getCurrentAdminRole(),
-	            theDatabase.getCurrentNewStudent(),
-	            theDatabase.getCurrentNewStaff()
-		);
+	public static void otpPasswordReset(Stage theStage, UserProfile profile) {
+		User theUser = profile.toUser();
 		
 		//Opens user update screen in OTP reset mode
 		guiUserUpdate.ViewUserUpdate.displayOtpPasswordReset(theStage,theUser);
@@ -3,6 +3,7 @@ package guiUserUpdate;
 import java.util.Optional;
 
 import database.Database;
+import database.PasswordHasher;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.Alert;
@@ -14,6 +15,7 @@ import javafx.scene.layout.Pane;
 import javafx.scene.text.Font;
 import javafx.stage.Stage;
 import entityClasses.User;
+import entityClasses.UserProfile;
 import passwordPopUpWindow.Model;
 import nameValidation.NameValidation;
 import emailAddressValidator.EmailAddressRecognizer;
@@ -178,7 +180,9 @@ public class ViewUserUpdate {
     	else label_CurrentUsername.setText(s);
 		
 		s = theUser.getPassword();
-    	if (s == null || s.length() < 1)label_CurrentPassword.setText("<none>");
+    	// a user who logged in has no password here: only a hash of it is stored
+    	if (s == null || PasswordHasher.isHash(s)) label_CurrentPassword.setText("<hidden>");
+    	else if (s.length() < 1)label_CurrentPassword.setText("<none>");
     	else label_CurrentPassword.setText(s);
     	
 		s = theUser.getFirstName();
@@ -329,8 +333,8 @@ public class ViewUserUpdate {
 
                 // If valid, update the password
                 theDatabase.updatePassword(theUser.getUserName(), newPassword);
-                theDatabase.getUserAccountDetails(theUser.getUserName());
-                String updatedPassword = theDatabase.getCurrentPassword();
+                // the database keeps only a hash of the password
+                String updatedPassword = newPassword;
                 theUser.setPassword(updatedPassword);
 
                 if (updatedPassword == null || updatedPassword.length() < 1)
@@ -375,9 +379,10 @@ public class ViewUserUpdate {
                     ViewUserUpdate.alertUsernamePasswordError.showAndWait();
                     return;
                 }
-                theDatabase.updateFirstName(theUser.getUserName(), firstName);
-                theDatabase.getUserAccountDetails(theUser.getUserName());
-                String newName = theDatabase.getCurrentFirstName();
+                // One update, and the profile it returns is read back without another query
+                UserProfile updated = theDatabase.updateProfile(theUser.getUserName(),
+                        new UserProfile.Changes().firstName(firstName));
+                String newName = updated == null ? theUser.getFirstName() : updated.firstName();
                 theUser.setFirstName(newName);
                 if (newName == null || newName.length() < 1) label_CurrentFirstName.setText("<none>");
                 else label_CurrentFirstName.setText(newName);
@@ -408,9 +413,10 @@ public class ViewUserUpdate {
                         return;
                     }
                 }
-                theDatabase.updateMiddleName(theUser.getUserName(), middleName);
-                theDatabase.getUserAccountDetails(theUser.getUserName());
-                String newName = theDatabase.getCurrentMiddleName();
+                // One update, and the profile it returns is read back without another query
+                UserProfile updated = theDatabase.updateProfile(theUser.getUserName(),
+                        new UserProfile.Changes().middleName(middleName));
+                String newName = updated == null ? theUser.getMiddleName() : updated.middleName();
                 theUser.setMiddleName(newName);
                 if (newName == null || newName.length() < 1) label_CurrentMiddleName.setText("<none>");
                 else label_CurrentMiddleName.setText(newName);
@@ -438,9 +444,10 @@ public class ViewUserUpdate {
                     ViewUserUpdate.alertUsernamePasswordError.showAndWait();
                     return;
                 }
-                theDatabase.updateLastName(theUser.getUserName(), lastName);
-                theDatabase.getUserAccountDetails(theUser.getUserName());
-                String newName = theDatabase.getCurrentLastName();
+                // One update, and the profile it returns is read back without another query
+                UserProfile updated = theDatabase.updateProfile(theUser.getUserName(),
+                        new UserProfile.Changes().lastName(lastName));
+                String newName = updated == null ? theUser.getLastName() : updated.lastName();
                 theUser.setLastName(newName);
                 if (newName == null || newName.length() < 1) label_CurrentLastName.setText("<none>");
                 else label_CurrentLastName.setText(newName);
@@ -470,9 +477,10 @@ public class ViewUserUpdate {
                     ViewUserUpdate.alertUsernamePasswordError.showAndWait();
                     return;
                 }
-                theDatabase.updatePreferredFirstName(theUser.getUserName(), preferredFirstName);
-                theDatabase.getUserAccountDetails(theUser.getUserName());
-                String newName = theDatabase.getCurrentPreferredFirstName();
+                // One update, and the profile it returns is read back without another query
+                UserProfile updated = theDatabase.updateProfile(theUser.getUserName(),
+                        new UserProfile.Changes().preferredFirstName(preferredFirstName));
+                String newName = updated == null ? theUser.getPreferredFirstName() : updated.preferredFirstName();
                 theUser.setPreferredFirstName(newName);
                 if (newName == null || newName.length() < 1)
                     label_CurrentPreferredFirstName.setText("<none>");
@@ -502,9 +510,10 @@ public class ViewUserUpdate {
                     ViewUserUpdate.alertUsernamePasswordError.showAndWait();
                     return;
                 }
-                theDatabase.updateEmailAddress(theUser.getUserName(), email);
-                theDatabase.getUserAccountDetails(theUser.getUserName());
-                String newEmail = theDatabase.getCurrentEmailAddress();
+                // One update, and the profile it returns is read back without another query
+                UserProfile updated = theDatabase.updateProfile(theUser.getUserName(),
+                        new UserProfile.Changes().emailAddress(email));
+                String newEmail = updated == null ? theUser.getEmailAddress() : updated.emailAddress();
                 theUser.setEmailAddress(newEmail);
                 if (newEmail == null || newEmail.length() < 1)
                     label_CurrentEmailAddress.setText("<none>");
@@ -1,5 +1,6 @@
 package passwordPopUpWindow;
 
+import fsmRecognizer.RecognizerResult;
 import javafx.scene.paint.Color;
 
 /*******
@@ -100,8 +101,9 @@ public class Model {
 	
 	/*-********************************************************************************************
 	 * 
-	 * Attributes used by the Finite State Machine to inform the user about what was and was not
-	 * valid and point to the character of the error.  This will enhance the user experience.
+	 * Attributes used by the GUI to inform the user about what was and was not valid and point to
+	 * the character of the error.  This will enhance the user experience.  Only evaluatePassword
+	 * sets them; validate keeps no state, so the bulk user import may call it from many threads.
 	 * 
 	 */
 
@@ -113,30 +115,24 @@ public class Model {
 	public static boolean foundNumericDigit = false;
 	public static boolean foundSpecialChar = false;
 	public static boolean foundLongEnough = false;
-	private static String inputLine = "";				// The input line
-	private static char currentChar;					// The current character in the line
-	private static int currentCharNdx;					// The index of the current character
-	private static boolean running;						// The flag that specifies if the FSM is 
-														// running
 
-	/*
-	 * This private method displays the input line and then on a line under it displays the input
-	 * up to the point of the error.  At that point, a question mark is place and the rest of the 
-	 * input is ignored. This method is designed to be used to display information to make it clear
-	 * to the user where the error in the input can be found, and show that on the console 
-	 * terminal.
-	 * 
-	 */
+	// The requirements, as bits of the value requirementsFound returns
+	private static final int UPPER_CASE = 1;
+	private static final int LOWER_CASE = 2;
+	private static final int NUMERIC_DIGIT = 4;
+	private static final int SPECIAL_CHAR = 8;
+	private static final int LONG_ENOUGH = 16;
+	private static final int INVALID_CHAR = 32;
+	private static final int ALL_REQUIREMENTS = UPPER_CASE | LOWER_CASE | NUMERIC_DIGIT | SPECIAL_CHAR | LONG_ENOUGH;
+
+	private static final String SPECIAL_CHARACTERS = "~`!@#$%^&*()_-+={}[]|\\:;\"'<>,.?/";
+	private static final int MIN_LENGTH = 8;
+	private static final int MAX_LENGTH = 32;
+
+	private static final String EMPTY = "*** Error *** The password is empty!";
+	private static final String TOO_LONG = "*** Error *** The password is longer than 32 characters!";
+	private static final String INVALID = "*** Error *** An invalid character has been found!";
 
-	private static void displayInputState() {
-		// Display the entire input line
-		System.out.println(inputLine);
-		System.out.println(inputLine.substring(0,currentCharNdx) + "?");
-		System.out.println("The password size: " + inputLine.length() + "  |  The currentCharNdx: " + 
-				currentCharNdx + "  |  The currentChar: \"" + currentChar + "\"");
-	}
-	
-	
 	/*
 	 * This private method checks each of the requirements and if one is satisfied, it changes the
 	 * the text to tell the user of this fact and changes the text color from red to green.
@@ -174,113 +170,102 @@ public class Model {
 	/**********
 	 * <p> Title: evaluatePassword - Public Method </p>
 	 * 
-	 * <p> Description: This method is a mechanical transformation of a Directed Graph diagram 
-	 * into a Java method. This method is used by both the GUI version of the application as well
-	 * as the testing automation version.
+	 * <p> Description: This method is used by both the GUI version of the application as well
+	 * as the testing automation version.  It checks the password with validate and records which
+	 * requirements were satisfied in the attributes above for the GUI.
 	 * 
 	 * @param input		The input string evaluated by the directed graph processing
 	 * @return			An output string that is empty if every things is okay or it will be
-	 * 						a string with a helpful description of the error follow by two lines
-	 * 						that shows the input line follow by a line with an up arrow at the
-	 *						point where the error was found.
+	 * 						a string with a helpful description of the error
 	 */
 	
 	public static String evaluatePassword(String input) {
-		// The following are the local variable used to perform the Directed Graph simulation
-		passwordErrorMessage = "";
-		passwordIndexofError = 0;			// Initialize the IndexofError
-		inputLine = input;					// Save the reference to the input line as a global
-		currentCharNdx = 0;					// The index of the current character
-		
-		if(input.length() <= 0) {
-			return "*** Error *** The password is empty!";
-		}
-		
-		if(input.length() > 32) {
-			return "*** Error *** The password is longer than 32 characters!";
+		RecognizerResult result = validate(input);
+		passwordInput = input;
+		passwordErrorMessage = result.message();
+		passwordIndexofError = result.isValid() ? 0 : result.errorIndex();
+		if (input.length() == 0 || input.length() > MAX_LENGTH)
+			return result.message();
+
+		// The requirements satisfied by the characters before any invalid one
+		int found = requirementsFound(input);
+		foundUpperCase = (found & UPPER_CASE) != 0;
+		foundLowerCase = (found & LOWER_CASE) != 0;
+		foundNumericDigit = (found & NUMERIC_DIGIT) != 0;
+		foundSpecialChar = (found & SPECIAL_CHAR) != 0;
+		foundLongEnough = (found & LONG_ENOUGH) != 0;
+		return result.message();
+	}
+	
+	/**********
+	 * <p> Title: validate - Public Method </p>
+	 * 
+	 * <p> Description: Checks a password against the requirements: at least eight and no more
+	 * than 32 characters, with an upper case letter, a lower case letter, a numeric digit and a
+	 * special character, and nothing else.  It keeps no state, so it may be called from several
+	 * threads at once, and it allocates nothing for a valid password.</p>
+	 * 
+	 * @param input		The password
+	 * @return			RecognizerResult.VALID, or the index and a helpful description of the error
+	 */
+	public static RecognizerResult validate(CharSequence input) {
+		if (input.length() <= 0)
+			return new RecognizerResult(0, EMPTY);
+		if (input.length() > MAX_LENGTH)
+			return new RecognizerResult(0, TOO_LONG);
+
+		int found = requirementsFound(input);
+		if (found == ALL_REQUIREMENTS)
+			return RecognizerResult.VALID;
+		if ((found & INVALID_CHAR) != 0) {
+			int i = 0;
+			while (characterKind(input.charAt(i)) != 0)
+				i++;
+			return new RecognizerResult(i, INVALID);
 		}
-		
-		// The input is not empty, so we can access the first character
-		currentChar = input.charAt(0);		// The current character from the above indexed position
 
-		// The Directed Graph simulation continues until the end of the input is reached or at some 
-		// state the current character does not match any valid transition to a next state.  This
-		// local variable is a working copy of the input.
-		passwordInput = input;				// Save a copy of the input
-		
-		// The following are the attributes associated with each of the requirements
-		foundUpperCase = false;				// Reset the Boolean flag
-		foundLowerCase = false;				// Reset the Boolean flag
-		foundNumericDigit = false;			// Reset the Boolean flag
-		foundSpecialChar = false;			// Reset the Boolean flag
-		foundNumericDigit = false;			// Reset the Boolean flag
-		foundLongEnough = false;			// Reset the Boolean flag
-		
-		// This flag determines whether the directed graph (FSM) loop is operating or not
-		running = true;						// Start the loop
+		// Construct a String with a list of the requirement elements that were not found.
+		StringBuilder errMessage = new StringBuilder();
+		if ((found & UPPER_CASE) == 0)
+			errMessage.append("Need an upper case character; ");
+		if ((found & LOWER_CASE) == 0)
+			errMessage.append("Need a lower case character; ");
+		if ((found & NUMERIC_DIGIT) == 0)
+			errMessage.append("Need a numeric digit; ");
+		if ((found & SPECIAL_CHAR) == 0)
+			errMessage.append("Need a special character; ");
+		if ((found & LONG_ENOUGH) == 0)
+			errMessage.append("Need at least 8 characters; ");
+		return new RecognizerResult(input.length(), errMessage + "conditions were not satisfied");
+	}
 
-		// The Directed Graph simulation continues until the end of the input is reached or at some
-		// state the current character does not match any valid transition
-		while (running) {
-			displayInputState();
-			// The cascading if statement sequentially tries the current character against all of
-			// the valid transitions, each associated with one of the requirements
-			if (currentChar >= 'A' && currentChar <= 'Z') {
-				System.out.println("Upper case letter found");
-				foundUpperCase = true;
-			} else if (currentChar >= 'a' && currentChar <= 'z') {
-				System.out.println("Lower case letter found");
-				foundLowerCase = true;
-			} else if (currentChar >= '0' && currentChar <= '9') {
-				System.out.println("Digit found");
-				foundNumericDigit = true;
-			} else if ("~`!@#$%^&*()_-+={}[]|\\:;\"'<>,.?/".indexOf(currentChar) >= 0) {
-				System.out.println("Special character found");
-				foundSpecialChar = true;
-			} else {
-				passwordIndexofError = currentCharNdx;
-				return "*** Error *** An invalid character has been found!";
-			}
-			if (currentCharNdx >= 7) {
-				System.out.println("At least 8 characters found");
-				foundLongEnough = true;
-			}
-			
-			// Go to the next character if there is one
-			currentCharNdx++;
-			if (currentCharNdx >= inputLine.length())
-				running = false;
-			else
-				currentChar = input.charAt(currentCharNdx);
-			
-			System.out.println();
+	/*
+	 * The requirements satisfied by the characters up to the first invalid one, with INVALID_CHAR
+	 * set if there is one.
+	 */
+	private static int requirementsFound(CharSequence input) {
+		int found = 0;
+		for (int i = 0; i < input.length(); i++) {
+			int kind = characterKind(input.charAt(i));
+			if (kind == 0)
+				return found | INVALID_CHAR;
+			found |= kind;
+			if (i + 1 >= MIN_LENGTH)
+				found |= LONG_ENOUGH;
 		}
-		
-		// Construct a String with a list of the requirement elements that were found.
-		String errMessage = "";
-		if (!foundUpperCase)
-			errMessage += "Need an upper case character; ";
-		
-		if (!foundLowerCase)
-			errMessage += "Need a lower case character; ";
-		
-		if (!foundNumericDigit)
-			errMessage += "Need a numeric digit; ";
-			
-		if (!foundSpecialChar)
-			errMessage += "Need a special character; ";
-			
-		if (!foundLongEnough)
-			errMessage += "Need at least 8 characters; ";
-		
-		if (errMessage == "")
-			return "";
-		
-		// If it gets here, there something was not found, so return an appropriate message
-		passwordIndexofError = currentCharNdx;
-		return errMessage + "conditions were not satisfied";
+		return found;
+	}
+
+	// The requirement a character satisfies, or 0 if it may not be in a password
+	private static int characterKind(char c) {
+		if (c >= 'A' && c <= 'Z')
+			return UPPER_CASE;
+		if (c >= 'a' && c <= 'z')
+			return LOWER_CASE;
+		if (c >= '0' && c <= '9')
+			return NUMERIC_DIGIT;
+		if (SPECIAL_CHARACTERS.indexOf(c) >= 0)
+			return SPECIAL_CHAR;
+		return 0;
 	}
-	
-	
 }
- 
\ No newline at end of file
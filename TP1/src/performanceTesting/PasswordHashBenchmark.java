@@ -0,0 +1,102 @@
+package performanceTesting;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import database.PasswordHasher;
+
+/**
+ * <p> Title: PasswordHashBenchmark Class. </p>
+ *
+ * <p> Description: Calibrates the PBKDF2 iteration count of PasswordHasher to this host. It times
+ * PBKDF2 at a trial count, scales the count to the target time for one password check, refines
+ * it by timing the scaled count until it is within 5% of the target, and prints the
+ * passwordHash.iterations setting to start the application with. It then replays a burst of
+ * logins, as at the start of an exam, through a PasswordHasher with that count, and reports how
+ * many logins a second the worker pool checks and how long a login waits for its answer. </p>
+ *
+ * <p> Usage: PasswordHashBenchmark [targetMillis] [logins] [workers] (defaults 250, 64 and half
+ * of the processors) </p>
+ *
+ * <p> Copyright: Lynn Robert Carter © 2025 </p>
+ *
+ * @version 1.00
+ */
+public class PasswordHashBenchmark {
+
+    private static final String PASSWORD = "Exam-Day-1!";
+    private static final int TRIAL_ITERATIONS = 20_000;
+    private static final int ROUND_TO = 10_000;
+
+    public static void main(String[] args) throws Exception {
+        double targetMillis = args.length > 0 ? Double.parseDouble(args[0]) : 250;
+        int logins = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int workers = args.length > 2 ? Integer.parseInt(args[2])
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        byte[] salt = new byte[16];
+
+        // Warm up, so the trial is timed on compiled code
+        for (int i = 0; i < 20; i++)
+            PasswordHasher.pbkdf2(PASSWORD, salt, TRIAL_ITERATIONS);
+        double trialMillis = medianMillis(salt, TRIAL_ITERATIONS, 15);
+        System.out.printf("PBKDF2-HMAC-SHA256: %,d iterations in %.2f ms%n", TRIAL_ITERATIONS, trialMillis);
+
+        // PBKDF2 time is linear in the iteration count; the first estimate is refined by timing
+        // it, as the short trial runs partly on code that is not yet fully compiled
+        int iterations = scale(TRIAL_ITERATIONS, trialMillis, targetMillis);
+        double checkMillis = medianMillis(salt, iterations, 5);
+        for (int round = 0; round < 3 && Math.abs(checkMillis - targetMillis) > targetMillis / 20; round++) {
+            iterations = scale(iterations, checkMillis, targetMillis);
+            checkMillis = medianMillis(salt, iterations, 5);
+        }
+        System.out.printf("Calibrated: %,d iterations in %.1f ms (target %.0f ms)%n", iterations, checkMillis,
+                targetMillis);
+        System.out.println("Start the application with -D" + PasswordHasher.ITERATIONS_PROPERTY + "=" + iterations);
+
+        // A login burst: every login submitted at once, checked on the hasher's pool
+        PasswordHasher hasher = new PasswordHasher(iterations, workers);
+        String stored = hasher.hash(PASSWORD);
+        ExecutorService clients = Executors.newFixedThreadPool(logins);
+        List<Future<Long>> waits = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < logins; i++) {
+            waits.add(clients.submit(() -> {
+                long t = System.nanoTime();
+                if (!hasher.verify(PASSWORD, stored).matches())
+                    throw new IllegalStateException("a login check failed");
+                return System.nanoTime() - t;
+            }));
+        }
+        long[] nanos = new long[logins];
+        for (int i = 0; i < logins; i++)
+            nanos[i] = waits.get(i).get();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        clients.shutdown();
+
+        Arrays.sort(nanos);
+        System.out.println();
+        System.out.printf("Burst of %d logins on %d workers: %.2f s, %.1f logins/s%n", logins, workers, seconds,
+                logins / seconds);
+        System.out.printf("Wait for an answer: median %.0f ms, 95th percentile %.0f ms, longest %.0f ms%n",
+                nanos[logins / 2] / 1e6, nanos[(int) (logins * 0.95)] / 1e6, nanos[logins - 1] / 1e6);
+    }
+
+    private static int scale(int iterations, double millis, double targetMillis) {
+        return (int) Math.max(ROUND_TO, Math.round(iterations * targetMillis / millis / ROUND_TO) * ROUND_TO);
+    }
+
+    private static double medianMillis(byte[] salt, int iterations, int repetitions) {
+        long[] nanos = new long[repetitions];
+        for (int i = 0; i < repetitions; i++) {
+            long t = System.nanoTime();
+            PasswordHasher.pbkdf2(PASSWORD, salt, iterations);
+            nanos[i] = System.nanoTime() - t;
+        }
+        Arrays.sort(nanos);
+        return nanos[repetitions / 2] / 1e6;
+    }
+}
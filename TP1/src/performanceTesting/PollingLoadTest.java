@@ -0,0 +1,178 @@
+package performanceTesting;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import dataGenerator.BoardGenerator;
+import database.ChangeEvent;
+import database.ChangePoller;
+import database.Database;
+import entityClasses.Post;
+
+/**
+ * <p> Title: PollingLoadTest Class. </p>
+ *
+ * <p> Description: Checks that the live refresh of the discussion page is cheap enough to leave
+ * on for a whole class. A board is generated into a private in-memory H2 database, and the time
+ * of one full getAllPosts, which is what every client used to pay to see a change, is measured.
+ * Then many clients poll the change feed with ChangePoller on a shared scheduler while a writer
+ * adds a post every second; each client that sees the feed move fetches the new changes and the
+ * posts they name, as ControllerDiscussions does. The database time of all the probes and delta
+ * reads together, per second, must stay below the time of a single getAllPosts. </p>
+ *
+ * <p> Usage: PollingLoadTest [clients] [posts] [seconds] [intervalMillis] (defaults 500, 10000,
+ * 10 and 3000) </p>
+ *
+ * <p> Copyright: Lynn Robert Carter © 2025 </p>
+ *
+ * @version 1.00
+ */
+public class PollingLoadTest {
+
+    private static final String DB_URL = "jdbc:h2:mem:pollingLoadTest;DB_CLOSE_DELAY=-1";
+    private static final int FULL_LOADS = 5;
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int posts = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        long intervalMillis = args.length > 3 ? Long.parseLong(args[3]) : 3_000;
+
+        TimedDatabase db = new TimedDatabase(DB_URL, 8);
+        db.connectToDatabase();
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(4, daemons("poller"));
+        ExecutorService callbacks = Executors.newFixedThreadPool(4, daemons("client"));
+        List<ChangePoller> pollers = new ArrayList<>();
+        try {
+            System.out.println("Generating a board of " + posts + " posts...");
+            new BoardGenerator(db, 200, 10, posts, 360, Runtime.getRuntime().availableProcessors()).generate();
+            String viewer = BoardGenerator.username(1);
+
+            // What a client used to pay for every change: the whole board
+            db.getAllPosts(viewer);
+            long start = System.nanoTime();
+            for (int i = 0; i < FULL_LOADS; i++)
+                db.getAllPosts(viewer);
+            long fullLoadNanos = (System.nanoTime() - start) / FULL_LOADS;
+
+            long startSeq = db.getLatestChangeSeq();
+            AtomicInteger refreshes = new AtomicInteger();
+            db.resetTime();
+            for (int c = 0; c < clients; c++) {
+                String username = BoardGenerator.username(c % 200);
+                AtomicLong knownSeq = new AtomicLong(startSeq);
+                Runnable refresh = () -> {
+                    List<ChangeEvent> changes = db.getChangesSince(knownSeq.get(), 200);
+                    if (changes.isEmpty())
+                        return;
+                    LinkedHashSet<Integer> postIDs = new LinkedHashSet<>();
+                    for (ChangeEvent change : changes)
+                        postIDs.add(change.postID());
+                    db.getPosts(username, Database.Role.STUDENT, new ArrayList<>(postIDs));
+                    knownSeq.set(changes.get(changes.size() - 1).seq());
+                    refreshes.incrementAndGet();
+                };
+                ChangePoller poller = new ChangePoller(db, scheduler, intervalMillis, knownSeq::get, callbacks, refresh);
+                pollers.add(poller);
+                poller.start();
+            }
+
+            System.out.println("Polling with " + clients + " clients for " + seconds + " s...");
+            long runStart = System.nanoTime();
+            for (int s = 0; s < seconds; s++) {
+                Thread.sleep(1_000);
+                db.create(new Post(0, viewer, "Live post " + s, "Written during the load test", "General",
+                        false, false, 0, 0));
+            }
+            for (ChangePoller poller : pollers)
+                poller.stop();
+            double runSeconds = (System.nanoTime() - runStart) / 1e9;
+
+            double pollNanosPerSecond = db.time() / runSeconds;
+            System.out.println();
+            System.out.printf("%-36s %12.2f%n", "getAllPosts, millis", fullLoadNanos / 1e6);
+            System.out.printf("%-36s %12d%n", "probes", db.probes.get());
+            System.out.printf("%-36s %12d%n", "delta reads", refreshes.get());
+            System.out.printf("%-36s %12.2f%n", "polling database millis per second", pollNanosPerSecond / 1e6);
+            System.out.println(pollNanosPerSecond < fullLoadNanos
+                    ? "PASS: polling costs less than one full load per second"
+                    : "FAIL: polling costs more than one full load per second");
+        } finally {
+            for (ChangePoller poller : pollers)
+                poller.close();
+            scheduler.shutdownNow();
+            callbacks.shutdownNow();
+            db.closeConnection();
+        }
+    }
+
+    private static ThreadFactory daemons(String name) {
+        AtomicInteger n = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, name + "-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    /**
+     * Adds up the time spent in the calls the pollers and their clients make.
+     */
+    private static class TimedDatabase extends Database {
+
+        private final AtomicLong nanos = new AtomicLong();
+        private final AtomicLong probes = new AtomicLong();
+
+        TimedDatabase(String url, int poolSize) {
+            super(url, poolSize);
+        }
+
+        void resetTime() {
+            nanos.set(0);
+            probes.set(0);
+        }
+
+        long time() {
+            return nanos.get();
+        }
+
+        @Override
+        public long getLatestChangeSeq() {
+            long start = System.nanoTime();
+            try {
+                return super.getLatestChangeSeq();
+            } finally {
+                nanos.addAndGet(System.nanoTime() - start);
+                probes.incrementAndGet();
+            }
+        }
+
+        @Override
+        public List<ChangeEvent> getChangesSince(long seq, int limit) {
+            long start = System.nanoTime();
+            try {
+                return super.getChangesSince(seq, limit);
+            } finally {
+                nanos.addAndGet(System.nanoTime() - start);
+            }
+        }
+
+        @Override
+        public List<Post> getPosts(String username, Database.Role sessionRole, List<Integer> postIDs) {
+            long start = System.nanoTime();
+            try {
+                return super.getPosts(username, sessionRole, postIDs);
+            } finally {
+                nanos.addAndGet(System.nanoTime() - start);
+            }
+        }
+    }
+}
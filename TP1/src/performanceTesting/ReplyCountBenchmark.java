@@ -0,0 +1,158 @@
+package performanceTesting;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import database.Database;
+import entityClasses.Post;
+import entityClasses.Reply;
+
+/**
+ * <p> Title: ReplyCountBenchmark Class. </p>
+ *
+ * <p> Description: Compares the two ways the discussion page has counted the replies each post
+ * shows: loading every post's replies with getRepliesForPost (one query per post), and the
+ * session counts getPosts and getPostsPage compute for the listed posts in one query. The board
+ * is seeded into a private in-memory H2 database
+ * and H2's query statistics are used to count the statements each approach executes. </p>
+ *
+ * <p> Usage: ReplyCountBenchmark [posts] [repliesPerPost] (defaults 10000 and 2) </p>
+ *
+ * <p> Copyright: Lynn Robert Carter © 2025 </p>
+ *
+ * @version 1.00
+ */
+public class ReplyCountBenchmark {
+
+    private static final String DB_URL = "jdbc:h2:mem:replyCountBenchmark;DB_CLOSE_DELAY=-1";
+    private static final String VIEWER = "student0";
+
+    public static void main(String[] args) throws Exception {
+        int posts = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        int repliesPerPost = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+
+        Database db = new Database(DB_URL);
+        db.connectToDatabase();
+
+        try (Connection stats = DriverManager.getConnection(DB_URL, "sa", "")) {
+            System.out.println("Seeding " + posts + " posts with " + repliesPerPost + " replies each...");
+            seed(stats, posts, repliesPerPost);
+            // the seed bypasses createReply, so fill in the reply counters the session counts read
+            db.repairReplyCounters();
+
+            try (Statement s = stats.createStatement()) {
+                s.execute("SET QUERY_STATISTICS TRUE");
+            }
+
+            // The post list itself is the same for both approaches, so load it once up front
+            List<Post> allPosts = db.getAllPosts(VIEWER);
+
+            // Old path: what ControllerDiscussions.initializeView used to do
+            resetStatistics(stats);
+            long start = System.nanoTime();
+            long legacyTotal = 0;
+            for (Post p : allPosts) {
+                for (Reply r : db.getRepliesForPost(p.getPostID(), VIEWER)) {
+                    // the running app fills this in from the global database connection
+                    r.setPostAuthorUsername(p.getAuthorUsername());
+                    if (r.isVisibleTo(VIEWER))
+                        legacyTotal++;
+                }
+            }
+            long legacyNanos = System.nanoTime() - start;
+            long legacyQueries = executedQueries(stats);
+
+            // New path: the session counts of the listed posts, from one replies query
+            List<Integer> postIDs = new ArrayList<>(allPosts.size());
+            for (Post p : allPosts)
+                postIDs.add(p.getPostID());
+            resetStatistics(stats);
+            start = System.nanoTime();
+            long batchedTotal = 0;
+            for (Post p : db.getPosts(VIEWER, Database.Role.STUDENT, postIDs))
+                batchedTotal += p.getReplyCount();
+            long batchedNanos = System.nanoTime() - start;
+            long batchedQueries = executedQueries(stats);
+
+            System.out.println();
+            System.out.printf("%-28s %10s %12s %14s%n", "approach", "queries", "millis", "visible replies");
+            System.out.printf("%-28s %10d %12.1f %14d%n", "getRepliesForPost per post",
+                    legacyQueries, legacyNanos / 1e6, legacyTotal);
+            System.out.printf("%-28s %10d %12.1f %14d%n", "getPosts session counts",
+                    batchedQueries, batchedNanos / 1e6, batchedTotal);
+        } finally {
+            db.closeConnection();
+        }
+    }
+
+    /**
+     * Inserts the benchmark board directly with JDBC batches so seeding does not dominate the run.
+     * Every tenth reply is private feedback from a staff member to the post's author.
+     */
+    private static void seed(Connection conn, int posts, int repliesPerPost) throws SQLException {
+        conn.setAutoCommit(false);
+        Timestamp now = Timestamp.from(Instant.now());
+        try (PreparedStatement post = conn.prepareStatement(
+                "INSERT INTO postsDB (postID, authorUsername, title, content, thread, timestamp) VALUES (?, ?, ?, ?, ?, ?)");
+                PreparedStatement reply = conn.prepareStatement(
+                        "INSERT INTO repliesDB (postID, authorUsername, content, visibility, recipient, timestamp) "
+                                + "VALUES (?, ?, ?, ?, ?, ?)")) {
+            int replyNumber = 0;
+            for (int i = 1; i <= posts; i++) {
+                String author = "student" + (i % 50);
+                post.setInt(1, i);
+                post.setString(2, author);
+                post.setString(3, "Post " + i);
+                post.setString(4, "Benchmark content for post " + i);
+                post.setString(5, "General");
+                post.setTimestamp(6, now);
+                post.addBatch();
+                for (int j = 0; j < repliesPerPost; j++) {
+                    boolean isPrivate = replyNumber++ % 10 == 0;
+                    reply.setInt(1, i);
+                    reply.setString(2, isPrivate ? "staff0" : "student" + (j % 50));
+                    reply.setString(3, "Reply " + j + " to post " + i);
+                    reply.setString(4, isPrivate ? "private" : "public");
+                    reply.setString(5, isPrivate ? author : null);
+                    reply.setTimestamp(6, now);
+                    reply.addBatch();
+                }
+                if (i % 1000 == 0) {
+                    post.executeBatch();
+                    reply.executeBatch();
+                }
+            }
+            post.executeBatch();
+            reply.executeBatch();
+        }
+        conn.commit();
+        conn.setAutoCommit(true);
+    }
+
+    private static void resetStatistics(Connection conn) throws SQLException {
+        try (Statement s = conn.createStatement()) {
+            s.execute("SET QUERY_STATISTICS FALSE");
+            s.execute("SET QUERY_STATISTICS TRUE");
+        }
+    }
+
+    /**
+     * Sums the executions H2 recorded since the last reset, ignoring the statistics query itself.
+     */
+    private static long executedQueries(Connection conn) throws SQLException {
+        String sql = "SELECT COALESCE(SUM(EXECUTION_COUNT), 0) FROM INFORMATION_SCHEMA.QUERY_STATISTICS "
+                + "WHERE SQL_STATEMENT NOT LIKE '%QUERY_STATISTICS%'";
+        try (Statement s = conn.createStatement(); ResultSet rs = s.executeQuery(sql)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package performanceTesting;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Random;
+
+import database.Database;
+import database.SearchIndex;
+
+/**
+ * <p> Title: SearchBenchmark Class. </p>
+ *
+ * <p> Description: Compares keyword search through the old LOWER(...) LIKE '%keyword%' filter with
+ * the SearchIndex now used by Database.searchPosts. A board of synthetic posts, whose words follow
+ * a Zipf-like distribution, is seeded into a private in-memory H2 database. For each query the
+ * benchmark reports the average time of the LIKE table scan, of the index lookup alone, and of the
+ * whole searchPosts call (index lookup plus loading the matched rows). </p>
+ *
+ * <p> Usage: SearchBenchmark [posts] [repetitions] (defaults 200000 and 20; pass 1000000 for the
+ * full-size board, which needs about 2 GB of heap) </p>
+ *
+ * <p> Copyright: Lynn Robert Carter © 2025 </p>
+ *
+ * @version 1.00
+ */
+public class SearchBenchmark {
+
+    private static final String DB_URL = "jdbc:h2:mem:searchBenchmark;DB_CLOSE_DELAY=-1";
+    private static final String VIEWER = "student0";
+    private static final int VOCABULARY = 20000;
+    private static final int WORDS_PER_POST = 40;
+
+    public static void main(String[] args) throws Exception {
+        int posts = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+        int repetitions = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        // Create the tables, seed them directly, then reopen so the index is built from the data
+        Database db = new Database(DB_URL);
+        db.connectToDatabase();
+        try (Connection conn = DriverManager.getConnection(DB_URL, "sa", "")) {
+            System.out.println("Seeding " + posts + " posts...");
+            seed(conn, posts);
+            db.closeConnection();
+
+            long start = System.nanoTime();
+            db = new Database(DB_URL);
+            db.connectToDatabase();
+            System.out.printf("Database opened and search index built in %.0f ms%n", (System.nanoTime() - start) / 1e6);
+
+            // A standalone copy of the index, to time the lookup without the row fetch
+            SearchIndex index = buildIndex(conn);
+
+            String[] queries = { word(5), word(200), word(5000), word(19000), word(40) + " " + word(900), "top" };
+            System.out.println();
+            System.out.printf("%-22s %9s %12s %12s %14s%n", "query", "matches", "LIKE ms", "index ms",
+                    "searchPosts ms");
+            for (String query : queries) {
+                int matches = likeSearch(conn, query);
+                long likeNanos = 0, indexNanos = 0, searchNanos = 0;
+                int found = 0;
+                for (int i = 0; i < repetitions; i++) {
+                    long t = System.nanoTime();
+                    likeSearch(conn, query);
+                    likeNanos += System.nanoTime() - t;
+
+                    t = System.nanoTime();
+                    found = index.search(query, "All Threads", VIEWER, Database.Role.STUDENT, Integer.MAX_VALUE).size();
+                    indexNanos += System.nanoTime() - t;
+
+                    t = System.nanoTime();
+                    db.searchPosts(query, "All Threads", VIEWER);
+                    searchNanos += System.nanoTime() - t;
+                }
+                System.out.printf("%-22s %9s %12.2f %12.2f %14.2f%n", query, matches + "/" + found,
+                        likeNanos / 1e6 / repetitions, indexNanos / 1e6 / repetitions,
+                        searchNanos / 1e6 / repetitions);
+            }
+            System.out.println();
+            System.out.println("matches = LIKE substring matches / index word matches");
+        } finally {
+            db.closeConnection();
+        }
+    }
+
+    // The n-th most frequent word of the synthetic vocabulary
+    private static String word(int rank) {
+        return "topic" + rank;
+    }
+
+    /**
+     * Inserts the posts with JDBC batches. Word ranks follow a Zipf-like distribution, so a few
+     * words are in most posts and most words are rare.
+     */
+    private static void seed(Connection conn, int posts) throws SQLException {
+        Random random = new Random(42);
+        double[] cumulative = new double[VOCABULARY];
+        double sum = 0;
+        for (int r = 0; r < VOCABULARY; r++) {
+            sum += 1.0 / (r + 1);
+            cumulative[r] = sum;
+        }
+        conn.setAutoCommit(false);
+        Timestamp now = Timestamp.from(Instant.now());
+        try (PreparedStatement post = conn.prepareStatement(
+                "INSERT INTO postsDB (postID, authorUsername, title, content, thread, timestamp) VALUES (?, ?, ?, ?, ?, ?)")) {
+            for (int i = 1; i <= posts; i++) {
+                StringBuilder content = new StringBuilder();
+                for (int w = 0; w < WORDS_PER_POST; w++) {
+                    double x = random.nextDouble() * sum;
+                    int lo = 0, hi = VOCABULARY - 1;
+                    while (lo < hi) {
+                        int mid = (lo + hi) >>> 1;
+                        if (cumulative[mid] < x)
+                            lo = mid + 1;
+                        else
+                            hi = mid;
+                    }
+                    content.append(word(lo)).append(' ');
+                }
+                post.setInt(1, i);
+                post.setString(2, "student" + (i % 50));
+                post.setString(3, "Post " + i + " about " + word(random.nextInt(VOCABULARY)));
+                post.setString(4, content.toString());
+                post.setString(5, "General");
+                post.setTimestamp(6, now);
+                post.addBatch();
+                if (i % 1000 == 0)
+                    post.executeBatch();
+            }
+            post.executeBatch();
+        }
+        conn.commit();
+        conn.setAutoCommit(true);
+    }
+
+    private static SearchIndex buildIndex(Connection conn) throws SQLException {
+        SearchIndex index = new SearchIndex();
+        try (PreparedStatement ps = conn.prepareStatement(
+                "SELECT postID, authorUsername, title, content, thread FROM postsDB");
+                ResultSet rs = ps.executeQuery()) {
+            while (rs.next())
+                index.indexPost(rs.getInt(1), rs.getString(2), rs.getString(3), rs.getString(4), rs.getString(5));
+        }
+        return index;
+    }
+
+    /**
+     * The filter the old searchPosts used, returning only the number of matches.
+     */
+    private static int likeSearch(Connection conn, String keyword) throws SQLException {
+        String sql = "SELECT COUNT(*) FROM postsDB p WHERE (LOWER(p.title) LIKE LOWER(?) OR LOWER(p.content) LIKE LOWER(?))";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, "%" + keyword + "%");
+            ps.setString(2, "%" + keyword + "%");
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getInt(1);
+            }
+        }
+    }
+}
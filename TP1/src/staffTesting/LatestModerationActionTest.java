@@ -0,0 +1,107 @@
+package staffTesting;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import database.Database;
+import entityClasses.Post;
+
+/**
+ * LatestModerationActionTest — JUnit tests for the moderation metadata the post
+ * list carries.
+ *
+ * <p>
+ * Requirements covered:
+ * </p>
+ * <ul>
+ * <li>R-MOD-09: Each listed post shows the most recent moderation action taken
+ * on it (who and why).</li>
+ * <li>R-MOD-10: Posts that were never moderated carry no moderation
+ * metadata.</li>
+ * </ul>
+ */
+public class LatestModerationActionTest {
+
+    private Database db;
+    private int moderatedPost;
+    private int quietPost;
+
+    @Before
+    public void setUp() throws Exception {
+        db = new Database("jdbc:h2:mem:latestModerationActionTest" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        db.connectToDatabase();
+
+        db.create(new Post(0, "student1", "Moderated", "needs review", "General", false, false, 0, 0));
+        db.create(new Post(0, "student2", "Quiet", "nothing to see", "General", false, false, 0, 0));
+        for (Post p : db.getAllPosts("staff1")) {
+            if (p.getTitle().equals("Moderated"))
+                moderatedPost = p.getPostID();
+            else
+                quietPost = p.getPostID();
+        }
+
+        db.hidePost(moderatedPost, "staff1", "first reason");
+        Thread.sleep(5); // keep the log timestamps distinct
+        db.unhidePost(moderatedPost, "staff2", "second reason");
+    }
+
+    @After
+    public void tearDown() {
+        db.closeConnection();
+    }
+
+    private Post find(List<Post> posts, int postID) {
+        for (Post p : posts) {
+            if (p.getPostID() == postID)
+                return p;
+        }
+        return null;
+    }
+
+    /**
+     * testListShowsLatestAction()
+     *
+     * <p>
+     * Checks: getAllPosts and searchPosts both report the newest log entry for a
+     * moderated post and nothing for an untouched post.
+     * </p>
+     */
+    @Test
+    public void testListShowsLatestAction() {
+        for (List<Post> posts : List.of(db.getAllPosts("staff1"), db.searchPosts("", "All Threads", "staff1"))) {
+            Post moderated = find(posts, moderatedPost);
+            assertEquals("staff2", moderated.getActionUser());
+            assertEquals("second reason", moderated.getActionReason());
+            assertNotNull(moderated.getActionTimestamp());
+            assertTrue(moderated.isVisible());
+
+            Post quiet = find(posts, quietPost);
+            assertNull(quiet.getActionUser());
+            assertNull(quiet.getActionTimestamp());
+        }
+        System.out.println("PASS: testListShowsLatestAction -> latest moderation action is reported.");
+    }
+
+    /**
+     * testFlagBecomesLatestAction()
+     *
+     * <p>
+     * Checks: a flag logged after the unhide replaces it as the latest action.
+     * </p>
+     */
+    @Test
+    public void testFlagBecomesLatestAction() throws Exception {
+        Thread.sleep(5);
+        db.flagPost(moderatedPost, "staff3", "flagged later");
+
+        Post moderated = find(db.getAllPosts("staff1"), moderatedPost);
+        assertEquals("staff3", moderated.getActionUser());
+        assertEquals("flagged later", moderated.getActionReason());
+        System.out.println("PASS: testFlagBecomesLatestAction -> newest log entry wins.");
+    }
+}